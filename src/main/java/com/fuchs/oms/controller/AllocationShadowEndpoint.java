@@ -0,0 +1,28 @@
+package com.fuchs.oms.controller;
+
+import com.fuchs.oms.service.AllocationShadow;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Admin view of allocation shadow mode at {@code /actuator/allocationshadow}: comparison counts,
+ * mean latency of the real allocation and the candidate, and the most recent disagreements.
+ */
+@Component
+@Endpoint(id = "allocationshadow")
+@RequiredArgsConstructor
+public class AllocationShadowEndpoint {
+
+    private final AllocationShadow allocationShadow;
+
+    @ReadOperation
+    public Report report() {
+        return new Report(allocationShadow.summary(), allocationShadow.recentDisagreements());
+    }
+
+    public record Report(AllocationShadow.Summary summary, List<AllocationShadow.Disagreement> disagreements) {}
+}
@@ -2,7 +2,15 @@ package com.fuchs.oms.controller;
 
 import com.fuchs.oms.dto.OrderRequest;
 import com.fuchs.oms.dto.OrderResponse;
+import com.fuchs.oms.dto.ReservationRequest;
+import com.fuchs.oms.dto.ReservationResponse;
+import com.fuchs.oms.exception.UnsupportedSubmitModeException;
+import com.fuchs.oms.service.ConflictRetry;
+import com.fuchs.oms.service.IdempotentOrderSubmission;
+import com.fuchs.oms.service.OrderIntake;
 import com.fuchs.oms.service.OrderService;
+import com.fuchs.oms.service.OrderSubmissionService;
+import com.fuchs.oms.service.ReservationService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
@@ -15,11 +23,15 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.fuchs.oms.security.SecurityUtils;
+import java.net.URI;
 import java.util.List;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/orders")
@@ -28,21 +40,92 @@ import java.util.List;
 public class OrderController {
 
     private final OrderService orderService;
+    private final OrderSubmissionService orderSubmissionService;
+    private final IdempotentOrderSubmission idempotentOrderSubmission;
+    private final OrderIntake orderIntake;
+    private final ReservationService reservationService;
+    private final ConflictRetry conflictRetry;
 
     @PostMapping
     @Operation(
         summary = "Submit order",
-        description = "Submit a new order for allocation to the best-priced vendor with stock"
+        description = "Submit a new order for allocation to the best-priced vendor with stock. "
+            + "With \"backorder\": true an order that finds no stock is kept as PENDING and allocated "
+            + "once stock arrives; follow it through GET /api/orders/{orderId}. "
+            + "With mode=async the order is accepted as PENDING and allocated in the background; "
+            + "poll GET /api/orders/{orderId} until it is ALLOCATED or REJECTED. "
+            + "With an Idempotency-Key header, resending the same order with the same key "
+            + "returns the order the first request created instead of allocating again"
     )
     @ApiResponses(value = {
-        @ApiResponse(responseCode = "201", description = "Order created and allocated"),
-        @ApiResponse(responseCode = "400", description = "Validation error or no stock available"),
+        @ApiResponse(responseCode = "201", description = "Order created and allocated, or queued as a PENDING backorder"),
+        @ApiResponse(responseCode = "202", description = "Order accepted for asynchronous allocation (mode=async)"),
+        @ApiResponse(responseCode = "400", description = "Validation error, unknown mode or no stock available"),
         @ApiResponse(responseCode = "401", description = "Unauthorized - invalid or missing JWT"),
-        @ApiResponse(responseCode = "404", description = "Product not found")
+        @ApiResponse(responseCode = "404", description = "Product not found"),
+        @ApiResponse(responseCode = "409", description = "Stock row stayed contended after retries, or the "
+            + "Idempotency-Key is still being processed or was used for a different order"),
+        @ApiResponse(responseCode = "503", description = "Order engine is saturated")
     })
     public ResponseEntity<OrderResponse> createOrder(
-            @Valid @RequestBody OrderRequest request) {
-        OrderResponse response = orderService.createOrder(request);
+            @Valid @RequestBody OrderRequest request,
+            @RequestParam(value = "mode", defaultValue = "sync") String mode,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        boolean async = isAsync(mode);
+        Supplier<OrderResponse> submission;
+        if (async) {
+            // Async orders are followed by polling, so the submitter is always recorded
+            Long submittedBy = SecurityUtils.getCurrentVendorId();
+            submission = () -> orderIntake.accept(request, submittedBy);
+        } else {
+            // Only backorders outlive the request, so only they record who placed them
+            Long submittedBy = request.isBackorderRequested() ? SecurityUtils.getCurrentVendorId() : null;
+            submission = () -> orderSubmissionService.submit(request, submittedBy);
+        }
+        OrderResponse response = idempotencyKey == null
+            ? submission.get()
+            : idempotentOrderSubmission.submit(SecurityUtils.getCurrentVendorId(), idempotencyKey, request, async,
+                submission);
+        if (async) {
+            return ResponseEntity.accepted()
+                .location(URI.create("/api/orders/" + response.getOrderId()))
+                .body(response);
+        }
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+
+    @PostMapping("/reservations")
+    @Operation(
+        summary = "Reserve stock",
+        description = "Hold stock at the best-priced vendor for a limited time; confirm the reservation to create the order"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "201", description = "Stock reserved"),
+        @ApiResponse(responseCode = "400", description = "Validation error or no stock available"),
+        @ApiResponse(responseCode = "401", description = "Unauthorized - invalid or missing JWT"),
+        @ApiResponse(responseCode = "404", description = "Product not found"),
+        @ApiResponse(responseCode = "409", description = "Stock row stayed contended after retries")
+    })
+    public ResponseEntity<ReservationResponse> reserve(
+            @Valid @RequestBody ReservationRequest request) {
+        ReservationResponse response = conflictRetry.execute("reserve", request.getProductId(),
+            () -> reservationService.reserve(request));
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+
+    @PostMapping("/reservations/{reservationId}/confirm")
+    @Operation(
+        summary = "Confirm reservation",
+        description = "Create the order for a held reservation at its reserved vendor"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "201", description = "Order created from the reservation"),
+        @ApiResponse(responseCode = "401", description = "Unauthorized - invalid or missing JWT"),
+        @ApiResponse(responseCode = "404", description = "Reservation not found"),
+        @ApiResponse(responseCode = "409", description = "Reservation expired or was already confirmed")
+    })
+    public ResponseEntity<OrderResponse> confirmReservation(@PathVariable Long reservationId) {
+        OrderResponse response = reservationService.confirm(reservationId);
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
@@ -64,16 +147,27 @@ public class OrderController {
     @GetMapping("/{orderId}")
     @Operation(
         summary = "Get order details",
-        description = "Get details of a specific order allocated to the authenticated vendor"
+        description = "Get details of a specific order allocated to the authenticated vendor, "
+            + "or of a backorder it placed"
     )
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Order details retrieved successfully"),
         @ApiResponse(responseCode = "401", description = "Unauthorized - invalid or missing JWT"),
-        @ApiResponse(responseCode = "404", description = "Order not found or not allocated to this vendor")
+        @ApiResponse(responseCode = "404", description = "Order not found, or neither allocated to nor placed by this vendor")
     })
     public ResponseEntity<OrderResponse> getOrderById(@PathVariable Long orderId) {
         Long vendorId = SecurityUtils.getCurrentVendorId();
         OrderResponse order = orderService.getOrderById(orderId, vendorId);
         return ResponseEntity.ok(order);
     }
+
+    private static boolean isAsync(String mode) {
+        if ("async".equalsIgnoreCase(mode)) {
+            return true;
+        }
+        if ("sync".equalsIgnoreCase(mode)) {
+            return false;
+        }
+        throw new UnsupportedSubmitModeException(mode);
+    }
 }
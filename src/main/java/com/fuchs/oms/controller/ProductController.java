@@ -2,6 +2,8 @@ package com.fuchs.oms.controller;
 
 import com.fuchs.oms.dto.ProductRequest;
 import com.fuchs.oms.dto.ProductResponse;
+import com.fuchs.oms.dto.QuoteRequest;
+import com.fuchs.oms.dto.QuoteResponse;
 import com.fuchs.oms.service.ProductService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -56,6 +58,21 @@ public class ProductController {
         return ResponseEntity.ok(product);
     }
 
+    @GetMapping("/{id}/quote")
+    @Operation(
+        summary = "Quote an order",
+        description = "Get the vendor, unit price and total an order for this quantity would be allocated at "
+            + "right now, without placing it. Served from the in-memory offer book; no stock is reserved"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Quote computed"),
+        @ApiResponse(responseCode = "400", description = "Validation error or no stock available"),
+        @ApiResponse(responseCode = "404", description = "Product not found")
+    })
+    public ResponseEntity<QuoteResponse> quote(@PathVariable Long id, @Valid QuoteRequest request) {
+        return ResponseEntity.ok(productService.quote(id, request));
+    }
+
     @PostMapping
     @Operation(
         summary = "Create a new product",
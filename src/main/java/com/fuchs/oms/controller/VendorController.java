@@ -1,6 +1,10 @@
 package com.fuchs.oms.controller;
 
+import com.fuchs.oms.dto.CapacityResponse;
+import com.fuchs.oms.dto.CapacityUpdateRequest;
 import com.fuchs.oms.dto.EnrollProductRequest;
+import com.fuchs.oms.dto.LocationResponse;
+import com.fuchs.oms.dto.LocationUpdateRequest;
 import com.fuchs.oms.dto.PriceUpdateRequest;
 import com.fuchs.oms.dto.PriceUpdateResponse;
 import com.fuchs.oms.dto.StockUpdateRequest;
@@ -8,6 +12,7 @@ import com.fuchs.oms.dto.StockUpdateResponse;
 import com.fuchs.oms.dto.VendorProductResponse;
 import com.fuchs.oms.exception.VendorAccessDeniedException;
 import com.fuchs.oms.security.SecurityUtils;
+import com.fuchs.oms.service.ConflictRetry;
 import com.fuchs.oms.service.VendorService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -28,6 +33,7 @@ import java.util.List;
 public class VendorController {
 
     private final VendorService vendorService;
+    private final ConflictRetry conflictRetry;
 
     @GetMapping("/{vendorId}/products")
     @Operation(
@@ -58,7 +64,8 @@ public class VendorController {
         @ApiResponse(responseCode = "400", description = "Invalid price value"),
         @ApiResponse(responseCode = "401", description = "Unauthorized - invalid or missing JWT"),
         @ApiResponse(responseCode = "403", description = "Forbidden - cannot update other vendor's prices"),
-        @ApiResponse(responseCode = "404", description = "Product not found for this vendor")
+        @ApiResponse(responseCode = "404", description = "Product not found for this vendor"),
+        @ApiResponse(responseCode = "409", description = "Stock row stayed contended after retries")
     })
     public ResponseEntity<PriceUpdateResponse> updatePrice(
             @PathVariable Long vendorId,
@@ -68,7 +75,8 @@ public class VendorController {
         if (!currentVendorId.equals(vendorId)) {
             throw new VendorAccessDeniedException("Access denied: You can only update your own prices");
         }
-        PriceUpdateResponse response = vendorService.updatePrice(vendorId, productId, request);
+        PriceUpdateResponse response = conflictRetry.execute("updatePrice", productId,
+            () -> vendorService.updatePrice(vendorId, productId, request));
         return ResponseEntity.ok(response);
     }
 
@@ -82,7 +90,8 @@ public class VendorController {
         @ApiResponse(responseCode = "400", description = "Invalid stock value"),
         @ApiResponse(responseCode = "401", description = "Unauthorized - invalid or missing JWT"),
         @ApiResponse(responseCode = "403", description = "Forbidden - cannot update other vendor's stock"),
-        @ApiResponse(responseCode = "404", description = "Product not found for this vendor")
+        @ApiResponse(responseCode = "404", description = "Product not found for this vendor"),
+        @ApiResponse(responseCode = "409", description = "Stock row stayed contended after retries")
     })
     public ResponseEntity<StockUpdateResponse> updateStock(
             @PathVariable Long vendorId,
@@ -92,7 +101,8 @@ public class VendorController {
         if (!currentVendorId.equals(vendorId)) {
             throw new VendorAccessDeniedException("Access denied: You can only update your own stock");
         }
-        StockUpdateResponse response = vendorService.updateStock(vendorId, productId, request);
+        StockUpdateResponse response = conflictRetry.execute("updateStock", productId,
+            () -> vendorService.updateStock(vendorId, productId, request));
         return ResponseEntity.ok(response);
     }
 
@@ -116,7 +126,8 @@ public class VendorController {
         if (!currentVendorId.equals(vendorId)) {
             throw new VendorAccessDeniedException("Access denied: You can only enroll yourself in products");
         }
-        VendorProductResponse response = vendorService.enrollProduct(vendorId, request);
+        VendorProductResponse response = conflictRetry.execute("enrollProduct", request.getProductId(),
+            () -> vendorService.enrollProduct(vendorId, request));
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
@@ -138,7 +149,70 @@ public class VendorController {
         if (!currentVendorId.equals(vendorId)) {
             throw new VendorAccessDeniedException("Access denied: You can only unenroll yourself from products");
         }
-        vendorService.unenrollProduct(vendorId, productId);
+        conflictRetry.run("unenrollProduct", productId,
+            () -> vendorService.unenrollProduct(vendorId, productId));
         return ResponseEntity.noContent().build();
     }
+
+    @GetMapping("/{vendorId}/capacity")
+    @Operation(
+        summary = "Get hourly capacity",
+        description = "Get the authenticated vendor's hourly order and unit capacity and its usage over the last hour"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Capacity retrieved successfully"),
+        @ApiResponse(responseCode = "401", description = "Unauthorized - invalid or missing JWT"),
+        @ApiResponse(responseCode = "403", description = "Forbidden - cannot access other vendor's data")
+    })
+    public ResponseEntity<CapacityResponse> getCapacity(@PathVariable Long vendorId) {
+        Long currentVendorId = SecurityUtils.getCurrentVendorId();
+        if (!currentVendorId.equals(vendorId)) {
+            throw new VendorAccessDeniedException("Access denied: You can only access your own data");
+        }
+        return ResponseEntity.ok(vendorService.getCapacity(vendorId));
+    }
+
+    @PutMapping("/{vendorId}/capacity")
+    @Operation(
+        summary = "Update hourly capacity",
+        description = "Limit how many orders and units per rolling hour are allocated to the authenticated vendor; "
+            + "null removes a limit. Orders skip a vendor at capacity for the next cheapest one."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Capacity updated successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid capacity value"),
+        @ApiResponse(responseCode = "401", description = "Unauthorized - invalid or missing JWT"),
+        @ApiResponse(responseCode = "403", description = "Forbidden - cannot update other vendor's capacity")
+    })
+    public ResponseEntity<CapacityResponse> updateCapacity(
+            @PathVariable Long vendorId,
+            @Valid @RequestBody CapacityUpdateRequest request) {
+        Long currentVendorId = SecurityUtils.getCurrentVendorId();
+        if (!currentVendorId.equals(vendorId)) {
+            throw new VendorAccessDeniedException("Access denied: You can only update your own capacity");
+        }
+        return ResponseEntity.ok(vendorService.updateCapacity(vendorId, request));
+    }
+
+    @PutMapping("/{vendorId}/location")
+    @Operation(
+        summary = "Update shipping origin",
+        description = "Set where the authenticated vendor ships from; orders with a delivery location "
+            + "are allocated among vendors within range of it"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Location updated successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid coordinates"),
+        @ApiResponse(responseCode = "401", description = "Unauthorized - invalid or missing JWT"),
+        @ApiResponse(responseCode = "403", description = "Forbidden - cannot update other vendor's location")
+    })
+    public ResponseEntity<LocationResponse> updateLocation(
+            @PathVariable Long vendorId,
+            @Valid @RequestBody LocationUpdateRequest request) {
+        Long currentVendorId = SecurityUtils.getCurrentVendorId();
+        if (!currentVendorId.equals(vendorId)) {
+            throw new VendorAccessDeniedException("Access denied: You can only update your own location");
+        }
+        return ResponseEntity.ok(vendorService.updateLocation(vendorId, request));
+    }
 }
@@ -0,0 +1,17 @@
+package com.fuchs.oms.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CapacityResponse {
+    private Long vendorId;
+    private String vendorName;
+    private Integer hourlyOrderCapacity;
+    private Integer hourlyUnitCapacity;
+    private Long ordersLastHour;
+    private Long unitsLastHour;
+}
@@ -0,0 +1,20 @@
+package com.fuchs.oms.dto;
+
+import jakarta.validation.constraints.Min;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Hourly capacity for a vendor; a null limit removes it.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CapacityUpdateRequest {
+    @Min(value = 1, message = "Hourly order capacity must be at least 1")
+    private Integer hourlyOrderCapacity;
+
+    @Min(value = 1, message = "Hourly unit capacity must be at least 1")
+    private Integer hourlyUnitCapacity;
+}
@@ -0,0 +1,15 @@
+package com.fuchs.oms.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LocationResponse {
+    private Long vendorId;
+    private String vendorName;
+    private Double latitude;
+    private Double longitude;
+}
@@ -0,0 +1,17 @@
+package com.fuchs.oms.dto;
+
+/**
+ * Priority class of an order, used by the prioritized order engine to pick which waiting
+ * order is allocated next.
+ */
+public enum OrderPriority {
+
+    /** Latency-sensitive orders, served ahead of everything else by weight. */
+    EXPEDITED,
+
+    /** Regular orders; the default when a request does not name a priority. */
+    STANDARD,
+
+    /** Large ingestion runs that can tolerate queueing. */
+    BULK
+}
@@ -1,5 +1,9 @@
 package com.fuchs.oms.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
@@ -17,4 +21,44 @@ public class OrderRequest {
     @NotNull(message = "Quantity is required")
     @Min(value = 1, message = "Quantity must be at least 1")
     private Integer quantity;
+
+    // Optional delivery location; when set, allocation prefers vendors shipping from nearby
+    @DecimalMin(value = "-90.0", message = "Delivery latitude must be between -90 and 90")
+    @DecimalMax(value = "90.0", message = "Delivery latitude must be between -90 and 90")
+    private Double deliveryLatitude;
+
+    @DecimalMin(value = "-180.0", message = "Delivery longitude must be between -180 and 180")
+    @DecimalMax(value = "180.0", message = "Delivery longitude must be between -180 and 180")
+    private Double deliveryLongitude;
+
+    // Opt-in: when no vendor has stock, keep the order as PENDING and allocate it on restock
+    private Boolean backorder;
+
+    // Optional priority class, honored by the prioritized order engine; STANDARD when omitted
+    private OrderPriority priority;
+
+    public OrderRequest(Long productId, Integer quantity) {
+        this(productId, quantity, null, null, null, null);
+    }
+
+    @JsonIgnore
+    public boolean hasDeliveryLocation() {
+        return deliveryLatitude != null && deliveryLongitude != null;
+    }
+
+    @JsonIgnore
+    public boolean isBackorderRequested() {
+        return Boolean.TRUE.equals(backorder);
+    }
+
+    @JsonIgnore
+    public OrderPriority effectivePriority() {
+        return priority != null ? priority : OrderPriority.STANDARD;
+    }
+
+    @JsonIgnore
+    @AssertTrue(message = "Delivery latitude and longitude must be given together")
+    public boolean isDeliveryLocationComplete() {
+        return (deliveryLatitude == null) == (deliveryLongitude == null);
+    }
 }
@@ -19,4 +19,12 @@ public class OrderResponse {
     private java.math.BigDecimal totalPrice;
     private String status;
     private String createdAt;  // ISO 8601 format
+    private String rejectionReason;  // why a REJECTED order could not be allocated
+
+    public OrderResponse(Long orderId, Long productId, String productName, Integer quantity,
+                         Long allocatedVendorId, String allocatedVendorName, java.math.BigDecimal price,
+                         java.math.BigDecimal totalPrice, String status, String createdAt) {
+        this(orderId, productId, productName, quantity, allocatedVendorId, allocatedVendorName, price,
+            totalPrice, status, createdAt, null);
+    }
 }
@@ -0,0 +1,31 @@
+package com.fuchs.oms.dto;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import com.fuchs.oms.model.OutboxEvent;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * An outbox event as delivered to a sink. Consumers should treat {@code id} as the event's
+ * identity: delivery is at-least-once, so an event may arrive more than once. {@code sequence}
+ * numbers a product's events in commit order without gaps.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxMessage {
+
+    private Long id;
+    private String type;
+    private Long productId;
+    private Long sequence;
+    @JsonRawValue
+    private String payload;  // the event's JSON document
+    private String createdAt;  // ISO 8601 format
+
+    public static OutboxMessage of(OutboxEvent event) {
+        return new OutboxMessage(event.getId(), event.getEventType(), event.getProductId(), event.getProductSeq(),
+            event.getPayload(), event.getCreatedAt().toString());
+    }
+}
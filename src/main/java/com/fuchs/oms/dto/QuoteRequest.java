@@ -0,0 +1,41 @@
+package com.fuchs.oms.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuoteRequest {
+
+    @NotNull(message = "Quantity is required")
+    @Min(value = 1, message = "Quantity must be at least 1")
+    private Integer quantity;
+
+    // Optional delivery location, quoted the way such an order would be allocated
+    @DecimalMin(value = "-90.0", message = "Delivery latitude must be between -90 and 90")
+    @DecimalMax(value = "90.0", message = "Delivery latitude must be between -90 and 90")
+    private Double deliveryLatitude;
+
+    @DecimalMin(value = "-180.0", message = "Delivery longitude must be between -180 and 180")
+    @DecimalMax(value = "180.0", message = "Delivery longitude must be between -180 and 180")
+    private Double deliveryLongitude;
+
+    @JsonIgnore
+    public boolean hasDeliveryLocation() {
+        return deliveryLatitude != null && deliveryLongitude != null;
+    }
+
+    @JsonIgnore
+    @AssertTrue(message = "Delivery latitude and longitude must be given together")
+    public boolean isDeliveryLocationComplete() {
+        return (deliveryLatitude == null) == (deliveryLongitude == null);
+    }
+}
@@ -0,0 +1,19 @@
+package com.fuchs.oms.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuoteResponse {
+    private Long productId;
+    private Integer quantity;
+    private Long vendorId;
+    private String vendorName;
+    private BigDecimal unitPrice;
+    private BigDecimal totalPrice;
+}
@@ -0,0 +1,21 @@
+package com.fuchs.oms.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservationResponse {
+    private Long reservationId;
+    private Long productId;
+    private String productName;
+    private Integer quantity;
+    private Long vendorId;
+    private String vendorName;
+    private BigDecimal price;
+    private String status;
+    private String expiresAt;  // ISO 8601 format
+}
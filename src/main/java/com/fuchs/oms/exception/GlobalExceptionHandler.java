@@ -1,6 +1,7 @@
 package com.fuchs.oms.exception;
 
 import com.fuchs.oms.dto.ErrorResponse;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -147,4 +148,64 @@ public class GlobalExceptionHandler {
         );
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
     }
+
+    @ExceptionHandler(ConcurrencyFailureException.class)
+    public ResponseEntity<ErrorResponse> handleConcurrencyFailure(ConcurrencyFailureException ex) {
+        ErrorResponse error = new ErrorResponse(
+            "The resource was updated concurrently, please retry",
+            409,
+            Instant.now().toString()
+        );
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+
+    @ExceptionHandler(ReservationNotHeldException.class)
+    public ResponseEntity<ErrorResponse> handleReservationNotHeld(ReservationNotHeldException ex) {
+        ErrorResponse error = new ErrorResponse(
+            ex.getMessage(),
+            409,
+            Instant.now().toString()
+        );
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+
+    @ExceptionHandler(OrderEngineBusyException.class)
+    public ResponseEntity<ErrorResponse> handleOrderEngineBusy(OrderEngineBusyException ex) {
+        ErrorResponse error = new ErrorResponse(
+            ex.getMessage(),
+            503,
+            Instant.now().toString()
+        );
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(error);
+    }
+
+    @ExceptionHandler(IdempotencyKeyConflictException.class)
+    public ResponseEntity<ErrorResponse> handleIdempotencyKeyConflict(IdempotencyKeyConflictException ex) {
+        ErrorResponse error = new ErrorResponse(
+            ex.getMessage(),
+            409,
+            Instant.now().toString()
+        );
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+
+    @ExceptionHandler(InvalidIdempotencyKeyException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidIdempotencyKey(InvalidIdempotencyKeyException ex) {
+        ErrorResponse error = new ErrorResponse(
+            ex.getMessage(),
+            400,
+            Instant.now().toString()
+        );
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+
+    @ExceptionHandler(UnsupportedSubmitModeException.class)
+    public ResponseEntity<ErrorResponse> handleUnsupportedSubmitMode(UnsupportedSubmitModeException ex) {
+        ErrorResponse error = new ErrorResponse(
+            ex.getMessage(),
+            400,
+            Instant.now().toString()
+        );
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
 }
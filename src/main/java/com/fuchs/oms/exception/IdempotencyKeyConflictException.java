@@ -0,0 +1,12 @@
+package com.fuchs.oms.exception;
+
+/**
+ * Exception thrown when an order's Idempotency-Key is still being processed by another request,
+ * or was already used for a different order. Results in a 409 Conflict response.
+ */
+public class IdempotencyKeyConflictException extends RuntimeException {
+
+    public IdempotencyKeyConflictException(String message) {
+        super(message);
+    }
+}
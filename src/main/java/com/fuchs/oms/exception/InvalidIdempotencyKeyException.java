@@ -0,0 +1,12 @@
+package com.fuchs.oms.exception;
+
+/**
+ * Exception thrown when an Idempotency-Key header is blank or too long.
+ * Results in a 400 Bad Request response.
+ */
+public class InvalidIdempotencyKeyException extends RuntimeException {
+
+    public InvalidIdempotencyKeyException(String message) {
+        super(message);
+    }
+}
@@ -6,7 +6,14 @@ package com.fuchs.oms.exception;
  */
 public class NoStockAvailableException extends RuntimeException {
 
+    private final String productName;
+
     public NoStockAvailableException(String productName) {
         super("No vendor has stock for product: " + productName);
+        this.productName = productName;
+    }
+
+    public String getProductName() {
+        return productName;
     }
 }
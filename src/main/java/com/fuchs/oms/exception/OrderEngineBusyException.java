@@ -0,0 +1,31 @@
+package com.fuchs.oms.exception;
+
+import com.fuchs.oms.dto.OrderResponse;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Exception thrown when an order engine cannot accept or finish an order in time,
+ * e.g. because its queue is full. Results in a 503 Service Unavailable response.
+ */
+public class OrderEngineBusyException extends RuntimeException {
+
+    private final transient CompletableFuture<OrderResponse> outcome;
+
+    public OrderEngineBusyException(String message) {
+        this(message, null);
+    }
+
+    /**
+     * @param outcome the order's eventual outcome if the engine may still allocate it, null if
+     *        the order was never accepted or has been withdrawn
+     */
+    public OrderEngineBusyException(String message, CompletableFuture<OrderResponse> outcome) {
+        super(message);
+        this.outcome = outcome;
+    }
+
+    public CompletableFuture<OrderResponse> getOutcome() {
+        return outcome;
+    }
+}
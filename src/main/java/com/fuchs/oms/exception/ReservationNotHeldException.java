@@ -0,0 +1,12 @@
+package com.fuchs.oms.exception;
+
+/**
+ * Exception thrown when confirming a reservation that has already expired or been confirmed.
+ * Results in a 409 Conflict response.
+ */
+public class ReservationNotHeldException extends RuntimeException {
+
+    public ReservationNotHeldException(Long reservationId) {
+        super("Reservation is no longer held: reservationId=" + reservationId);
+    }
+}
@@ -0,0 +1,12 @@
+package com.fuchs.oms.exception;
+
+/**
+ * Exception thrown when an order is submitted with a mode other than sync or async.
+ * Results in a 400 Bad Request response.
+ */
+public class UnsupportedSubmitModeException extends RuntimeException {
+
+    public UnsupportedSubmitModeException(String mode) {
+        super("Unsupported order submit mode: " + mode + " (use sync or async)");
+    }
+}
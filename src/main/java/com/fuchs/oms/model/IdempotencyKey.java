@@ -0,0 +1,48 @@
+package com.fuchs.oms.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * An {@code Idempotency-Key} sent with an order by a vendor account. The row is claimed before the
+ * order is allocated and points at the order once it exists; the unique index on vendor and key
+ * makes sure only one submission with the same key allocates stock.
+ */
+@Entity
+@Table(name = "idempotency_keys",
+    uniqueConstraints = @UniqueConstraint(name = "uk_idempotency_keys_vendor_key",
+        columnNames = {"vendor_id", "idempotency_key"}),
+    indexes = @Index(name = "idx_idempotency_keys_created", columnList = "created_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyKey {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "vendor_id", nullable = false)
+    private Long vendorId;
+
+    @Column(name = "idempotency_key", nullable = false, length = 100)
+    private String idempotencyKey;
+
+    @Column(name = "request_fingerprint", nullable = false, length = 200)
+    private String requestFingerprint;  // a replay must carry the same order as the first request
+
+    @Column(name = "order_id")
+    private Long orderId;  // null while the first request is still being allocated
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
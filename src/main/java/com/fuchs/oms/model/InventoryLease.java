@@ -0,0 +1,60 @@
+package com.fuchs.oms.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A chunk of one vendor's stock for a product, taken out of vendor_products by one OMS node
+ * so that node can allocate from it locally. Whatever the node has not allocated goes back
+ * to the vendor when the lease is returned.
+ */
+@Entity
+@Table(name = "inventory_leases", indexes = @Index(name = "idx_inventory_leases_status", columnList = "status"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryLease {
+
+    public static final String ACTIVE = "ACTIVE";
+    public static final String RETURNED = "RETURNED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "node_id", nullable = false, length = 64)
+    private String nodeId;
+
+    @Column(name = "vendor_id", nullable = false)
+    private Long vendorId;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "quantity", nullable = false)
+    private Integer quantity;
+
+    @Column(name = "returned_quantity")
+    private Integer returnedQuantity;
+
+    @Column(name = "status", nullable = false, length = 20)
+    private String status;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        if (status == null) {
+            status = ACTIVE;
+        }
+    }
+}
@@ -4,32 +4,87 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+    @Index(name = "idx_orders_vendor_created", columnList = "allocated_vendor_id, created_at"),
+    @Index(name = "idx_orders_status_product", columnList = "status, product_id"),
+    @Index(name = "idx_orders_intake", columnList = "intake, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Order {
 
+    public static final String PENDING = "PENDING";
+    public static final String ALLOCATED = "ALLOCATED";
+    public static final String REJECTED = "REJECTED";
+    public static final int ID_BLOCK_SIZE = 50;
+
+    // Ids come from a sequence in blocks of ID_BLOCK_SIZE (pooled-lo), so bulk orders need no round trip
+    // per row and can be inserted in JDBC batches. Plain SQL inserts draw from the same sequence.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = ID_BLOCK_SIZE)
+    @ColumnDefault("next value for orders_seq")
     private Long id;
 
     @Column(name = "product_id", nullable = false)
     private Long productId;
 
+    // Product, vendor and price are copied onto the order when it is placed and allocated,
+    // so reads need no join and later repricing or unenrolling does not change past orders
+    @Column(name = "product_code", length = 50)
+    private String productCode;
+
+    @Column(name = "product_name", length = 100)
+    private String productName;
+
     @Column(name = "quantity", nullable = false)
     private Integer quantity;
 
     @Column(name = "allocated_vendor_id")
     private Long allocatedVendorId;
 
+    @Column(name = "vendor_name", length = 100)
+    private String vendorName;
+
+    @Column(name = "unit_price", precision = 10, scale = 2)
+    private BigDecimal unitPrice;
+
+    @Column(name = "total_price", precision = 12, scale = 2)
+    private BigDecimal totalPrice;
+
+    @Column(name = "lease_id")
+    private Long leaseId;  // inventory lease the stock came from, when allocated in leased mode
+
+    @Column(name = "submitted_by")
+    private Long submittedBy;  // vendor account that placed a backorder, so it can follow the order
+
+    @Column(name = "delivery_latitude")
+    private Double deliveryLatitude;  // kept for backorders, which are allocated after the request
+
+    @Column(name = "delivery_longitude")
+    private Double deliveryLongitude;
+
+    @ColumnDefault("false")
+    @Column(name = "intake", nullable = false)
+    private boolean intake;  // accepted asynchronously and not yet picked up by an intake worker
+
+    @ColumnDefault("false")
+    @Column(name = "backorder_requested", nullable = false)
+    private boolean backorderRequested;  // kept for intake orders, which become backorders if no vendor has stock
+
     @Column(name = "status", nullable = false, length = 20)
     private String status;
 
+    @Column(name = "rejection_reason")
+    private String rejectionReason;
+
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
@@ -37,7 +92,7 @@ public class Order {
     protected void onCreate() {
         createdAt = LocalDateTime.now();
         if (status == null) {
-            status = "PENDING";
+            status = PENDING;
         }
     }
 }
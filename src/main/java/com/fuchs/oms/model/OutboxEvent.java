@@ -0,0 +1,53 @@
+package com.fuchs.oms.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.time.LocalDateTime;
+
+/**
+ * An order or inventory event waiting to be relayed to downstream systems. It is written in the
+ * same transaction as the change it describes, so it exists exactly when the change committed,
+ * and is deleted once a sink has accepted it.
+ */
+@Entity
+@Table(name = "outbox_events", indexes = @Index(name = "idx_outbox_events_seq", columnList = "product_seq, id"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+
+    public static final String ORDER_ALLOCATED = "OrderAllocated";
+    public static final String STOCK_CHANGED = "StockChanged";
+
+    // Ids come from a sequence in blocks of 50 (pooled-lo), so events written with a batch of
+    // orders are inserted in the same JDBC batches
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_events_seq")
+    @SequenceGenerator(name = "outbox_events_seq", sequenceName = "outbox_events_seq", allocationSize = 50)
+    @ColumnDefault("next value for outbox_events_seq")
+    private Long id;
+
+    @Column(name = "event_type", nullable = false, length = 50)
+    private String eventType;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "product_seq", nullable = false)
+    private Long productSeq;  // position among the product's events in commit order, without gaps
+
+    @Column(name = "payload", nullable = false, length = 2000)
+    private String payload;  // JSON
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 import java.time.LocalDateTime;
 
 @Entity
@@ -33,6 +34,12 @@ public class Product {
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
+    // Last outbox sequence number given to an event of this product; only Outbox writes it,
+    // under this row's lock, so JPA never reads it back into an update
+    @Column(name = "outbox_seq", nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    private Long outboxSeq;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
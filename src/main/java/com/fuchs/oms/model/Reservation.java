@@ -0,0 +1,60 @@
+package com.fuchs.oms.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Stock held at the allocated vendor until the reservation is confirmed into an order or expires.
+ * The stock is decremented when the reservation is made, so a hold never keeps a row lock open.
+ */
+@Entity
+@Table(name = "reservations", indexes = @Index(name = "idx_reservations_status", columnList = "status"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Reservation {
+
+    public static final String HELD = "HELD";
+    public static final String CONFIRMED = "CONFIRMED";
+    public static final String RELEASED = "RELEASED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "quantity", nullable = false)
+    private Integer quantity;
+
+    @Column(name = "vendor_id", nullable = false)
+    private Long vendorId;
+
+    @Column(name = "lease_id")
+    private Long leaseId;  // inventory lease the stock came from, when allocated in leased mode
+
+    @Column(name = "status", nullable = false, length = 20)
+    private String status;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        if (status == null) {
+            status = HELD;
+        }
+    }
+}
@@ -26,6 +26,18 @@ public class Vendor {
     @Column(name = "name", nullable = false, length = 100)
     private String name;
 
+    @Column(name = "hourly_order_capacity")
+    private Integer hourlyOrderCapacity;  // max orders allocated per rolling hour, null for no limit
+
+    @Column(name = "hourly_unit_capacity")
+    private Integer hourlyUnitCapacity;  // max units allocated per rolling hour, null for no limit
+
+    @Column(name = "latitude")
+    private Double latitude;  // shipping origin, null if not set
+
+    @Column(name = "longitude")
+    private Double longitude;
+
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
@@ -4,20 +4,28 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "vendor_products", uniqueConstraints = {
     @UniqueConstraint(columnNames = {"vendor_id", "product_id"})
+}, indexes = {
+    // Covers the allocation winner query: seek by product, walk in FR12 order, filter on stock
+    @Index(name = "idx_vendor_products_allocation", columnList = "product_id, price, vendor_id, stock")
 })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class VendorProduct {
 
+    // Ids come from a sequence in blocks of 50 (pooled-lo), so bulk enrollments need no round trip
+    // per row and can be inserted in JDBC batches. Plain SQL inserts draw from the same sequence.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "vendor_products_seq")
+    @SequenceGenerator(name = "vendor_products_seq", sequenceName = "vendor_products_seq", allocationSize = 50)
+    @ColumnDefault("next value for vendor_products_seq")
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -37,6 +45,15 @@ public class VendorProduct {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    /**
+     * Optimistic lock version. Entity updates fail with an optimistic locking exception if the
+     * row changed since it was read; guarded stock decrements bump it explicitly.
+     */
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @PrePersist
     @PreUpdate
     protected void onUpdate() {
@@ -0,0 +1,13 @@
+package com.fuchs.oms.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Lean allocation projection: just the columns needed to claim a vendor's stock,
+ * read straight from the covering index without hydrating any entity.
+ *
+ * @param vendorId the vendor holding the stock
+ * @param price the vendor's unit price
+ * @param stock the vendor's current stock
+ */
+public record AllocationCandidate(Long vendorId, BigDecimal price, Integer stock) {}
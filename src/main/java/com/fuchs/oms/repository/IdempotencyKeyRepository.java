@@ -0,0 +1,35 @@
+package com.fuchs.oms.repository;
+
+import com.fuchs.oms.model.IdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, Long> {
+
+    Optional<IdempotencyKey> findByVendorIdAndIdempotencyKey(Long vendorId, String idempotencyKey);
+
+    /**
+     * Points a claimed key at the order its request created.
+     *
+     * @return 1 if the claim was still there, 0 otherwise
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE IdempotencyKey k SET k.orderId = :orderId WHERE k.id = :id")
+    int complete(@Param("id") Long id, @Param("orderId") Long orderId);
+
+    /**
+     * Deletes keys older than the retention window with a single statement.
+     *
+     * @return the number of keys deleted
+     */
+    @Modifying
+    @Query("DELETE FROM IdempotencyKey k WHERE k.createdAt < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
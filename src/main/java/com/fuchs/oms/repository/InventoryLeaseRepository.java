@@ -0,0 +1,36 @@
+package com.fuchs.oms.repository;
+
+import com.fuchs.oms.model.InventoryLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface InventoryLeaseRepository extends JpaRepository<InventoryLease, Long> {
+
+    /**
+     * Find a node's leases in a given status, e.g. leases left ACTIVE by a previous run of the node.
+     */
+    List<InventoryLease> findByNodeIdAndStatus(String nodeId, String status);
+
+    /**
+     * Find leases still ACTIVE well past their expiry, i.e. leases whose node stopped without returning them.
+     */
+    List<InventoryLease> findByStatusAndExpiresAtBefore(String status, LocalDateTime cutoff);
+
+    /**
+     * Marks an ACTIVE lease as RETURNED. Guarded on status so a lease is returned exactly once,
+     * whether by its own node or by another node reclaiming it.
+     *
+     * @return 1 if this call returned the lease, 0 if it was already returned
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE InventoryLease l SET l.status = 'RETURNED', l.returnedQuantity = :returnedQuantity " +
+           "WHERE l.id = :id AND l.status = 'ACTIVE'")
+    int markReturned(@Param("id") Long id, @Param("returnedQuantity") int returnedQuantity);
+}
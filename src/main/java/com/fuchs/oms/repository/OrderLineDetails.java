@@ -0,0 +1,15 @@
+package com.fuchs.oms.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * The product and vendor details copied onto an order when it is allocated, read in one
+ * query without hydrating any entity.
+ *
+ * @param productId the ordered product
+ * @param productCode the product's code
+ * @param productName the product's name
+ * @param vendorName the allocated vendor's name
+ * @param price the vendor's unit price for the product
+ */
+public record OrderLineDetails(Long productId, String productCode, String productName, String vendorName, BigDecimal price) {}
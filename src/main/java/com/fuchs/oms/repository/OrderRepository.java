@@ -1,9 +1,14 @@
 package com.fuchs.oms.repository;
 
 import com.fuchs.oms.model.Order;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -26,4 +31,54 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
      * @return true if there are orders for this product
      */
     boolean existsByProductId(Long productId);
+
+    /**
+     * @return those of the given ids that belong to an order, used to skip orders replayed twice
+     */
+    @Query("SELECT o.id FROM Order o WHERE o.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Find all orders in a status that are not waiting in the intake queue, oldest first.
+     * Used to reload the backorder queue from PENDING orders at startup.
+     *
+     * @param status the order status
+     * @return matching orders in submission order
+     */
+    List<Order> findByStatusAndIntakeFalseOrderByIdAsc(String status);
+
+    /**
+     * Ids of orders waiting in the intake queue for one intake worker, oldest first.
+     * Each worker serves the products whose id modulo {@code workers} is its {@code worker} index.
+     *
+     * @param workers the number of intake workers
+     * @param worker this worker's index
+     * @param page how many ids to load
+     * @return order ids in submission order
+     */
+    @Query("SELECT o.id FROM Order o WHERE o.intake = true AND MOD(o.productId, :workers) = :worker ORDER BY o.id")
+    List<Long> findIntakeIds(@Param("workers") long workers, @Param("worker") long worker, Pageable page);
+
+    /**
+     * Total quantity ordered from an inventory lease. Used to work out what is left of a lease
+     * whose node stopped without returning it.
+     *
+     * @param leaseId the lease's ID
+     * @return the quantity allocated from the lease, 0 if none
+     */
+    @Query("SELECT COALESCE(SUM(o.quantity), 0) FROM Order o WHERE o.leaseId = :leaseId")
+    long sumQuantityByLeaseId(@Param("leaseId") Long leaseId);
+
+    /**
+     * Orders placed with the given vendors since a point in time, reduced to what capacity
+     * windows need.
+     *
+     * @param vendorIds the vendors to load
+     * @param since the start of the window
+     * @return one entry per order
+     */
+    @Query("SELECT new com.fuchs.oms.repository.VendorOrderVolume(o.allocatedVendorId, o.createdAt, o.quantity) " +
+           "FROM Order o WHERE o.allocatedVendorId IN :vendorIds AND o.createdAt >= :since")
+    List<VendorOrderVolume> findVolumeSince(@Param("vendorIds") Collection<Long> vendorIds,
+                                            @Param("since") LocalDateTime since);
 }
@@ -0,0 +1,27 @@
+package com.fuchs.oms.repository;
+
+import com.fuchs.oms.model.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * The events with the lowest product sequence numbers. Whatever the page size, the events of
+     * each product form an unbroken run from its oldest undelivered one, in sequence order.
+     */
+    @Query("SELECT e FROM OutboxEvent e ORDER BY e.productSeq, e.id")
+    List<OutboxEvent> findNext(Pageable page);
+
+    /**
+     * @return when the oldest event still waiting for delivery was written, or null if none is
+     */
+    @Query("SELECT MIN(e.createdAt) FROM OutboxEvent e")
+    LocalDateTime findOldestCreatedAt();
+}
@@ -2,6 +2,7 @@ package com.fuchs.oms.repository;
 
 import com.fuchs.oms.model.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -20,4 +21,11 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
 
     @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category WHERE p.id = :id")
     Optional<Product> findByIdWithCategory(@Param("id") Long id);
+
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE products SET outbox_seq = outbox_seq + :count WHERE id = :id", nativeQuery = true)
+    int advanceOutboxSeq(@Param("id") Long id, @Param("count") int count);
+
+    @Query(value = "SELECT outbox_seq FROM products WHERE id = :id", nativeQuery = true)
+    long findOutboxSeq(@Param("id") Long id);
 }
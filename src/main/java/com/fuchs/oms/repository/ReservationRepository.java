@@ -0,0 +1,60 @@
+package com.fuchs.oms.repository;
+
+import com.fuchs.oms.model.Reservation;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ReservationRepository extends JpaRepository<Reservation, Long> {
+
+    /**
+     * Find reservations in a given status. Used at startup to reschedule the expiry of held stock.
+     *
+     * @param status the reservation status
+     * @return matching reservations
+     */
+    List<Reservation> findByStatus(String status);
+
+    /**
+     * Moves a reservation from HELD to CONFIRMED if it has not expired yet.
+     *
+     * @return 1 if the reservation was confirmed, 0 if it was no longer held
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Reservation r SET r.status = 'CONFIRMED', r.orderId = :orderId " +
+           "WHERE r.id = :id AND r.status = 'HELD' AND r.expiresAt > :now")
+    int confirmIfHeld(@Param("id") Long id, @Param("orderId") Long orderId, @Param("now") LocalDateTime now);
+
+    /**
+     * Locks the reservations of a batch that are still held, so a release restores the stock of
+     * exactly the rows it moves to RELEASED even if an id is in the batch a second time.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Reservation r WHERE r.id IN :ids AND r.status = 'HELD'")
+    List<Reservation> findHeldForUpdate(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Moves every still-held reservation in the batch to RELEASED with a single UPDATE.
+     *
+     * @return the number of reservations released
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Reservation r SET r.status = 'RELEASED' WHERE r.id IN :ids AND r.status = 'HELD'")
+    int releaseHeld(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Total quantity reserved from an inventory lease, whatever became of the reservations:
+     * confirmed ones became orders without a lease and released ones went back to the vendor row.
+     */
+    @Query("SELECT COALESCE(SUM(r.quantity), 0) FROM Reservation r WHERE r.leaseId = :leaseId")
+    long sumQuantityByLeaseId(@Param("leaseId") Long leaseId);
+}
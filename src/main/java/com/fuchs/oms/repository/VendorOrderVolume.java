@@ -0,0 +1,12 @@
+package com.fuchs.oms.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * One order's contribution to its vendor's recent volume, used to rebuild capacity windows.
+ *
+ * @param vendorId the vendor the order was allocated to
+ * @param createdAt when the order was placed
+ * @param quantity the ordered quantity
+ */
+public record VendorOrderVolume(Long vendorId, LocalDateTime createdAt, Integer quantity) {}
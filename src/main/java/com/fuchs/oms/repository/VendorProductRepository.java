@@ -2,6 +2,7 @@ package com.fuchs.oms.repository;
 
 import com.fuchs.oms.model.VendorProduct;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -20,6 +21,26 @@ public interface VendorProductRepository extends JpaRepository<VendorProduct, Lo
     @Query("SELECT vp FROM VendorProduct vp JOIN FETCH vp.vendor JOIN FETCH vp.product WHERE vp.vendor.id = :vendorId AND vp.product.id = :productId")
     Optional<VendorProduct> findByVendorIdAndProductIdWithProduct(@Param("vendorId") Long vendorId, @Param("productId") Long productId);
 
+    /**
+     * Product code and name, vendor name and price for an order allocated to a vendor, in one query.
+     */
+    @Query("SELECT new com.fuchs.oms.repository.OrderLineDetails(p.id, p.productCode, p.name, v.name, vp.price) " +
+           "FROM VendorProduct vp JOIN vp.product p JOIN vp.vendor v " +
+           "WHERE v.id = :vendorId AND p.id = :productId")
+    Optional<OrderLineDetails> findOrderLineDetails(@Param("vendorId") Long vendorId, @Param("productId") Long productId);
+
+    /**
+     * Load every vendor offer for a product with its vendor, used to populate the offer book.
+     */
+    @Query("SELECT vp FROM VendorProduct vp JOIN FETCH vp.vendor WHERE vp.product.id = :productId")
+    List<VendorProduct> findByProductIdWithVendor(@Param("productId") Long productId);
+
+    /**
+     * Load every vendor offer with its vendor, used to rebuild the offer book at startup.
+     */
+    @Query("SELECT vp FROM VendorProduct vp JOIN FETCH vp.vendor")
+    List<VendorProduct> findAllWithVendor();
+
     List<VendorProduct> findByProductIdAndStockGreaterThanOrderByPriceAsc(Long productId, Integer minStock);
 
     /**
@@ -32,4 +53,60 @@ public interface VendorProductRepository extends JpaRepository<VendorProduct, Lo
            "WHERE vp.product.id = :productId AND vp.stock > :minStock " +
            "ORDER BY vp.price ASC, vp.vendor.id ASC")
     List<VendorProduct> findEligibleVendorsForAllocation(@Param("productId") Long productId, @Param("minStock") Integer minStock);
+
+    /**
+     * Find the vendor that should win an allocation: the first offer in FR12 order
+     * (price ASC, vendor_id ASC) that can cover the whole quantity.
+     * Returns a projection served from idx_vendor_products_allocation, so no vendor, product
+     * or VendorProduct entity is loaded and only one row leaves the database.
+     */
+    @Query("SELECT new com.fuchs.oms.repository.AllocationCandidate(vp.vendor.id, vp.price, vp.stock) " +
+           "FROM VendorProduct vp " +
+           "WHERE vp.product.id = :productId AND vp.stock >= :quantity " +
+           "ORDER BY vp.price ASC, vp.vendor.id ASC " +
+           "LIMIT 1")
+    Optional<AllocationCandidate> findAllocationWinner(@Param("productId") Long productId, @Param("quantity") int quantity);
+
+    /**
+     * Atomically decrement stock only if enough is available, as a single guarded UPDATE.
+     * Concurrent callers cannot both pass the check, so stock never goes negative.
+     * The version is bumped so that entity updates holding an older copy fail optimistically.
+     *
+     * @return the number of rows updated: 1 if the stock was decremented, 0 if the vendor
+     *         is not enrolled or has less than the requested quantity
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE VendorProduct vp SET vp.stock = vp.stock - :quantity, vp.updatedAt = LOCAL DATETIME, " +
+           "vp.version = vp.version + 1 " +
+           "WHERE vp.vendor.id = :vendorId AND vp.product.id = :productId AND vp.stock >= :quantity")
+    int decrementStockIfAvailable(@Param("vendorId") Long vendorId,
+                                  @Param("productId") Long productId,
+                                  @Param("quantity") int quantity);
+
+    /**
+     * Adds stock back to a vendor row, e.g. when a reservation expires.
+     *
+     * @return number of rows updated (0 if the vendor is no longer enrolled)
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE VendorProduct vp SET vp.stock = vp.stock + :quantity, vp.updatedAt = LOCAL DATETIME, " +
+           "vp.version = vp.version + 1 " +
+           "WHERE vp.vendor.id = :vendorId AND vp.product.id = :productId")
+    int incrementStock(@Param("vendorId") Long vendorId,
+                       @Param("productId") Long productId,
+                       @Param("quantity") int quantity);
+
+    /**
+     * Row-lock a single vendor offer for allocation if it has enough stock, skipping it if another
+     * transaction already holds the lock. Rows are probed one at a time because FOR UPDATE locks
+     * every row a query returns, and some databases apply a row limit before skipping locked rows.
+     *
+     * @return the locked row's stock, or empty if the row is locked elsewhere, lacks stock or does not exist
+     */
+    @Query(value = "SELECT stock FROM vendor_products " +
+                   "WHERE vendor_id = :vendorId AND product_id = :productId AND stock >= :quantity " +
+                   "FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    Optional<Integer> lockForAllocationSkipLocked(@Param("vendorId") Long vendorId,
+                                                  @Param("productId") Long productId,
+                                                  @Param("quantity") int quantity);
 }
@@ -3,9 +3,14 @@ package com.fuchs.oms.repository;
 import com.fuchs.oms.model.Vendor;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface VendorRepository extends JpaRepository<Vendor, Long> {
     Optional<Vendor> findByUsername(String username);
+
+    List<Vendor> findByHourlyOrderCapacityIsNotNullOrHourlyUnitCapacityIsNotNull();
+
+    List<Vendor> findByLatitudeIsNotNullAndLongitudeIsNotNull();
 }
@@ -1,8 +1,10 @@
 package com.fuchs.oms.service;
 
-import com.fuchs.oms.model.VendorProduct;
+import com.fuchs.oms.repository.AllocationCandidate;
 import com.fuchs.oms.repository.VendorProductRepository;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -10,16 +12,65 @@ import java.util.List;
 import java.util.Optional;
 
 @Service
-@RequiredArgsConstructor
 public class AllocationService {
 
-    private final VendorProductRepository vendorProductRepository;
+    private static final int MAX_STORE_FALLBACK_ATTEMPTS = 3;
+
+    private final OfferBook offerBook;
     private final VendorService vendorService;
+    private final VendorProductRepository vendorProductRepository;
+    private final InventoryLeaseManager inventoryLeaseManager;
+    private final AllocationStrategy allocationStrategy;
+    private final VendorCapacity vendorCapacity;
+    private final VendorLocationIndex vendorLocationIndex;
+    private final AllocationShadow allocationShadow;
+    private final LockMode lockMode;
+    private final Counter skipLockedDiversions;
+    private final Counter storeFallbacks;
+
+    public AllocationService(
+            OfferBook offerBook,
+            VendorService vendorService,
+            VendorProductRepository vendorProductRepository,
+            InventoryLeaseManager inventoryLeaseManager,
+            AllocationStrategy allocationStrategy,
+            VendorCapacity vendorCapacity,
+            VendorLocationIndex vendorLocationIndex,
+            AllocationShadow allocationShadow,
+            MeterRegistry meterRegistry,
+            @Value("${oms.allocation.lock-mode:guarded}") LockMode lockMode) {
+        this.offerBook = offerBook;
+        this.vendorService = vendorService;
+        this.vendorProductRepository = vendorProductRepository;
+        this.inventoryLeaseManager = inventoryLeaseManager;
+        this.allocationStrategy = allocationStrategy;
+        this.vendorCapacity = vendorCapacity;
+        this.vendorLocationIndex = vendorLocationIndex;
+        this.allocationShadow = allocationShadow;
+        this.lockMode = lockMode;
+        this.skipLockedDiversions = Counter.builder("oms.allocation.skip-locked.diversions")
+            .description("Orders sent past a cheaper vendor because its row was locked by another order")
+            .register(meterRegistry);
+        this.storeFallbacks = Counter.builder("oms.allocation.store-fallbacks")
+            .description("Orders allocated by the database winner query after the offer book had no covering offer")
+            .register(meterRegistry);
+    }
 
     /**
      * Allocates an order to the vendor with lowest price and sufficient stock.
-     * Uses deterministic ordering (price ASC, vendor_id ASC) for consistent allocation
+     * By default uses deterministic ordering (price ASC, vendor_id ASC) for consistent allocation
      * when multiple vendors have the same price (FR12).
+     * Candidates come from the in-memory offer book, so choosing a vendor needs no database read,
+     * and are tried in the order the configured {@link AllocationStrategy} ranks them.
+     * Each candidate is claimed with a guarded UPDATE; if another order took the stock first,
+     * the next candidate is tried within the same transaction.
+     * In {@link LockMode#SKIP_LOCKED} mode a candidate whose row is locked by another order
+     * is skipped rather than waited on, and in {@link LockMode#LEASED} mode the order is served
+     * from this node's inventory leases.
+     * Vendors that reached their hourly capacity ({@link VendorCapacity}) are skipped.
+     * When no offer in the book can cover the order in {@link LockMode#GUARDED} or
+     * {@link LockMode#LEASED} mode, the database is asked for the winner directly, in case the book
+     * lags a committed restock (in leased mode, possibly one made or returned by another node).
      *
      * @param productId the product to allocate
      * @param quantity the quantity required
@@ -27,29 +78,129 @@ public class AllocationService {
      */
     @Transactional
     public AllocationResult allocate(Long productId, int quantity) {
-        // Find vendors with stock > 0, sorted by price ASC then vendor_id ASC (FR12 compliance)
-        List<VendorProduct> candidates = vendorProductRepository
-            .findEligibleVendorsForAllocation(productId, 0);
+        return allocate(productId, quantity, null);
+    }
 
-        // Find first vendor with sufficient stock
-        Optional<VendorProduct> winner = candidates.stream()
-            .filter(vp -> vp.getStock() >= quantity)
-            .findFirst();
+    /**
+     * Allocates an order as {@link #allocate(Long, int)} does, except that when a delivery location
+     * is given only vendors within range of it are considered, ranked by price plus distance cost
+     * ({@link VendorLocationIndex}).
+     *
+     * When shadow mode is on, the choice is also handed to {@link AllocationShadow} for comparison.
+     *
+     * @param deliveryTo where the order ships to, or null for no distance preference
+     */
+    @Transactional
+    public AllocationResult allocate(Long productId, int quantity, GeoPoint deliveryTo) {
+        if (!allocationShadow.isEnabled()) {
+            return allocate(productId, quantity, deliveryTo, offersFor(productId, quantity, deliveryTo));
+        }
+        long start = System.nanoTime();
+        List<OfferBook.Offer> offers = offersFor(productId, quantity, deliveryTo);
+        AllocationResult result = allocate(productId, quantity, deliveryTo, offers);
+        allocationShadow.observe(productId, quantity, offers, deliveryTo != null, result, System.nanoTime() - start);
+        return result;
+    }
+
+    private List<OfferBook.Offer> offersFor(Long productId, int quantity, GeoPoint deliveryTo) {
+        // Offers are already sorted by price ASC then vendor_id ASC (FR12 compliance)
+        return deliveryTo != null
+            ? vendorLocationIndex.rank(productId, quantity, deliveryTo)
+            : offerBook.getOffers(productId);
+    }
+
+    private AllocationResult allocate(Long productId, int quantity, GeoPoint deliveryTo, List<OfferBook.Offer> offers) {
+        List<OfferBook.Offer> candidates = deliveryTo != null
+            ? offers
+            : allocationStrategy.rank(productId, quantity, offers);
+        if (lockMode == LockMode.LEASED) {
+            // The lease manager claims each candidate's capacity as it tries it
+            AllocationResult result = inventoryLeaseManager.allocate(productId, quantity, candidates);
+            if (result.success()) {
+                return result;
+            }
+            // The book only sees this node's changes; a restock or lease return elsewhere is in the store
+            return deliveryTo == null ? allocateFromStore(productId, quantity) : result;
+        }
 
-        if (winner.isEmpty()) {
-            return new AllocationResult(null, false);
+        // Claim the first vendor with sufficient stock and capacity, falling through if it loses the race
+        boolean skippedLockedRow = false;
+        boolean skippedForCapacity = false;
+        for (OfferBook.Offer candidate : candidates) {
+            if (candidate.stock() < quantity) {
+                continue;
+            }
+            VendorCapacity.Claim capacity = vendorCapacity.tryAcquire(candidate.vendorId(), quantity);
+            if (capacity == null) {
+                skippedForCapacity = true;
+                continue;
+            }
+            if (lockMode == LockMode.SKIP_LOCKED && vendorProductRepository
+                    .lockForAllocationSkipLocked(candidate.vendorId(), productId, quantity).isEmpty()) {
+                capacity.release();
+                skippedLockedRow = true;
+                continue;
+            }
+            if (vendorService.tryDecrementStock(candidate.vendorId(), productId, quantity)) {
+                if (skippedLockedRow) {
+                    skipLockedDiversions.increment();
+                }
+                return new AllocationResult(candidate.vendorId(), true);
+            }
+            capacity.release();
+        }
+        // The store fallback knows nothing about distance, so it only serves orders without a location
+        if (lockMode == LockMode.GUARDED && !skippedForCapacity && deliveryTo == null) {
+            return allocateFromStore(productId, quantity);
         }
 
-        VendorProduct allocated = winner.get();
+        return new AllocationResult(null, false);
+    }
 
-        // Decrement stock
-        vendorService.decrementStock(
-            allocated.getVendor().getId(),
-            productId,
-            quantity
-        );
+    /**
+     * Returns the offer {@link #allocate(Long, int, GeoPoint)} would pick right now, read from the
+     * offer book alone: no stock is taken, no capacity is claimed and no transaction is opened.
+     * Candidates are taken in FR12 order; a strategy that spreads orders over vendors tied on price
+     * may place the order with another of those vendors, at the same unit price.
+     *
+     * @param deliveryTo where the order would ship to, or null for no distance preference
+     * @return the offer, or null if no vendor could take the order
+     */
+    public OfferBook.Offer quote(Long productId, int quantity, GeoPoint deliveryTo) {
+        List<OfferBook.Offer> candidates = deliveryTo != null
+            ? vendorLocationIndex.rank(productId, quantity, deliveryTo)
+            : offerBook.getOffers(productId);
+        for (OfferBook.Offer candidate : candidates) {
+            if (candidate.stock() >= quantity && vendorCapacity.wouldAccept(candidate.vendorId(), quantity)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
 
-        return new AllocationResult(allocated.getVendor().getId(), true);
+    /**
+     * Asks the database for the FR12 winner that can cover the whole quantity and claims it.
+     * Only one row comes back per attempt; a lost race re-runs the query against fresh stock.
+     * A hit means the offer book was stale, so the product's offers are reloaded on next access.
+     */
+    private AllocationResult allocateFromStore(Long productId, int quantity) {
+        for (int attempt = 0; attempt < MAX_STORE_FALLBACK_ATTEMPTS; attempt++) {
+            Optional<AllocationCandidate> winner = vendorProductRepository.findAllocationWinner(productId, quantity);
+            if (winner.isEmpty()) {
+                break;
+            }
+            VendorCapacity.Claim capacity = vendorCapacity.tryAcquire(winner.get().vendorId(), quantity);
+            if (capacity == null) {
+                break;
+            }
+            if (vendorService.tryDecrementStock(winner.get().vendorId(), productId, quantity)) {
+                storeFallbacks.increment();
+                offerBook.evict(productId);
+                return new AllocationResult(winner.get().vendorId(), true);
+            }
+            capacity.release();
+        }
+        return new AllocationResult(null, false);
     }
 
     /**
@@ -57,6 +208,24 @@ public class AllocationService {
      *
      * @param vendorId the ID of the allocated vendor, or null if allocation failed
      * @param success true if allocation succeeded, false otherwise
+     * @param leaseId the inventory lease the stock came from, or null if it came from the vendor row
+     */
+    public record AllocationResult(Long vendorId, boolean success, Long leaseId) {
+
+        public AllocationResult(Long vendorId, boolean success) {
+            this(vendorId, success, null);
+        }
+    }
+
+    /**
+     * How allocation claims a candidate's stock row.
      */
-    public record AllocationResult(Long vendorId, boolean success) {}
+    public enum LockMode {
+        /** Guarded UPDATE only; concurrent orders for the same row wait for each other. */
+        GUARDED,
+        /** Lock the row with FOR UPDATE SKIP LOCKED first; a locked row sends the order to the next vendor. */
+        SKIP_LOCKED,
+        /** Allocate from node-local inventory leases; see {@link InventoryLeaseManager}. */
+        LEASED
+    }
 }
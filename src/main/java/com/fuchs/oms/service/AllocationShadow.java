@@ -0,0 +1,200 @@
+package com.fuchs.oms.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shadow mode for {@link AllocationService}: every real allocation is evaluated again by a
+ * candidate {@link AllocationStrategy}, so a different strategy can be compared on live traffic
+ * before it is switched on. Selected with {@code oms.allocation.shadow.candidate}; off by default.
+ *
+ * The candidate ranks the same offer snapshot the real allocation started from and picks the first
+ * offer that covers the quantity, without taking stock or capacity. It runs on one background
+ * thread behind a bounded queue; when the queue is full the comparison is dropped rather than
+ * making the order wait, and a failing comparison is only logged. Disagreements are kept in a
+ * ring buffer of the last {@code buffer-size}, exposed by the {@code allocationshadow} actuator
+ * endpoint, together with the latency of both sides.
+ *
+ * The real allocation may also differ for reasons the candidate cannot see: a lost race for the
+ * last units, a vendor at its hourly capacity, a skipped locked row or a stale offer book.
+ */
+@Slf4j
+@Component
+public class AllocationShadow implements SmartLifecycle {
+
+    private final String candidateName;
+    private final AllocationStrategy candidate;
+    private final int bufferSize;
+    private final int maxQueued;
+    private final Deque<Disagreement> disagreements = new ArrayDeque<>();
+    private final Counter agreed;
+    private final Counter disagreed;
+    private final Counter dropped;
+    private final Timer actualLatency;
+    private final Timer candidateLatency;
+    private volatile ExecutorService executor;
+
+    public AllocationShadow(
+            MeterRegistry meterRegistry,
+            @Value("${oms.allocation.shadow.candidate:none}") String candidateName,
+            @Value("${oms.allocation.shadow.buffer-size:200}") int bufferSize,
+            @Value("${oms.allocation.shadow.max-queued:1000}") int maxQueued) {
+        if (bufferSize < 1 || maxQueued < 1) {
+            throw new IllegalArgumentException("oms.allocation.shadow needs buffer-size >= 1 and max-queued >= 1");
+        }
+        this.candidateName = candidateName;
+        this.candidate = switch (candidateName) {
+            case "none" -> null;
+            case "fr12" -> new Fr12AllocationStrategy();
+            case "spread-ties" -> new TieSpreadingAllocationStrategy();
+            default -> throw new IllegalArgumentException(
+                "oms.allocation.shadow.candidate must be none, fr12 or spread-ties, was " + candidateName);
+        };
+        this.bufferSize = bufferSize;
+        this.maxQueued = maxQueued;
+        this.agreed = Counter.builder("oms.allocation.shadow.comparisons")
+            .description("Allocations compared with the shadow candidate")
+            .tag("outcome", "agree")
+            .register(meterRegistry);
+        this.disagreed = Counter.builder("oms.allocation.shadow.comparisons")
+            .description("Allocations compared with the shadow candidate")
+            .tag("outcome", "disagree")
+            .register(meterRegistry);
+        this.dropped = Counter.builder("oms.allocation.shadow.dropped")
+            .description("Shadow comparisons dropped because the shadow queue was full")
+            .register(meterRegistry);
+        this.actualLatency = Timer.builder("oms.allocation.shadow.latency")
+            .description("Time to choose a vendor, for the real allocation and the shadow candidate")
+            .tag("engine", "actual")
+            .publishPercentiles(0.5, 0.99)
+            .register(meterRegistry);
+        this.candidateLatency = Timer.builder("oms.allocation.shadow.latency")
+            .description("Time to choose a vendor, for the real allocation and the shadow candidate")
+            .tag("engine", "candidate")
+            .publishPercentiles(0.5, 0.99)
+            .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return candidate != null;
+    }
+
+    /**
+     * Queues a comparison of a finished allocation with the candidate. Never throws and never blocks.
+     *
+     * @param offers the offers the real allocation started from; already final when ranked by distance
+     * @param distanceRanked whether {@code offers} is a distance ranking, which the candidate keeps as is
+     * @param actualNanos how long the real allocation took
+     */
+    public void observe(Long productId, int quantity, List<OfferBook.Offer> offers, boolean distanceRanked,
+                        AllocationService.AllocationResult actual, long actualNanos) {
+        ExecutorService current = executor;
+        if (candidate == null || current == null) {
+            return;
+        }
+        try {
+            current.execute(() -> compare(productId, quantity, offers, distanceRanked, actual.vendorId(), actualNanos));
+        } catch (RejectedExecutionException ex) {
+            dropped.increment();
+        }
+    }
+
+    /**
+     * The most recent disagreements, newest first.
+     */
+    public List<Disagreement> recentDisagreements() {
+        synchronized (disagreements) {
+            return new ArrayList<>(disagreements);
+        }
+    }
+
+    public Summary summary() {
+        return new Summary(candidateName, (long) agreed.count(), (long) disagreed.count(), (long) dropped.count(),
+            actualLatency.mean(TimeUnit.MICROSECONDS), candidateLatency.mean(TimeUnit.MICROSECONDS));
+    }
+
+    private void compare(Long productId, int quantity, List<OfferBook.Offer> offers, boolean distanceRanked,
+                         Long actualVendorId, long actualNanos) {
+        try {
+            long start = System.nanoTime();
+            List<OfferBook.Offer> ranked = distanceRanked ? offers : candidate.rank(productId, quantity, offers);
+            Long candidateVendorId = ranked.stream()
+                .filter(offer -> offer.stock() >= quantity)
+                .map(OfferBook.Offer::vendorId)
+                .findFirst()
+                .orElse(null);
+            long candidateNanos = System.nanoTime() - start;
+
+            actualLatency.record(actualNanos, TimeUnit.NANOSECONDS);
+            candidateLatency.record(candidateNanos, TimeUnit.NANOSECONDS);
+            if (Objects.equals(actualVendorId, candidateVendorId)) {
+                agreed.increment();
+                return;
+            }
+            disagreed.increment();
+            Disagreement disagreement = new Disagreement(Instant.now(), productId, quantity, actualVendorId,
+                candidateVendorId, actualNanos / 1_000, candidateNanos / 1_000);
+            synchronized (disagreements) {
+                if (disagreements.size() == bufferSize) {
+                    disagreements.removeLast();
+                }
+                disagreements.addFirst(disagreement);
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Shadow allocation comparison failed for product {}", productId, ex);
+        }
+    }
+
+    @Override
+    public void start() {
+        if (candidate == null) {
+            return;
+        }
+        executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(maxQueued),
+            runnable -> {
+                Thread thread = new Thread(runnable, "allocation-shadow");
+                thread.setDaemon(true);
+                return thread;
+            });
+    }
+
+    @Override
+    public void stop() {
+        ExecutorService current = executor;
+        executor = null;
+        if (current != null) {
+            current.shutdownNow();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return executor != null;
+    }
+
+    /**
+     * An allocation where the candidate would have chosen another vendor; a null vendor id means no vendor.
+     */
+    public record Disagreement(Instant at, Long productId, int quantity, Long actualVendorId,
+                               Long candidateVendorId, long actualMicros, long candidateMicros) {}
+
+    public record Summary(String candidate, long agreements, long disagreements, long dropped,
+                          double actualMeanMicros, double candidateMeanMicros) {}
+}
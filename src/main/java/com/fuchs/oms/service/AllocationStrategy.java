@@ -0,0 +1,21 @@
+package com.fuchs.oms.service;
+
+import java.util.List;
+
+/**
+ * Decides the order in which {@link AllocationService} tries a product's offers.
+ * Selected with {@code oms.allocation.strategy}.
+ */
+public interface AllocationStrategy {
+
+    /**
+     * Ranks the candidate offers for an order.
+     *
+     * @param productId the product being allocated
+     * @param quantity the quantity required
+     * @param offers the product's offers in FR12 order (price ASC, vendor_id ASC)
+     * @return the offers in the order they should be claimed; offers that cannot cover the
+     *         quantity may be left in, allocation skips them
+     */
+    List<OfferBook.Offer> rank(Long productId, int quantity, List<OfferBook.Offer> offers);
+}
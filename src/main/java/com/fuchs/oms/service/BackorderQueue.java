@@ -0,0 +1,197 @@
+package com.fuchs.oms.service;
+
+import com.fuchs.oms.dto.OrderRequest;
+import com.fuchs.oms.dto.OrderResponse;
+import com.fuchs.oms.model.Order;
+import com.fuchs.oms.repository.OrderRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Orders waiting for stock, in one FIFO queue per product.
+ *
+ * An order submitted with {@code backorder: true} that finds no vendor with stock is saved as
+ * PENDING and appended to its product's queue instead of being rejected, so clients do not have
+ * to retry until a restock. The queue listens to the {@link OfferBook}: once a committed change
+ * (a restock, an enrollment, returned stock) leaves some vendor able to cover the order at the
+ * head of the queue, one drain thread allocates waiting orders in batches of {@code batch-size},
+ * each batch in a single transaction, stopping at the first order that still cannot be allocated.
+ * The order's status moves from PENDING to ALLOCATED, which is how its submitter and the vendor
+ * learn the outcome.
+ *
+ * PENDING orders are the system of record; the queues are reloaded from them at startup.
+ */
+@Slf4j
+@Component
+public class BackorderQueue implements SmartLifecycle {
+
+    private final OrderService orderService;
+    private final OrderRepository orderRepository;
+    private final OfferBook offerBook;
+    private final ConflictRetry conflictRetry;
+    private final int maxPerProduct;
+    private final int batchSize;
+    private final ConcurrentHashMap<Long, Queue<Waiting>> queues = new ConcurrentHashMap<>();
+    private final Set<Long> drainScheduled = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final Counter queued;
+    private final Counter filled;
+    private volatile ExecutorService drainer;
+
+    public BackorderQueue(
+            OrderService orderService,
+            OrderRepository orderRepository,
+            OfferBook offerBook,
+            ConflictRetry conflictRetry,
+            MeterRegistry meterRegistry,
+            @Value("${oms.orders.backorders.max-per-product:10000}") int maxPerProduct,
+            @Value("${oms.orders.backorders.batch-size:100}") int batchSize) {
+        if (maxPerProduct < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("oms.orders.backorders needs max-per-product >= 1 and batch-size >= 1");
+        }
+        this.orderService = orderService;
+        this.orderRepository = orderRepository;
+        this.offerBook = offerBook;
+        this.conflictRetry = conflictRetry;
+        this.maxPerProduct = maxPerProduct;
+        this.batchSize = batchSize;
+        this.queued = Counter.builder("oms.orders.backorders.queued")
+            .description("Orders saved as PENDING backorders because no vendor had stock")
+            .register(meterRegistry);
+        this.filled = Counter.builder("oms.orders.backorders.filled")
+            .description("Backorders allocated after stock arrived")
+            .register(meterRegistry);
+        Gauge.builder("oms.orders.backorders.waiting", waiting, AtomicInteger::get)
+            .description("Backorders waiting for stock")
+            .register(meterRegistry);
+        offerBook.addListener(this::onOffersChanged);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reload() {
+        List<Order> pending = orderRepository.findByStatusAndIntakeFalseOrderByIdAsc(Order.PENDING);
+        queues.clear();
+        pending.forEach(order -> queueOf(order.getProductId()).add(new Waiting(order.getId(), order.getQuantity())));
+        waiting.set(pending.size());
+        queues.keySet().forEach(this::onOffersChanged);
+        if (!pending.isEmpty()) {
+            log.info("Reloaded {} backorders for {} products", pending.size(), queues.size());
+        }
+    }
+
+    /**
+     * Whether earlier backorders for the product are still waiting; new backorders queue behind
+     * them rather than competing for the next restock.
+     */
+    public boolean hasWaiting(Long productId) {
+        Queue<Waiting> queue = queues.get(productId);
+        return queue != null && !queue.isEmpty();
+    }
+
+    /**
+     * Whether the product's queue can take another backorder.
+     */
+    public boolean hasRoom(Long productId) {
+        Queue<Waiting> queue = queues.get(productId);
+        return queue == null || queue.size() < maxPerProduct;
+    }
+
+    /**
+     * Saves the order as a PENDING backorder and appends it to its product's queue.
+     */
+    public OrderResponse enqueue(OrderRequest request, Long submittedBy) {
+        OrderResponse order = orderService.createBackorder(request, submittedBy);
+        add(order.getOrderId(), request.getProductId(), request.getQuantity());
+        return order;
+    }
+
+    /**
+     * Appends an order already saved as PENDING to its product's queue, e.g. an order from the
+     * intake queue that found no stock. Call after the order's transaction has committed.
+     */
+    public void add(Long orderId, Long productId, int quantity) {
+        queueOf(productId).add(new Waiting(orderId, quantity));
+        waiting.incrementAndGet();
+        queued.increment();
+        // Stock may have arrived while the order was being saved
+        onOffersChanged(productId);
+    }
+
+    private void onOffersChanged(Long productId) {
+        Queue<Waiting> queue = queues.get(productId);
+        Waiting head = queue == null ? null : queue.peek();
+        if (head == null) {
+            return;
+        }
+        boolean covered = offerBook.getOffers(productId).stream().anyMatch(offer -> offer.stock() >= head.quantity());
+        ExecutorService executor = drainer;
+        if (covered && executor != null && drainScheduled.add(productId)) {
+            executor.execute(() -> drain(productId));
+        }
+    }
+
+    private void drain(Long productId) {
+        // Changes from here on schedule another pass
+        drainScheduled.remove(productId);
+        Queue<Waiting> queue = queues.get(productId);
+        try {
+            while (!queue.isEmpty()) {
+                List<Long> batch = queue.stream().limit(batchSize).map(Waiting::orderId).toList();
+                int done = conflictRetry.execute("backorders", productId,
+                    () -> orderService.fillBackorders(productId, batch));
+                for (int i = 0; i < done; i++) {
+                    queue.poll();
+                }
+                waiting.addAndGet(-done);
+                filled.increment(done);
+                if (done < batch.size()) {
+                    break;
+                }
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Failed to fill backorders for product {}, retrying on its next offer change", productId, ex);
+        }
+    }
+
+    private Queue<Waiting> queueOf(Long productId) {
+        return queues.computeIfAbsent(productId, id -> new LinkedBlockingQueue<>());
+    }
+
+    @Override
+    public void start() {
+        drainer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "backorder-drain");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void stop() {
+        drainer.shutdownNow();
+        drainer = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return drainer != null;
+    }
+
+    private record Waiting(Long orderId, int quantity) {}
+}
@@ -0,0 +1,196 @@
+package com.fuchs.oms.service;
+
+import com.fuchs.oms.dto.OrderRequest;
+import com.fuchs.oms.dto.OrderResponse;
+import com.fuchs.oms.exception.NoStockAvailableException;
+import com.fuchs.oms.exception.ProductNotFoundException;
+import com.fuchs.oms.model.Product;
+import com.fuchs.oms.repository.ProductRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Opt-in engine that coalesces concurrent orders for the same product
+ * ({@code oms.orders.engine=coalescing}).
+ *
+ * Requests queue per product. The first request thread to find the product idle becomes the
+ * batch leader: it gathers queued requests for up to the configured window or batch size,
+ * allocates them all against one FR12 candidate list, and persists the batch through
+ * {@link OrderBatchWriter} (one stock update per vendor, one saveAll of the orders). Every caller
+ * still gets its own response or {@link NoStockAvailableException}.
+ *
+ * The window is adaptive: a product whose previous batch held a single order is served
+ * immediately, so requests only wait for company when the product is actually contended.
+ *
+ * A leader drains only until its own order is done and then lets go; orders queued behind it are
+ * drained one batch at a time by a pool of {@code handoff-threads}, so under sustained load no
+ * request thread works on other callers' orders indefinitely. Orders whose submitter stopped
+ * waiting before their batch was built are dropped (see {@link OrderTicket}).
+ */
+@Component
+@ConditionalOnProperty(name = "oms.orders.engine", havingValue = "coalescing")
+public class CoalescingOrderEngine implements OrderEngine {
+
+    private static final long GATHER_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final OfferBook offerBook;
+    private final ProductRepository productRepository;
+    private final OrderBatchWriter batchWriter;
+    private final long windowNanos;
+    private final int maxBatch;
+    private final DistributionSummary batchSizes;
+    private final ThreadPoolExecutor handoff;
+    private final ConcurrentHashMap<Long, ProductQueue> queues = new ConcurrentHashMap<>();
+
+    public CoalescingOrderEngine(
+            OfferBook offerBook,
+            ProductRepository productRepository,
+            OrderBatchWriter batchWriter,
+            MeterRegistry meterRegistry,
+            @Value("${oms.orders.coalescing.window-ms:2}") long windowMillis,
+            @Value("${oms.orders.coalescing.max-batch:64}") int maxBatch,
+            @Value("${oms.orders.coalescing.handoff-threads:4}") int handoffThreads) {
+        this.offerBook = offerBook;
+        this.productRepository = productRepository;
+        this.batchWriter = batchWriter;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.maxBatch = Math.max(1, maxBatch);
+        this.batchSizes = DistributionSummary.builder("oms.orders.coalesced.batch-size")
+            .description("Orders allocated and persisted together in one coalesced batch")
+            .register(meterRegistry);
+        AtomicInteger threadIndex = new AtomicInteger();
+        int threads = Math.max(1, handoffThreads);
+        this.handoff = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+            runnable -> {
+                Thread thread = new Thread(runnable, "order-coalescing-" + threadIndex.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+        handoff.allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public CompletableFuture<OrderResponse> submit(OrderRequest request) {
+        Long productId = request.getProductId();
+        ProductQueue queue = queues.computeIfAbsent(productId, id -> new ProductQueue());
+        PendingOrder pending = new PendingOrder(request, new OrderTicket());
+        queue.pending.add(pending);
+        queue.size.incrementAndGet();
+
+        // Whoever finds the product idle leads until its own order is done, so it only ever
+        // drains orders queued before its own; later arrivals are handed off when it lets go
+        if (queue.leader.compareAndSet(false, true)) {
+            try {
+                while (!pending.future().isDone() && !queue.pending.isEmpty()) {
+                    drainBatch(productId, queue);
+                }
+            } finally {
+                release(productId, queue);
+            }
+        }
+        return pending.future();
+    }
+
+    private void release(Long productId, ProductQueue queue) {
+        queue.leader.set(false);
+        // Requests that queued while we led found the product busy; one handoff task per batch
+        // drains them so no request thread is held for other callers' orders
+        if (!queue.pending.isEmpty() && queue.leader.compareAndSet(false, true)) {
+            handoff.execute(() -> {
+                try {
+                    drainBatch(productId, queue);
+                } finally {
+                    release(productId, queue);
+                }
+            });
+        }
+    }
+
+    private void drainBatch(Long productId, ProductQueue queue) {
+        if (queue.contended) {
+            long deadline = System.nanoTime() + windowNanos;
+            while (queue.size.get() < maxBatch && System.nanoTime() - deadline < 0) {
+                LockSupport.parkNanos(GATHER_PARK_NANOS);
+            }
+        }
+
+        List<PendingOrder> batch = new ArrayList<>(Math.min(maxBatch, queue.size.get()));
+        PendingOrder next;
+        while (batch.size() < maxBatch && (next = queue.pending.poll()) != null) {
+            queue.size.decrementAndGet();
+            // Skip orders whose submitter gave up while they were queued
+            if (next.future().take()) {
+                batch.add(next);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        queue.contended = batch.size() > 1;
+        batchSizes.record(batch.size());
+
+        try {
+            process(productId, batch);
+        } catch (RuntimeException ex) {
+            batch.forEach(pending -> pending.future().completeExceptionally(ex));
+        }
+    }
+
+    private void process(Long productId, List<PendingOrder> batch) {
+        Product product = productRepository.findById(productId)
+            .orElseThrow(() -> new ProductNotFoundException("Product not found: productId=" + productId));
+        OfferCounters counters = new OfferCounters(offerBook.getOffers(productId));
+
+        List<PendingOrder> accepted = new ArrayList<>(batch.size());
+        List<OrderBatchWriter.PlannedAllocation> planned = new ArrayList<>(batch.size());
+        for (PendingOrder pending : batch) {
+            OrderBatchWriter.PlannedAllocation allocation = counters.claim(pending.request(), product);
+            if (allocation == null) {
+                pending.future().completeExceptionally(new NoStockAvailableException(product.getName()));
+            } else {
+                accepted.add(pending);
+                planned.add(allocation);
+            }
+        }
+        if (planned.isEmpty()) {
+            return;
+        }
+
+        List<OrderBatchWriter.Outcome> outcomes = batchWriter.persist(planned);
+        for (int i = 0; i < outcomes.size(); i++) {
+            OrderBatchWriter.Outcome outcome = outcomes.get(i);
+            if (outcome.failure() != null) {
+                accepted.get(i).future().completeExceptionally(outcome.failure());
+            } else {
+                accepted.get(i).future().complete(outcome.response());
+            }
+        }
+    }
+
+    private static final class ProductQueue {
+
+        private final Queue<PendingOrder> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicBoolean leader = new AtomicBoolean();
+        // Only read and written by the current leader; handoffs pass it on through the leader flag
+        private volatile boolean contended;
+    }
+
+    private record PendingOrder(OrderRequest request, OrderTicket future) {}
+}
@@ -0,0 +1,95 @@
+package com.fuchs.oms.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Re-runs a unit of work that failed on a concurrent update (optimistic version conflict,
+ * lock timeout or deadlock), with exponential backoff and full jitter between attempts.
+ *
+ * The action must open its own transaction, so call this from outside any transaction:
+ * a transaction that hit a conflict is already marked rollback-only.
+ *
+ * Conflicts, retries and exhausted attempts are counted per product and operation
+ * (oms.contention.conflicts, oms.contention.retries, oms.contention.exhausted) so hot
+ * rows show up under load.
+ */
+@Slf4j
+@Component
+public class ConflictRetry {
+
+    private final MeterRegistry meterRegistry;
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+
+    public ConflictRetry(
+            MeterRegistry meterRegistry,
+            @Value("${oms.retry.max-attempts:4}") int maxAttempts,
+            @Value("${oms.retry.initial-backoff-ms:5}") long initialBackoffMillis,
+            @Value("${oms.retry.max-backoff-ms:200}") long maxBackoffMillis) {
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    /**
+     * Runs the action, retrying on {@link ConcurrencyFailureException} up to the configured attempts.
+     *
+     * @param operation short name of the operation, used as a metric tag
+     * @param productId the contended product, used as a metric tag
+     * @param action the transactional unit of work
+     * @return the action's result
+     * @throws ConcurrencyFailureException if every attempt conflicted
+     */
+    public <T> T execute(String operation, Long productId, Supplier<T> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.get();
+            } catch (ConcurrencyFailureException ex) {
+                counter("oms.contention.conflicts", operation, productId).increment();
+                if (attempt >= maxAttempts) {
+                    counter("oms.contention.exhausted", operation, productId).increment();
+                    log.warn("Giving up {} for productId={} after {} conflicting attempts",
+                        operation, productId, attempt);
+                    throw ex;
+                }
+                counter("oms.contention.retries", operation, productId).increment();
+                backOff(attempt, ex);
+            }
+        }
+    }
+
+    /**
+     * Runs an action without a result, retrying on conflicts.
+     */
+    public void run(String operation, Long productId, Runnable action) {
+        execute(operation, productId, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    private void backOff(int attempt, ConcurrencyFailureException cause) {
+        long ceiling = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, 20));
+        long delay = ceiling > 0 ? ThreadLocalRandom.current().nextLong(ceiling + 1) : 0;
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw cause;
+        }
+    }
+
+    private Counter counter(String name, String operation, Long productId) {
+        return meterRegistry.counter(name, "operation", operation, "product", String.valueOf(productId));
+    }
+}
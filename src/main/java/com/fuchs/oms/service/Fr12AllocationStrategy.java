@@ -0,0 +1,20 @@
+package com.fuchs.oms.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Default strategy: offers are tried strictly in FR12 order, so price ties always go to the
+ * lowest vendor id and allocation is fully deterministic.
+ */
+@Component
+@ConditionalOnProperty(name = "oms.allocation.strategy", havingValue = "fr12", matchIfMissing = true)
+public class Fr12AllocationStrategy implements AllocationStrategy {
+
+    @Override
+    public List<OfferBook.Offer> rank(Long productId, int quantity, List<OfferBook.Offer> offers) {
+        return offers;
+    }
+}
@@ -0,0 +1,129 @@
+package com.fuchs.oms.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel for large numbers of short-lived deadlines.
+ *
+ * The lowest level has {@code wheelSize} buckets of {@code tickMillis} each; deadlines beyond its
+ * span go to an overflow level whose tick is the whole span of the level below, created on demand.
+ * When time reaches an overflow bucket its entries cascade down to finer buckets, so scheduling and
+ * expiring an entry cost O(1) amortised no matter how many deadlines are pending.
+ *
+ * {@link #schedule} may be called from any thread; {@link #advanceTo} must only be called from a
+ * single ticking thread. An entry fires at most one tick after its deadline and never before it.
+ *
+ * @param <T> the scheduled value type
+ */
+public final class HierarchicalTimingWheel<T> {
+
+    private final int wheelSize;
+    private final Level root;
+    private final Queue<Entry<T>> inbox = new ConcurrentLinkedQueue<>();
+
+    public HierarchicalTimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis < 1 || wheelSize < 2) {
+            throw new IllegalArgumentException("Timing wheel needs tickMillis >= 1 and wheelSize >= 2");
+        }
+        this.wheelSize = wheelSize;
+        this.root = new Level(tickMillis, Math.floorDiv(startMillis, tickMillis) * tickMillis);
+    }
+
+    /**
+     * Schedules a value to fire once its deadline has passed.
+     */
+    public void schedule(T value, long deadlineMillis) {
+        inbox.add(new Entry<>(value, deadlineMillis));
+    }
+
+    /**
+     * Moves the wheel forward to {@code nowMillis}, handing every value whose deadline has passed
+     * to {@code expired}.
+     */
+    public void advanceTo(long nowMillis, Consumer<? super T> expired) {
+        Entry<T> scheduled;
+        while ((scheduled = inbox.poll()) != null) {
+            place(scheduled, expired);
+        }
+        while (root.currentTime + root.tick <= nowMillis) {
+            List<Entry<T>> due = root.take();
+            cascade(root, expired);
+            due.forEach(entry -> place(entry, expired));
+        }
+    }
+
+    private void place(Entry<T> entry, Consumer<? super T> expired) {
+        if (entry.deadline < root.currentTime) {
+            expired.accept(entry.value);
+        } else {
+            root.add(entry);
+        }
+    }
+
+    private void cascade(Level level, Consumer<? super T> expired) {
+        Level overflow = level.overflow;
+        while (overflow != null && level.currentTime >= overflow.currentTime) {
+            List<Entry<T>> due = overflow.take();
+            cascade(overflow, expired);
+            due.forEach(entry -> place(entry, expired));
+        }
+    }
+
+    /**
+     * One wheel level. {@code currentTime} is the start of the next bucket still to be processed;
+     * the level holds deadlines in [currentTime, currentTime + span).
+     */
+    private final class Level {
+
+        private final long tick;
+        private final long span;
+        private final List<List<Entry<T>>> buckets;
+        private long currentTime;
+        private Level overflow;
+
+        Level(long tick, long currentTime) {
+            this.tick = tick;
+            this.span = tick * wheelSize;
+            this.currentTime = currentTime;
+            this.buckets = new ArrayList<>(wheelSize);
+            for (int i = 0; i < wheelSize; i++) {
+                buckets.add(new ArrayList<>());
+            }
+        }
+
+        void add(Entry<T> entry) {
+            if (entry.deadline < currentTime + span) {
+                buckets.get(index(entry.deadline)).add(entry);
+                return;
+            }
+            if (overflow == null) {
+                overflow = new Level(span, Math.floorDiv(currentTime, span) * span + span);
+            }
+            overflow.add(entry);
+        }
+
+        /**
+         * Empties the bucket starting at {@code currentTime} and moves past it.
+         */
+        List<Entry<T>> take() {
+            int index = index(currentTime);
+            List<Entry<T>> due = buckets.get(index);
+            currentTime += tick;
+            if (due.isEmpty()) {
+                return List.of();
+            }
+            buckets.set(index, new ArrayList<>());
+            return due;
+        }
+
+        private int index(long time) {
+            return (int) Math.floorMod(Math.floorDiv(time, tick), (long) wheelSize);
+        }
+    }
+
+    private record Entry<T>(T value, long deadline) {}
+}
@@ -0,0 +1,378 @@
+package com.fuchs.oms.service;
+
+import com.fuchs.oms.dto.OrderRequest;
+import com.fuchs.oms.dto.OrderResponse;
+import com.fuchs.oms.exception.IdempotencyKeyConflictException;
+import com.fuchs.oms.exception.InsufficientStockException;
+import com.fuchs.oms.exception.InvalidIdempotencyKeyException;
+import com.fuchs.oms.exception.NoStockAvailableException;
+import com.fuchs.oms.exception.OrderEngineBusyException;
+import com.fuchs.oms.exception.ProductNotFoundException;
+import com.fuchs.oms.exception.ResourceNotFoundException;
+import com.fuchs.oms.model.IdempotencyKey;
+import com.fuchs.oms.repository.IdempotencyKeyRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * {@code Idempotency-Key} support for order submission, so a client that resends an order after
+ * a timeout gets the order its first request created instead of a second allocation.
+ *
+ * Keys are scoped to the vendor account sending them. Before an order is submitted its key is
+ * claimed by inserting a row into {@code idempotency_keys}, whose unique index lets one request
+ * per key through even across nodes; the row points at the order once it exists. Completed keys
+ * are answered from a bounded in-memory LRU map holding the original response, and from the table
+ * once the map has evicted them. Concurrent requests with the same key on this node wait for the
+ * first one and share its outcome; a concurrent request on another node gets a 409.
+ *
+ * A request turned down before allocating (no stock, unknown product, invalid request, or an
+ * engine that rejected or withdrew the order) releases its key so the client can retry it. A
+ * request that timed out while the engine may still allocate the order keeps its claim: retries
+ * get a 409 until the engine's outcome arrives, which then completes or releases the key. Other
+ * failures keep the claim too; one still without an order after {@code claim-timeout-ms}, e.g.
+ * left by a crashed node, may be taken over. Keys expire after {@code retention-hours} and are purged by a
+ * background thread.
+ */
+@Slf4j
+@Component
+public class IdempotentOrderSubmission implements SmartLifecycle {
+
+    public static final int MAX_KEY_LENGTH = 100;
+
+    private final OrderSubmissionService orderSubmissionService;
+    private final OrderService orderService;
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final long retentionMillis;
+    private final long claimTimeoutMillis;
+    private final long waitMillis;
+    private final long purgeMillis;
+    private final Map<Key, Completed> completed;
+    private final ConcurrentHashMap<Key, InFlight> inFlight = new ConcurrentHashMap<>();
+    private final Counter replayed;
+    private final Counter collapsed;
+    private ScheduledExecutorService purger;
+
+    public IdempotentOrderSubmission(
+            OrderSubmissionService orderSubmissionService,
+            OrderService orderService,
+            IdempotencyKeyRepository idempotencyKeyRepository,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${oms.orders.idempotency.retention-hours:24}") long retentionHours,
+            @Value("${oms.orders.idempotency.cache-size:10000}") int cacheSize,
+            @Value("${oms.orders.idempotency.claim-timeout-ms:30000}") long claimTimeoutMillis,
+            @Value("${oms.orders.idempotency.purge-interval-ms:60000}") long purgeMillis,
+            @Value("${oms.orders.submit-timeout-ms:10000}") long waitMillis) {
+        if (retentionHours < 1 || cacheSize < 1 || claimTimeoutMillis < 1 || purgeMillis < 1) {
+            throw new IllegalArgumentException("oms.orders.idempotency needs retention-hours, cache-size, "
+                + "claim-timeout-ms and purge-interval-ms >= 1");
+        }
+        this.orderSubmissionService = orderSubmissionService;
+        this.orderService = orderService;
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.retentionMillis = TimeUnit.HOURS.toMillis(retentionHours);
+        this.claimTimeoutMillis = claimTimeoutMillis;
+        this.purgeMillis = purgeMillis;
+        this.waitMillis = waitMillis;
+        this.completed = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Completed> eldest) {
+                return size() > cacheSize;
+            }
+        };
+        this.replayed = Counter.builder("oms.orders.idempotency")
+            .description("Orders with an Idempotency-Key answered without a new allocation")
+            .tag("outcome", "replayed")
+            .register(meterRegistry);
+        this.collapsed = Counter.builder("oms.orders.idempotency")
+            .description("Orders with an Idempotency-Key answered without a new allocation")
+            .tag("outcome", "collapsed")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Submits an order at most once per vendor account and key; see
+     * {@link OrderSubmissionService#submit(OrderRequest, Long)}.
+     *
+     * @param vendorId the vendor account sending the request, which scopes the key
+     * @throws IdempotencyKeyConflictException if the key is in use by another request for this
+     *         order on another node, or was used for a different order
+     */
+    public OrderResponse submit(Long vendorId, String idempotencyKey, OrderRequest request, Long submittedBy) {
+        return submit(vendorId, idempotencyKey, request, false,
+            () -> orderSubmissionService.submit(request, submittedBy));
+    }
+
+    /**
+     * Runs {@code submission} at most once per vendor account and key.
+     *
+     * @param async whether {@code submission} only accepts the order for {@link OrderIntake}; a key
+     *        cannot be replayed in the other mode
+     * @param submission creates the order
+     */
+    public OrderResponse submit(Long vendorId, String idempotencyKey, OrderRequest request, boolean async,
+                                Supplier<OrderResponse> submission) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new InvalidIdempotencyKeyException(
+                "Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        Key key = new Key(vendorId, idempotencyKey);
+        String fingerprint = fingerprint(request, async);
+
+        Completed done = cached(key);
+        if (done != null) {
+            checkSameOrder(done.fingerprint(), fingerprint, idempotencyKey);
+            replayed.increment();
+            return done.response();
+        }
+
+        InFlight mine = new InFlight(fingerprint, new CompletableFuture<>());
+        InFlight running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            checkSameOrder(running.fingerprint(), fingerprint, idempotencyKey);
+            collapsed.increment();
+            return await(running.future());
+        }
+        try {
+            OrderResponse response = claimAndSubmit(key, fingerprint, submission);
+            mine.future().complete(response);
+            return response;
+        } catch (RuntimeException ex) {
+            mine.future().completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private OrderResponse claimAndSubmit(Key key, String fingerprint, Supplier<OrderResponse> submission) {
+        // The request that finished just before this one was registered may only be in the map
+        Completed done = cached(key);
+        if (done != null) {
+            checkSameOrder(done.fingerprint(), fingerprint, key.idempotencyKey());
+            replayed.increment();
+            return done.response();
+        }
+
+        IdempotencyKey claim;
+        try {
+            claim = transactionTemplate.execute(status -> claim(key, fingerprint));
+        } catch (DataIntegrityViolationException ex) {
+            throw stillProcessing(key.idempotencyKey());
+        }
+        if (claim.getOrderId() != null) {
+            OrderResponse response = orderService.getOrder(claim.getOrderId());
+            remember(key, fingerprint, response);
+            replayed.increment();
+            return response;
+        }
+
+        OrderResponse response;
+        try {
+            response = submission.get();
+        } catch (OrderEngineBusyException ex) {
+            if (ex.getOutcome() == null) {
+                release(claim.getId());
+            } else {
+                // The engine may still allocate the order, so the claim waits for it
+                ex.getOutcome().whenComplete((late, failure) -> {
+                    if (failure == null) {
+                        complete(claim.getId(), key, fingerprint, late);
+                    } else {
+                        release(claim.getId());
+                    }
+                });
+            }
+            throw ex;
+        } catch (RuntimeException ex) {
+            if (isRejection(ex)) {
+                release(claim.getId());
+            } else {
+                log.warn("Order with Idempotency-Key {} failed without a definite outcome; keeping its claim",
+                    key.idempotencyKey(), ex);
+            }
+            throw ex;
+        }
+        complete(claim.getId(), key, fingerprint, response);
+        return response;
+    }
+
+    private void complete(Long claimId, Key key, String fingerprint, OrderResponse response) {
+        transactionTemplate.executeWithoutResult(status ->
+            idempotencyKeyRepository.complete(claimId, response.getOrderId()));
+        remember(key, fingerprint, response);
+    }
+
+    /**
+     * Returns the key's row: a completed one to replay, or a new claim without an order.
+     */
+    private IdempotencyKey claim(Key key, String fingerprint) {
+        Optional<IdempotencyKey> existing =
+            idempotencyKeyRepository.findByVendorIdAndIdempotencyKey(key.vendorId(), key.idempotencyKey());
+        if (existing.isPresent()) {
+            IdempotencyKey row = existing.get();
+            LocalDateTime now = LocalDateTime.now();
+            boolean expired = row.getCreatedAt().isBefore(now.minus(retentionMillis, ChronoUnit.MILLIS));
+            boolean abandoned = row.getOrderId() == null
+                && row.getCreatedAt().isBefore(now.minus(claimTimeoutMillis, ChronoUnit.MILLIS));
+            if (!expired && !abandoned) {
+                checkSameOrder(row.getRequestFingerprint(), fingerprint, key.idempotencyKey());
+                if (row.getOrderId() == null) {
+                    throw stillProcessing(key.idempotencyKey());
+                }
+                return row;
+            }
+            idempotencyKeyRepository.delete(row);
+            idempotencyKeyRepository.flush();
+        }
+        IdempotencyKey claim = new IdempotencyKey();
+        claim.setVendorId(key.vendorId());
+        claim.setIdempotencyKey(key.idempotencyKey());
+        claim.setRequestFingerprint(fingerprint);
+        return idempotencyKeyRepository.saveAndFlush(claim);
+    }
+
+    private void release(Long claimId) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> idempotencyKeyRepository.deleteById(claimId));
+        } catch (RuntimeException ex) {
+            // The claim is taken over once it is older than the claim timeout
+            log.warn("Could not release idempotency key claim {}", claimId, ex);
+        }
+    }
+
+    void purge() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(retentionMillis, ChronoUnit.MILLIS);
+        Integer deleted = transactionTemplate.execute(status -> idempotencyKeyRepository.deleteCreatedBefore(cutoff));
+        if (deleted != null && deleted > 0) {
+            log.debug("Purged {} expired idempotency keys", deleted);
+        }
+    }
+
+    private Completed cached(Key key) {
+        synchronized (completed) {
+            Completed done = completed.get(key);
+            if (done != null && done.expiresAtMillis() < System.currentTimeMillis()) {
+                completed.remove(key);
+                return null;
+            }
+            return done;
+        }
+    }
+
+    private void remember(Key key, String fingerprint, OrderResponse response) {
+        Completed done = new Completed(fingerprint, response, System.currentTimeMillis() + retentionMillis);
+        synchronized (completed) {
+            completed.put(key, done);
+        }
+    }
+
+    private OrderResponse await(CompletableFuture<OrderResponse> future) {
+        try {
+            return future.get(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Order allocation failed", ex.getCause());
+        } catch (TimeoutException ex) {
+            throw new OrderEngineBusyException("Order with the same Idempotency-Key was not allocated within "
+                + waitMillis + " ms");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new OrderEngineBusyException("Interrupted while waiting for allocation");
+        }
+    }
+
+    /**
+     * Whether the order was turned down before any stock was allocated, so its key can be reused.
+     */
+    private static boolean isRejection(RuntimeException ex) {
+        return ex instanceof NoStockAvailableException
+            || ex instanceof ProductNotFoundException
+            || ex instanceof ResourceNotFoundException
+            || ex instanceof InsufficientStockException
+            || ex instanceof IllegalArgumentException;
+    }
+
+    private static void checkSameOrder(String expected, String actual, String idempotencyKey) {
+        if (!expected.equals(actual)) {
+            throw new IdempotencyKeyConflictException(
+                "Idempotency-Key was already used for a different order: " + idempotencyKey);
+        }
+    }
+
+    private static IdempotencyKeyConflictException stillProcessing(String idempotencyKey) {
+        return new IdempotencyKeyConflictException(
+            "An order with this Idempotency-Key is still being processed: " + idempotencyKey);
+    }
+
+    /**
+     * Everything in the request that decides the order, so a key cannot be replayed for another one.
+     */
+    private static String fingerprint(OrderRequest request, boolean async) {
+        return "product=" + request.getProductId()
+            + ";quantity=" + request.getQuantity()
+            + ";delivery=" + request.getDeliveryLatitude() + "," + request.getDeliveryLongitude()
+            + ";backorder=" + request.isBackorderRequested()
+            + ";priority=" + request.effectivePriority()
+            + ";mode=" + (async ? "async" : "sync");
+    }
+
+    @Override
+    public void start() {
+        purger = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "idempotency-key-purger");
+            thread.setDaemon(true);
+            return thread;
+        });
+        purger.scheduleWithFixedDelay(() -> {
+            try {
+                purge();
+            } catch (RuntimeException ex) {
+                log.warn("Idempotency key purge failed", ex);
+            }
+        }, purgeMillis, purgeMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        if (purger != null) {
+            purger.shutdownNow();
+            purger = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return purger != null;
+    }
+
+    private record Key(Long vendorId, String idempotencyKey) {}
+
+    private record Completed(String fingerprint, OrderResponse response, long expiresAtMillis) {}
+
+    private record InFlight(String fingerprint, CompletableFuture<OrderResponse> future) {}
+}
@@ -0,0 +1,53 @@
+package com.fuchs.oms.service;
+
+import com.fuchs.oms.dto.OutboxMessage;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps delivered outbox events in memory ({@code oms.outbox.sink=memory}), for tests and local
+ * runs. It can be told to fail deliveries, to exercise redelivery.
+ */
+@Component
+@ConditionalOnProperty(name = "oms.outbox.sink", havingValue = "memory")
+public class InMemoryOutboxSink implements OutboxSink {
+
+    private final List<OutboxMessage> messages = new ArrayList<>();
+    private final AtomicInteger failuresLeft = new AtomicInteger();
+
+    @Override
+    public void deliver(List<OutboxMessage> batch) {
+        if (failuresLeft.getAndUpdate(left -> Math.max(0, left - 1)) > 0) {
+            throw new IllegalStateException("Simulated outbox sink failure");
+        }
+        synchronized (messages) {
+            messages.addAll(batch);
+        }
+    }
+
+    /**
+     * @return the events delivered so far, in delivery order
+     */
+    public List<OutboxMessage> messages() {
+        synchronized (messages) {
+            return new ArrayList<>(messages);
+        }
+    }
+
+    public void clear() {
+        synchronized (messages) {
+            messages.clear();
+        }
+    }
+
+    /**
+     * Makes the next {@code count} deliveries throw without keeping their events.
+     */
+    public void failNextDeliveries(int count) {
+        failuresLeft.set(count);
+    }
+}
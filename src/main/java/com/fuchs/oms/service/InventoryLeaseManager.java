@@ -0,0 +1,460 @@
+package com.fuchs.oms.service;
+
+import com.fuchs.oms.model.InventoryLease;
+import com.fuchs.oms.repository.InventoryLeaseRepository;
+import com.fuchs.oms.repository.OrderRepository;
+import com.fuchs.oms.repository.ReservationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Allocation from node-local inventory leases ({@code oms.allocation.lock-mode=leased}), for
+ * several OMS nodes sharing one database.
+ *
+ * A node takes a chunk of a vendor's stock out of vendor_products with one guarded decrement and
+ * records it as an {@link InventoryLease}; orders on that node are then allocated from the chunk
+ * with a CAS on an in-memory counter, so they never touch the shared vendor row. Leases expire
+ * after a TTL, and whatever is left is returned to the vendor row by a sweeper thread, or when the
+ * node shuts down. Leases of a node that died are reclaimed by any other node once they are well
+ * past expiry, using the orders and reservations recorded against the lease to work out what is left.
+ *
+ * The chunk size follows an EWMA of each product's ordered units per second, so a hot product takes
+ * bigger chunks and a cold one does not strand stock on one node; a lease never takes more than
+ * half of what the vendor row has left.
+ *
+ * FR12 order holds per node: a node only moves to a more expensive vendor once neither its leases
+ * nor the database can cover the order at a cheaper one, but stock leased by another node is
+ * invisible until it is returned.
+ */
+@Slf4j
+@Component
+public class InventoryLeaseManager implements SmartLifecycle {
+
+    private static final double RATE_SMOOTHING = 0.3;
+
+    private final InventoryLeaseRepository leaseRepository;
+    private final OrderRepository orderRepository;
+    private final ReservationRepository reservationRepository;
+    private final VendorService vendorService;
+    private final VendorCapacity vendorCapacity;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final String nodeId;
+    private final long leaseTtlSeconds;
+    private final double coverageSeconds;
+    private final int minChunk;
+    private final int maxChunk;
+    private final long sweepMillis;
+    private final long reclaimGraceSeconds;
+    private final Counter leasesAcquired;
+    private final Counter localAllocations;
+    private final Counter unitsReturned;
+
+    private final ConcurrentHashMap<LeaseKey, List<LocalLease>> leases = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<LeaseKey, AtomicBoolean> acquiring = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, OrderRate> rates = new ConcurrentHashMap<>();
+    private ScheduledExecutorService sweeper;
+
+    public InventoryLeaseManager(
+            InventoryLeaseRepository leaseRepository,
+            OrderRepository orderRepository,
+            ReservationRepository reservationRepository,
+            VendorService vendorService,
+            VendorCapacity vendorCapacity,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${oms.allocation.lock-mode:guarded}") AllocationService.LockMode lockMode,
+            @Value("${oms.leasing.node-id:}") String nodeId,
+            @Value("${oms.leasing.ttl-seconds:30}") long leaseTtlSeconds,
+            @Value("${oms.leasing.coverage-seconds:10}") double coverageSeconds,
+            @Value("${oms.leasing.min-chunk:10}") int minChunk,
+            @Value("${oms.leasing.max-chunk:1000}") int maxChunk,
+            @Value("${oms.leasing.sweep-ms:1000}") long sweepMillis,
+            @Value("${oms.leasing.reclaim-grace-seconds:60}") long reclaimGraceSeconds) {
+        this.leaseRepository = leaseRepository;
+        this.orderRepository = orderRepository;
+        this.reservationRepository = reservationRepository;
+        this.vendorService = vendorService;
+        this.vendorCapacity = vendorCapacity;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = lockMode == AllocationService.LockMode.LEASED;
+        this.nodeId = nodeId.isBlank() ? UUID.randomUUID().toString() : nodeId;
+        this.leaseTtlSeconds = leaseTtlSeconds;
+        this.coverageSeconds = coverageSeconds;
+        this.minChunk = Math.max(1, minChunk);
+        this.maxChunk = Math.max(this.minChunk, maxChunk);
+        this.sweepMillis = sweepMillis;
+        this.reclaimGraceSeconds = reclaimGraceSeconds;
+        this.leasesAcquired = Counter.builder("oms.leasing.acquired")
+            .description("Inventory leases taken from vendor rows by this node")
+            .register(meterRegistry);
+        this.localAllocations = Counter.builder("oms.leasing.local-allocations")
+            .description("Orders allocated from a node-local lease without touching the vendor row")
+            .register(meterRegistry);
+        this.unitsReturned = Counter.builder("oms.leasing.returned-units")
+            .description("Leased units given back to vendor rows on expiry, shutdown or reclaim")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Allocates from this node's leases, taking a new lease from the first FR12 candidate whose
+     * vendor row can cover the order when no lease can. Must run inside the order's transaction.
+     * Room in a candidate's hourly capacity ({@link VendorCapacity}) is claimed before its stock
+     * and given back if the candidate cannot serve the order, so concurrent orders cannot push a
+     * vendor past its capacity.
+     *
+     * @param candidates offers in FR12 order
+     */
+    public AllocationService.AllocationResult allocate(Long productId, int quantity, List<OfferBook.Offer> candidates) {
+        rates.computeIfAbsent(productId, id -> new OrderRate()).record(quantity);
+
+        for (OfferBook.Offer candidate : candidates) {
+            VendorCapacity.Claim capacity = vendorCapacity.tryAcquire(candidate.vendorId(), quantity);
+            if (capacity == null) {
+                continue;
+            }
+            LeaseKey key = new LeaseKey(candidate.vendorId(), productId);
+            LocalLease lease = claimLocal(key, quantity);
+            if (lease != null) {
+                afterRollback(() -> giveBack(lease, quantity));
+                localAllocations.increment();
+                return new AllocationService.AllocationResult(candidate.vendorId(), true, lease.id);
+            }
+            if (candidate.stock() < quantity) {
+                capacity.release();
+                continue;
+            }
+
+            // One thread per node takes the next lease for a row; the others go straight to the row
+            AtomicBoolean flag = acquiring.computeIfAbsent(key, k -> new AtomicBoolean());
+            if (flag.compareAndSet(false, true)) {
+                LocalLease acquired = acquire(key, candidate.stock(), quantity);
+                if (acquired != null) {
+                    afterCompletion(() -> flag.set(false));
+                    return new AllocationService.AllocationResult(candidate.vendorId(), true, acquired.id);
+                }
+                flag.set(false);
+            }
+            if (vendorService.tryDecrementStock(candidate.vendorId(), productId, quantity)) {
+                return new AllocationService.AllocationResult(candidate.vendorId(), true);
+            }
+            capacity.release();
+        }
+        return new AllocationService.AllocationResult(null, false);
+    }
+
+    /**
+     * Chunk size for a product's next lease: enough for {@code coverage-seconds} at its recent order rate.
+     */
+    int targetChunk(Long productId) {
+        OrderRate rate = rates.get(productId);
+        double unitsPerSecond = rate != null ? rate.unitsPerSecond() : 0;
+        long chunk = (long) Math.ceil(unitsPerSecond * coverageSeconds);
+        return (int) Math.max(minChunk, Math.min(maxChunk, chunk));
+    }
+
+    private LocalLease claimLocal(LeaseKey key, int quantity) {
+        List<LocalLease> held = leases.get(key);
+        if (held == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        for (LocalLease lease : held) {
+            if (lease.tryClaim(quantity, now)) {
+                return lease;
+            }
+        }
+        return null;
+    }
+
+    private LocalLease acquire(LeaseKey key, int available, int quantity) {
+        // Never take more than half of what the row has left, so other nodes are not starved
+        int chunk = Math.max(quantity, Math.min(targetChunk(key.productId()), available / 2));
+        if (!vendorService.tryDecrementStock(key.vendorId(), key.productId(), chunk)) {
+            return null;
+        }
+
+        InventoryLease lease = new InventoryLease();
+        lease.setNodeId(nodeId);
+        lease.setVendorId(key.vendorId());
+        lease.setProductId(key.productId());
+        lease.setQuantity(chunk);
+        lease.setStatus(InventoryLease.ACTIVE);
+        lease.setExpiresAt(LocalDateTime.now().plusSeconds(leaseTtlSeconds));
+        InventoryLease saved = leaseRepository.save(lease);
+
+        // The current order takes its share up front; the rest becomes usable once the lease commits
+        LocalLease local = new LocalLease(saved.getId(), key, chunk - quantity,
+            saved.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                leases.computeIfAbsent(key, k -> new CopyOnWriteArrayList<>()).add(local);
+                leasesAcquired.increment();
+            }
+        });
+        return local;
+    }
+
+    private void giveBack(LocalLease lease, int quantity) {
+        if (lease.giveBack(quantity)) {
+            return;
+        }
+        // The lease was closed while the order was in flight
+        synchronized (lease) {
+            if (lease.returnedLocally) {
+                vendorService.restoreStock(lease.key.vendorId(), lease.key.productId(), quantity);
+                unitsReturned.increment(quantity);
+            }
+        }
+    }
+
+    /**
+     * Returns expired and used-up leases of this node and reclaims leases of nodes that stopped
+     * without returning theirs.
+     */
+    void sweep() {
+        long now = System.currentTimeMillis();
+        leases.forEach((key, held) -> held.forEach(lease -> {
+            if (lease.isExpired(now) || lease.isEmpty()) {
+                returnLease(lease);
+                held.remove(lease);
+            }
+        }));
+
+        LocalDateTime cutoff = LocalDateTime.now().minusSeconds(reclaimGraceSeconds);
+        leaseRepository.findByStatusAndExpiresAtBefore(InventoryLease.ACTIVE, cutoff).stream()
+            .filter(lease -> !lease.getNodeId().equals(nodeId))
+            .forEach(this::reclaim);
+    }
+
+    private void returnLease(LocalLease lease) {
+        synchronized (lease) {
+            int remaining = lease.close();
+            if (remaining < 0) {
+                return;
+            }
+            Boolean returned = transactionTemplate.execute(status -> {
+                if (leaseRepository.markReturned(lease.id, remaining) == 0) {
+                    return false;
+                }
+                if (remaining > 0) {
+                    vendorService.restoreStock(lease.key.vendorId(), lease.key.productId(), remaining);
+                }
+                return true;
+            });
+            lease.returnedLocally = Boolean.TRUE.equals(returned);
+            if (lease.returnedLocally) {
+                unitsReturned.increment(remaining);
+            }
+        }
+    }
+
+    private void reclaim(InventoryLease lease) {
+        transactionTemplate.executeWithoutResult(status -> {
+            long used = orderRepository.sumQuantityByLeaseId(lease.getId())
+                + reservationRepository.sumQuantityByLeaseId(lease.getId());
+            int remaining = (int) Math.max(0, lease.getQuantity() - used);
+            if (leaseRepository.markReturned(lease.getId(), remaining) == 0) {
+                return;
+            }
+            if (remaining > 0) {
+                vendorService.restoreStock(lease.getVendorId(), lease.getProductId(), remaining);
+            }
+            unitsReturned.increment(remaining);
+            log.info("Reclaimed lease {} of node {}: {} of {} units returned",
+                lease.getId(), lease.getNodeId(), remaining, lease.getQuantity());
+        });
+    }
+
+    /**
+     * Reclaims leases this node left ACTIVE in a previous run (only possible with a fixed node id).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reclaimOwnLeftovers() {
+        if (enabled) {
+            leaseRepository.findByNodeIdAndStatus(nodeId, InventoryLease.ACTIVE).forEach(this::reclaim);
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "inventory-lease-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(() -> {
+            try {
+                sweep();
+            } catch (RuntimeException ex) {
+                log.warn("Inventory lease sweep failed", ex);
+            }
+        }, sweepMillis, sweepMillis, TimeUnit.MILLISECONDS);
+        log.info("Inventory leasing enabled for node {}", nodeId);
+    }
+
+    /**
+     * Returns every lease this node holds before it shuts down.
+     */
+    @Override
+    public void stop() {
+        if (sweeper == null) {
+            return;
+        }
+        sweeper.shutdownNow();
+        sweeper = null;
+        leases.values().forEach(held -> held.forEach(this::returnLease));
+        leases.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return sweeper != null;
+    }
+
+    private static void afterRollback(Runnable action) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    action.run();
+                }
+            }
+        });
+    }
+
+    private static void afterCompletion(Runnable action) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                action.run();
+            }
+        });
+    }
+
+    private record LeaseKey(Long vendorId, Long productId) {}
+
+    /**
+     * In-memory side of a lease. {@code remaining} is claimed with CAS; -1 means closed.
+     */
+    private static final class LocalLease {
+
+        private static final int CLOSED = -1;
+
+        private final Long id;
+        private final LeaseKey key;
+        private final AtomicInteger remaining;
+        private final long expiresAtMillis;
+        // Guarded by this; set once the lease's remainder was given back by this node
+        private boolean returnedLocally;
+
+        LocalLease(Long id, LeaseKey key, int remaining, long expiresAtMillis) {
+            this.id = id;
+            this.key = key;
+            this.remaining = new AtomicInteger(remaining);
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        boolean tryClaim(int quantity, long now) {
+            if (now >= expiresAtMillis) {
+                return false;
+            }
+            while (true) {
+                int current = remaining.get();
+                if (current < quantity) {
+                    return false;
+                }
+                if (remaining.compareAndSet(current, current - quantity)) {
+                    return true;
+                }
+            }
+        }
+
+        boolean giveBack(int quantity) {
+            while (true) {
+                int current = remaining.get();
+                if (current == CLOSED) {
+                    return false;
+                }
+                if (remaining.compareAndSet(current, current + quantity)) {
+                    return true;
+                }
+            }
+        }
+
+        int close() {
+            return remaining.getAndSet(CLOSED);
+        }
+
+        boolean isExpired(long now) {
+            return now >= expiresAtMillis;
+        }
+
+        boolean isEmpty() {
+            return remaining.get() == 0;
+        }
+    }
+
+    /**
+     * Ordered units per second for one product, smoothed with an EWMA over one-second windows.
+     */
+    private static final class OrderRate {
+
+        private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+        private long windowStart = System.nanoTime();
+        private long units;
+        private double smoothed = -1;
+
+        synchronized void record(int quantity) {
+            roll(System.nanoTime());
+            units += quantity;
+        }
+
+        synchronized double unitsPerSecond() {
+            long now = System.nanoTime();
+            roll(now);
+            if (smoothed < 0) {
+                // No full window yet: count what has been seen so far as one second's worth
+                return units;
+            }
+            return smoothed;
+        }
+
+        private void roll(long now) {
+            long elapsed = now - windowStart;
+            if (elapsed < WINDOW_NANOS) {
+                return;
+            }
+            double rate = units * 1e9 / elapsed;
+            smoothed = smoothed < 0 ? rate : RATE_SMOOTHING * rate + (1 - RATE_SMOOTHING) * smoothed;
+            units = 0;
+            windowStart = now;
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.fuchs.oms.service;
+
+import com.fuchs.oms.model.VendorProduct;
+import com.fuchs.oms.repository.VendorProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory view of every vendor offer per product, kept in FR12 order
+ * (price ASC, vendor_id ASC) so allocation can pick a vendor without a database read.
+ *
+ * The database stays the system of record: the book is rebuilt from vendor_products at
+ * startup, products missing from the book are loaded on first access, and VendorService
+ * applies its changes here only after the surrounding transaction commits. A product nobody
+ * offers is not cached, so looking up arbitrary ids cannot grow the book.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OfferBook {
+
+    static final Comparator<Offer> FR12_ORDER = Comparator
+        .comparing(Offer::price)
+        .thenComparing(Offer::vendorId);
+
+    private final VendorProductRepository vendorProductRepository;
+
+    private final ConcurrentHashMap<Long, ProductOffers> offersByProduct = new ConcurrentHashMap<>();
+    private final List<Consumer<Long>> listeners = new CopyOnWriteArrayList<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        Map<Long, List<Offer>> loaded = vendorProductRepository.findAllWithVendor().stream()
+            .collect(Collectors.groupingBy(vp -> vp.getProduct().getId(),
+                Collectors.mapping(OfferBook::toOffer, Collectors.toList())));
+
+        Set<Long> previous = Set.copyOf(offersByProduct.keySet());
+        offersByProduct.clear();
+        loaded.forEach((productId, offers) -> offersByProduct.put(productId, ProductOffers.of(sorted(offers))));
+        previous.forEach(this::notifyListeners);
+        loaded.keySet().forEach(this::notifyListeners);
+        log.info("Offer book rebuilt: {} products, {} offers",
+            loaded.size(), loaded.values().stream().mapToInt(List::size).sum());
+    }
+
+    /**
+     * Returns every offer for a product in FR12 order, including vendors with zero stock.
+     * The returned list is an immutable snapshot.
+     */
+    public List<Offer> getOffers(Long productId) {
+        return offers(productId).sorted();
+    }
+
+    /**
+     * Returns one vendor's offer for a product, or null if the vendor does not offer it.
+     */
+    public Offer getOffer(Long productId, Long vendorId) {
+        return offers(productId).byVendor().get(vendorId);
+    }
+
+    /**
+     * Records a new or changed offer (enrollment, price or stock update) once the
+     * current transaction commits.
+     */
+    public void onOfferChanged(Long productId, Long vendorId, String vendorName, BigDecimal price, int stock) {
+        afterCommit(() -> {
+            offersByProduct.computeIfPresent(productId, (id, offers) -> {
+                List<Offer> updated = without(offers.sorted(), vendorId);
+                updated.add(new Offer(vendorId, vendorName, price, stock));
+                return ProductOffers.of(sorted(updated));
+            });
+            notifyListeners(productId);
+        });
+    }
+
+    /**
+     * Applies a relative stock change (e.g. an allocation decrement) once the current transaction commits.
+     */
+    public void onStockAdjusted(Long productId, Long vendorId, int delta) {
+        afterCommit(() -> {
+            offersByProduct.computeIfPresent(productId, (id, offers) -> ProductOffers.of(offers.sorted().stream()
+                .map(offer -> offer.vendorId().equals(vendorId)
+                    ? new Offer(offer.vendorId(), offer.vendorName(), offer.price(), offer.stock() + delta)
+                    : offer)
+                .toList()));
+            notifyListeners(productId);
+        });
+    }
+
+    /**
+     * Removes a vendor's offer (unenrollment) once the current transaction commits.
+     */
+    public void onOfferRemoved(Long productId, Long vendorId) {
+        afterCommit(() -> {
+            offersByProduct.computeIfPresent(productId,
+                (id, offers) -> ProductOffers.of(List.copyOf(without(offers.sorted(), vendorId))));
+            notifyListeners(productId);
+        });
+    }
+
+    /**
+     * Tells listeners once the current transaction commits that a product's own details, such as
+     * its name or code, changed, so they drop what they cached about it. The offers are unchanged.
+     */
+    public void onProductChanged(Long productId) {
+        afterCommit(() -> notifyListeners(productId));
+    }
+
+    /**
+     * Drops the cached offers for a product so the next access reloads them from the database.
+     */
+    public void evict(Long productId) {
+        offersByProduct.remove(productId);
+        notifyListeners(productId);
+    }
+
+    /**
+     * Registers a callback invoked with the product id after that product's offers or details change.
+     * Callbacks run on the committing thread and must be cheap.
+     */
+    public void addListener(Consumer<Long> listener) {
+        listeners.add(listener);
+    }
+
+    private void notifyListeners(Long productId) {
+        listeners.forEach(listener -> listener.accept(productId));
+    }
+
+    private ProductOffers offers(Long productId) {
+        ProductOffers offers = offersByProduct.computeIfAbsent(productId, this::load);
+        return offers != null ? offers : ProductOffers.EMPTY;
+    }
+
+    // Null (not cached) when no vendor offers the product, e.g. for an id that does not exist
+    private ProductOffers load(Long productId) {
+        List<Offer> offers = vendorProductRepository.findByProductIdWithVendor(productId).stream()
+            .map(OfferBook::toOffer)
+            .toList();
+        return offers.isEmpty() ? null : ProductOffers.of(sorted(offers));
+    }
+
+    private static List<Offer> without(List<Offer> offers, Long vendorId) {
+        List<Offer> remaining = new ArrayList<>(offers);
+        remaining.removeIf(offer -> offer.vendorId().equals(vendorId));
+        return remaining;
+    }
+
+    private static List<Offer> sorted(List<Offer> offers) {
+        return offers.stream().sorted(FR12_ORDER).toList();
+    }
+
+    private static Offer toOffer(VendorProduct vp) {
+        return new Offer(vp.getVendor().getId(), vp.getVendor().getName(), vp.getPrice(), vp.getStock());
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * A single vendor's offer for a product.
+     *
+     * @param vendorId the offering vendor
+     * @param vendorName the vendor's display name
+     * @param price the vendor's unit price
+     * @param stock the vendor's available stock as last committed
+     */
+    public record Offer(Long vendorId, String vendorName, BigDecimal price, int stock) {}
+
+    /**
+     * Immutable snapshot of one product's offers, in FR12 order and by vendor.
+     */
+    private record ProductOffers(List<Offer> sorted, Map<Long, Offer> byVendor) {
+
+        static final ProductOffers EMPTY = new ProductOffers(List.of(), Map.of());
+
+        static ProductOffers of(List<Offer> sorted) {
+            return new ProductOffers(sorted, sorted.stream()
+                .collect(Collectors.toUnmodifiableMap(Offer::vendorId, offer -> offer)));
+        }
+    }
+}
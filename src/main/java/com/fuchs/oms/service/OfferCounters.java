@@ -0,0 +1,63 @@
+package com.fuchs.oms.service;
+
+import com.fuchs.oms.dto.OrderRequest;
+import com.fuchs.oms.model.Product;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mutable stock counters for one product's offers, in FR12 order, used by engines that plan
+ * allocations in memory before writing them. Not thread-safe: each instance belongs to the
+ * single thread that plans against it.
+ */
+final class OfferCounters {
+
+    private final List<VendorStock> vendors;
+
+    OfferCounters(List<OfferBook.Offer> offers) {
+        this(offers, Map.of());
+    }
+
+    /**
+     * @param held stock per vendor id already promised to orders the offers do not reflect yet
+     */
+    OfferCounters(List<OfferBook.Offer> offers, Map<Long, Integer> held) {
+        this.vendors = offers.stream()
+            .map(offer -> new VendorStock(offer.vendorId(), offer.vendorName(), offer.price(),
+                offer.stock() - held.getOrDefault(offer.vendorId(), 0)))
+            .toList();
+    }
+
+    /**
+     * Takes the quantity from the first vendor, in FR12 order, that can cover it.
+     *
+     * @return the planned allocation, or null if no vendor has enough stock left
+     */
+    OrderBatchWriter.PlannedAllocation claim(OrderRequest request, Product product) {
+        for (VendorStock vendor : vendors) {
+            if (vendor.available >= request.getQuantity()) {
+                vendor.available -= request.getQuantity();
+                return new OrderBatchWriter.PlannedAllocation(request, product.getProductCode(), product.getName(),
+                    vendor.vendorId, vendor.vendorName, vendor.price);
+            }
+        }
+        return null;
+    }
+
+    private static final class VendorStock {
+
+        private final Long vendorId;
+        private final String vendorName;
+        private final BigDecimal price;
+        private int available;
+
+        VendorStock(Long vendorId, String vendorName, BigDecimal price, int available) {
+            this.vendorId = vendorId;
+            this.vendorName = vendorName;
+            this.price = price;
+            this.available = available;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.fuchs.oms.service;
+
+import com.fuchs.oms.dto.OrderRequest;
+import com.fuchs.oms.dto.OrderResponse;
+import com.fuchs.oms.exception.NoStockAvailableException;
+import com.fuchs.oms.model.Order;
+import com.fuchs.oms.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Persists a batch of allocations planned in memory by a batching engine, in one transaction:
+ * one guarded stock decrement per (vendor, product) for the batch's total quantity, then the
+ * order rows.
+ *
+ * If a vendor's combined decrement fails because the database no longer has the stock the
+ * engine expected, that vendor's orders are re-allocated one by one through
+ * {@link AllocationService} in FR12 order; orders nothing can cover are rejected.
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderBatchWriter {
+
+    private final VendorService vendorService;
+    private final AllocationService allocationService;
+    private final OfferBook offerBook;
+    private final OrderRepository orderRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final Outbox outbox;
+
+    private static final String INSERT_JOURNALED_ORDER = "INSERT INTO orders (id, product_id, product_code, "
+        + "product_name, quantity, allocated_vendor_id, vendor_name, unit_price, total_price, lease_id, status, "
+        + "created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    /**
+     * @param planned allocations in submission order
+     * @return one outcome per planned allocation, in the same order
+     */
+    @Transactional
+    public List<Outcome> persist(List<PlannedAllocation> planned) {
+        Map<StockKey, Integer> totals = new LinkedHashMap<>();
+        for (PlannedAllocation allocation : planned) {
+            totals.merge(allocation.stockKey(), allocation.request().getQuantity(), Integer::sum);
+        }
+
+        Set<StockKey> shortfalls = new HashSet<>();
+        totals.forEach((key, total) -> {
+            if (!vendorService.tryDecrementStock(key.vendorId(), key.productId(), total)) {
+                shortfalls.add(key);
+            }
+        });
+
+        List<Order> orders = new ArrayList<>(planned.size());
+        List<Outcome> outcomes = new ArrayList<>(planned.size());
+        for (PlannedAllocation allocation : planned) {
+            PlannedAllocation placed = shortfalls.contains(allocation.stockKey())
+                ? reallocate(allocation)
+                : allocation;
+            if (placed == null) {
+                orders.add(null);
+                outcomes.add(Outcome.rejected(new NoStockAvailableException(allocation.productName())));
+                continue;
+            }
+            Order order = placed.toOrder();
+            orders.add(order);
+            outcomes.add(null);
+        }
+
+        List<Order> saved = orderRepository.saveAll(orders.stream().filter(order -> order != null).toList());
+        saved.forEach(outbox::orderAllocated);
+
+        for (int i = 0; i < outcomes.size(); i++) {
+            if (outcomes.get(i) == null) {
+                outcomes.set(i, Outcome.allocated(OrderService.toOrderResponse(orders.get(i))));
+            }
+        }
+        return outcomes;
+    }
+
+    /**
+     * Writes orders already confirmed from the {@link OrderJournal}: one stock decrement per
+     * (vendor, product) for the batch, then the order rows with the ids they were confirmed with.
+     * Orders already in the table, from a flush that committed before a crash, are skipped.
+     */
+    @Transactional
+    public void writeJournaled(List<Order> orders) {
+        Set<Long> existing = new HashSet<>(orderRepository.findExistingIds(orders.stream().map(Order::getId).toList()));
+        List<Order> fresh = orders.stream().filter(order -> !existing.contains(order.getId())).toList();
+        if (fresh.isEmpty()) {
+            return;
+        }
+
+        Map<StockKey, Integer> totals = new LinkedHashMap<>();
+        for (Order order : fresh) {
+            totals.merge(new StockKey(order.getProductId(), order.getAllocatedVendorId()), order.getQuantity(),
+                Integer::sum);
+        }
+        totals.forEach((key, total) -> vendorService.drainStock(key.vendorId(), key.productId(), total));
+
+        jdbcTemplate.batchUpdate(INSERT_JOURNALED_ORDER, fresh, fresh.size(), (statement, order) -> {
+            statement.setLong(1, order.getId());
+            statement.setLong(2, order.getProductId());
+            statement.setString(3, order.getProductCode());
+            statement.setString(4, order.getProductName());
+            statement.setInt(5, order.getQuantity());
+            statement.setLong(6, order.getAllocatedVendorId());
+            statement.setString(7, order.getVendorName());
+            statement.setBigDecimal(8, order.getUnitPrice());
+            statement.setBigDecimal(9, order.getTotalPrice());
+            statement.setObject(10, order.getLeaseId());
+            statement.setString(11, order.getStatus());
+            statement.setObject(12, order.getCreatedAt());
+        });
+        fresh.forEach(outbox::orderAllocated);
+    }
+
+    private PlannedAllocation reallocate(PlannedAllocation allocation) {
+        Long productId = allocation.request().getProductId();
+        AllocationService.AllocationResult result =
+            allocationService.allocate(productId, allocation.request().getQuantity());
+        if (!result.success()) {
+            return null;
+        }
+        OfferBook.Offer offer = offerBook.getOffers(productId).stream()
+            .filter(candidate -> candidate.vendorId().equals(result.vendorId()))
+            .findFirst()
+            .orElseThrow();
+        return new PlannedAllocation(allocation.request(), allocation.productCode(), allocation.productName(),
+            offer.vendorId(), offer.vendorName(), offer.price(), result.leaseId());
+    }
+
+    /**
+     * An order the engine has matched to a vendor but not yet persisted.
+     */
+    public record PlannedAllocation(OrderRequest request, String productCode, String productName,
+                                    Long vendorId, String vendorName, BigDecimal unitPrice, Long leaseId) {
+
+        public PlannedAllocation(OrderRequest request, String productCode, String productName,
+                                 Long vendorId, String vendorName, BigDecimal unitPrice) {
+            this(request, productCode, productName, vendorId, vendorName, unitPrice, null);
+        }
+
+        StockKey stockKey() {
+            return new StockKey(request.getProductId(), vendorId);
+        }
+
+        Order toOrder() {
+            Order order = new Order();
+            order.setProductId(request.getProductId());
+            order.setProductCode(productCode);
+            order.setProductName(productName);
+            order.setQuantity(request.getQuantity());
+            order.setAllocatedVendorId(vendorId);
+            order.setVendorName(vendorName);
+            order.setUnitPrice(unitPrice);
+            order.setTotalPrice(unitPrice.multiply(BigDecimal.valueOf(request.getQuantity())));
+            order.setLeaseId(leaseId);
+            order.setStatus(Order.ALLOCATED);
+            return order;
+        }
+    }
+
+    /**
+     * Result for one planned allocation: either the created order or the reason it was rejected.
+     */
+    public record Outcome(OrderResponse response, RuntimeException failure) {
+
+        static Outcome allocated(OrderResponse response) {
+            return new Outcome(response, null);
+        }
+
+        static Outcome rejected(RuntimeException failure) {
+            return new Outcome(null, failure);
+        }
+    }
+
+    private record StockKey(Long productId, Long vendorId) {}
+}
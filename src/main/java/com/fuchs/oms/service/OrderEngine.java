@@ -0,0 +1,22 @@
+package com.fuchs.oms.service;
+
+import com.fuchs.oms.dto.OrderRequest;
+import com.fuchs.oms.dto.OrderResponse;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Executes order creation: allocation, stock decrement and persisting the order.
+ * Selected with {@code oms.orders.engine}; see {@link OrderSubmissionService}.
+ */
+public interface OrderEngine {
+
+    /**
+     * Submits an order for allocation.
+     *
+     * @param request the order to allocate
+     * @return a future completed with the created order, or exceptionally with the same
+     *         business exceptions {@link OrderService#createOrder} throws
+     */
+    CompletableFuture<OrderResponse> submit(OrderRequest request);
+}
@@ -0,0 +1,176 @@
+package com.fuchs.oms.service;
+
+import com.fuchs.oms.dto.OrderRequest;
+import com.fuchs.oms.dto.OrderResponse;
+import com.fuchs.oms.repository.OrderRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Asynchronous order acceptance: {@code POST /api/orders?mode=async} saves the order as PENDING
+ * with its {@code intake} flag set and returns at once, and {@code workers} background threads
+ * allocate intake orders through {@link AllocationService} in batches of {@code batch-size}, each
+ * batch in one transaction. Clients follow the order through {@code GET /api/orders/{orderId}},
+ * where it turns ALLOCATED, REJECTED (with a reason), or stays PENDING as a backorder if the
+ * request asked for one and no vendor had stock.
+ *
+ * The orders table is the queue, so accepted orders survive a restart and are picked up again by
+ * the workers. Each worker serves the products whose id modulo {@code workers} is its index, so a
+ * product's intake orders are allocated in the order they were accepted; like the batching engines
+ * this assumes one node drains the queue. Intake orders are allocated in FR12 order regardless of
+ * their priority.
+ *
+ * Workers wake up when an order is accepted on this node and poll every {@code poll-ms} otherwise.
+ */
+@Slf4j
+@Component
+public class OrderIntake implements SmartLifecycle {
+
+    private final OrderService orderService;
+    private final OrderRepository orderRepository;
+    private final BackorderQueue backorderQueue;
+    private final ConflictRetry conflictRetry;
+    private final int workers;
+    private final int batchSize;
+    private final long pollMillis;
+    private final Semaphore[] wakeUps;
+    private final Counter accepted;
+    private final Counter allocated;
+    private final Counter rejected;
+    private final Counter backordered;
+    private volatile ExecutorService executor;
+
+    public OrderIntake(
+            OrderService orderService,
+            OrderRepository orderRepository,
+            BackorderQueue backorderQueue,
+            ConflictRetry conflictRetry,
+            MeterRegistry meterRegistry,
+            @Value("${oms.orders.intake.workers:2}") int workers,
+            @Value("${oms.orders.intake.batch-size:100}") int batchSize,
+            @Value("${oms.orders.intake.poll-ms:1000}") long pollMillis) {
+        if (workers < 1 || batchSize < 1 || pollMillis < 1) {
+            throw new IllegalArgumentException("oms.orders.intake needs workers, batch-size and poll-ms >= 1");
+        }
+        this.orderService = orderService;
+        this.orderRepository = orderRepository;
+        this.backorderQueue = backorderQueue;
+        this.conflictRetry = conflictRetry;
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.pollMillis = pollMillis;
+        this.wakeUps = new Semaphore[workers];
+        for (int i = 0; i < workers; i++) {
+            wakeUps[i] = new Semaphore(0);
+        }
+        this.accepted = Counter.builder("oms.orders.intake.accepted")
+            .description("Orders accepted for asynchronous allocation")
+            .register(meterRegistry);
+        this.allocated = intakeOutcome(meterRegistry, "allocated");
+        this.rejected = intakeOutcome(meterRegistry, "rejected");
+        this.backordered = intakeOutcome(meterRegistry, "backordered");
+    }
+
+    private static Counter intakeOutcome(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("oms.orders.intake.processed")
+            .description("Intake orders taken off the queue, by outcome")
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Saves the order for a worker to allocate and returns it as PENDING.
+     *
+     * @param submittedBy the vendor account placing the order, which may follow it
+     */
+    public OrderResponse accept(OrderRequest request, Long submittedBy) {
+        OrderResponse order = orderService.acceptOrder(request, submittedBy);
+        accepted.increment();
+        wakeUps[worker(request.getProductId())].release();
+        return order;
+    }
+
+    /**
+     * Allocates one batch for the given worker.
+     *
+     * @return how many intake orders the batch took off the queue
+     */
+    int drainOnce(int worker) {
+        List<Long> orderIds = orderRepository.findIntakeIds(workers, worker, PageRequest.of(0, batchSize));
+        if (orderIds.isEmpty()) {
+            return 0;
+        }
+        OrderService.IntakeBatch batch = conflictRetry.execute("intake", null,
+            () -> orderService.allocateIntake(orderIds, backorderQueue));
+        batch.backorders().forEach(order ->
+            backorderQueue.add(order.getId(), order.getProductId(), order.getQuantity()));
+        allocated.increment(batch.allocated());
+        rejected.increment(batch.rejected());
+        backordered.increment(batch.backorders().size());
+        return orderIds.size();
+    }
+
+    private void run(int worker) {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                if (drainOnce(worker) < batchSize) {
+                    wakeUps[worker].tryAcquire(pollMillis, TimeUnit.MILLISECONDS);
+                    wakeUps[worker].drainPermits();
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException ex) {
+                log.warn("Intake worker {} failed to allocate a batch, retrying in {} ms", worker, pollMillis, ex);
+                try {
+                    Thread.sleep(pollMillis);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    private int worker(Long productId) {
+        return (int) Math.floorMod(productId, (long) workers);
+    }
+
+    @Override
+    public void start() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "order-intake-" + threadIndex.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < workers; i++) {
+            int worker = i;
+            executor.execute(() -> run(worker));
+        }
+    }
+
+    @Override
+    public void stop() {
+        ExecutorService current = executor;
+        executor = null;
+        if (current != null) {
+            current.shutdownNow();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return executor != null;
+    }
+}
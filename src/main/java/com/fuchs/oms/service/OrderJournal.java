@@ -0,0 +1,600 @@
+package com.fuchs.oms.service;
+
+import com.fuchs.oms.dto.OrderResponse;
+import com.fuchs.oms.exception.OrderEngineBusyException;
+import com.fuchs.oms.model.Order;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Write-behind durability for the sharded engine ({@code oms.orders.durability=journal}).
+ *
+ * Allocations planned in memory are appended to a local log instead of being written to the
+ * database before the caller is answered. One writer thread group-commits appends: it collects
+ * records until {@code group-size} are waiting or {@code group-micros} have passed since the
+ * first, writes them and forces the file once for the whole group, then completes the callers.
+ * A flusher thread writes fsynced orders to the orders table in batches of {@code flush-batch}
+ * through {@link OrderBatchWriter#writeJournaled}, taking the vendors' stock in the same
+ * transaction.
+ *
+ * Order ids are drawn in blocks from the orders sequence, so an order keeps the id it was
+ * confirmed with. Stock promised to orders that are journaled but not yet flushed is reported by
+ * {@link #withHeld} so engines seeding their counters from the {@link OfferBook} do not sell it
+ * twice. A flush takes the stock and releases what it held under one lock, so a seed never sees
+ * flushed stock both gone from the offers and still held.
+ *
+ * On startup, orders left in the log by a crash are replayed before the engine starts; orders
+ * already in the table are skipped, so each is inserted once. The log is split into segments,
+ * deleted once everything in them has been flushed. An order is readable through the API once
+ * flushed, normally within {@code flush-ms}.
+ */
+@Slf4j
+@Component
+public class OrderJournal implements SmartLifecycle {
+
+    public enum Durability { DATABASE, JOURNAL }
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int FRAME_HEADER_BYTES = 8;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final OrderBatchWriter batchWriter;
+    private final boolean enabled;
+    private final Path dir;
+    private final int groupSize;
+    private final long groupNanos;
+    private final int flushBatch;
+    private final long flushMillis;
+    private final long segmentBytes;
+    private final LinkedBlockingQueue<Append> appends = new LinkedBlockingQueue<>();
+    private final LinkedBlockingQueue<Entry> flushQueue = new LinkedBlockingQueue<>();
+    private final Map<Long, Map<Long, Integer>> heldByProduct = new ConcurrentHashMap<>();
+    private final List<Consumer<Long>> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicInteger unflushed = new AtomicInteger();
+    private final Object flushLock = new Object();
+    private final DistributionSummary groupSizes;
+    private final Timer fsyncs;
+    private long nextId;
+    private long idLimit;
+    private FileChannel channel;
+    private long segment;
+    private long segmentSize;
+    private volatile boolean running;
+    private volatile boolean writerDone;
+    private Thread writer;
+    private Thread flusher;
+
+    public OrderJournal(
+            JdbcTemplate jdbcTemplate,
+            OrderBatchWriter batchWriter,
+            MeterRegistry meterRegistry,
+            @Value("${oms.orders.durability:database}") Durability durability,
+            @Value("${oms.orders.engine:transactional}") String engine,
+            @Value("${oms.orders.journal.dir:./data/order-journal}") Path dir,
+            @Value("${oms.orders.journal.group-size:64}") int groupSize,
+            @Value("${oms.orders.journal.group-micros:500}") long groupMicros,
+            @Value("${oms.orders.journal.flush-batch:500}") int flushBatch,
+            @Value("${oms.orders.journal.flush-ms:20}") long flushMillis,
+            @Value("${oms.orders.journal.segment-mb:64}") long segmentMegabytes) {
+        this.enabled = durability == Durability.JOURNAL;
+        if (enabled && !"sharded".equals(engine)) {
+            throw new IllegalStateException("oms.orders.durability=journal needs oms.orders.engine=sharded");
+        }
+        if (groupSize < 1 || groupMicros < 0 || flushBatch < 1 || flushMillis < 1 || segmentMegabytes < 1) {
+            throw new IllegalArgumentException(
+                "oms.orders.journal needs group-size, flush-batch, flush-ms and segment-mb >= 1");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchWriter = batchWriter;
+        this.dir = dir;
+        this.groupSize = groupSize;
+        this.groupNanos = TimeUnit.MICROSECONDS.toNanos(groupMicros);
+        this.flushBatch = flushBatch;
+        this.flushMillis = flushMillis;
+        this.segmentBytes = segmentMegabytes * 1024 * 1024;
+        this.groupSizes = DistributionSummary.builder("oms.orders.journal.group.size")
+            .description("Orders made durable by one fsync")
+            .register(meterRegistry);
+        this.fsyncs = Timer.builder("oms.orders.journal.fsync")
+            .description("Time to write and force one group commit")
+            .register(meterRegistry);
+        Gauge.builder("oms.orders.journal.unflushed", unflushed, AtomicInteger::get)
+            .description("Orders confirmed from the journal but not yet in the orders table")
+            .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Registers a callback run with a product id whenever stock held for that product is
+     * released, so engines can reseed their counters.
+     */
+    public void addListener(Consumer<Long> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Runs {@code seed} with the stock per vendor id promised to journaled orders of the product
+     * that the database does not reflect yet. No flush commits while {@code seed} runs, so stock
+     * it reads from the {@link OfferBook} or the database is consistent with what is held.
+     */
+    public <T> T withHeld(Long productId, Function<Map<Long, Integer>, T> seed) {
+        synchronized (flushLock) {
+            Map<Long, Integer> held = heldByProduct.get(productId);
+            return seed.apply(held == null ? Map.of() : Map.copyOf(held));
+        }
+    }
+
+    /**
+     * @return orders confirmed from the journal but not yet written to the orders table
+     */
+    public int unflushed() {
+        return unflushed.get();
+    }
+
+    /**
+     * Journals allocations planned in memory.
+     *
+     * @return a future completed with the orders, in the same order, once they are on disk
+     */
+    public CompletableFuture<List<OrderResponse>> append(List<OrderBatchWriter.PlannedAllocation> planned) {
+        if (!running) {
+            return CompletableFuture.failedFuture(new OrderEngineBusyException("Order journal is not running"));
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<Order> orders = new ArrayList<>(planned.size());
+        for (OrderBatchWriter.PlannedAllocation allocation : planned) {
+            Order order = allocation.toOrder();
+            order.setId(nextId());
+            order.setCreatedAt(now);
+            hold(order, order.getQuantity());
+            orders.add(order);
+        }
+        Append append = new Append(orders, new CompletableFuture<>());
+        appends.add(append);
+        return append.done();
+    }
+
+    private synchronized long nextId() {
+        if (nextId == idLimit) {
+            // Each sequence value starts a block of its own (pooled-lo), as for Hibernate
+            nextId = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR orders_seq", Long.class);
+            idLimit = nextId + Order.ID_BLOCK_SIZE;
+        }
+        return nextId++;
+    }
+
+    private void hold(Order order, int quantity) {
+        heldByProduct.computeIfAbsent(order.getProductId(), id -> new ConcurrentHashMap<>())
+            .merge(order.getAllocatedVendorId(), quantity, (held, delta) -> held + delta == 0 ? null : held + delta);
+    }
+
+    private void release(List<Order> orders) {
+        notifyReleased(unhold(orders));
+    }
+
+    private Set<Long> unhold(List<Order> orders) {
+        Set<Long> productIds = new LinkedHashSet<>();
+        for (Order order : orders) {
+            hold(order, -order.getQuantity());
+            productIds.add(order.getProductId());
+        }
+        return productIds;
+    }
+
+    private void notifyReleased(Set<Long> productIds) {
+        productIds.forEach(productId -> listeners.forEach(listener -> listener.accept(productId)));
+    }
+
+    private void writeGroups() {
+        List<Append> group = new ArrayList<>();
+        while (running || !appends.isEmpty()) {
+            try {
+                Append first = appends.poll(flushMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                int records = first.orders().size();
+                long deadline = System.nanoTime() + groupNanos;
+                while (records < groupSize) {
+                    long remaining = deadline - System.nanoTime();
+                    Append next = remaining > 0 ? appends.poll(remaining, TimeUnit.NANOSECONDS) : appends.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    group.add(next);
+                    records += next.orders().size();
+                }
+                commit(group, records);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                group.clear();
+            }
+        }
+    }
+
+    private void commit(List<Append> group, int records) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(records * 128);
+        for (Append append : group) {
+            append.orders().forEach(order -> bytes.writeBytes(frame(order)));
+        }
+        long start = System.nanoTime();
+        long position = segmentSize;
+        try {
+            if (segmentSize > 0 && segmentSize + bytes.size() > segmentBytes) {
+                openSegment(segment + 1);
+                position = 0;
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+            segmentSize += bytes.size();
+        } catch (IOException ex) {
+            log.error("Order journal failed to write {} orders", records, ex);
+            truncate(position);
+            IllegalStateException failure = new IllegalStateException("Order journal write failed", ex);
+            for (Append append : group) {
+                release(append.orders());
+                append.done().completeExceptionally(failure);
+            }
+            return;
+        }
+        fsyncs.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        groupSizes.record(records);
+
+        for (Append append : group) {
+            List<OrderResponse> responses = new ArrayList<>(append.orders().size());
+            for (Order order : append.orders()) {
+                unflushed.incrementAndGet();
+                flushQueue.add(new Entry(order, segment));
+                responses.add(OrderService.toOrderResponse(order));
+            }
+            append.done().complete(responses);
+        }
+    }
+
+    private void truncate(long position) {
+        // A torn group must not be replayed after its callers were told it failed
+        try {
+            channel.truncate(position);
+            segmentSize = position;
+        } catch (IOException ex) {
+            log.error("Order journal could not truncate segment {} to {}", segment, position, ex);
+        }
+    }
+
+    private void flushEntries() {
+        List<Entry> batch = new ArrayList<>(flushBatch);
+        while (!writerDone || !flushQueue.isEmpty()) {
+            try {
+                Entry first = flushQueue.poll(flushMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                flushQueue.drainTo(batch, flushBatch - 1);
+                if (!flush(batch)) {
+                    return;
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Writes a batch to the database, retrying until it succeeds or the journal stops.
+     *
+     * @return false if the journal stopped with the batch unwritten; it stays in the log for replay
+     */
+    private boolean flush(List<Entry> batch) throws InterruptedException {
+        List<Order> orders = batch.stream().map(Entry::order).toList();
+        Set<Long> productIds;
+        while (true) {
+            try {
+                // The offer book applies the stock taken when the write commits, before it returns
+                synchronized (flushLock) {
+                    batchWriter.writeJournaled(orders);
+                    productIds = unhold(orders);
+                }
+                break;
+            } catch (RuntimeException ex) {
+                if (!running) {
+                    log.error("Order journal stopped with {} orders unflushed; they are replayed on the next start",
+                        unflushed.get(), ex);
+                    return false;
+                }
+                log.warn("Order journal failed to flush {} orders, retrying in {} ms", orders.size(), flushMillis, ex);
+                Thread.sleep(flushMillis);
+            }
+        }
+        unflushed.addAndGet(-orders.size());
+        notifyReleased(productIds);
+        deleteSegmentsBefore(batch.get(batch.size() - 1).segment());
+        return true;
+    }
+
+    private void deleteSegmentsBefore(long segment) {
+        for (Path path : segments()) {
+            if (segmentNumber(path) < segment) {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException ex) {
+                    log.warn("Order journal could not delete flushed segment {}", path, ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the orders of every segment older than the current one to the database, skipping
+     * orders already there, and deletes those segments. A torn record at the end of a segment,
+     * from a crash during a write, ends that segment.
+     *
+     * @return the number of orders read from the log
+     */
+    int replay() {
+        int replayed = 0;
+        for (Path path : segments()) {
+            if (channel != null && segmentNumber(path) >= segment) {
+                continue;
+            }
+            List<Order> orders = read(path);
+            for (int from = 0; from < orders.size(); from += flushBatch) {
+                batchWriter.writeJournaled(orders.subList(from, Math.min(orders.size(), from + flushBatch)));
+            }
+            replayed += orders.size();
+            try {
+                Files.delete(path);
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Could not delete replayed journal segment " + path, ex);
+            }
+        }
+        if (replayed > 0) {
+            log.info("Order journal replayed {} orders from {}", replayed, dir);
+        }
+        return replayed;
+    }
+
+    private List<Path> segments() {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files
+                .filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                .filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                .sorted()
+                .toList();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not list order journal " + dir, ex);
+        }
+    }
+
+    private static long segmentNumber(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private void openSegment(long number) throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+        Path path = dir.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING);
+        segment = number;
+        segmentSize = 0;
+    }
+
+    /**
+     * Encodes an order as one log record: payload length, CRC32 of the payload, payload.
+     */
+    static byte[] frame(Order order) {
+        byte[] payload = encode(order);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return ByteBuffer.allocate(FRAME_HEADER_BYTES + payload.length)
+            .putInt(payload.length)
+            .putInt((int) crc.getValue())
+            .put(payload)
+            .array();
+    }
+
+    private static byte[] encode(Order order) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeLong(order.getId());
+            out.writeLong(order.getProductId());
+            writeNullable(out, order.getProductCode());
+            writeNullable(out, order.getProductName());
+            out.writeInt(order.getQuantity());
+            out.writeLong(order.getAllocatedVendorId());
+            writeNullable(out, order.getVendorName());
+            out.writeUTF(order.getUnitPrice().toPlainString());
+            writeNullable(out, order.getLeaseId() == null ? null : order.getLeaseId().toString());
+            out.writeUTF(order.getCreatedAt().toString());
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static List<Order> read(Path path) {
+        ByteBuffer buffer;
+        try {
+            buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not read order journal segment " + path, ex);
+        }
+        List<Order> orders = new ArrayList<>();
+        while (buffer.remaining() >= FRAME_HEADER_BYTES) {
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length <= 0 || length > buffer.remaining()) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            buffer.get(payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            orders.add(decode(payload));
+        }
+        if (buffer.hasRemaining()) {
+            log.warn("Order journal segment {} ends in a torn record; {} orders read", path, orders.size());
+        }
+        return orders;
+    }
+
+    private static Order decode(byte[] payload) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            Order order = new Order();
+            order.setId(in.readLong());
+            order.setProductId(in.readLong());
+            order.setProductCode(readNullable(in));
+            order.setProductName(readNullable(in));
+            order.setQuantity(in.readInt());
+            order.setAllocatedVendorId(in.readLong());
+            order.setVendorName(readNullable(in));
+            order.setUnitPrice(new BigDecimal(in.readUTF()));
+            order.setTotalPrice(order.getUnitPrice().multiply(BigDecimal.valueOf(order.getQuantity())));
+            String leaseId = readNullable(in);
+            order.setLeaseId(leaseId == null ? null : Long.valueOf(leaseId));
+            order.setCreatedAt(LocalDateTime.parse(in.readUTF()));
+            order.setStatus(Order.ALLOCATED);
+            return order;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Files.createDirectories(dir);
+            replay();
+            long last = segments().stream().mapToLong(OrderJournal::segmentNumber).max().orElse(0);
+            openSegment(last + 1);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not open order journal " + dir, ex);
+        }
+        running = true;
+        writerDone = false;
+        writer = new Thread(() -> {
+            try {
+                writeGroups();
+            } finally {
+                writerDone = true;
+            }
+        }, "order-journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+        flusher = new Thread(this::flushEntries, "order-journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+        log.info("Order journal started in {}: group commit every {} orders or {} us",
+            dir, groupSize, TimeUnit.NANOSECONDS.toMicros(groupNanos));
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            writer.join();
+            flusher.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            channel.close();
+        } catch (IOException ex) {
+            log.warn("Order journal could not close segment {}", segment, ex);
+        }
+        if (unflushed.get() == 0) {
+            // Everything reached the database, so nothing is left to replay
+            deleteSegmentsBefore(segment + 1);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Starts before and stops after the order engine, so orders left by a crash are in the
+     * database before new ones are allocated, and orders journaled during shutdown are flushed.
+     */
+    @Override
+    public int getPhase() {
+        return DEFAULT_PHASE - 1;
+    }
+
+    private record Append(List<Order> orders, CompletableFuture<List<OrderResponse>> done) {}
+
+    private record Entry(Order order, long segment) {}
+}
@@ -7,14 +7,22 @@ import com.fuchs.oms.exception.ProductNotFoundException;
 import com.fuchs.oms.exception.ResourceNotFoundException;
 import com.fuchs.oms.model.Order;
 import com.fuchs.oms.model.Product;
+import com.fuchs.oms.repository.OrderLineDetails;
 import com.fuchs.oms.repository.OrderRepository;
 import com.fuchs.oms.repository.ProductRepository;
+import com.fuchs.oms.repository.VendorProductRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -24,43 +32,207 @@ public class OrderService {
     private final OrderRepository orderRepository;
     private final ProductRepository productRepository;
     private final AllocationService allocationService;
-    private final com.fuchs.oms.repository.VendorProductRepository vendorProductRepository;
+    private final VendorProductRepository vendorProductRepository;
+    private final Outbox outbox;
 
+    /**
+     * Allocates and saves an order. The success path runs three statements: the guarded stock
+     * UPDATE, one read of the product, vendor and price copied onto the order, and the order
+     * INSERT. The product is only looked up when allocation fails, to tell a missing product
+     * from one without stock. With the outbox enabled ({@code oms.outbox.sink} other than none)
+     * the commit adds three more: the product's outbox sequence UPDATE and SELECT and the event
+     * INSERT (see {@link Outbox}).
+     */
     @Transactional
     public OrderResponse createOrder(OrderRequest request) {
-        // 1. Validate product exists and get product for error message
-        Product product = productRepository.findById(request.getProductId())
-            .orElseThrow(() -> new ProductNotFoundException(
-                "Product not found: productId=" + request.getProductId()));
-
-        // 2. Attempt allocation FIRST (before creating order)
+        // 1. Attempt allocation FIRST (before creating order)
         AllocationService.AllocationResult result = allocationService.allocate(
             request.getProductId(),
-            request.getQuantity()
+            request.getQuantity(),
+            request.hasDeliveryLocation()
+                ? new GeoPoint(request.getDeliveryLatitude(), request.getDeliveryLongitude())
+                : null
         );
 
-        // 3. Handle allocation failure - throw exception, do NOT save order (FR13)
+        // 2. Handle allocation failure - throw exception, do NOT save order (FR13)
         if (!result.success()) {
+            Product product = productRepository.findById(request.getProductId())
+                .orElseThrow(() -> new ProductNotFoundException(
+                    "Product not found: productId=" + request.getProductId()));
             throw new NoStockAvailableException(product.getName());
         }
 
-        // 4. Only create and save order if allocation succeeded
+        // 3. Only create and save order if allocation succeeded
+        return recordAllocatedOrder(request.getProductId(), request.getQuantity(), result.vendorId(), result.leaseId());
+    }
+
+    /**
+     * Saves an order whose stock has already been taken from the vendor,
+     * e.g. by a confirmed reservation.
+     */
+    @Transactional
+    public OrderResponse recordAllocatedOrder(Long productId, int quantity, Long vendorId) {
+        return recordAllocatedOrder(productId, quantity, vendorId, null);
+    }
+
+    private OrderResponse recordAllocatedOrder(Long productId, int quantity, Long vendorId, Long leaseId) {
+        Order order = new Order();
+        order.setProductId(productId);
+        order.setQuantity(quantity);
+        allocate(order, vendorId, leaseId, findOrderLineDetails(vendorId, productId));
+
+        Order saved = orderRepository.save(order);
+        outbox.orderAllocated(saved);
+        return toOrderResponse(saved);
+    }
+
+    /**
+     * Saves an order that could not be allocated as PENDING, for {@link BackorderQueue} to
+     * allocate once stock arrives.
+     */
+    @Transactional
+    public OrderResponse createBackorder(OrderRequest request, Long submittedBy) {
+        Product product = productRepository.findById(request.getProductId())
+            .orElseThrow(() -> new ProductNotFoundException(
+                "Product not found: productId=" + request.getProductId()));
+
+        Order order = new Order();
+        order.setProductId(product.getId());
+        order.setProductCode(product.getProductCode());
+        order.setProductName(product.getName());
+        order.setQuantity(request.getQuantity());
+        order.setSubmittedBy(submittedBy);
+        order.setDeliveryLatitude(request.getDeliveryLatitude());
+        order.setDeliveryLongitude(request.getDeliveryLongitude());
+        order.setStatus(Order.PENDING);
+
+        Order saved = orderRepository.save(order);
+        return toOrderResponse(saved);
+    }
+
+    /**
+     * Saves an order for {@link OrderIntake} to allocate later. Neither stock nor the product is
+     * read: the one INSERT is all the request waits for.
+     */
+    @Transactional
+    public OrderResponse acceptOrder(OrderRequest request, Long submittedBy) {
         Order order = new Order();
         order.setProductId(request.getProductId());
         order.setQuantity(request.getQuantity());
-        order.setAllocatedVendorId(result.vendorId());
-        order.setStatus("ALLOCATED");
+        order.setSubmittedBy(submittedBy);
+        order.setDeliveryLatitude(request.getDeliveryLatitude());
+        order.setDeliveryLongitude(request.getDeliveryLongitude());
+        order.setBackorderRequested(request.isBackorderRequested());
+        order.setIntake(true);
+        order.setStatus(Order.PENDING);
 
-        // 5. Save and return
         Order saved = orderRepository.save(order);
         return toOrderResponse(saved);
     }
 
+    /**
+     * Allocates orders from the intake queue in the given order, all in one transaction. An order
+     * that cannot be allocated is REJECTED, unless it asked for backordering and the product's
+     * backorder queue has room; such an order stays PENDING, as does one that asked for
+     * backordering while earlier backorders for its product are still waiting.
+     *
+     * @return what became of the orders; the backorders are for the caller to add to
+     *         {@code backorderQueue} once the transaction has committed
+     */
+    @Transactional
+    public IntakeBatch allocateIntake(List<Long> orderIds, BackorderQueue backorderQueue) {
+        Map<Long, Order> orders = orderRepository.findAllById(orderIds).stream()
+            .collect(Collectors.toMap(Order::getId, Function.identity()));
+        Map<Long, Optional<Product>> products = new HashMap<>();
+        Map<List<Long>, OrderLineDetails> details = new HashMap<>();
+        List<Order> backorders = new ArrayList<>();
+        int allocated = 0;
+        int rejected = 0;
+        for (Long orderId : orderIds) {
+            Order order = orders.get(orderId);
+            if (order == null || !order.isIntake()) {
+                continue;
+            }
+            order.setIntake(false);
+            Long productId = order.getProductId();
+            boolean mayBackorder = order.isBackorderRequested() && backorderQueue.hasRoom(productId);
+
+            // Backorders queue behind earlier ones rather than competing for the next restock
+            if (!mayBackorder || !backorderQueue.hasWaiting(productId)) {
+                AllocationService.AllocationResult result = allocationService.allocate(
+                    productId,
+                    order.getQuantity(),
+                    order.getDeliveryLatitude() != null
+                        ? new GeoPoint(order.getDeliveryLatitude(), order.getDeliveryLongitude())
+                        : null
+                );
+                if (result.success()) {
+                    allocate(order, result.vendorId(), result.leaseId(), details.computeIfAbsent(
+                        List.of(result.vendorId(), productId), key -> findOrderLineDetails(key.get(0), key.get(1))));
+                    outbox.orderAllocated(order);
+                    allocated++;
+                    continue;
+                }
+            }
+
+            Optional<Product> product = products.computeIfAbsent(productId, productRepository::findById);
+            if (product.isEmpty()) {
+                reject(order, "Product not found: productId=" + productId);
+                rejected++;
+                continue;
+            }
+            order.setProductCode(product.get().getProductCode());
+            order.setProductName(product.get().getName());
+            if (mayBackorder) {
+                backorders.add(order);
+            } else {
+                reject(order, new NoStockAvailableException(product.get().getName()).getMessage());
+                rejected++;
+            }
+        }
+        return new IntakeBatch(allocated, rejected, backorders);
+    }
+
+    /**
+     * Allocates pending backorders of one product in the given order, all in one transaction,
+     * and stops at the first one that cannot be allocated so later orders never overtake it.
+     *
+     * @return how many of the given orders are no longer pending (allocated, or already
+     *         allocated or gone); these form a prefix of {@code orderIds}
+     */
+    @Transactional
+    public int fillBackorders(Long productId, List<Long> orderIds) {
+        Map<Long, Order> orders = orderRepository.findAllById(orderIds).stream()
+            .collect(Collectors.toMap(Order::getId, Function.identity()));
+        Map<Long, OrderLineDetails> detailsByVendor = new HashMap<>();
+        int done = 0;
+        for (Long orderId : orderIds) {
+            Order order = orders.get(orderId);
+            if (order != null && Order.PENDING.equals(order.getStatus())) {
+                AllocationService.AllocationResult result = allocationService.allocate(
+                    productId,
+                    order.getQuantity(),
+                    order.getDeliveryLatitude() != null
+                        ? new GeoPoint(order.getDeliveryLatitude(), order.getDeliveryLongitude())
+                        : null
+                );
+                if (!result.success()) {
+                    break;
+                }
+                allocate(order, result.vendorId(), result.leaseId(), detailsByVendor.computeIfAbsent(
+                    result.vendorId(), vendorId -> findOrderLineDetails(vendorId, productId)));
+                outbox.orderAllocated(order);
+            }
+            done++;
+        }
+        return done;
+    }
+
     @Transactional(readOnly = true)
     public List<OrderResponse> getVendorOrders(Long vendorId) {
         List<Order> orders = orderRepository.findByAllocatedVendorIdOrderByCreatedAtDesc(vendorId);
         return orders.stream()
-            .map(this::toOrderResponse)
+            .map(OrderService::toOrderResponse)
             .collect(Collectors.toList());
     }
 
@@ -69,44 +241,75 @@ public class OrderService {
         Order order = orderRepository.findById(orderId)
             .orElseThrow(() -> new ResourceNotFoundException("Order not found: orderId=" + orderId));
 
-        // Security: Return same error if order belongs to another vendor
-        if (!order.getAllocatedVendorId().equals(vendorId)) {
+        // Security: Return same error if order belongs to another vendor (the submitter of a backorder may follow it)
+        if (!vendorId.equals(order.getAllocatedVendorId()) && !vendorId.equals(order.getSubmittedBy())) {
             throw new ResourceNotFoundException("Order not found: orderId=" + orderId);
         }
 
         return toOrderResponse(order);
     }
 
-    private OrderResponse toOrderResponse(Order order) {
-        // Fetch product details
-        Product product = productRepository.findById(order.getProductId())
-            .orElseThrow(() -> new ResourceNotFoundException(
-                "Product not found: productId=" + order.getProductId()));
+    /**
+     * Reads an order without checking who may see it, to replay the response of a request
+     * the caller already made.
+     */
+    @Transactional(readOnly = true)
+    public OrderResponse getOrder(Long orderId) {
+        return orderRepository.findById(orderId)
+            .map(OrderService::toOrderResponse)
+            .orElseThrow(() -> new ResourceNotFoundException("Order not found: orderId=" + orderId));
+    }
 
-        // Fetch vendor product details to get price and vendor name
-        com.fuchs.oms.model.VendorProduct vendorProduct = vendorProductRepository
-            .findByVendorIdAndProductIdWithProduct(order.getAllocatedVendorId(), order.getProductId())
+    private OrderLineDetails findOrderLineDetails(Long vendorId, Long productId) {
+        return vendorProductRepository.findOrderLineDetails(vendorId, productId)
             .orElseThrow(() -> new ResourceNotFoundException(
-                "VendorProduct not found: vendorId=" + order.getAllocatedVendorId() +
-                ", productId=" + order.getProductId()));
+                "VendorProduct not found: vendorId=" + vendorId + ", productId=" + productId));
+    }
 
-        // Calculate total price
-        java.math.BigDecimal totalPrice = vendorProduct.getPrice()
-            .multiply(java.math.BigDecimal.valueOf(order.getQuantity()));
+    /**
+     * Marks an order allocated and copies the product, vendor and price it was allocated at
+     * onto it.
+     */
+    private static void allocate(Order order, Long vendorId, Long leaseId, OrderLineDetails details) {
+        order.setAllocatedVendorId(vendorId);
+        order.setLeaseId(leaseId);
+        order.setProductCode(details.productCode());
+        order.setProductName(details.productName());
+        order.setVendorName(details.vendorName());
+        order.setUnitPrice(details.price());
+        order.setTotalPrice(details.price().multiply(BigDecimal.valueOf(order.getQuantity())));
+        order.setStatus(Order.ALLOCATED);
+    }
 
+    private static void reject(Order order, String reason) {
+        order.setStatus(Order.REJECTED);
+        order.setRejectionReason(reason);
+    }
+
+    /**
+     * Builds the response from the order row alone; a pending backorder has no vendor or price yet.
+     */
+    static OrderResponse toOrderResponse(Order order) {
         return new OrderResponse(
             order.getId(),
             order.getProductId(),
-            product.getName(),
+            order.getProductName(),
             order.getQuantity(),
             order.getAllocatedVendorId(),
-            vendorProduct.getVendor().getName(),
-            vendorProduct.getPrice(),
-            totalPrice,
+            order.getVendorName(),
+            order.getUnitPrice(),
+            order.getTotalPrice(),
             order.getStatus(),
             order.getCreatedAt() != null
                 ? order.getCreatedAt().toString()
-                : Instant.now().toString()
+                : Instant.now().toString(),
+            order.getRejectionReason()
         );
     }
+
+    /**
+     * Outcome of {@link #allocateIntake}: how many orders were allocated and rejected, and the
+     * orders left PENDING as backorders.
+     */
+    public record IntakeBatch(int allocated, int rejected, List<Order> backorders) {}
 }
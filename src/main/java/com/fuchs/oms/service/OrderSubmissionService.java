@@ -0,0 +1,112 @@
+package com.fuchs.oms.service;
+
+import com.fuchs.oms.dto.OrderRequest;
+import com.fuchs.oms.dto.OrderResponse;
+import com.fuchs.oms.exception.NoStockAvailableException;
+import com.fuchs.oms.exception.OrderEngineBusyException;
+import com.fuchs.oms.exception.ProductNotFoundException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Entry point for new orders. Hands each request to the configured {@link OrderEngine} and waits
+ * for its outcome, so controllers never hold a transaction while an engine queues the order.
+ * Orders for products known to be sold out or missing are rejected by {@link ProductAvailability}
+ * before they reach the engine. Orders that opt into backordering are queued by
+ * {@link BackorderQueue} instead of being rejected for lack of stock.
+ */
+@Service
+public class OrderSubmissionService {
+
+    private final OrderEngine orderEngine;
+    private final ProductAvailability productAvailability;
+    private final BackorderQueue backorderQueue;
+    private final long timeoutMillis;
+
+    public OrderSubmissionService(
+            OrderEngine orderEngine,
+            ProductAvailability productAvailability,
+            BackorderQueue backorderQueue,
+            @Value("${oms.orders.submit-timeout-ms:10000}") long timeoutMillis) {
+        this.orderEngine = orderEngine;
+        this.productAvailability = productAvailability;
+        this.backorderQueue = backorderQueue;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Submits an order, queueing it as a PENDING backorder instead of failing for lack of stock
+     * if the request asks for that.
+     *
+     * @param submittedBy the vendor account placing the order, recorded on backorders
+     */
+    public OrderResponse submit(OrderRequest request, Long submittedBy) {
+        if (!request.isBackorderRequested()) {
+            return submit(request);
+        }
+        Long productId = request.getProductId();
+        if (backorderQueue.hasWaiting(productId) && backorderQueue.hasRoom(productId)) {
+            return backorderQueue.enqueue(request, submittedBy);
+        }
+        try {
+            return submit(request);
+        } catch (NoStockAvailableException ex) {
+            if (!backorderQueue.hasRoom(productId)) {
+                throw ex;
+            }
+            return backorderQueue.enqueue(request, submittedBy);
+        }
+    }
+
+    public OrderResponse submit(OrderRequest request) {
+        Long productId = request.getProductId();
+        productAvailability.checkAvailable(productId);
+        long generation = productAvailability.offerGeneration(productId);
+        try {
+            return await(orderEngine.submit(request));
+        } catch (NoStockAvailableException ex) {
+            productAvailability.recordNoStock(productId, ex.getProductName(), generation);
+            throw ex;
+        } catch (ProductNotFoundException ex) {
+            productAvailability.recordUnknownProduct(productId);
+            throw ex;
+        }
+    }
+
+    /**
+     * Waits up to the submit timeout for the engine's outcome. On timeout an order still queued
+     * in an {@link OrderTicket} is withdrawn and the caller told the engine is busy; if the engine
+     * has already taken it, its outcome, due with the engine's current batch, is awaited instead.
+     * Orders of engines without tickets cannot be withdrawn, so the busy exception carries their
+     * eventual outcome.
+     */
+    private OrderResponse await(CompletableFuture<OrderResponse> future) {
+        try {
+            try {
+                return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException ex) {
+                String message = "Order was not allocated within " + timeoutMillis + " ms";
+                if (!(future instanceof OrderTicket)) {
+                    throw new OrderEngineBusyException(message, future);
+                }
+                if (future.cancel(false)) {
+                    throw new OrderEngineBusyException(message);
+                }
+                return future.get();
+            }
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Order allocation failed", ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new OrderEngineBusyException("Interrupted while waiting for allocation");
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.fuchs.oms.service;
+
+import com.fuchs.oms.dto.OrderResponse;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Future for an order queued in an engine. The submitter may cancel it until the engine
+ * {@link #take takes} the order for allocation; from then on cancelling fails and the order's
+ * outcome arrives as usual, so an order is never allocated for a caller that was told it was not.
+ */
+public class OrderTicket extends CompletableFuture<OrderResponse> {
+
+    private final AtomicBoolean decided = new AtomicBoolean();
+
+    /**
+     * Called by the engine before allocating the order.
+     *
+     * @return true if the order is the engine's to allocate, false if it was cancelled
+     */
+    public boolean take() {
+        return decided.compareAndSet(false, true);
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        if (!decided.compareAndSet(false, true)) {
+            return isCancelled();
+        }
+        return super.cancel(mayInterruptIfRunning);
+    }
+}
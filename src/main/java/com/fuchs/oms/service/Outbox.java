@@ -0,0 +1,158 @@
+package com.fuchs.oms.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fuchs.oms.model.Order;
+import com.fuchs.oms.model.OutboxEvent;
+import com.fuchs.oms.repository.OutboxEventRepository;
+import com.fuchs.oms.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Records order and inventory events in the {@code outbox_events} table, in the transaction of the
+ * change they describe: an event is stored if and only if its change commits, and
+ * {@link OutboxDispatcher} relays it to the configured sink afterwards.
+ *
+ * A transaction's events are held until just before it commits. They are then numbered per
+ * product from the product row's {@code outbox_seq}, locked in product id order and held until
+ * the commit. So the sequence numbers of a product's events follow commit order without gaps,
+ * even across nodes, and a number is visible only once every lower one has committed. That costs
+ * each writing transaction an UPDATE and a SELECT per product on top of the event INSERTs.
+ *
+ * Events are written only when a sink is configured ({@code oms.outbox.sink} other than none);
+ * otherwise every method returns at once.
+ */
+@Component
+public class Outbox {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ProductRepository productRepository;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+    public Outbox(
+            OutboxEventRepository outboxEventRepository,
+            ProductRepository productRepository,
+            ObjectMapper objectMapper,
+            @Value("${oms.outbox.sink:none}") String sink) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.productRepository = productRepository;
+        this.objectMapper = objectMapper;
+        this.enabled = !"none".equals(sink);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Registers a callback run after a transaction that wrote events has committed.
+     */
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Records that an order was allocated. The order must already have its id.
+     */
+    public void orderAllocated(Order order) {
+        if (!enabled) {
+            return;
+        }
+        record(OutboxEvent.ORDER_ALLOCATED, order.getProductId(), new OrderAllocated(
+            order.getId(), order.getProductId(), order.getProductCode(), order.getQuantity(),
+            order.getAllocatedVendorId(), order.getUnitPrice(), order.getTotalPrice(), order.getSubmittedBy()));
+    }
+
+    /**
+     * Records a change to a vendor's stock of a product.
+     *
+     * @param delta the change in units
+     * @param stock the vendor's stock after the change, or null where the change was a relative
+     *              UPDATE and the new value was not read
+     * @param reason what changed it: {@code taken} for orders, reservations and leases,
+     *               {@code returned} when they give stock back, {@code update}, {@code enroll} or
+     *               {@code unenroll} for the vendor's own changes
+     */
+    public void stockChanged(Long productId, Long vendorId, int delta, Integer stock, String reason) {
+        if (!enabled) {
+            return;
+        }
+        record(OutboxEvent.STOCK_CHANGED, productId, new StockChanged(productId, vendorId, delta, stock, reason));
+    }
+
+    private void record(String eventType, Long productId, Object payload) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Outbox events must be written in the transaction of their change");
+        }
+        OutboxEvent event = new OutboxEvent();
+        event.setEventType(eventType);
+        event.setProductId(productId);
+        try {
+            event.setPayload(objectMapper.writeValueAsString(payload));
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not serialize " + eventType + " event", ex);
+        }
+        pending().add(event);
+    }
+
+    // One list and callback per transaction, however many events it writes
+    @SuppressWarnings("unchecked")
+    private List<OutboxEvent> pending() {
+        List<OutboxEvent> pending = (List<OutboxEvent>) TransactionSynchronizationManager.getResource(this);
+        if (pending != null) {
+            return pending;
+        }
+        List<OutboxEvent> events = new ArrayList<>();
+        TransactionSynchronizationManager.bindResource(this, events);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                write(events);
+            }
+
+            @Override
+            public void afterCommit() {
+                listeners.forEach(Runnable::run);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(Outbox.this);
+            }
+        });
+        return events;
+    }
+
+    private void write(List<OutboxEvent> events) {
+        Map<Long, List<OutboxEvent>> byProduct = new TreeMap<>();
+        events.forEach(event -> byProduct.computeIfAbsent(event.getProductId(), id -> new ArrayList<>()).add(event));
+        // Product rows are locked in id order, so two transactions cannot wait on each other
+        byProduct.forEach((productId, productEvents) -> {
+            if (productRepository.advanceOutboxSeq(productId, productEvents.size()) == 0) {
+                throw new IllegalStateException("Outbox events for unknown product " + productId);
+            }
+            long next = productRepository.findOutboxSeq(productId) - productEvents.size() + 1;
+            for (OutboxEvent event : productEvents) {
+                event.setProductSeq(next++);
+            }
+        });
+        outboxEventRepository.saveAll(events);
+    }
+
+    public record OrderAllocated(Long orderId, Long productId, String productCode, Integer quantity,
+                                 Long vendorId, BigDecimal unitPrice, BigDecimal totalPrice, Long submittedBy) {}
+
+    public record StockChanged(Long productId, Long vendorId, int delta, Integer stock, String reason) {}
+}
@@ -0,0 +1,165 @@
+package com.fuchs.oms.service;
+
+import com.fuchs.oms.dto.OutboxMessage;
+import com.fuchs.oms.model.OutboxEvent;
+import com.fuchs.oms.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Relays events recorded by {@link Outbox} to the configured {@link OutboxSink}
+ * ({@code oms.outbox.sink}: file, webhook or memory; none turns the outbox off).
+ *
+ * One thread reads up to {@code batch-size} events by product sequence number, delivers them as
+ * one batch and deletes them once the sink has accepted it. A failed delivery is retried every
+ * {@code retry-ms} with the same events, so delivery is at-least-once. The thread wakes up when a
+ * transaction that wrote events commits and polls every {@code poll-ms} otherwise.
+ *
+ * {@link Outbox} numbers each product's events in commit order, and a number only becomes
+ * visible after all lower ones have committed. Every lower number is therefore either in the batch
+ * or already delivered, so a product's events are relayed in commit order however long its
+ * transactions take to commit and whichever node wrote them. One dispatcher relays the outbox.
+ *
+ * Metrics: {@code oms.outbox.lag} is the age of the oldest undelivered event,
+ * {@code oms.outbox.delivery.lag} the time from writing each event to its delivery.
+ */
+@Slf4j
+@Component
+public class OutboxDispatcher implements SmartLifecycle {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxSink sink;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long pollMillis;
+    private final long retryMillis;
+    private final Semaphore wakeUp = new Semaphore(0);
+    private final Timer deliveryLag;
+    private final Counter delivered;
+    private final Counter failures;
+    private volatile Thread thread;
+
+    public OutboxDispatcher(
+            Outbox outbox,
+            OutboxEventRepository outboxEventRepository,
+            ObjectProvider<OutboxSink> sinks,
+            MeterRegistry meterRegistry,
+            @Value("${oms.outbox.sink:none}") String sinkName,
+            @Value("${oms.outbox.batch-size:500}") int batchSize,
+            @Value("${oms.outbox.poll-ms:200}") long pollMillis,
+            @Value("${oms.outbox.retry-ms:1000}") long retryMillis) {
+        if (batchSize < 1 || pollMillis < 1 || retryMillis < 1) {
+            throw new IllegalArgumentException("oms.outbox needs batch-size, poll-ms and retry-ms >= 1");
+        }
+        this.outboxEventRepository = outboxEventRepository;
+        this.sink = sinks.getIfAvailable();
+        this.enabled = outbox.isEnabled();
+        if (enabled && sink == null) {
+            throw new IllegalStateException("Unknown oms.outbox.sink: " + sinkName + " (use file, webhook, memory or none)");
+        }
+        this.batchSize = batchSize;
+        this.pollMillis = pollMillis;
+        this.retryMillis = retryMillis;
+        this.deliveryLag = Timer.builder("oms.outbox.delivery.lag")
+            .description("Time from writing an outbox event to its delivery")
+            .register(meterRegistry);
+        this.delivered = Counter.builder("oms.outbox.delivered")
+            .description("Outbox events delivered to the sink")
+            .register(meterRegistry);
+        this.failures = Counter.builder("oms.outbox.failures")
+            .description("Outbox batches the sink failed to accept")
+            .register(meterRegistry);
+        if (enabled) {
+            Gauge.builder("oms.outbox.lag", this, OutboxDispatcher::lagSeconds)
+                .description("Age in seconds of the oldest outbox event not yet delivered")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+            outbox.addListener(wakeUp::release);
+        }
+    }
+
+    /**
+     * Delivers one batch of events and deletes them.
+     *
+     * @return how many events were delivered
+     */
+    int dispatchOnce() {
+        List<OutboxEvent> events = outboxEventRepository.findNext(PageRequest.of(0, batchSize));
+        if (events.isEmpty()) {
+            return 0;
+        }
+        sink.deliver(events.stream().map(OutboxMessage::of).toList());
+        // A crash before this delete delivers the batch again on restart
+        outboxEventRepository.deleteAllByIdInBatch(events.stream().map(OutboxEvent::getId).toList());
+
+        LocalDateTime now = LocalDateTime.now();
+        events.forEach(event -> deliveryLag.record(Duration.between(event.getCreatedAt(), now)));
+        delivered.increment(events.size());
+        return events.size();
+    }
+
+    private double lagSeconds() {
+        LocalDateTime oldest = outboxEventRepository.findOldestCreatedAt();
+        return oldest == null ? 0 : Duration.between(oldest, LocalDateTime.now()).toMillis() / 1000.0;
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                if (dispatchOnce() < batchSize) {
+                    wakeUp.tryAcquire(pollMillis, TimeUnit.MILLISECONDS);
+                    wakeUp.drainPermits();
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException ex) {
+                failures.increment();
+                log.warn("Outbox delivery failed, retrying in {} ms", retryMillis, ex);
+                try {
+                    Thread.sleep(retryMillis);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        Thread dispatcher = new Thread(this::run, "outbox-dispatcher");
+        dispatcher.setDaemon(true);
+        thread = dispatcher;
+        dispatcher.start();
+    }
+
+    @Override
+    public void stop() {
+        Thread current = thread;
+        thread = null;
+        if (current != null) {
+            current.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return thread != null;
+    }
+}
@@ -0,0 +1,18 @@
+package com.fuchs.oms.service;
+
+import com.fuchs.oms.dto.OutboxMessage;
+
+import java.util.List;
+
+/**
+ * Where {@link OutboxDispatcher} relays outbox events, chosen by {@code oms.outbox.sink}.
+ */
+public interface OutboxSink {
+
+    /**
+     * Delivers a batch of events in the given order, returning only once the destination has
+     * accepted all of them. Throwing makes the dispatcher deliver the same batch again later, so a
+     * destination may see events it already accepted.
+     */
+    void deliver(List<OutboxMessage> messages);
+}
@@ -0,0 +1,171 @@
+package com.fuchs.oms.service;
+
+import com.fuchs.oms.dto.OrderPriority;
+import com.fuchs.oms.dto.OrderRequest;
+import com.fuchs.oms.dto.OrderResponse;
+import com.fuchs.oms.exception.OrderEngineBusyException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opt-in engine that schedules orders by priority class ({@code oms.orders.engine=prioritized}).
+ *
+ * Requests wait in one lane per {@link OrderPriority} and a fixed pool of worker threads runs
+ * {@link OrderService#createOrder} for them, taking the next order by weighted fair turn across
+ * the lanes ({@link WeightedFairQueue}). The pool bounds how many orders hold a database connection
+ * at once, so a burst of bulk orders queues in its own lane while expedited orders keep being
+ * picked several times as often and see short waits.
+ *
+ * Queue depth and time spent waiting are published per lane as {@code oms.orders.lane.depth} and
+ * {@code oms.orders.lane.wait}. An order still queued when its submitter stops waiting is dropped
+ * rather than allocated: orders are queued as {@link OrderTicket}s, which a worker takes before
+ * allocating, so a submitter that times out first withdraws its order. Orders still queued when
+ * the engine stops fail as busy.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "oms.orders.engine", havingValue = "prioritized")
+public class PrioritizedOrderEngine implements OrderEngine, SmartLifecycle {
+
+    private static final long POLL_MILLIS = 100;
+
+    private final OrderService orderService;
+    private final ConflictRetry conflictRetry;
+    private final WeightedFairQueue<OrderPriority, QueuedOrder> lanes;
+    private final Map<OrderPriority, Timer> waitTimers = new EnumMap<>(OrderPriority.class);
+    private final Thread[] workers;
+    private final long submitTimeoutNanos;
+    private volatile boolean running;
+
+    public PrioritizedOrderEngine(
+            OrderService orderService,
+            ConflictRetry conflictRetry,
+            MeterRegistry meterRegistry,
+            @Value("${oms.orders.prioritized.workers:8}") int workerCount,
+            @Value("${oms.orders.prioritized.max-queued:10000}") int maxQueued,
+            @Value("${oms.orders.prioritized.weights.expedited:8}") int expeditedWeight,
+            @Value("${oms.orders.prioritized.weights.standard:3}") int standardWeight,
+            @Value("${oms.orders.prioritized.weights.bulk:1}") int bulkWeight,
+            @Value("${oms.orders.submit-timeout-ms:10000}") long submitTimeoutMillis) {
+        this.orderService = orderService;
+        this.conflictRetry = conflictRetry;
+        this.lanes = new WeightedFairQueue<>(OrderPriority.class, Map.of(
+            OrderPriority.EXPEDITED, expeditedWeight,
+            OrderPriority.STANDARD, standardWeight,
+            OrderPriority.BULK, bulkWeight), maxQueued);
+        this.workers = new Thread[Math.max(1, workerCount)];
+        this.submitTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(submitTimeoutMillis);
+        for (OrderPriority lane : OrderPriority.values()) {
+            String tag = lane.name().toLowerCase();
+            Gauge.builder("oms.orders.lane.depth", lanes, queue -> queue.size(lane))
+                .description("Orders waiting for a worker in this priority lane")
+                .tag("lane", tag)
+                .register(meterRegistry);
+            waitTimers.put(lane, Timer.builder("oms.orders.lane.wait")
+                .description("Time an order waited in its priority lane before allocation started")
+                .tag("lane", tag)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry));
+        }
+    }
+
+    @Override
+    public CompletableFuture<OrderResponse> submit(OrderRequest request) {
+        if (!running) {
+            return CompletableFuture.failedFuture(new OrderEngineBusyException("Order engine is not running"));
+        }
+        OrderPriority lane = request.effectivePriority();
+        QueuedOrder queued = new QueuedOrder(request, lane, System.nanoTime(), new OrderTicket());
+        if (!lanes.offer(lane, queued)) {
+            return CompletableFuture.failedFuture(
+                new OrderEngineBusyException("Order queue is full for priority " + lane));
+        }
+        return queued.future();
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new Thread(this::work, "order-lane-worker-" + i);
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+        log.info("Prioritized order engine started: {} workers", workers.length);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        for (Thread worker : workers) {
+            try {
+                worker.join(TimeUnit.NANOSECONDS.toMillis(submitTimeoutNanos));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        OrderEngineBusyException stopped = new OrderEngineBusyException("Order engine stopped");
+        for (QueuedOrder queued : lanes.drain()) {
+            if (queued.future().take()) {
+                queued.future().completeExceptionally(stopped);
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void work() {
+        while (running) {
+            QueuedOrder queued;
+            try {
+                queued = lanes.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (queued != null) {
+                process(queued);
+            }
+        }
+    }
+
+    private void process(QueuedOrder queued) {
+        if (!queued.future().take()) {
+            // The submitter gave up and withdrew the order while it was queued
+            return;
+        }
+        long waitedNanos = System.nanoTime() - queued.enqueuedNanos();
+        waitTimers.get(queued.lane()).record(waitedNanos, TimeUnit.NANOSECONDS);
+        if (waitedNanos >= submitTimeoutNanos) {
+            // The submitter has given up on this order; allocating it now would surprise them
+            queued.future().completeExceptionally(new OrderEngineBusyException(
+                "Order waited " + TimeUnit.NANOSECONDS.toMillis(waitedNanos) + " ms in the " + queued.lane() + " lane"));
+            return;
+        }
+        try {
+            OrderRequest request = queued.request();
+            queued.future().complete(conflictRetry.execute("allocate", request.getProductId(),
+                () -> orderService.createOrder(request)));
+        } catch (RuntimeException ex) {
+            queued.future().completeExceptionally(ex);
+        }
+    }
+
+    private record QueuedOrder(OrderRequest request, OrderPriority lane, long enqueuedNanos,
+                               OrderTicket future) {}
+}
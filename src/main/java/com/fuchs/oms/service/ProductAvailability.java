@@ -0,0 +1,158 @@
+package com.fuchs.oms.service;
+
+import com.fuchs.oms.exception.NoStockAvailableException;
+import com.fuchs.oms.exception.ProductNotFoundException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Negative cache in front of order submission, so orders for sold-out or unknown products are
+ * rejected without touching the database.
+ *
+ * A product is marked sold out when an order fails for lack of stock and the offer book shows no
+ * vendor with any stock left. The marker is dropped on the next offer book change for that product,
+ * which {@link VendorService} publishes after every committed restock, enrollment or returned stock,
+ * and otherwise expires after {@code sold-out-ttl-ms}: stock added by another node or directly in
+ * the database never reaches this node's book, so the marker must not outlive a short TTL.
+ * Unknown product ids are remembered for a short TTL and forgotten when a product is created.
+ * Both caches are capped; once full, expired entries are swept and new ones dropped if none expired.
+ */
+@Component
+public class ProductAvailability {
+
+    private static final int MAX_UNKNOWN_PRODUCTS = 10_000;
+    private static final int MAX_SOLD_OUT_PRODUCTS = 10_000;
+
+    private final OfferBook offerBook;
+    private final long unknownProductTtlNanos;
+    private final long soldOutTtlNanos;
+    private final ConcurrentHashMap<Long, SoldOut> soldOut = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Long> offerGenerations = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Long> unknownUntil = new ConcurrentHashMap<>();
+    private final Counter soldOutRejections;
+    private final Counter unknownProductRejections;
+
+    public ProductAvailability(
+            OfferBook offerBook,
+            MeterRegistry meterRegistry,
+            @Value("${oms.orders.unknown-product-ttl-ms:5000}") long unknownProductTtlMillis,
+            @Value("${oms.orders.sold-out-ttl-ms:1000}") long soldOutTtlMillis) {
+        this.offerBook = offerBook;
+        this.unknownProductTtlNanos = unknownProductTtlMillis * 1_000_000;
+        this.soldOutTtlNanos = soldOutTtlMillis * 1_000_000;
+        this.soldOutRejections = Counter.builder("oms.orders.fast-rejections")
+            .description("Orders rejected from the negative cache without a database read")
+            .tag("reason", "sold-out")
+            .register(meterRegistry);
+        this.unknownProductRejections = Counter.builder("oms.orders.fast-rejections")
+            .description("Orders rejected from the negative cache without a database read")
+            .tag("reason", "unknown-product")
+            .register(meterRegistry);
+        offerBook.addListener(this::onOffersChanged);
+    }
+
+    /**
+     * Throws if the product is known to be sold out or not to exist.
+     */
+    public void checkAvailable(Long productId) {
+        SoldOut marker = soldOut.get(productId);
+        if (marker != null) {
+            if (marker.until() - System.nanoTime() > 0) {
+                soldOutRejections.increment();
+                throw new NoStockAvailableException(marker.productName());
+            }
+            soldOut.remove(productId, marker);
+        }
+        Long until = unknownUntil.get(productId);
+        if (until != null) {
+            if (until - System.nanoTime() > 0) {
+                unknownProductRejections.increment();
+                throw new ProductNotFoundException("Product not found: productId=" + productId);
+            }
+            unknownUntil.remove(productId, until);
+        }
+    }
+
+    /**
+     * Returns a token that changes whenever the product's offers change. Read it before allocating
+     * and pass it to {@link #recordNoStock}, so a restock that lands during the attempt is not hidden.
+     */
+    public long offerGeneration(Long productId) {
+        return offerGenerations.getOrDefault(productId, 0L);
+    }
+
+    /**
+     * Marks the product sold out after an order failed for lack of stock, unless some vendor still
+     * has stock (the order was merely too large) or its offers changed since {@code generation}.
+     */
+    public void recordNoStock(Long productId, String productName, long generation) {
+        boolean anyStock = offerBook.getOffers(productId).stream().anyMatch(offer -> offer.stock() > 0);
+        if (anyStock || offerGeneration(productId) != generation) {
+            return;
+        }
+        if (soldOut.size() >= MAX_SOLD_OUT_PRODUCTS) {
+            long now = System.nanoTime();
+            soldOut.values().removeIf(expired -> expired.until() - now <= 0);
+            if (soldOut.size() >= MAX_SOLD_OUT_PRODUCTS) {
+                return;
+            }
+        }
+        SoldOut marker = new SoldOut(productName, System.nanoTime() + soldOutTtlNanos);
+        soldOut.put(productId, marker);
+        // A change published between the check above and the put has already run its listener
+        if (offerGeneration(productId) != generation) {
+            soldOut.remove(productId, marker);
+        }
+    }
+
+    /**
+     * Remembers that a product id does not exist for the configured TTL.
+     */
+    public void recordUnknownProduct(Long productId) {
+        if (unknownUntil.size() >= MAX_UNKNOWN_PRODUCTS) {
+            long now = System.nanoTime();
+            unknownUntil.values().removeIf(until -> until - now <= 0);
+            if (unknownUntil.size() >= MAX_UNKNOWN_PRODUCTS) {
+                return;
+            }
+        }
+        unknownUntil.put(productId, System.nanoTime() + unknownProductTtlNanos);
+    }
+
+    /**
+     * Forgets everything cached about a product once the current transaction commits,
+     * e.g. because it was just created or deleted.
+     */
+    public void forget(Long productId) {
+        afterCommit(() -> {
+            unknownUntil.remove(productId);
+            onOffersChanged(productId);
+        });
+    }
+
+    private void onOffersChanged(Long productId) {
+        offerGenerations.merge(productId, 1L, Long::sum);
+        soldOut.remove(productId);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private record SoldOut(String productName, long until) {}
+}
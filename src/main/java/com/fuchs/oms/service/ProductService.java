@@ -2,7 +2,10 @@ package com.fuchs.oms.service;
 
 import com.fuchs.oms.dto.ProductRequest;
 import com.fuchs.oms.dto.ProductResponse;
+import com.fuchs.oms.dto.QuoteRequest;
+import com.fuchs.oms.dto.QuoteResponse;
 import com.fuchs.oms.exception.CategoryNotFoundException;
+import com.fuchs.oms.exception.NoStockAvailableException;
 import com.fuchs.oms.exception.ProductCodeAlreadyExistsException;
 import com.fuchs.oms.exception.ProductInUseException;
 import com.fuchs.oms.exception.ProductNotFoundException;
@@ -15,6 +18,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -26,6 +30,9 @@ public class ProductService {
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
     private final OrderRepository orderRepository;
+    private final ProductAvailability productAvailability;
+    private final AllocationService allocationService;
+    private final OfferBook offerBook;
 
     @Transactional(readOnly = true)
     public List<ProductResponse> getAllProducts() {
@@ -48,6 +55,30 @@ public class ProductService {
         return toProductResponse(product);
     }
 
+    /**
+     * Quotes the vendor, unit price and total an order would get right now, from the in-memory
+     * offer book: nothing is reserved and no transaction is opened. Only a failed quote reads
+     * the database, to tell a missing product from one without stock, and unknown products are
+     * remembered in the same negative cache order submission uses.
+     */
+    public QuoteResponse quote(Long productId, QuoteRequest request) {
+        productAvailability.checkAvailable(productId);
+        OfferBook.Offer offer = allocationService.quote(productId, request.getQuantity(),
+            request.hasDeliveryLocation()
+                ? new GeoPoint(request.getDeliveryLatitude(), request.getDeliveryLongitude())
+                : null);
+        if (offer == null) {
+            Product product = productRepository.findById(productId).orElse(null);
+            if (product == null) {
+                productAvailability.recordUnknownProduct(productId);
+                throw new ProductNotFoundException("Product not found with id: " + productId);
+            }
+            throw new NoStockAvailableException(product.getName());
+        }
+        return new QuoteResponse(productId, request.getQuantity(), offer.vendorId(), offer.vendorName(),
+            offer.price(), offer.price().multiply(BigDecimal.valueOf(request.getQuantity())));
+    }
+
     @Transactional
     public ProductResponse createProduct(ProductRequest request) {
         if (productRepository.findByProductCode(request.getProductCode()).isPresent()) {
@@ -66,6 +97,7 @@ public class ProductService {
         }
 
         Product savedProduct = productRepository.save(product);
+        productAvailability.forget(savedProduct.getId());
         return toProductResponse(savedProduct);
     }
 
@@ -94,6 +126,8 @@ public class ProductService {
         }
 
         Product savedProduct = productRepository.save(product);
+        // Engines copy the name and code onto orders from their own product caches
+        offerBook.onProductChanged(id);
         return toProductResponse(savedProduct);
     }
 
@@ -107,6 +141,7 @@ public class ProductService {
         }
 
         productRepository.delete(product);
+        productAvailability.forget(id);
     }
 
     private ProductResponse toProductResponse(Product product) {
@@ -0,0 +1,139 @@
+package com.fuchs.oms.service;
+
+import com.fuchs.oms.model.Reservation;
+import com.fuchs.oms.repository.ReservationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Releases expired reservations. Each reservation's deadline is kept in a
+ * {@link HierarchicalTimingWheel}; one ticker thread advances the wheel and returns everything
+ * that expired during the tick with a single status UPDATE plus one stock update per vendor row,
+ * so there are no per-reservation timers and no table scans. The held rows are locked first and
+ * only their stock is restored, so a reservation scheduled twice is returned once. The vendor
+ * capacity the reservation claimed is given back too.
+ *
+ * The wheel lives in memory, so held reservations are rescheduled from the database at startup.
+ */
+@Slf4j
+@Component
+public class ReservationExpiry implements SmartLifecycle {
+
+    private static final int MAX_IDS_PER_UPDATE = 1000;
+
+    private final ReservationRepository reservationRepository;
+    private final VendorService vendorService;
+    private final VendorCapacity vendorCapacity;
+    private final TransactionTemplate transactionTemplate;
+    private final long tickMillis;
+    private final HierarchicalTimingWheel<Long> wheel;
+    private final Counter released;
+    private ScheduledExecutorService ticker;
+
+    public ReservationExpiry(
+            ReservationRepository reservationRepository,
+            VendorService vendorService,
+            VendorCapacity vendorCapacity,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${oms.reservations.tick-ms:100}") long tickMillis,
+            @Value("${oms.reservations.wheel-size:512}") int wheelSize) {
+        this.reservationRepository = reservationRepository;
+        this.vendorService = vendorService;
+        this.vendorCapacity = vendorCapacity;
+        this.transactionTemplate = transactionTemplate;
+        this.tickMillis = tickMillis;
+        this.wheel = new HierarchicalTimingWheel<>(tickMillis, wheelSize, System.currentTimeMillis());
+        this.released = Counter.builder("oms.reservations.released")
+            .description("Reservations released because they expired before being confirmed")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Schedules a reservation to be released once it expires.
+     */
+    public void schedule(Long reservationId, LocalDateTime expiresAt) {
+        wheel.schedule(reservationId, expiresAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rescheduleHeld() {
+        List<Reservation> held = reservationRepository.findByStatus(Reservation.HELD);
+        held.forEach(reservation -> schedule(reservation.getId(), reservation.getExpiresAt()));
+        if (!held.isEmpty()) {
+            log.info("Rescheduled expiry of {} held reservations", held.size());
+        }
+    }
+
+    void tick() {
+        List<Long> expired = new ArrayList<>();
+        wheel.advanceTo(System.currentTimeMillis(), expired::add);
+        for (int from = 0; from < expired.size(); from += MAX_IDS_PER_UPDATE) {
+            List<Long> batch = expired.subList(from, Math.min(expired.size(), from + MAX_IDS_PER_UPDATE));
+            try {
+                release(batch);
+            } catch (RuntimeException ex) {
+                log.warn("Failed to release {} expired reservations, retrying next tick", batch.size(), ex);
+                batch.forEach(id -> wheel.schedule(id, System.currentTimeMillis()));
+            }
+        }
+    }
+
+    private void release(List<Long> reservationIds) {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Reservation> held = reservationRepository.findHeldForUpdate(reservationIds);
+            if (held.isEmpty()) {
+                return;
+            }
+            reservationRepository.releaseHeld(held.stream().map(Reservation::getId).toList());
+            Map<StockKey, Integer> totals = new LinkedHashMap<>();
+            for (Reservation reservation : held) {
+                totals.merge(new StockKey(reservation.getVendorId(), reservation.getProductId()),
+                    reservation.getQuantity(), Integer::sum);
+                vendorCapacity.release(reservation.getVendorId(), reservation.getQuantity(), reservation.getCreatedAt());
+            }
+            totals.forEach((key, quantity) -> vendorService.restoreStock(key.vendorId(), key.productId(), quantity));
+            released.increment(held.size());
+        });
+    }
+
+    @Override
+    public void start() {
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reservation-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleWithFixedDelay(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        ticker.shutdownNow();
+        ticker = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return ticker != null;
+    }
+
+    private record StockKey(Long vendorId, Long productId) {}
+}
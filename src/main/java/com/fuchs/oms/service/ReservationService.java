@@ -0,0 +1,130 @@
+package com.fuchs.oms.service;
+
+import com.fuchs.oms.dto.OrderResponse;
+import com.fuchs.oms.dto.ReservationRequest;
+import com.fuchs.oms.dto.ReservationResponse;
+import com.fuchs.oms.exception.NoStockAvailableException;
+import com.fuchs.oms.exception.ProductNotFoundException;
+import com.fuchs.oms.exception.ReservationNotHeldException;
+import com.fuchs.oms.exception.ResourceNotFoundException;
+import com.fuchs.oms.model.Product;
+import com.fuchs.oms.model.Reservation;
+import com.fuchs.oms.repository.ProductRepository;
+import com.fuchs.oms.repository.ReservationRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+
+/**
+ * Reserve-then-confirm ordering. A reservation takes the stock from the vendor chosen by the
+ * normal allocation rules (FR12) and holds it for a TTL; confirming it creates the order, and
+ * {@link ReservationExpiry} returns the stock if it is not confirmed in time.
+ */
+@Service
+public class ReservationService {
+
+    private final ReservationRepository reservationRepository;
+    private final ProductRepository productRepository;
+    private final AllocationService allocationService;
+    private final OfferBook offerBook;
+    private final OrderService orderService;
+    private final ReservationExpiry reservationExpiry;
+    private final int defaultTtlSeconds;
+    private final int maxTtlSeconds;
+
+    public ReservationService(
+            ReservationRepository reservationRepository,
+            ProductRepository productRepository,
+            AllocationService allocationService,
+            OfferBook offerBook,
+            OrderService orderService,
+            ReservationExpiry reservationExpiry,
+            @Value("${oms.reservations.default-ttl-seconds:300}") int defaultTtlSeconds,
+            @Value("${oms.reservations.max-ttl-seconds:3600}") int maxTtlSeconds) {
+        this.reservationRepository = reservationRepository;
+        this.productRepository = productRepository;
+        this.allocationService = allocationService;
+        this.offerBook = offerBook;
+        this.orderService = orderService;
+        this.reservationExpiry = reservationExpiry;
+        this.defaultTtlSeconds = defaultTtlSeconds;
+        this.maxTtlSeconds = maxTtlSeconds;
+    }
+
+    @Transactional
+    public ReservationResponse reserve(ReservationRequest request) {
+        Product product = productRepository.findById(request.getProductId())
+            .orElseThrow(() -> new ProductNotFoundException(
+                "Product not found: productId=" + request.getProductId()));
+
+        AllocationService.AllocationResult result = allocationService.allocate(
+            request.getProductId(),
+            request.getQuantity()
+        );
+        if (!result.success()) {
+            throw new NoStockAvailableException(product.getName());
+        }
+
+        int ttlSeconds = Math.min(request.getTtlSeconds() != null ? request.getTtlSeconds() : defaultTtlSeconds,
+            maxTtlSeconds);
+        Reservation reservation = new Reservation();
+        reservation.setProductId(request.getProductId());
+        reservation.setQuantity(request.getQuantity());
+        reservation.setVendorId(result.vendorId());
+        reservation.setLeaseId(result.leaseId());
+        reservation.setStatus(Reservation.HELD);
+        reservation.setExpiresAt(LocalDateTime.now().plusSeconds(ttlSeconds));
+        Reservation saved = reservationRepository.save(reservation);
+
+        // Only a committed reservation can be released, so start its clock after commit
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                reservationExpiry.schedule(saved.getId(), saved.getExpiresAt());
+            }
+        });
+
+        OfferBook.Offer offer = offerBook.getOffers(request.getProductId()).stream()
+            .filter(candidate -> candidate.vendorId().equals(result.vendorId()))
+            .findFirst()
+            .orElseThrow();
+        return new ReservationResponse(
+            saved.getId(),
+            saved.getProductId(),
+            product.getName(),
+            saved.getQuantity(),
+            saved.getVendorId(),
+            offer.vendorName(),
+            offer.price(),
+            saved.getStatus(),
+            saved.getExpiresAt().toString()
+        );
+    }
+
+    /**
+     * Turns a held reservation into an order at the reserved vendor.
+     *
+     * @throws ReservationNotHeldException if the reservation expired or was already confirmed
+     */
+    @Transactional
+    public OrderResponse confirm(Long reservationId) {
+        Reservation reservation = reservationRepository.findById(reservationId)
+            .orElseThrow(() -> new ResourceNotFoundException("Reservation not found: reservationId=" + reservationId));
+        if (!Reservation.HELD.equals(reservation.getStatus())) {
+            throw new ReservationNotHeldException(reservationId);
+        }
+
+        OrderResponse order = orderService.recordAllocatedOrder(
+            reservation.getProductId(), reservation.getQuantity(), reservation.getVendorId());
+
+        // Guarded on status and expiry so a confirm cannot race the expiry tick
+        if (reservationRepository.confirmIfHeld(reservationId, order.getOrderId(), LocalDateTime.now()) == 0) {
+            throw new ReservationNotHeldException(reservationId);
+        }
+        return order;
+    }
+}
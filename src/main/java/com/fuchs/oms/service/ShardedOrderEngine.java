@@ -0,0 +1,244 @@
+package com.fuchs.oms.service;
+
+import com.fuchs.oms.dto.OrderRequest;
+import com.fuchs.oms.dto.OrderResponse;
+import com.fuchs.oms.exception.NoStockAvailableException;
+import com.fuchs.oms.exception.OrderEngineBusyException;
+import com.fuchs.oms.exception.ProductNotFoundException;
+import com.fuchs.oms.model.Product;
+import com.fuchs.oms.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Opt-in engine for flash-sale load ({@code oms.orders.engine=sharded}).
+ *
+ * Orders are routed by productId hash to one of a fixed number of shards. Each shard has a
+ * single writer thread that owns the stock counters of its products and a preallocated ring
+ * buffer that HTTP threads publish into. The writer drains up to a batch of orders, allocates
+ * them in FR12 order against its in-memory counters without taking any lock, then persists the
+ * whole batch through {@link OrderBatchWriter} in one transaction and completes the callers'
+ * futures.
+ *
+ * An order whose submitter stopped waiting before the writer took it is dropped; one already
+ * taken is allocated and its outcome delivered (see {@link OrderTicket}).
+ *
+ * Counters and products are cached per shard and dropped whenever the {@link OfferBook} reports a
+ * change for the product, so vendor price and stock updates and renamed products are picked up
+ * before the next batch.
+ *
+ * With {@code oms.orders.durability=journal} the batch is appended to the {@link OrderJournal}
+ * instead, and callers are answered once it is on disk; the journal writes the orders and stock
+ * decrements to the database behind them.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "oms.orders.engine", havingValue = "sharded")
+public class ShardedOrderEngine implements OrderEngine, SmartLifecycle {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long FULL_RING_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final OfferBook offerBook;
+    private final ProductRepository productRepository;
+    private final OrderBatchWriter batchWriter;
+    private final OrderJournal orderJournal;
+    private final Shard[] shards;
+    private final int maxBatch;
+    private final long submitTimeoutNanos;
+    private volatile boolean running;
+
+    public ShardedOrderEngine(
+            OfferBook offerBook,
+            ProductRepository productRepository,
+            OrderBatchWriter batchWriter,
+            OrderJournal orderJournal,
+            @Value("${oms.orders.sharded.shards:4}") int shardCount,
+            @Value("${oms.orders.sharded.ring-size:1024}") int ringSize,
+            @Value("${oms.orders.sharded.max-batch:256}") int maxBatch,
+            @Value("${oms.orders.submit-timeout-ms:10000}") long submitTimeoutMillis) {
+        this.offerBook = offerBook;
+        this.productRepository = productRepository;
+        this.batchWriter = batchWriter;
+        this.orderJournal = orderJournal;
+        this.maxBatch = Math.max(1, maxBatch);
+        this.submitTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(submitTimeoutMillis);
+        this.shards = new Shard[Math.max(1, shardCount)];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new Shard(i, ringSize);
+        }
+        offerBook.addListener(productId -> shardFor(productId).stale.add(productId));
+        orderJournal.addListener(productId -> shardFor(productId).stale.add(productId));
+    }
+
+    @Override
+    public CompletableFuture<OrderResponse> submit(OrderRequest request) {
+        if (!running) {
+            return CompletableFuture.failedFuture(new OrderEngineBusyException("Order engine is not running"));
+        }
+        Shard shard = shardFor(request.getProductId());
+        PendingOrder pending = new PendingOrder(request, new OrderTicket());
+        long deadline = System.nanoTime() + submitTimeoutNanos;
+        while (!shard.ring.offer(pending)) {
+            if (System.nanoTime() - deadline >= 0) {
+                return CompletableFuture.failedFuture(
+                    new OrderEngineBusyException("Order queue is full for shard " + shard.index));
+            }
+            LockSupport.unpark(shard.thread);
+            LockSupport.parkNanos(FULL_RING_PARK_NANOS);
+        }
+        LockSupport.unpark(shard.thread);
+        return pending.future();
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        for (Shard shard : shards) {
+            shard.thread = new Thread(shard::run, "order-shard-" + shard.index);
+            shard.thread.setDaemon(true);
+            shard.thread.start();
+        }
+        log.info("Sharded order engine started: {} shards, ring size {}", shards.length, shards[0].ring.capacity());
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        for (Shard shard : shards) {
+            LockSupport.unpark(shard.thread);
+        }
+        for (Shard shard : shards) {
+            try {
+                shard.thread.join(TimeUnit.NANOSECONDS.toMillis(submitTimeoutNanos));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private Shard shardFor(Long productId) {
+        return shards[Math.floorMod(productId.hashCode(), shards.length)];
+    }
+
+    /**
+     * One writer thread with its ring buffer and the stock counters of the products it owns.
+     * Everything except {@link #ring} and {@link #stale} is touched only by the writer thread.
+     */
+    private final class Shard {
+
+        private final int index;
+        private final SingleConsumerRingBuffer<PendingOrder> ring;
+        private final Set<Long> stale = ConcurrentHashMap.newKeySet();
+        private final Map<Long, OfferCounters> stock = new HashMap<>();
+        private final Map<Long, Product> products = new HashMap<>();
+        private final List<PendingOrder> drained = new ArrayList<>();
+        private volatile Thread thread;
+
+        Shard(int index, int ringSize) {
+            this.index = index;
+            this.ring = new SingleConsumerRingBuffer<>(ringSize);
+        }
+
+        void run() {
+            while (running || !ring.isEmpty()) {
+                if (ring.drainTo(drained::add, maxBatch) == 0) {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                    continue;
+                }
+                try {
+                    process(drained);
+                } catch (RuntimeException ex) {
+                    log.error("Order shard {} failed a batch of {} orders", index, drained.size(), ex);
+                    drained.forEach(pending -> pending.future().completeExceptionally(ex));
+                    stock.clear();
+                } finally {
+                    drained.clear();
+                }
+            }
+        }
+
+        private void process(List<PendingOrder> batch) {
+            for (Long productId : stale) {
+                stale.remove(productId);
+                stock.remove(productId);
+                products.remove(productId);
+            }
+
+            List<PendingOrder> accepted = new ArrayList<>(batch.size());
+            List<OrderBatchWriter.PlannedAllocation> planned = new ArrayList<>(batch.size());
+            for (PendingOrder pending : batch) {
+                // Skip orders whose submitter gave up while they were queued
+                if (!pending.future().take()) {
+                    continue;
+                }
+                try {
+                    planned.add(allocate(pending.request()));
+                    accepted.add(pending);
+                } catch (RuntimeException ex) {
+                    pending.future().completeExceptionally(ex);
+                }
+            }
+            if (planned.isEmpty()) {
+                return;
+            }
+            if (orderJournal.isEnabled()) {
+                orderJournal.append(planned).whenComplete((responses, failure) -> {
+                    for (int i = 0; i < accepted.size(); i++) {
+                        if (failure != null) {
+                            accepted.get(i).future().completeExceptionally(failure);
+                        } else {
+                            accepted.get(i).future().complete(responses.get(i));
+                        }
+                    }
+                });
+                return;
+            }
+
+            List<OrderBatchWriter.Outcome> outcomes = batchWriter.persist(planned);
+            for (int i = 0; i < outcomes.size(); i++) {
+                OrderBatchWriter.Outcome outcome = outcomes.get(i);
+                if (outcome.failure() != null) {
+                    accepted.get(i).future().completeExceptionally(outcome.failure());
+                } else {
+                    accepted.get(i).future().complete(outcome.response());
+                }
+            }
+        }
+
+        private OrderBatchWriter.PlannedAllocation allocate(OrderRequest request) {
+            Long productId = request.getProductId();
+            Product product = products.computeIfAbsent(productId, id -> productRepository.findById(id)
+                .orElseThrow(() -> new ProductNotFoundException("Product not found: productId=" + id)));
+            OrderBatchWriter.PlannedAllocation planned = stock
+                .computeIfAbsent(productId, id ->
+                    orderJournal.withHeld(id, held -> new OfferCounters(offerBook.getOffers(id), held)))
+                .claim(request, product);
+            if (planned == null) {
+                throw new NoStockAvailableException(product.getName());
+            }
+            return planned;
+        }
+    }
+
+    private record PendingOrder(OrderRequest request, OrderTicket future) {}
+}
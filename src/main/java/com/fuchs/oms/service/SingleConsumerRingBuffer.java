@@ -0,0 +1,89 @@
+package com.fuchs.oms.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * Bounded, preallocated ring buffer for many producers and exactly one consumer thread.
+ *
+ * Producers claim a sequence with a CAS on the producer cursor, fill the slot and then publish
+ * the sequence for that slot; the consumer only reads slots whose sequence has been published,
+ * so no locks are taken on either side. A full buffer is reported to the producer instead of
+ * blocking it.
+ *
+ * @param <E> the element type
+ */
+public final class SingleConsumerRingBuffer<E> {
+
+    private final Object[] slots;
+    private final AtomicLongArray published;
+    private final int mask;
+    private final AtomicLong producerCursor = new AtomicLong();
+    private volatile long consumerCursor;
+
+    public SingleConsumerRingBuffer(int capacity) {
+        if (capacity < 1 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Ring buffer capacity must be a power of two: " + capacity);
+        }
+        this.slots = new Object[capacity];
+        this.published = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            published.set(i, -1L);
+        }
+    }
+
+    /**
+     * Publishes an element; safe to call from any thread.
+     *
+     * @return false if the buffer is full
+     */
+    public boolean offer(E element) {
+        while (true) {
+            long sequence = producerCursor.get();
+            if (sequence - consumerCursor >= slots.length) {
+                return false;
+            }
+            if (producerCursor.compareAndSet(sequence, sequence + 1)) {
+                int index = (int) (sequence & mask);
+                slots[index] = element;
+                published.set(index, sequence);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Hands up to {@code maxElements} published elements to the sink, in publication order.
+     * Must only be called from the single consumer thread.
+     *
+     * @return the number of elements drained
+     */
+    @SuppressWarnings("unchecked")
+    public int drainTo(Consumer<? super E> sink, int maxElements) {
+        long sequence = consumerCursor;
+        int drained = 0;
+        while (drained < maxElements) {
+            int index = (int) (sequence & mask);
+            if (published.get(index) != sequence) {
+                break;
+            }
+            E element = (E) slots[index];
+            slots[index] = null;
+            sink.accept(element);
+            sequence++;
+            drained++;
+        }
+        consumerCursor = sequence;
+        return drained;
+    }
+
+    public boolean isEmpty() {
+        return producerCursor.get() == consumerCursor;
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+}
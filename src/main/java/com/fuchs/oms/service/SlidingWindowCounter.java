@@ -0,0 +1,139 @@
+package com.fuchs.oms.service;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free count of events and units over a sliding window, e.g. orders and ordered units
+ * in the last hour.
+ *
+ * The window is split into {@code buckets} slots of {@code bucketMillis} each; a slot holds an
+ * immutable snapshot for one bucket-sized slice of time and is replaced with compare-and-set, so
+ * slots that fall out of the window are simply overwritten when time comes back around to them.
+ * Counts move in whole buckets: an event stops counting between {@code (buckets - 1) * bucketMillis}
+ * and {@code buckets * bucketMillis} after it happened.
+ */
+public final class SlidingWindowCounter {
+
+    private final long bucketMillis;
+    private final int buckets;
+    private final AtomicReferenceArray<Bucket> slots;
+
+    public SlidingWindowCounter(long bucketMillis, int buckets) {
+        if (bucketMillis < 1 || buckets < 1) {
+            throw new IllegalArgumentException("Sliding window needs bucketMillis >= 1 and buckets >= 1");
+        }
+        this.bucketMillis = bucketMillis;
+        this.buckets = buckets;
+        this.slots = new AtomicReferenceArray<>(buckets);
+    }
+
+    /**
+     * Records one event of {@code units} if the window stays within both limits afterwards.
+     *
+     * @return true if the event was recorded, false if it would exceed {@code maxEvents} or {@code maxUnits}
+     */
+    public boolean tryAcquire(int units, long maxEvents, long maxUnits, long nowMillis) {
+        long epoch = Math.floorDiv(nowMillis, bucketMillis);
+        int index = index(epoch);
+        while (true) {
+            long events = 0;
+            long totalUnits = 0;
+            for (int i = 0; i < buckets; i++) {
+                Bucket bucket = slots.get(i);
+                if (i != index && live(bucket, epoch)) {
+                    events += bucket.events;
+                    totalUnits += bucket.units;
+                }
+            }
+            Bucket current = slots.get(index);
+            Bucket base = current != null && current.epoch == epoch ? current : new Bucket(epoch, 0, 0);
+            if (events + base.events + 1 > maxEvents || totalUnits + base.units + units > maxUnits) {
+                return false;
+            }
+            if (slots.compareAndSet(index, current, new Bucket(epoch, base.events + 1, base.units + units))) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Records one event of {@code units} at {@code atMillis} without checking limits, e.g. when
+     * rebuilding the window from stored orders. Events already outside the window are ignored.
+     */
+    public void add(int units, long atMillis, long nowMillis) {
+        long epoch = Math.floorDiv(atMillis, bucketMillis);
+        if (!live(epoch, Math.floorDiv(nowMillis, bucketMillis))) {
+            return;
+        }
+        int index = index(epoch);
+        while (true) {
+            Bucket current = slots.get(index);
+            if (current != null && current.epoch > epoch) {
+                return;
+            }
+            Bucket base = current != null && current.epoch == epoch ? current : new Bucket(epoch, 0, 0);
+            if (slots.compareAndSet(index, current, new Bucket(epoch, base.events + 1, base.units + units))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Takes back an event recorded by {@link #tryAcquire} that did not go through, from the
+     * newest bucket still holding one.
+     */
+    public void release(int units, long nowMillis) {
+        long now = Math.floorDiv(nowMillis, bucketMillis);
+        for (long epoch = now; epoch > now - buckets; epoch--) {
+            int index = index(epoch);
+            while (true) {
+                Bucket current = slots.get(index);
+                if (current == null || current.epoch != epoch || current.events == 0) {
+                    break;
+                }
+                Bucket released = new Bucket(epoch, current.events - 1, Math.max(0, current.units - units));
+                if (slots.compareAndSet(index, current, released)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    public long events(long nowMillis) {
+        long epoch = Math.floorDiv(nowMillis, bucketMillis);
+        long events = 0;
+        for (int i = 0; i < buckets; i++) {
+            Bucket bucket = slots.get(i);
+            if (live(bucket, epoch)) {
+                events += bucket.events;
+            }
+        }
+        return events;
+    }
+
+    public long units(long nowMillis) {
+        long epoch = Math.floorDiv(nowMillis, bucketMillis);
+        long units = 0;
+        for (int i = 0; i < buckets; i++) {
+            Bucket bucket = slots.get(i);
+            if (live(bucket, epoch)) {
+                units += bucket.units;
+            }
+        }
+        return units;
+    }
+
+    private boolean live(Bucket bucket, long nowEpoch) {
+        return bucket != null && live(bucket.epoch, nowEpoch);
+    }
+
+    private boolean live(long epoch, long nowEpoch) {
+        return epoch <= nowEpoch && epoch > nowEpoch - buckets;
+    }
+
+    private int index(long epoch) {
+        return (int) Math.floorMod(epoch, (long) buckets);
+    }
+
+    private record Bucket(long epoch, long events, long units) {}
+}
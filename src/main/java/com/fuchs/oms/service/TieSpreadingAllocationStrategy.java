@@ -0,0 +1,65 @@
+package com.fuchs.oms.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Spreads orders across vendors tied on the lowest price that can cover the order, instead of
+ * sending every order to the tied vendor with the lowest id.
+ *
+ * Under FR12 a hot product funnels all orders onto one vendor_products row, so every allocation
+ * queues on that row's lock. Here each product keeps a round-robin pointer that rotates the tied
+ * group, so concurrent orders start on different rows. Price still decides first; only the order
+ * among equally priced vendors changes, and the rest of the list stays in FR12 order as fallback.
+ */
+@Component
+@ConditionalOnProperty(name = "oms.allocation.strategy", havingValue = "spread-ties")
+public class TieSpreadingAllocationStrategy implements AllocationStrategy {
+
+    private final ConcurrentHashMap<Long, AtomicInteger> pointers = new ConcurrentHashMap<>();
+
+    @Override
+    public List<OfferBook.Offer> rank(Long productId, int quantity, List<OfferBook.Offer> offers) {
+        int first = -1;
+        for (int i = 0; i < offers.size(); i++) {
+            if (offers.get(i).stock() >= quantity) {
+                first = i;
+                break;
+            }
+        }
+        if (first < 0) {
+            return offers;
+        }
+
+        BigDecimal price = offers.get(first).price();
+        List<OfferBook.Offer> tied = new ArrayList<>();
+        int end = first;
+        for (; end < offers.size() && offers.get(end).price().compareTo(price) == 0; end++) {
+            if (offers.get(end).stock() >= quantity) {
+                tied.add(offers.get(end));
+            }
+        }
+        if (tied.size() < 2) {
+            return offers;
+        }
+
+        int start = Math.floorMod(pointers.computeIfAbsent(productId, id -> new AtomicInteger())
+            .getAndIncrement(), tied.size());
+        List<OfferBook.Offer> ranked = new ArrayList<>(offers.size());
+        for (int i = 0; i < tied.size(); i++) {
+            ranked.add(tied.get((start + i) % tied.size()));
+        }
+        for (int i = 0; i < offers.size(); i++) {
+            if (i < first || i >= end || offers.get(i).stock() < quantity) {
+                ranked.add(offers.get(i));
+            }
+        }
+        return ranked;
+    }
+}
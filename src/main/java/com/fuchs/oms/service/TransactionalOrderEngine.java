@@ -0,0 +1,33 @@
+package com.fuchs.oms.service;
+
+import com.fuchs.oms.dto.OrderRequest;
+import com.fuchs.oms.dto.OrderResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Default engine: each order runs {@link OrderService#createOrder} in its own transaction on the
+ * calling thread, retried on concurrent-update conflicts.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "oms.orders.engine", havingValue = "transactional", matchIfMissing = true)
+public class TransactionalOrderEngine implements OrderEngine {
+
+    private final OrderService orderService;
+    private final ConflictRetry conflictRetry;
+
+    @Override
+    public CompletableFuture<OrderResponse> submit(OrderRequest request) {
+        // Allocation runs inside createOrder's transaction, so the whole order is the retried unit
+        try {
+            return CompletableFuture.completedFuture(conflictRetry.execute("allocate", request.getProductId(),
+                () -> orderService.createOrder(request)));
+        } catch (RuntimeException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+    }
+}
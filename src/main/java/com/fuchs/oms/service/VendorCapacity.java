@@ -0,0 +1,229 @@
+package com.fuchs.oms.service;
+
+import com.fuchs.oms.model.Vendor;
+import com.fuchs.oms.repository.OrderRepository;
+import com.fuchs.oms.repository.VendorOrderVolume;
+import com.fuchs.oms.repository.VendorRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Hourly order and unit capacity per vendor, enforced by {@link AllocationService} from memory.
+ *
+ * Each vendor with a capacity set gets a {@link SlidingWindowCounter} over the last hour in
+ * one-minute buckets; allocation claims room in it with a CAS before taking the vendor's stock,
+ * so the check adds no query per order. Windows are rebuilt from the orders of the last hour at
+ * startup and when a vendor first sets a capacity. Vendors without a capacity are not tracked.
+ */
+@Slf4j
+@Component
+public class VendorCapacity {
+
+    private static final long WINDOW_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final int BUCKETS = 60;
+
+    private final VendorRepository vendorRepository;
+    private final OrderRepository orderRepository;
+    private final Counter capacitySkips;
+    private final ConcurrentHashMap<Long, Limit> limits = new ConcurrentHashMap<>();
+
+    public VendorCapacity(VendorRepository vendorRepository, OrderRepository orderRepository, MeterRegistry meterRegistry) {
+        this.vendorRepository = vendorRepository;
+        this.orderRepository = orderRepository;
+        this.capacitySkips = Counter.builder("oms.allocation.capacity-skips")
+            .description("Candidate vendors skipped because they reached their hourly capacity")
+            .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<Vendor> limited = vendorRepository.findByHourlyOrderCapacityIsNotNullOrHourlyUnitCapacityIsNotNull();
+        Map<Long, List<VendorOrderVolume>> recent = loadRecent(limited.stream().map(Vendor::getId).toList());
+        limits.clear();
+        long since = System.currentTimeMillis();
+        limited.forEach(vendor -> limits.put(vendor.getId(), Limit.of(
+            vendor.getHourlyOrderCapacity(), vendor.getHourlyUnitCapacity(),
+            window(recent.getOrDefault(vendor.getId(), List.of())), since)));
+        log.info("Vendor capacity windows rebuilt: {} vendors", limited.size());
+    }
+
+    /**
+     * Claims room for one order of {@code quantity} units from a vendor's hourly capacity.
+     * The claim is given back automatically if the surrounding transaction rolls back.
+     *
+     * @return the claim, or null if the vendor is at capacity
+     */
+    public Claim tryAcquire(Long vendorId, int quantity) {
+        Limit limit = limits.get(vendorId);
+        if (limit == null) {
+            return Claim.UNLIMITED;
+        }
+        if (!limit.window.tryAcquire(quantity, limit.maxOrders, limit.maxUnits, System.currentTimeMillis())) {
+            capacitySkips.increment();
+            return null;
+        }
+        Claim claim = new Claim(limit.window, quantity);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        claim.release();
+                    }
+                }
+            });
+        }
+        return claim;
+    }
+
+    /**
+     * Whether a vendor has room for one more order of {@code quantity} units, without claiming it,
+     * for read-only callers such as quotes. A vendor without room is not counted as skipped.
+     */
+    public boolean wouldAccept(Long vendorId, int quantity) {
+        Limit limit = limits.get(vendorId);
+        if (limit == null) {
+            return true;
+        }
+        long now = System.currentTimeMillis();
+        return limit.window.events(now) + 1 <= limit.maxOrders
+            && limit.window.units(now) + quantity <= limit.maxUnits;
+    }
+
+    /**
+     * Gives back room claimed for an order that was never placed, e.g. by a reservation that
+     * expired, once the current transaction commits. Claims older than the vendor's window, or
+     * than the window's rebuild, are not counted in it and give nothing back.
+     */
+    public void release(Long vendorId, int quantity, LocalDateTime claimedAt) {
+        long claimedMillis = claimedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        afterCommit(() -> {
+            Limit limit = limits.get(vendorId);
+            long now = System.currentTimeMillis();
+            if (limit != null && claimedMillis >= limit.since && claimedMillis > now - WINDOW_MILLIS) {
+                limit.window.release(quantity, now);
+            }
+        });
+    }
+
+    /**
+     * Sets or clears a vendor's capacity once the current transaction commits.
+     * A vendor that was not tracked yet has its window loaded from the last hour of orders.
+     */
+    public void updateLimits(Long vendorId, Integer maxOrders, Integer maxUnits) {
+        afterCommit(() -> {
+            if (maxOrders == null && maxUnits == null) {
+                limits.remove(vendorId);
+                return;
+            }
+            Limit current = limits.get(vendorId);
+            if (current != null) {
+                limits.put(vendorId, Limit.of(maxOrders, maxUnits, current.window, current.since));
+                return;
+            }
+            long since = System.currentTimeMillis();
+            SlidingWindowCounter window = window(loadRecent(List.of(vendorId)).getOrDefault(vendorId, List.of()));
+            limits.put(vendorId, Limit.of(maxOrders, maxUnits, window, since));
+        });
+    }
+
+    /**
+     * Orders allocated to a vendor in the last hour, or 0 if its capacity is not tracked.
+     */
+    public long ordersInWindow(Long vendorId) {
+        Limit limit = limits.get(vendorId);
+        return limit == null ? 0 : limit.window.events(System.currentTimeMillis());
+    }
+
+    /**
+     * Units allocated to a vendor in the last hour, or 0 if its capacity is not tracked.
+     */
+    public long unitsInWindow(Long vendorId) {
+        Limit limit = limits.get(vendorId);
+        return limit == null ? 0 : limit.window.units(System.currentTimeMillis());
+    }
+
+    private Map<Long, List<VendorOrderVolume>> loadRecent(Collection<Long> vendorIds) {
+        if (vendorIds.isEmpty()) {
+            return Map.of();
+        }
+        LocalDateTime since = LocalDateTime.now().minusHours(1);
+        return orderRepository.findVolumeSince(vendorIds, since).stream()
+            .collect(Collectors.groupingBy(VendorOrderVolume::vendorId));
+    }
+
+    private static SlidingWindowCounter window(List<VendorOrderVolume> recent) {
+        SlidingWindowCounter window = new SlidingWindowCounter(WINDOW_MILLIS / BUCKETS, BUCKETS);
+        long now = System.currentTimeMillis();
+        recent.forEach(order -> window.add(order.quantity(),
+            order.createdAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(), now));
+        return window;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * @param since when the window was built; claims made before then are not in it
+     */
+    private record Limit(long maxOrders, long maxUnits, SlidingWindowCounter window, long since) {
+
+        static Limit of(Integer maxOrders, Integer maxUnits, SlidingWindowCounter window, long since) {
+            return new Limit(maxOrders == null ? Long.MAX_VALUE : maxOrders,
+                maxUnits == null ? Long.MAX_VALUE : maxUnits, window, since);
+        }
+    }
+
+    /**
+     * Room claimed in a vendor's window for one order.
+     */
+    public static final class Claim {
+
+        static final Claim UNLIMITED = new Claim(null, 0);
+
+        private final SlidingWindowCounter window;
+        private final int quantity;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Claim(SlidingWindowCounter window, int quantity) {
+            this.window = window;
+            this.quantity = quantity;
+        }
+
+        /**
+         * Gives the room back, e.g. because the vendor's stock was taken by another order.
+         * Releasing twice has no effect.
+         */
+        public void release() {
+            if (window != null && released.compareAndSet(false, true)) {
+                window.release(quantity, System.currentTimeMillis());
+            }
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.fuchs.oms.service;
+
+import com.fuchs.oms.model.Vendor;
+import com.fuchs.oms.repository.VendorRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongConsumer;
+
+/**
+ * In-memory spatial index of vendor shipping origins per product, so distance-aware allocation
+ * only looks at vendors near the delivery location instead of every offer.
+ *
+ * Each product gets a grid of {@code cell-degrees} latitude/longitude cells holding the vendors
+ * that offer it; a lookup visits only the cells overlapping the search radius' bounding box.
+ * Grids are built lazily from the {@link OfferBook} and dropped when a vendor enrolls in the
+ * product or any vendor moves; stock and price are read from the offer book at lookup time, so
+ * stock changes never touch the index. Vendors without a shipping origin are not indexed.
+ *
+ * Candidates are ranked by {@code price + cost-per-km * distance}, then price, distance and vendor
+ * id, and only vendors within {@code max-km} of the delivery location are returned.
+ */
+@Slf4j
+@Component
+public class VendorLocationIndex {
+
+    private static final double KM_PER_DEGREE = Math.toRadians(GeoPoint.EARTH_RADIUS_KM);
+
+    private static final Comparator<RankedOffer> RANKING = Comparator
+        .comparingDouble(RankedOffer::score)
+        .thenComparing(ranked -> ranked.offer().price())
+        .thenComparingDouble(RankedOffer::distanceKm)
+        .thenComparing(ranked -> ranked.offer().vendorId());
+
+    private final OfferBook offerBook;
+    private final VendorRepository vendorRepository;
+    private final double maxKm;
+    private final double costPerKm;
+    private final double cellDegrees;
+    private final int latitudeCells;
+    private final int longitudeCells;
+
+    private final ConcurrentHashMap<Long, GeoPoint> origins = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Map<Long, List<IndexedVendor>>> grids = new ConcurrentHashMap<>();
+
+    public VendorLocationIndex(
+            OfferBook offerBook,
+            VendorRepository vendorRepository,
+            @Value("${oms.allocation.distance.max-km:500}") double maxKm,
+            @Value("${oms.allocation.distance.cost-per-km:0}") double costPerKm,
+            @Value("${oms.allocation.distance.cell-degrees:1.0}") double cellDegrees) {
+        if (maxKm <= 0 || costPerKm < 0 || cellDegrees <= 0 || cellDegrees > 180) {
+            throw new IllegalArgumentException(
+                "oms.allocation.distance needs max-km > 0, cost-per-km >= 0 and 0 < cell-degrees <= 180");
+        }
+        this.offerBook = offerBook;
+        this.vendorRepository = vendorRepository;
+        this.maxKm = maxKm;
+        this.costPerKm = costPerKm;
+        this.cellDegrees = cellDegrees;
+        this.latitudeCells = (int) Math.ceil(180 / cellDegrees);
+        this.longitudeCells = (int) Math.ceil(360 / cellDegrees);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOrigins() {
+        Map<Long, GeoPoint> loaded = new HashMap<>();
+        for (Vendor vendor : vendorRepository.findByLatitudeIsNotNullAndLongitudeIsNotNull()) {
+            loaded.put(vendor.getId(), new GeoPoint(vendor.getLatitude(), vendor.getLongitude()));
+        }
+        origins.clear();
+        origins.putAll(loaded);
+        grids.clear();
+        log.info("Vendor location index loaded: {} shipping origins", loaded.size());
+    }
+
+    /**
+     * Returns the offers that can cover the order from within {@code max-km} of the delivery
+     * location, best first.
+     */
+    public List<OfferBook.Offer> rank(Long productId, int quantity, GeoPoint deliveryTo) {
+        Map<Long, List<IndexedVendor>> grid = grids.computeIfAbsent(productId, this::build);
+        List<RankedOffer> ranked = new ArrayList<>();
+        forEachCellWithin(deliveryTo, cell -> {
+            for (IndexedVendor vendor : grid.getOrDefault(cell, List.of())) {
+                OfferBook.Offer offer = offerBook.getOffer(productId, vendor.vendorId());
+                if (offer == null || offer.stock() < quantity) {
+                    continue;
+                }
+                double distanceKm = vendor.origin().distanceKm(deliveryTo);
+                if (distanceKm <= maxKm) {
+                    ranked.add(new RankedOffer(offer, distanceKm, score(offer.price(), distanceKm)));
+                }
+            }
+        });
+        ranked.sort(RANKING);
+        return ranked.stream().map(RankedOffer::offer).toList();
+    }
+
+    /**
+     * Drops the product's grid once the current transaction commits, e.g. after a vendor enrolled.
+     */
+    public void invalidate(Long productId) {
+        afterCommit(() -> grids.remove(productId));
+    }
+
+    /**
+     * Records a vendor's new shipping origin once the current transaction commits.
+     */
+    public void onVendorMoved(Long vendorId, GeoPoint origin) {
+        afterCommit(() -> {
+            origins.put(vendorId, origin);
+            grids.clear();
+        });
+    }
+
+    private Map<Long, List<IndexedVendor>> build(Long productId) {
+        Map<Long, List<IndexedVendor>> grid = new HashMap<>();
+        for (OfferBook.Offer offer : offerBook.getOffers(productId)) {
+            GeoPoint origin = origins.get(offer.vendorId());
+            if (origin != null) {
+                grid.computeIfAbsent(cellOf(origin), cell -> new ArrayList<>())
+                    .add(new IndexedVendor(offer.vendorId(), origin));
+            }
+        }
+        return grid;
+    }
+
+    private void forEachCellWithin(GeoPoint center, LongConsumer visitor) {
+        double latitudeSpan = maxKm / KM_PER_DEGREE;
+        double minLatitude = Math.max(-90, center.latitude() - latitudeSpan);
+        double maxLatitude = Math.min(90, center.latitude() + latitudeSpan);
+        int fromLatitudeCell = latitudeCell(minLatitude);
+        int toLatitudeCell = latitudeCell(maxLatitude);
+
+        // Near a pole, or for a radius this wide, every longitude is in range
+        double widestLatitude = Math.max(Math.abs(minLatitude), Math.abs(maxLatitude));
+        double longitudeSpan = widestLatitude >= 90 ? 360 : latitudeSpan / Math.cos(Math.toRadians(widestLatitude));
+        int fromLongitudeCell;
+        int longitudeCellCount;
+        if (longitudeSpan >= 180) {
+            fromLongitudeCell = 0;
+            longitudeCellCount = longitudeCells;
+        } else {
+            fromLongitudeCell = (int) Math.floor((center.longitude() - longitudeSpan + 180) / cellDegrees);
+            int toLongitudeCell = (int) Math.floor((center.longitude() + longitudeSpan + 180) / cellDegrees);
+            longitudeCellCount = Math.min(longitudeCells, toLongitudeCell - fromLongitudeCell + 1);
+        }
+
+        for (int latitude = fromLatitudeCell; latitude <= toLatitudeCell; latitude++) {
+            for (int i = 0; i < longitudeCellCount; i++) {
+                // Wraps across the antimeridian
+                int longitude = Math.floorMod(fromLongitudeCell + i, longitudeCells);
+                visitor.accept(cellKey(latitude, longitude));
+            }
+        }
+    }
+
+    private long cellOf(GeoPoint point) {
+        int longitude = Math.floorMod((int) Math.floor((point.longitude() + 180) / cellDegrees), longitudeCells);
+        return cellKey(latitudeCell(point.latitude()), longitude);
+    }
+
+    private int latitudeCell(double latitude) {
+        return Math.min(latitudeCells - 1, (int) Math.floor((latitude + 90) / cellDegrees));
+    }
+
+    private long cellKey(int latitudeCell, int longitudeCell) {
+        return (long) latitudeCell * longitudeCells + longitudeCell;
+    }
+
+    private double score(BigDecimal price, double distanceKm) {
+        return price.doubleValue() + costPerKm * distanceKm;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private record IndexedVendor(Long vendorId, GeoPoint origin) {}
+
+    private record RankedOffer(OfferBook.Offer offer, double distanceKm, double score) {}
+}
@@ -1,6 +1,10 @@
 package com.fuchs.oms.service;
 
+import com.fuchs.oms.dto.CapacityResponse;
+import com.fuchs.oms.dto.CapacityUpdateRequest;
 import com.fuchs.oms.dto.EnrollProductRequest;
+import com.fuchs.oms.dto.LocationResponse;
+import com.fuchs.oms.dto.LocationUpdateRequest;
 import com.fuchs.oms.dto.PriceUpdateRequest;
 import com.fuchs.oms.dto.PriceUpdateResponse;
 import com.fuchs.oms.dto.StockUpdateRequest;
@@ -32,6 +36,10 @@ public class VendorService {
     private final VendorProductRepository vendorProductRepository;
     private final VendorRepository vendorRepository;
     private final ProductRepository productRepository;
+    private final OfferBook offerBook;
+    private final VendorCapacity vendorCapacity;
+    private final VendorLocationIndex vendorLocationIndex;
+    private final Outbox outbox;
 
     @Transactional(readOnly = true)
     public List<VendorProductResponse> getVendorProducts(Long vendorId) {
@@ -51,6 +59,7 @@ public class VendorService {
         java.math.BigDecimal oldPrice = vendorProduct.getPrice();
         vendorProduct.setPrice(request.getPrice());
         VendorProduct saved = vendorProductRepository.save(vendorProduct);
+        publishOffer(saved);
 
         return new PriceUpdateResponse(
             saved.getProduct().getId(),
@@ -75,6 +84,8 @@ public class VendorService {
         Integer oldStock = vendorProduct.getStock();
         vendorProduct.setStock(request.getStock());
         VendorProduct saved = vendorProductRepository.save(vendorProduct);
+        publishOffer(saved);
+        outbox.stockChanged(productId, vendorId, saved.getStock() - oldStock, saved.getStock(), "update");
 
         return new StockUpdateResponse(
             saved.getProduct().getId(),
@@ -89,21 +100,74 @@ public class VendorService {
         );
     }
 
+    /**
+     * Decrements stock with a single guarded UPDATE, throwing if the vendor cannot cover the quantity.
+     * The row is only read on the failure path, to report what was available.
+     */
     @Transactional
     public void decrementStock(Long vendorId, Long productId, int quantity) {
+        if (tryDecrementStock(vendorId, productId, quantity)) {
+            return;
+        }
+
         VendorProduct vendorProduct = vendorProductRepository
-            .findByVendorIdAndProductIdWithProduct(vendorId, productId)
+            .findByVendorIdAndProductId(vendorId, productId)
             .orElseThrow(() -> new ResourceNotFoundException(
                 "Product not found for vendor: vendorId=" + vendorId + ", productId=" + productId));
 
-        int currentStock = vendorProduct.getStock();
-        if (currentStock < quantity) {
-            throw new InsufficientStockException(
-                "Insufficient stock: available=" + currentStock + ", requested=" + quantity);
+        throw new InsufficientStockException(
+            "Insufficient stock: available=" + vendorProduct.getStock() + ", requested=" + quantity);
+    }
+
+    /**
+     * Decrements stock with a single guarded UPDATE ({@code stock = stock - q WHERE stock >= q}).
+     *
+     * @return true if the stock was decremented, false if the vendor is not enrolled
+     *         or another order took the stock first
+     */
+    @Transactional
+    public boolean tryDecrementStock(Long vendorId, Long productId, int quantity) {
+        int updated = vendorProductRepository.decrementStockIfAvailable(vendorId, productId, quantity);
+        if (updated == 0) {
+            return false;
         }
+        offerBook.onStockAdjusted(productId, vendorId, -quantity);
+        outbox.stockChanged(productId, vendorId, -quantity, null, "taken");
+        return true;
+    }
 
-        vendorProduct.setStock(currentStock - quantity);
-        vendorProductRepository.save(vendorProduct);
+    /**
+     * Takes stock for orders that were confirmed before reaching the database (see
+     * {@link OrderJournal}). If the vendor has since been set to less stock than those orders
+     * need, the stock drops to zero rather than refusing orders that already exist.
+     */
+    @Transactional
+    public void drainStock(Long vendorId, Long productId, int quantity) {
+        if (tryDecrementStock(vendorId, productId, quantity)) {
+            return;
+        }
+        vendorProductRepository.findByVendorIdAndProductIdWithProduct(vendorId, productId).ifPresent(vendorProduct -> {
+            int oldStock = vendorProduct.getStock();
+            vendorProduct.setStock(Math.max(0, oldStock - quantity));
+            publishOffer(vendorProductRepository.save(vendorProduct));
+            outbox.stockChanged(productId, vendorId, -oldStock, 0, "taken");
+        });
+    }
+
+    /**
+     * Returns previously decremented stock to a vendor, e.g. from an expired reservation.
+     *
+     * @return true if the stock was returned, false if the vendor is no longer enrolled
+     */
+    @Transactional
+    public boolean restoreStock(Long vendorId, Long productId, int quantity) {
+        int updated = vendorProductRepository.incrementStock(vendorId, productId, quantity);
+        if (updated == 0) {
+            return false;
+        }
+        offerBook.onStockAdjusted(productId, vendorId, quantity);
+        outbox.stockChanged(productId, vendorId, quantity, null, "returned");
+        return true;
     }
 
     @Transactional
@@ -126,6 +190,9 @@ public class VendorService {
         vendorProduct.setStock(request.getStock());
 
         VendorProduct saved = vendorProductRepository.save(vendorProduct);
+        publishOffer(saved);
+        vendorLocationIndex.invalidate(request.getProductId());
+        outbox.stockChanged(request.getProductId(), vendorId, saved.getStock(), saved.getStock(), "enroll");
 
         return toVendorProductResponse(saved);
     }
@@ -138,6 +205,65 @@ public class VendorService {
                         "Vendor is not enrolled in this product: vendorId=" + vendorId + ", productId=" + productId));
 
         vendorProductRepository.delete(vendorProduct);
+        offerBook.onOfferRemoved(productId, vendorId);
+        outbox.stockChanged(productId, vendorId, -vendorProduct.getStock(), 0, "unenroll");
+    }
+
+    @Transactional(readOnly = true)
+    public CapacityResponse getCapacity(Long vendorId) {
+        Vendor vendor = vendorRepository.findById(vendorId)
+                .orElseThrow(() -> new VendorNotFoundException(vendorId));
+        return toCapacityResponse(vendor);
+    }
+
+    /**
+     * Sets the vendor's hourly order and unit capacity. Allocation starts enforcing it once
+     * the change commits.
+     */
+    @Transactional
+    public CapacityResponse updateCapacity(Long vendorId, CapacityUpdateRequest request) {
+        Vendor vendor = vendorRepository.findById(vendorId)
+                .orElseThrow(() -> new VendorNotFoundException(vendorId));
+        vendor.setHourlyOrderCapacity(request.getHourlyOrderCapacity());
+        vendor.setHourlyUnitCapacity(request.getHourlyUnitCapacity());
+        Vendor saved = vendorRepository.save(vendor);
+        vendorCapacity.updateLimits(vendorId, saved.getHourlyOrderCapacity(), saved.getHourlyUnitCapacity());
+        return toCapacityResponse(saved);
+    }
+
+    /**
+     * Sets the vendor's shipping origin, used to allocate orders that carry a delivery location.
+     */
+    @Transactional
+    public LocationResponse updateLocation(Long vendorId, LocationUpdateRequest request) {
+        Vendor vendor = vendorRepository.findById(vendorId)
+                .orElseThrow(() -> new VendorNotFoundException(vendorId));
+        vendor.setLatitude(request.getLatitude());
+        vendor.setLongitude(request.getLongitude());
+        Vendor saved = vendorRepository.save(vendor);
+        vendorLocationIndex.onVendorMoved(vendorId, new GeoPoint(saved.getLatitude(), saved.getLongitude()));
+        return new LocationResponse(saved.getId(), saved.getName(), saved.getLatitude(), saved.getLongitude());
+    }
+
+    private CapacityResponse toCapacityResponse(Vendor vendor) {
+        return new CapacityResponse(
+            vendor.getId(),
+            vendor.getName(),
+            vendor.getHourlyOrderCapacity(),
+            vendor.getHourlyUnitCapacity(),
+            vendorCapacity.ordersInWindow(vendor.getId()),
+            vendorCapacity.unitsInWindow(vendor.getId())
+        );
+    }
+
+    private void publishOffer(VendorProduct vp) {
+        offerBook.onOfferChanged(
+            vp.getProduct().getId(),
+            vp.getVendor().getId(),
+            vp.getVendor().getName(),
+            vp.getPrice(),
+            vp.getStock()
+        );
     }
 
     private VendorProductResponse toVendorProductResponse(VendorProduct vp) {
@@ -0,0 +1,55 @@
+package com.fuchs.oms.service;
+
+import com.fuchs.oms.dto.OutboxMessage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.util.List;
+
+/**
+ * POSTs each batch of outbox events as a JSON array to {@code oms.outbox.webhook.url}
+ * ({@code oms.outbox.sink=webhook}). Any 2xx answer accepts the batch; errors and timeouts make the
+ * dispatcher send it again.
+ */
+@Component
+@ConditionalOnProperty(name = "oms.outbox.sink", havingValue = "webhook")
+public class WebhookOutboxSink implements OutboxSink {
+
+    private final RestClient restClient;
+
+    @Autowired
+    public WebhookOutboxSink(
+            RestClient.Builder restClientBuilder,
+            @Value("${oms.outbox.webhook.url}") String url,
+            @Value("${oms.outbox.webhook.timeout-ms:5000}") int timeoutMillis) {
+        this(restClientBuilder
+            .requestFactory(requestFactory(timeoutMillis))
+            .baseUrl(url)
+            .build());
+    }
+
+    WebhookOutboxSink(RestClient restClient) {
+        this.restClient = restClient;
+    }
+
+    private static SimpleClientHttpRequestFactory requestFactory(int timeoutMillis) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(timeoutMillis);
+        requestFactory.setReadTimeout(timeoutMillis);
+        return requestFactory;
+    }
+
+    @Override
+    public void deliver(List<OutboxMessage> messages) {
+        restClient.post()
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(messages)
+            .retrieve()
+            .toBodilessEntity();
+    }
+}
@@ -0,0 +1,142 @@
+package com.fuchs.oms.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded blocking queue with one FIFO lane per enum constant, served by smooth weighted
+ * round-robin: while several lanes have elements waiting, each gets a share of
+ * {@link #poll} calls proportional to its weight, and those turns are interleaved rather than
+ * served in bursts. A lane that is empty collects no credit, so it cannot starve the others
+ * after a quiet spell; a lane that is the only one waiting gets every turn.
+ *
+ * @param <L> the lane type
+ * @param <E> the element type
+ */
+public final class WeightedFairQueue<L extends Enum<L>, E> {
+
+    private final L[] lanes;
+    private final int[] weights;
+    private final long[] credit;
+    private final ArrayDeque<E>[] queues;
+    private final int capacityPerLane;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+
+    @SuppressWarnings("unchecked")
+    public WeightedFairQueue(Class<L> laneType, Map<L, Integer> weights, int capacityPerLane) {
+        if (capacityPerLane < 1) {
+            throw new IllegalArgumentException("Lane capacity must be at least 1: " + capacityPerLane);
+        }
+        this.lanes = laneType.getEnumConstants();
+        this.weights = new int[lanes.length];
+        this.credit = new long[lanes.length];
+        this.queues = new ArrayDeque[lanes.length];
+        this.capacityPerLane = capacityPerLane;
+        Map<L, Integer> byLane = new EnumMap<>(weights);
+        for (L lane : lanes) {
+            Integer weight = byLane.get(lane);
+            if (weight == null || weight < 1) {
+                throw new IllegalArgumentException("Lane " + lane + " needs a weight >= 1");
+            }
+            this.weights[lane.ordinal()] = weight;
+            this.queues[lane.ordinal()] = new ArrayDeque<>();
+        }
+    }
+
+    /**
+     * Appends an element to a lane; safe to call from any thread.
+     *
+     * @return false if the lane is full
+     */
+    public boolean offer(L lane, E element) {
+        lock.lock();
+        try {
+            ArrayDeque<E> queue = queues[lane.ordinal()];
+            if (queue.size() >= capacityPerLane) {
+                return false;
+            }
+            queue.addLast(element);
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the next element by weighted turn, waiting up to the timeout.
+     *
+     * @return the element, or null if none arrived in time
+     */
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long remainingNanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            E element;
+            while ((element = next()) == null) {
+                if (remainingNanos <= 0) {
+                    return null;
+                }
+                remainingNanos = notEmpty.awaitNanos(remainingNanos);
+            }
+            return element;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes every waiting element, lane by lane.
+     */
+    public List<E> drain() {
+        lock.lock();
+        try {
+            List<E> drained = new ArrayList<>();
+            for (int i = 0; i < lanes.length; i++) {
+                drained.addAll(queues[i]);
+                queues[i].clear();
+                credit[i] = 0;
+            }
+            return drained;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size(L lane) {
+        lock.lock();
+        try {
+            return queues[lane.ordinal()].size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private E next() {
+        int chosen = -1;
+        long totalWeight = 0;
+        for (int i = 0; i < lanes.length; i++) {
+            if (queues[i].isEmpty()) {
+                credit[i] = 0;
+                continue;
+            }
+            credit[i] += weights[i];
+            totalWeight += weights[i];
+            if (chosen < 0 || credit[i] > credit[chosen]) {
+                chosen = i;
+            }
+        }
+        if (chosen < 0) {
+            return null;
+        }
+        credit[chosen] -= totalWeight;
+        return queues[chosen].pollFirst();
+    }
+}
@@ -0,0 +1,92 @@
+package com.fuchs.oms.benchmark;
+
+import com.fuchs.oms.repository.AllocationCandidate;
+import com.fuchs.oms.repository.VendorProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Latency of picking an allocation winner for a product with thousands of vendor offers:
+ * hydrating every eligible VendorProduct and filtering in Java against the single-row
+ * projection query that filters quantity in SQL.
+ *
+ * Excluded from the default build; run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@Sql(scripts = "/data.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class AllocationQueryBenchmark {
+
+    private static final int VENDORS = 2_000;
+    private static final int ITERATIONS = 500;
+    private static final int QUANTITY = 40;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private VendorProductRepository vendorProductRepository;
+
+    @BeforeEach
+    void seedVendors() {
+        // Cheap offers hold a few units each, so most rows fail the quantity filter
+        List<Object[]> vendors = new ArrayList<>(VENDORS);
+        for (int i = 0; i < VENDORS; i++) {
+            vendors.add(new Object[] {"bench-" + i, "password", "Bench Vendor " + i});
+        }
+        jdbcTemplate.batchUpdate(
+            "INSERT INTO vendors (username, password, name, created_at) VALUES (?, ?, ?, CURRENT_TIMESTAMP)",
+            vendors);
+        jdbcTemplate.update(
+            "INSERT INTO vendor_products (vendor_id, product_id, price, stock, updated_at) " +
+            "SELECT v.id, 1, 10.00 + MOD(v.id, 500) * 0.05, MOD(v.id * 7, 50), CURRENT_TIMESTAMP " +
+            "FROM vendors v WHERE v.username LIKE 'bench-%'");
+    }
+
+    @Test
+    void winnerQueries() {
+        Optional<Long> hydrated = hydrateAndFilter();
+        Optional<Long> lean = vendorProductRepository.findAllocationWinner(1L, QUANTITY)
+            .map(AllocationCandidate::vendorId);
+        assertThat(lean).isPresent().isEqualTo(hydrated);
+
+        report("hydrate-and-filter", this::hydrateAndFilter);
+        report("winner projection", () -> vendorProductRepository.findAllocationWinner(1L, QUANTITY));
+    }
+
+    private Optional<Long> hydrateAndFilter() {
+        return vendorProductRepository.findEligibleVendorsForAllocation(1L, 0).stream()
+            .filter(vp -> vp.getStock() >= QUANTITY)
+            .map(vp -> vp.getVendor().getId())
+            .findFirst();
+    }
+
+    private static void report(String name, Supplier<?> query) {
+        // Warm-up
+        for (int i = 0; i < ITERATIONS / 5; i++) {
+            query.get();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            query.get();
+        }
+        double micros = (System.nanoTime() - start) / 1e3 / ITERATIONS;
+        System.out.printf("%n[benchmark] %s: %d vendors, %d lookups, %.1f us/lookup%n",
+            name, VENDORS + 3, ITERATIONS, micros);
+    }
+}
@@ -0,0 +1,141 @@
+package com.fuchs.oms.benchmark;
+
+import com.fuchs.oms.dto.PriceUpdateRequest;
+import com.fuchs.oms.dto.StockUpdateRequest;
+import com.fuchs.oms.repository.OrderRepository;
+import com.fuchs.oms.repository.VendorProductRepository;
+import com.fuchs.oms.service.AllocationService;
+import com.fuchs.oms.service.AllocationShadow;
+import com.fuchs.oms.service.AllocationStrategy;
+import com.fuchs.oms.service.ConflictRetry;
+import com.fuchs.oms.service.Fr12AllocationStrategy;
+import com.fuchs.oms.service.InventoryLeaseManager;
+import com.fuchs.oms.service.OfferBook;
+import com.fuchs.oms.service.OrderService;
+import com.fuchs.oms.service.TieSpreadingAllocationStrategy;
+import com.fuchs.oms.service.VendorCapacity;
+import com.fuchs.oms.service.VendorLocationIndex;
+import com.fuchs.oms.service.VendorService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Hot-product throughput of FR12 allocation against spreading orders over vendors tied on price:
+ * three vendors sell the product at the same price and many request threads order it at once.
+ *
+ * Excluded from the default build; run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@Sql(scripts = "/data.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class AllocationStrategyBenchmark {
+
+    private static final int THREADS = 32;
+    private static final int ORDERS = 5_000;
+
+    @Autowired
+    private OfferBook offerBook;
+
+    @Autowired
+    private VendorService vendorService;
+
+    @Autowired
+    private VendorProductRepository vendorProductRepository;
+
+    @Autowired
+    private InventoryLeaseManager inventoryLeaseManager;
+
+    @Autowired
+    private VendorCapacity vendorCapacity;
+
+    @Autowired
+    private VendorLocationIndex vendorLocationIndex;
+
+    @Autowired
+    private AllocationShadow allocationShadow;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ConflictRetry conflictRetry;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void fr12Strategy() throws Exception {
+        run("fr12", new Fr12AllocationStrategy());
+    }
+
+    @Test
+    void tieSpreadingStrategy() throws Exception {
+        run("spread-ties", new TieSpreadingAllocationStrategy());
+    }
+
+    private void run(String name, AllocationStrategy strategy) throws Exception {
+        for (long vendorId = 1; vendorId <= 3; vendorId++) {
+            vendorService.updatePrice(vendorId, 1L, new PriceUpdateRequest(new BigDecimal("45.00")));
+            vendorService.updateStock(vendorId, 1L, new StockUpdateRequest(ORDERS));
+        }
+        AllocationService allocationService = new AllocationService(offerBook, vendorService,
+            vendorProductRepository, inventoryLeaseManager, strategy, vendorCapacity, vendorLocationIndex,
+            allocationShadow, new SimpleMeterRegistry(), AllocationService.LockMode.GUARDED);
+
+        // Warm-up
+        submitAll(allocationService, 500);
+        orderRepository.deleteAll();
+
+        long start = System.nanoTime();
+        submitAll(allocationService, ORDERS);
+        long elapsedNanos = System.nanoTime() - start;
+
+        assertThat(orderRepository.count()).isEqualTo(ORDERS);
+        Map<Long, Long> perVendor = orderRepository.findAll().stream()
+            .collect(Collectors.groupingBy(order -> order.getAllocatedVendorId(), TreeMap::new, Collectors.counting()));
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf("%n[benchmark] %s strategy: %d orders, %d threads, %.2f s, %.0f orders/s, per vendor %s%n",
+            name, ORDERS, THREADS, seconds, ORDERS / seconds, perVendor);
+    }
+
+    private void submitAll(AllocationService allocationService, int orders) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<CompletableFuture<?>> futures = new ArrayList<>(orders);
+            for (int i = 0; i < orders; i++) {
+                futures.add(CompletableFuture.runAsync(() -> conflictRetry.run("benchmark", 1L,
+                    () -> transactionTemplate.executeWithoutResult(status -> {
+                        AllocationService.AllocationResult result = allocationService.allocate(1L, 1);
+                        assertThat(result.success()).isTrue();
+                        orderService.recordAllocatedOrder(1L, 1, result.vendorId());
+                    })), executor));
+            }
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(5, TimeUnit.MINUTES);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
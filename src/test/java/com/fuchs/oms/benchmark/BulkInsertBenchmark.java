@@ -0,0 +1,138 @@
+package com.fuchs.oms.benchmark;
+
+import com.fuchs.oms.model.Order;
+import com.fuchs.oms.model.Product;
+import com.fuchs.oms.model.Vendor;
+import com.fuchs.oms.model.VendorProduct;
+import com.fuchs.oms.repository.OrderRepository;
+import com.fuchs.oms.repository.VendorProductRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Rows per second for bulk entity inserts through JPA: orders as the batching engines write
+ * them, and vendor enrollments as a catalog onboarding would. Each chunk of rows is saved in
+ * one transaction, so the numbers show what ID generation and JDBC batching cost per row.
+ *
+ * Excluded from the default build; run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@Sql(scripts = "/data.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class BulkInsertBenchmark {
+
+    private static final int ROWS = 20_000;
+    private static final int CHUNK = 1_000;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private VendorProductRepository vendorProductRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void orders() {
+        // Warm-up
+        insertOrders(CHUNK);
+
+        long start = System.nanoTime();
+        insertOrders(ROWS);
+        report("orders", ROWS, System.nanoTime() - start);
+        assertThat(orderRepository.count()).isEqualTo(ROWS + CHUNK);
+    }
+
+    @Test
+    void enrollments() {
+        List<Object[]> vendors = new ArrayList<>(ROWS + CHUNK);
+        for (int i = 0; i < ROWS + CHUNK; i++) {
+            vendors.add(new Object[] {"bench-" + i, "password", "Bench Vendor " + i});
+        }
+        jdbcTemplate.batchUpdate(
+            "INSERT INTO vendors (username, password, name, created_at) VALUES (?, ?, ?, CURRENT_TIMESTAMP)",
+            vendors);
+        List<Long> vendorIds = jdbcTemplate.queryForList(
+            "SELECT id FROM vendors WHERE username LIKE 'bench-%' ORDER BY id", Long.class);
+
+        // Warm-up
+        insertEnrollments(vendorIds.subList(0, CHUNK));
+
+        long start = System.nanoTime();
+        insertEnrollments(vendorIds.subList(CHUNK, vendorIds.size()));
+        report("enrollments", ROWS, System.nanoTime() - start);
+        assertThat(vendorProductRepository.count()).isEqualTo(ROWS + CHUNK + 3);
+    }
+
+    private void insertOrders(int rows) {
+        insertInChunks(rows, i -> {
+            Order order = new Order();
+            order.setProductId(1L);
+            order.setProductCode("widget-001");
+            order.setProductName("Widget");
+            order.setQuantity(1 + i % 5);
+            order.setAllocatedVendorId(2L);
+            order.setVendorName("Vendor Beta");
+            order.setUnitPrice(new BigDecimal("45.00"));
+            order.setTotalPrice(new BigDecimal("45.00").multiply(BigDecimal.valueOf(1 + i % 5)));
+            order.setStatus(Order.ALLOCATED);
+            orderRepository.save(order);
+        });
+    }
+
+    private void insertEnrollments(List<Long> vendorIds) {
+        insertInChunks(vendorIds.size(), i -> {
+            VendorProduct vendorProduct = new VendorProduct();
+            vendorProduct.setVendor(entityManager.getReference(Vendor.class, vendorIds.get(i)));
+            vendorProduct.setProduct(entityManager.getReference(Product.class, 1L));
+            vendorProduct.setPrice(new BigDecimal("42.00"));
+            vendorProduct.setStock(10);
+            vendorProductRepository.save(vendorProduct);
+        });
+    }
+
+    private void insertInChunks(int rows, RowWriter writer) {
+        for (int from = 0; from < rows; from += CHUNK) {
+            int first = from;
+            int last = Math.min(rows, from + CHUNK);
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int i = first; i < last; i++) {
+                    writer.write(i);
+                }
+                entityManager.flush();
+                entityManager.clear();
+            });
+        }
+    }
+
+    private static void report(String name, int rows, long nanos) {
+        System.out.printf("%n[benchmark] %s: %d rows in chunks of %d, %.0f rows/s%n",
+            name, rows, CHUNK, rows / (nanos / 1e9));
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(int row);
+    }
+}
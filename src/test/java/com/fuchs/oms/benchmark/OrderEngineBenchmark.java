@@ -0,0 +1,158 @@
+package com.fuchs.oms.benchmark;
+
+import com.fuchs.oms.dto.OrderRequest;
+import com.fuchs.oms.dto.StockUpdateRequest;
+import com.fuchs.oms.repository.OrderRepository;
+import com.fuchs.oms.repository.ProductRepository;
+import com.fuchs.oms.service.CoalescingOrderEngine;
+import com.fuchs.oms.service.OfferBook;
+import com.fuchs.oms.service.OrderBatchWriter;
+import com.fuchs.oms.service.OrderEngine;
+import com.fuchs.oms.service.OrderJournal;
+import com.fuchs.oms.service.ShardedOrderEngine;
+import com.fuchs.oms.service.TransactionalOrderEngine;
+import com.fuchs.oms.service.VendorService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Flash-sale throughput of the transactional engine against the coalescing and sharded engines,
+ * and the sharded engine with journal durability: many request threads ordering the same hot
+ * product.
+ *
+ * Excluded from the default build; run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@Sql(scripts = "/data.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class OrderEngineBenchmark {
+
+    private static final int THREADS = 32;
+    private static final int ORDERS = 5_000;
+
+    @Autowired
+    private TransactionalOrderEngine transactionalOrderEngine;
+
+    @Autowired
+    private OfferBook offerBook;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderBatchWriter orderBatchWriter;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private VendorService vendorService;
+
+    @Autowired
+    private OrderJournal orderJournal;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void transactionalEngine() throws Exception {
+        run("transactional", transactionalOrderEngine);
+    }
+
+    @Test
+    void coalescingEngine() throws Exception {
+        run("coalescing", new CoalescingOrderEngine(
+            offerBook, productRepository, orderBatchWriter, new SimpleMeterRegistry(), 2, 64, 4));
+    }
+
+    @Test
+    void shardedEngine() throws Exception {
+        ShardedOrderEngine engine = new ShardedOrderEngine(
+            offerBook, productRepository, orderBatchWriter, orderJournal, 4, 1024, 256, 30_000);
+        engine.start();
+        try {
+            run("sharded", engine);
+        } finally {
+            engine.stop();
+        }
+    }
+
+    @Test
+    void shardedEngineWithJournal(@TempDir Path dir) throws Exception {
+        OrderJournal journal = new OrderJournal(jdbcTemplate, orderBatchWriter, new SimpleMeterRegistry(),
+            OrderJournal.Durability.JOURNAL, "sharded", dir, 64, 500, 500, 20, 64);
+        ShardedOrderEngine engine = new ShardedOrderEngine(
+            offerBook, productRepository, orderBatchWriter, journal, 4, 1024, 256, 30_000);
+        journal.start();
+        engine.start();
+        try {
+            run("sharded+journal", engine, () -> {
+                while (journal.unflushed() > 0) {
+                    Thread.onSpinWait();
+                }
+            });
+        } finally {
+            engine.stop();
+            journal.stop();
+        }
+    }
+
+    private void run(String name, OrderEngine engine) throws Exception {
+        run(name, engine, () -> {});
+    }
+
+    /**
+     * @param settle waits until submitted orders are in the database, for engines that answer first
+     */
+    private void run(String name, OrderEngine engine, Runnable settle) throws Exception {
+        vendorService.updateStock(1L, 1L, new StockUpdateRequest(ORDERS));
+        vendorService.updateStock(2L, 1L, new StockUpdateRequest(ORDERS));
+
+        // Warm-up
+        submitAll(engine, 500);
+        settle.run();
+        orderRepository.deleteAll();
+
+        long start = System.nanoTime();
+        submitAll(engine, ORDERS);
+        long elapsedNanos = System.nanoTime() - start;
+        settle.run();
+
+        assertThat(orderRepository.count()).isEqualTo(ORDERS);
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf("%n[benchmark] %s engine: %d orders, %d threads, %.2f s, %.0f orders/s%n",
+            name, ORDERS, THREADS, seconds, ORDERS / seconds);
+    }
+
+    private static void submitAll(OrderEngine engine, int orders) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<CompletableFuture<?>> futures = new ArrayList<>(orders);
+            for (int i = 0; i < orders; i++) {
+                futures.add(CompletableFuture.supplyAsync(
+                    () -> engine.submit(new OrderRequest(1L, 1)).join(), executor));
+            }
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(5, TimeUnit.MINUTES);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.fuchs.oms.benchmark;
+
+import com.fuchs.oms.dto.OrderPriority;
+import com.fuchs.oms.dto.OrderRequest;
+import com.fuchs.oms.dto.StockUpdateRequest;
+import com.fuchs.oms.service.ConflictRetry;
+import com.fuchs.oms.service.OrderEngine;
+import com.fuchs.oms.service.OrderService;
+import com.fuchs.oms.service.PrioritizedOrderEngine;
+import com.fuchs.oms.service.TransactionalOrderEngine;
+import com.fuchs.oms.service.VendorService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latency of expedited orders while many clients ingest bulk orders for the same product:
+ * every order on its caller's thread (transactional engine) against priority lanes served by a
+ * fixed worker pool (prioritized engine).
+ *
+ * Excluded from the default build; run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@Sql(scripts = "/data.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class PriorityLaneBenchmark {
+
+    private static final int BULK_CLIENTS = 32;
+    private static final int EXPEDITED_ORDERS = 300;
+    private static final long EXPEDITED_PAUSE_MILLIS = 5;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private VendorService vendorService;
+
+    @Autowired
+    private ConflictRetry conflictRetry;
+
+    @Test
+    void transactionalEngine() throws Exception {
+        run("transactional", new TransactionalOrderEngine(orderService, conflictRetry));
+    }
+
+    @Test
+    void prioritizedEngine() throws Exception {
+        PrioritizedOrderEngine engine = new PrioritizedOrderEngine(orderService, conflictRetry,
+            new SimpleMeterRegistry(), 8, 100_000, 8, 3, 1, 60_000);
+        engine.start();
+        try {
+            run("prioritized", engine);
+        } finally {
+            engine.stop();
+        }
+    }
+
+    private void run(String name, OrderEngine engine) throws Exception {
+        for (long vendorId = 1; vendorId <= 3; vendorId++) {
+            vendorService.updateStock(vendorId, 1L, new StockUpdateRequest(10_000_000));
+        }
+        // Warm-up
+        for (int i = 0; i < 200; i++) {
+            engine.submit(order(OrderPriority.STANDARD)).get(1, TimeUnit.MINUTES);
+        }
+
+        AtomicBoolean flooding = new AtomicBoolean(true);
+        AtomicLong bulkOrders = new AtomicLong();
+        ExecutorService clients = Executors.newFixedThreadPool(BULK_CLIENTS);
+        List<Long> latencies = new ArrayList<>(EXPEDITED_ORDERS);
+        long start = System.nanoTime();
+        try {
+            for (int i = 0; i < BULK_CLIENTS; i++) {
+                clients.execute(() -> {
+                    while (flooding.get()) {
+                        try {
+                            engine.submit(order(OrderPriority.BULK)).get(1, TimeUnit.MINUTES);
+                            bulkOrders.incrementAndGet();
+                        } catch (Exception e) {
+                            return;
+                        }
+                    }
+                });
+            }
+            Thread.sleep(500);
+            for (int i = 0; i < EXPEDITED_ORDERS; i++) {
+                long submitted = System.nanoTime();
+                engine.submit(order(OrderPriority.EXPEDITED)).get(1, TimeUnit.MINUTES);
+                latencies.add(System.nanoTime() - submitted);
+                Thread.sleep(EXPEDITED_PAUSE_MILLIS);
+            }
+        } finally {
+            flooding.set(false);
+            clients.shutdown();
+            clients.awaitTermination(1, TimeUnit.MINUTES);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        Collections.sort(latencies);
+        System.out.printf("%n[benchmark] %s engine: expedited p50 %.2f ms, p99 %.2f ms, max %.2f ms; "
+                + "%d bulk clients, %.0f bulk orders/s%n",
+            name, percentile(latencies, 0.50), percentile(latencies, 0.99), latencies.get(latencies.size() - 1) / 1e6,
+            BULK_CLIENTS, bulkOrders.get() / seconds);
+    }
+
+    private static OrderRequest order(OrderPriority priority) {
+        OrderRequest request = new OrderRequest(1L, 1);
+        request.setPriority(priority);
+        return request;
+    }
+
+    private static double percentile(List<Long> sortedNanos, double quantile) {
+        int index = (int) Math.ceil(quantile * sortedNanos.size()) - 1;
+        return sortedNanos.get(Math.max(0, index)) / 1e6;
+    }
+}
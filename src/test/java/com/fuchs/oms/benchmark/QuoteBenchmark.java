@@ -0,0 +1,125 @@
+package com.fuchs.oms.benchmark;
+
+import com.fuchs.oms.dto.OrderRequest;
+import com.fuchs.oms.dto.QuoteRequest;
+import com.fuchs.oms.dto.StockUpdateRequest;
+import com.fuchs.oms.service.ConflictRetry;
+import com.fuchs.oms.service.OrderEngine;
+import com.fuchs.oms.service.OrderService;
+import com.fuchs.oms.service.ProductService;
+import com.fuchs.oms.service.TransactionalOrderEngine;
+import com.fuchs.oms.service.VendorService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Order throughput for a product on its own, then with quote clients asking for ten times that
+ * rate at the same time: quotes should be served in full without slowing orders down.
+ *
+ * Excluded from the default build; run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@Sql(scripts = "/data.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class QuoteBenchmark {
+
+    private static final int ORDER_CLIENTS = 16;
+    private static final int QUOTE_CLIENTS = 16;
+    private static final long RUN_MILLIS = 5_000;
+    private static final int QUOTE_FACTOR = 10;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private VendorService vendorService;
+
+    @Autowired
+    private ConflictRetry conflictRetry;
+
+    @Test
+    void quotesAlongsideOrders() throws Exception {
+        for (long vendorId = 1; vendorId <= 3; vendorId++) {
+            vendorService.updateStock(vendorId, 1L, new StockUpdateRequest(10_000_000));
+        }
+        OrderEngine engine = new TransactionalOrderEngine(orderService, conflictRetry);
+        QuoteRequest quote = new QuoteRequest(5, null, null);
+        // Warm-up
+        for (int i = 0; i < 200; i++) {
+            engine.submit(new OrderRequest(1L, 1)).get(1, TimeUnit.MINUTES);
+            productService.quote(1L, quote);
+        }
+
+        double ordersAlone = run(engine, quote, 0).orders();
+        // Quote clients share a budget of ten times the order rate just measured
+        double targetQuotes = ordersAlone * QUOTE_FACTOR;
+        Rates mixed = run(engine, quote, targetQuotes);
+
+        System.out.printf("%n[benchmark] quotes: orders alone %.0f orders/s; with %d quote clients targeting %.0f quotes/s: "
+                + "%.0f orders/s, %.0f quotes/s (%.1fx the order rate)%n",
+            ordersAlone, QUOTE_CLIENTS, targetQuotes, mixed.orders(), mixed.quotes(), mixed.quotes() / mixed.orders());
+    }
+
+    private Rates run(OrderEngine engine, QuoteRequest quote, double targetQuotes) throws Exception {
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong orders = new AtomicLong();
+        AtomicLong quotes = new AtomicLong();
+        ExecutorService clients = Executors.newFixedThreadPool(ORDER_CLIENTS + QUOTE_CLIENTS);
+        long start = System.nanoTime();
+        try {
+            for (int i = 0; i < ORDER_CLIENTS; i++) {
+                clients.execute(() -> {
+                    while (running.get()) {
+                        try {
+                            engine.submit(new OrderRequest(1L, 1)).get(1, TimeUnit.MINUTES);
+                            orders.incrementAndGet();
+                        } catch (Exception e) {
+                            return;
+                        }
+                    }
+                });
+            }
+            if (targetQuotes > 0) {
+                long intervalNanos = (long) (1e9 * QUOTE_CLIENTS / targetQuotes);
+                for (int i = 0; i < QUOTE_CLIENTS; i++) {
+                    clients.execute(() -> {
+                        long next = System.nanoTime();
+                        while (running.get()) {
+                            productService.quote(1L, quote);
+                            quotes.incrementAndGet();
+                            next += intervalNanos;
+                            long sleep = next - System.nanoTime();
+                            if (sleep > 0) {
+                                LockSupport.parkNanos(sleep);
+                            }
+                        }
+                    });
+                }
+            }
+            Thread.sleep(RUN_MILLIS);
+        } finally {
+            running.set(false);
+            clients.shutdown();
+            clients.awaitTermination(1, TimeUnit.MINUTES);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        return new Rates(orders.get() / seconds, quotes.get() / seconds);
+    }
+
+    private record Rates(double orders, double quotes) {}
+}
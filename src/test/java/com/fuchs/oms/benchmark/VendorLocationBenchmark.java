@@ -0,0 +1,137 @@
+package com.fuchs.oms.benchmark;
+
+import com.fuchs.oms.service.GeoPoint;
+import com.fuchs.oms.service.OfferBook;
+import com.fuchs.oms.service.VendorLocationIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Latency of ranking a product's offers for a delivery location with 10,000 vendors spread over
+ * Europe: scanning every offer and computing its distance against the per-product grid index.
+ *
+ * Excluded from the default build; run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+    "spring.jpa.show-sql=false",
+    "oms.allocation.distance.max-km=150",
+    "oms.allocation.distance.cost-per-km=0.02"
+})
+@Sql(scripts = "/data.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class VendorLocationBenchmark {
+
+    private static final int VENDORS = 10_000;
+    private static final int LOOKUPS = 2_000;
+    private static final int QUANTITY = 5;
+    private static final double MAX_KM = 150;
+    private static final double COST_PER_KM = 0.02;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private OfferBook offerBook;
+
+    @Autowired
+    private VendorLocationIndex vendorLocationIndex;
+
+    private final Random random = new Random(42);
+    private final Map<Long, GeoPoint> origins = new HashMap<>();
+
+    @BeforeEach
+    void seedVendors() {
+        List<Object[]> vendors = new ArrayList<>(VENDORS);
+        for (int i = 0; i < VENDORS; i++) {
+            vendors.add(new Object[] {"bench-" + i, "password", "Bench Vendor " + i, latitude(), longitude()});
+        }
+        jdbcTemplate.batchUpdate(
+            "INSERT INTO vendors (username, password, name, latitude, longitude, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, CURRENT_TIMESTAMP)",
+            vendors);
+        jdbcTemplate.update(
+            "INSERT INTO vendor_products (vendor_id, product_id, price, stock, updated_at) " +
+            "SELECT v.id, 1, 10.00 + MOD(v.id, 500) * 0.05, MOD(v.id * 7, 50), CURRENT_TIMESTAMP " +
+            "FROM vendors v WHERE v.username LIKE 'bench-%'");
+        offerBook.evict(1L);
+        vendorLocationIndex.loadOrigins();
+    }
+
+    @Test
+    void rankForDeliveryLocation() {
+        List<GeoPoint> deliveries = new ArrayList<>(LOOKUPS);
+        for (int i = 0; i < LOOKUPS; i++) {
+            deliveries.add(new GeoPoint(latitude(), longitude()));
+        }
+        for (GeoPoint deliveryTo : deliveries.subList(0, 50)) {
+            assertThat(vendorLocationIndex.rank(1L, QUANTITY, deliveryTo)).isEqualTo(fullScan(deliveryTo));
+        }
+
+        report("full scan", deliveries, this::fullScan);
+        report("grid index", deliveries, deliveryTo -> vendorLocationIndex.rank(1L, QUANTITY, deliveryTo));
+    }
+
+    private List<OfferBook.Offer> fullScan(GeoPoint deliveryTo) {
+        Map<Long, GeoPoint> origins = origins();
+        return offerBook.getOffers(1L).stream()
+            .filter(offer -> offer.stock() >= QUANTITY && origins.containsKey(offer.vendorId()))
+            .map(offer -> Map.entry(offer, origins.get(offer.vendorId()).distanceKm(deliveryTo)))
+            .filter(entry -> entry.getValue() <= MAX_KM)
+            .sorted(Comparator.<Map.Entry<OfferBook.Offer, Double>>comparingDouble(
+                    entry -> entry.getKey().price().doubleValue() + COST_PER_KM * entry.getValue())
+                .thenComparing(entry -> entry.getKey().price())
+                .thenComparingDouble(Map.Entry::getValue)
+                .thenComparing(entry -> entry.getKey().vendorId()))
+            .map(Map.Entry::getKey)
+            .toList();
+    }
+
+    private Map<Long, GeoPoint> origins() {
+        if (origins.isEmpty()) {
+            jdbcTemplate.query("SELECT id, latitude, longitude FROM vendors WHERE latitude IS NOT NULL",
+                rs -> {
+                    origins.put(rs.getLong("id"), new GeoPoint(rs.getDouble("latitude"), rs.getDouble("longitude")));
+                });
+        }
+        return origins;
+    }
+
+    private double latitude() {
+        return 36 + random.nextDouble() * 34;
+    }
+
+    private double longitude() {
+        return -9 + random.nextDouble() * 39;
+    }
+
+    private static void report(String name, List<GeoPoint> deliveries, Function<GeoPoint, List<OfferBook.Offer>> rank) {
+        // Warm-up
+        deliveries.forEach(rank::apply);
+
+        long candidates = 0;
+        long start = System.nanoTime();
+        for (GeoPoint deliveryTo : deliveries) {
+            candidates += rank.apply(deliveryTo).size();
+        }
+        double micros = (System.nanoTime() - start) / 1e3 / deliveries.size();
+        System.out.printf("%n[benchmark] %s: %d vendors, %d lookups, %.1f us/lookup, %.1f candidates/lookup%n",
+            name, VENDORS, deliveries.size(), micros, (double) candidates / deliveries.size());
+    }
+}
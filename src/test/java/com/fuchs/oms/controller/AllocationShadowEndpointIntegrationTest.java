@@ -0,0 +1,88 @@
+package com.fuchs.oms.controller;
+
+import com.fuchs.oms.dto.OrderRequest;
+import com.fuchs.oms.dto.PriceUpdateRequest;
+import com.fuchs.oms.security.JwtTokenProvider;
+import com.fuchs.oms.service.AllocationShadow;
+import com.fuchs.oms.service.OrderService;
+import com.fuchs.oms.service.VendorService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {
+    "oms.allocation.shadow.candidate=spread-ties",
+    "management.endpoints.web.exposure.include=allocationshadow"
+})
+@AutoConfigureMockMvc
+@Sql(scripts = "/data.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class AllocationShadowEndpointIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    @Autowired
+    private VendorService vendorService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private AllocationShadow allocationShadow;
+
+    @Test
+    void report_showsWhereCandidateWouldHaveChosenAnotherVendor() throws Exception {
+        // Given - Alpha matches Beta's $45, so FR12 keeps choosing Alpha while spread-ties rotates
+        vendorService.updatePrice(1L, 1L, new PriceUpdateRequest(new BigDecimal("45.00")));
+
+        // When
+        for (int i = 0; i < 4; i++) {
+            orderService.createOrder(new OrderRequest(1L, 1));
+        }
+        await(() -> allocationShadow.summary().agreements() + allocationShadow.summary().disagreements() == 4,
+            Duration.ofSeconds(5));
+
+        // Then
+        mockMvc.perform(get("/actuator/allocationshadow")
+                .header("Authorization", "Bearer " + jwtTokenProvider.generateToken(1L, "vendor-a")))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.summary.candidate").value("spread-ties"))
+            .andExpect(jsonPath("$.summary.agreements").value(2))
+            .andExpect(jsonPath("$.summary.disagreements").value(2))
+            .andExpect(jsonPath("$.disagreements.length()").value(2))
+            .andExpect(jsonPath("$.disagreements[0].actualVendorId").value(1))
+            .andExpect(jsonPath("$.disagreements[0].candidateVendorId").value(2));
+    }
+
+    @Test
+    void report_withoutToken_returns401() throws Exception {
+        mockMvc.perform(get("/actuator/allocationshadow"))
+            .andExpect(status().isUnauthorized());
+    }
+
+    private static void await(BooleanSupplier condition, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (condition.getAsBoolean()) {
+                return;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("Condition not met within " + timeout);
+    }
+}
@@ -1,8 +1,12 @@
 package com.fuchs.oms.controller;
 
+import com.fuchs.oms.dto.PriceUpdateRequest;
+import com.fuchs.oms.dto.StockUpdateRequest;
 import com.fuchs.oms.repository.OrderRepository;
 import com.fuchs.oms.repository.VendorProductRepository;
 import com.fuchs.oms.security.JwtTokenProvider;
+import com.fuchs.oms.service.VendorService;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -15,6 +19,8 @@ import org.springframework.test.web.servlet.MockMvc;
 import com.jayway.jsonpath.JsonPath;
 import org.springframework.test.web.servlet.MvcResult;
 
+import java.math.BigDecimal;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -39,6 +45,12 @@ class OrderControllerIntegrationTest {
     @Autowired
     private VendorProductRepository vendorProductRepository;
 
+    @Autowired
+    private VendorService vendorService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Test
     void createOrder_withValidData_allocatesToLowestPriceVendorWithStock() throws Exception {
         String token = jwtTokenProvider.generateToken(1L, "vendor-a");
@@ -83,6 +95,73 @@ class OrderControllerIntegrationTest {
         assert order.getCreatedAt() != null;
     }
 
+    @Test
+    void createOrder_withRepeatedIdempotencyKey_returnsTheFirstOrder() throws Exception {
+        String token = jwtTokenProvider.generateToken(1L, "vendor-a");
+        String requestJson = """
+            {"productId": 1, "quantity": 10}
+            """;
+
+        MvcResult first = mockMvc.perform(post("/api/orders")
+                .header("Authorization", "Bearer " + token)
+                .header("Idempotency-Key", "retry-1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(requestJson))
+            .andExpect(status().isCreated())
+            .andReturn();
+        Long orderId = JsonPath.parse(first.getResponse().getContentAsString()).read("$.orderId", Long.class);
+
+        mockMvc.perform(post("/api/orders")
+                .header("Authorization", "Bearer " + token)
+                .header("Idempotency-Key", "retry-1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(requestJson))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.orderId").value(orderId));
+
+        assertEquals(1, orderRepository.count());
+        assertEquals(40, vendorProductRepository.findByVendorIdAndProductId(2L, 1L).orElseThrow().getStock());
+    }
+
+    @Test
+    void createOrder_withIdempotencyKeyReusedForAnotherOrder_returns409() throws Exception {
+        String token = jwtTokenProvider.generateToken(1L, "vendor-a");
+        mockMvc.perform(post("/api/orders")
+                .header("Authorization", "Bearer " + token)
+                .header("Idempotency-Key", "retry-1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                    {"productId": 1, "quantity": 10}
+                    """))
+            .andExpect(status().isCreated());
+
+        mockMvc.perform(post("/api/orders")
+                .header("Authorization", "Bearer " + token)
+                .header("Idempotency-Key", "retry-1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                    {"productId": 1, "quantity": 20}
+                    """))
+            .andExpect(status().isConflict())
+            .andExpect(jsonPath("$.status").value(409));
+    }
+
+    @Test
+    void createOrder_withBlankIdempotencyKey_returns400() throws Exception {
+        String token = jwtTokenProvider.generateToken(1L, "vendor-a");
+
+        mockMvc.perform(post("/api/orders")
+                .header("Authorization", "Bearer " + token)
+                .header("Idempotency-Key", " ")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                    {"productId": 1, "quantity": 10}
+                    """))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.status").value(400));
+        assertEquals(0, orderRepository.count());
+    }
+
     @Test
     void createOrder_withMissingProductId_returns400() throws Exception {
         String token = jwtTokenProvider.generateToken(1L, "vendor-a");
@@ -226,6 +305,33 @@ class OrderControllerIntegrationTest {
             .andExpect(jsonPath("$.status").value("ALLOCATED"));
     }
 
+    @Test
+    void createOrder_withPriority_isAllocated() throws Exception {
+        String token = jwtTokenProvider.generateToken(1L, "vendor-a");
+
+        mockMvc.perform(post("/api/orders")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                    {"productId": 1, "quantity": 5, "priority": "EXPEDITED"}
+                    """))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.allocatedVendorId").value(2));
+    }
+
+    @Test
+    void createOrder_withUnknownPriority_returns400() throws Exception {
+        String token = jwtTokenProvider.generateToken(1L, "vendor-a");
+
+        mockMvc.perform(post("/api/orders")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                    {"productId": 1, "quantity": 5, "priority": "URGENT"}
+                    """))
+            .andExpect(status().isBadRequest());
+    }
+
     @Test
     void createOrder_withZeroQuantity_returns400() throws Exception {
         String token = jwtTokenProvider.generateToken(1L, "vendor-a");
@@ -359,6 +465,58 @@ class OrderControllerIntegrationTest {
         assertThat(finalVendorBStock).isEqualTo(initialVendorBStock);
     }
 
+    @Test
+    void createOrder_afterSellOut_rejectsFromCacheUntilRestocked() throws Exception {
+        // Sell out through VendorService so the offer book sees every vendor at zero stock
+        vendorService.updateStock(1L, 1L, new StockUpdateRequest(0));
+        vendorService.updateStock(2L, 1L, new StockUpdateRequest(0));
+
+        String token = jwtTokenProvider.generateToken(1L, "vendor-a");
+        String requestJson = """
+            {"productId": 1, "quantity": 1}
+            """;
+
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(post("/api/orders")
+                    .header("Authorization", "Bearer " + token)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(requestJson))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("No vendor has stock for product: Widget"));
+        }
+        // First rejection went through allocation, the next two came from the sold-out marker
+        assertThat(meterRegistry.get("oms.orders.fast-rejections").tag("reason", "sold-out").counter().count())
+            .isEqualTo(2.0);
+
+        vendorService.updateStock(3L, 1L, new StockUpdateRequest(5));
+
+        mockMvc.perform(post("/api/orders")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(requestJson))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.allocatedVendorId").value(3));
+    }
+
+    @Test
+    void createOrder_withNonExistentProduct_cachesUnknownProduct() throws Exception {
+        String token = jwtTokenProvider.generateToken(1L, "vendor-a");
+        String requestJson = """
+            {"productId": 999, "quantity": 1}
+            """;
+
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/api/orders")
+                    .header("Authorization", "Bearer " + token)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(requestJson))
+                .andExpect(status().isNotFound());
+        }
+
+        assertThat(meterRegistry.get("oms.orders.fast-rejections").tag("reason", "unknown-product").counter().count())
+            .isEqualTo(1.0);
+    }
+
     @Test
     void createOrder_multipleOrdersDecrementStockCorrectly() throws Exception {
         String token = jwtTokenProvider.generateToken(1L, "vendor-a");
@@ -567,6 +725,167 @@ class OrderControllerIntegrationTest {
             .andExpect(jsonPath("$.status").value(404));
     }
 
+    @Test
+    void getOrderById_afterVendorReprices_keepsPriceAtAllocation() throws Exception {
+        String token = jwtTokenProvider.generateToken(1L, "vendor-a");
+        MvcResult createResult = mockMvc.perform(post("/api/orders")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                    {"productId": 1, "quantity": 10}
+                    """))
+            .andExpect(status().isCreated())
+            .andReturn();
+        Long orderId = JsonPath.parse(createResult.getResponse().getContentAsString())
+            .read("$.orderId", Long.class);
+
+        // Vendor B raises its price after the order was allocated
+        vendorService.updatePrice(2L, 1L, new PriceUpdateRequest(new BigDecimal("60.00")));
+
+        String vendorBToken = jwtTokenProvider.generateToken(2L, "vendor-b");
+        mockMvc.perform(get("/api/orders/" + orderId)
+                .header("Authorization", "Bearer " + vendorBToken))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.price").value(45.00))
+            .andExpect(jsonPath("$.totalPrice").value(450.00));
+        mockMvc.perform(get("/api/orders")
+                .header("Authorization", "Bearer " + vendorBToken))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[0].totalPrice").value(450.00));
+    }
+
+    @Test
+    void getOrderById_afterVendorUnenrolls_isStillReadable() throws Exception {
+        String token = jwtTokenProvider.generateToken(1L, "vendor-a");
+        MvcResult createResult = mockMvc.perform(post("/api/orders")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                    {"productId": 1, "quantity": 10}
+                    """))
+            .andExpect(status().isCreated())
+            .andReturn();
+        Long orderId = JsonPath.parse(createResult.getResponse().getContentAsString())
+            .read("$.orderId", Long.class);
+
+        vendorService.unenrollProduct(2L, 1L);
+
+        String vendorBToken = jwtTokenProvider.generateToken(2L, "vendor-b");
+        mockMvc.perform(get("/api/orders/" + orderId)
+                .header("Authorization", "Bearer " + vendorBToken))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.productName").value("Widget"))
+            .andExpect(jsonPath("$.allocatedVendorName").value("Vendor Beta"))
+            .andExpect(jsonPath("$.price").value(45.00));
+        mockMvc.perform(get("/api/orders")
+                .header("Authorization", "Bearer " + vendorBToken))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[0].orderId").value(orderId));
+    }
+
+    @Test
+    void createOrder_withBackorder_whenNoStock_returnsPendingOrderVisibleToSubmitter() throws Exception {
+        String token = jwtTokenProvider.generateToken(1L, "vendor-a");
+        MvcResult createResult = mockMvc.perform(post("/api/orders")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                    {"productId": 1, "quantity": 1000, "backorder": true}
+                    """))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.status").value("PENDING"))
+            .andExpect(jsonPath("$.allocatedVendorId").doesNotExist())
+            .andExpect(jsonPath("$.totalPrice").doesNotExist())
+            .andReturn();
+        Long orderId = JsonPath.parse(createResult.getResponse().getContentAsString())
+            .read("$.orderId", Long.class);
+
+        mockMvc.perform(get("/api/orders/" + orderId)
+                .header("Authorization", "Bearer " + token))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.status").value("PENDING"));
+        mockMvc.perform(get("/api/orders/" + orderId)
+                .header("Authorization", "Bearer " + jwtTokenProvider.generateToken(2L, "vendor-b")))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void createOrder_async_returns202AndIsAllocatedForPolling() throws Exception {
+        String token = jwtTokenProvider.generateToken(1L, "vendor-a");
+        MvcResult createResult = mockMvc.perform(post("/api/orders?mode=async")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                    {"productId": 1, "quantity": 10}
+                    """))
+            .andExpect(status().isAccepted())
+            .andExpect(jsonPath("$.status").value("PENDING"))
+            .andExpect(jsonPath("$.allocatedVendorId").doesNotExist())
+            .andReturn();
+        Long orderId = JsonPath.parse(createResult.getResponse().getContentAsString())
+            .read("$.orderId", Long.class);
+        assertThat(createResult.getResponse().getHeader("Location")).isEqualTo("/api/orders/" + orderId);
+
+        String status = "PENDING";
+        for (int attempt = 0; attempt < 100 && "PENDING".equals(status); attempt++) {
+            Thread.sleep(50);
+            MvcResult poll = mockMvc.perform(get("/api/orders/" + orderId)
+                    .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andReturn();
+            status = JsonPath.parse(poll.getResponse().getContentAsString()).read("$.status", String.class);
+        }
+        assertThat(status).isEqualTo("ALLOCATED");
+        assertThat(orderRepository.findById(orderId).orElseThrow().getAllocatedVendorId()).isEqualTo(2L);
+    }
+
+    @Test
+    void createOrder_asyncWithRepeatedIdempotencyKey_acceptsOnce() throws Exception {
+        String token = jwtTokenProvider.generateToken(1L, "vendor-a");
+        String requestJson = """
+            {"productId": 1, "quantity": 10}
+            """;
+        MvcResult first = mockMvc.perform(post("/api/orders?mode=async")
+                .header("Authorization", "Bearer " + token)
+                .header("Idempotency-Key", "async-1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(requestJson))
+            .andExpect(status().isAccepted())
+            .andReturn();
+        Long orderId = JsonPath.parse(first.getResponse().getContentAsString()).read("$.orderId", Long.class);
+
+        mockMvc.perform(post("/api/orders?mode=async")
+                .header("Authorization", "Bearer " + token)
+                .header("Idempotency-Key", "async-1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(requestJson))
+            .andExpect(status().isAccepted())
+            .andExpect(jsonPath("$.orderId").value(orderId));
+        // The same key with the other mode is a different request
+        mockMvc.perform(post("/api/orders")
+                .header("Authorization", "Bearer " + token)
+                .header("Idempotency-Key", "async-1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(requestJson))
+            .andExpect(status().isConflict());
+        assertThat(orderRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void createOrder_withUnknownMode_returns400() throws Exception {
+        String token = jwtTokenProvider.generateToken(1L, "vendor-a");
+
+        mockMvc.perform(post("/api/orders?mode=later")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                    {"productId": 1, "quantity": 10}
+                    """))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error").value("Unsupported order submit mode: later (use sync or async)"));
+        assertThat(orderRepository.count()).isZero();
+    }
+
     @Test
     void getOrderById_withNonExistentOrder_returns404() throws Exception {
         String token = jwtTokenProvider.generateToken(1L, "vendor-a");
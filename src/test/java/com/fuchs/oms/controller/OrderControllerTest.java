@@ -4,12 +4,21 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fuchs.oms.config.SecurityConfig;
 import com.fuchs.oms.dto.OrderRequest;
 import com.fuchs.oms.dto.OrderResponse;
+import com.fuchs.oms.dto.ReservationRequest;
+import com.fuchs.oms.dto.ReservationResponse;
 import com.fuchs.oms.exception.GlobalExceptionHandler;
 import com.fuchs.oms.exception.ProductNotFoundException;
+import com.fuchs.oms.exception.ReservationNotHeldException;
 import com.fuchs.oms.security.JwtAuthenticationEntryPoint;
 import com.fuchs.oms.security.JwtAuthenticationFilter;
 import com.fuchs.oms.security.JwtTokenProvider;
+import com.fuchs.oms.service.ConflictRetry;
+import com.fuchs.oms.service.IdempotentOrderSubmission;
+import com.fuchs.oms.service.OrderIntake;
 import com.fuchs.oms.service.OrderService;
+import com.fuchs.oms.service.OrderSubmissionService;
+import com.fuchs.oms.service.ReservationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
@@ -20,12 +29,14 @@ import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(OrderController.class)
-@Import({SecurityConfig.class, GlobalExceptionHandler.class, JwtAuthenticationFilter.class, JwtAuthenticationEntryPoint.class})
+@Import({SecurityConfig.class, GlobalExceptionHandler.class, JwtAuthenticationFilter.class, JwtAuthenticationEntryPoint.class,
+    ConflictRetry.class, SimpleMeterRegistry.class})
 class OrderControllerTest {
 
     @Autowired
@@ -37,6 +48,18 @@ class OrderControllerTest {
     @MockitoBean
     private OrderService orderService;
 
+    @MockitoBean
+    private OrderSubmissionService orderSubmissionService;
+
+    @MockitoBean
+    private IdempotentOrderSubmission idempotentOrderSubmission;
+
+    @MockitoBean
+    private OrderIntake orderIntake;
+
+    @MockitoBean
+    private ReservationService reservationService;
+
     @MockitoBean
     private JwtTokenProvider jwtTokenProvider;
 
@@ -48,7 +71,7 @@ class OrderControllerTest {
         OrderResponse response = new OrderResponse(1L, 1L, "Widget", 10, 2L, "Vendor Beta",
             new java.math.BigDecimal("45.00"), new java.math.BigDecimal("450.00"), "ALLOCATED", "2026-01-20T14:30:00");
 
-        when(orderService.createOrder(any(OrderRequest.class))).thenReturn(response);
+        when(orderSubmissionService.submit(any(OrderRequest.class), any())).thenReturn(response);
 
         // When/Then
         mockMvc.perform(post("/api/orders")
@@ -133,7 +156,7 @@ class OrderControllerTest {
         // Given
         OrderRequest request = new OrderRequest(999L, 10);
 
-        when(orderService.createOrder(any(OrderRequest.class)))
+        when(orderSubmissionService.submit(any(OrderRequest.class), any()))
             .thenThrow(new ProductNotFoundException("Product not found: productId=999"));
 
         // When/Then
@@ -151,7 +174,7 @@ class OrderControllerTest {
         OrderResponse response = new OrderResponse(1L, 1L, "Widget", 1000, null, null,
             null, null, "PENDING", "2026-01-20T14:30:00");
 
-        when(orderService.createOrder(any(OrderRequest.class))).thenReturn(response);
+        when(orderSubmissionService.submit(any(OrderRequest.class), any())).thenReturn(response);
 
         // When/Then
         mockMvc.perform(post("/api/orders")
@@ -176,4 +199,68 @@ class OrderControllerTest {
                 .content(requestJson))
             .andExpect(status().isUnauthorized());
     }
+
+    @Test
+    @WithMockUser
+    void reserve_withValidData_returns201AndReservation() throws Exception {
+        // Given
+        ReservationRequest request = new ReservationRequest(1L, 10, 60);
+        ReservationResponse response = new ReservationResponse(7L, 1L, "Widget", 10, 2L, "Vendor Beta",
+            new java.math.BigDecimal("45.00"), "HELD", "2026-01-20T14:31:00");
+
+        when(reservationService.reserve(any(ReservationRequest.class))).thenReturn(response);
+
+        // When/Then
+        mockMvc.perform(post("/api/orders/reservations")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.reservationId").value(7))
+            .andExpect(jsonPath("$.vendorId").value(2))
+            .andExpect(jsonPath("$.status").value("HELD"))
+            .andExpect(jsonPath("$.expiresAt").value("2026-01-20T14:31:00"));
+    }
+
+    @Test
+    @WithMockUser
+    void reserve_withZeroTtl_returns400() throws Exception {
+        // Given
+        String requestJson = """
+            {"productId": 1, "quantity": 10, "ttlSeconds": 0}
+            """;
+
+        // When/Then
+        mockMvc.perform(post("/api/orders/reservations")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(requestJson))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser
+    void confirmReservation_returns201AndOrder() throws Exception {
+        // Given
+        OrderResponse response = new OrderResponse(3L, 1L, "Widget", 10, 2L, "Vendor Beta",
+            new java.math.BigDecimal("45.00"), new java.math.BigDecimal("450.00"), "ALLOCATED", "2026-01-20T14:30:30");
+
+        when(reservationService.confirm(eq(7L))).thenReturn(response);
+
+        // When/Then
+        mockMvc.perform(post("/api/orders/reservations/7/confirm"))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.orderId").value(3))
+            .andExpect(jsonPath("$.status").value("ALLOCATED"));
+    }
+
+    @Test
+    @WithMockUser
+    void confirmReservation_whenExpired_returns409() throws Exception {
+        // Given
+        when(reservationService.confirm(eq(7L))).thenThrow(new ReservationNotHeldException(7L));
+
+        // When/Then
+        mockMvc.perform(post("/api/orders/reservations/7/confirm"))
+            .andExpect(status().isConflict())
+            .andExpect(jsonPath("$.error").value("Reservation is no longer held: reservationId=7"));
+    }
 }
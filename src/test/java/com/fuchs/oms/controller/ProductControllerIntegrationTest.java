@@ -0,0 +1,116 @@
+package com.fuchs.oms.controller;
+
+import com.fuchs.oms.repository.OrderRepository;
+import com.fuchs.oms.repository.VendorProductRepository;
+import com.fuchs.oms.security.JwtTokenProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Sql(scripts = "/data.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class ProductControllerIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private VendorProductRepository vendorProductRepository;
+
+    private String token;
+
+    @BeforeEach
+    void setUp() {
+        token = jwtTokenProvider.generateToken(1L, "vendor-a");
+    }
+
+    @Test
+    void quote_returnsCheapestVendorWithoutTakingStock() throws Exception {
+        mockMvc.perform(get("/api/products/1/quote")
+                .param("quantity", "10")
+                .header("Authorization", "Bearer " + token))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.productId").value(1))
+            .andExpect(jsonPath("$.quantity").value(10))
+            .andExpect(jsonPath("$.vendorId").value(2))
+            .andExpect(jsonPath("$.vendorName").value("Vendor Beta"))
+            .andExpect(jsonPath("$.unitPrice").value(45.00))
+            .andExpect(jsonPath("$.totalPrice").value(450.00));
+
+        assertThat(orderRepository.count()).isZero();
+        assertThat(vendorProductRepository.findByVendorIdAndProductId(2L, 1L).orElseThrow().getStock())
+            .isEqualTo(50);
+    }
+
+    @Test
+    void quote_forMoreThanCheapestVendorHas_quotesNextVendor() throws Exception {
+        mockMvc.perform(get("/api/products/1/quote")
+                .param("quantity", "60")
+                .header("Authorization", "Bearer " + token))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.vendorId").value(1))
+            .andExpect(jsonPath("$.totalPrice").value(3000.00));
+    }
+
+    @Test
+    void quote_reflectsPriceUpdate() throws Exception {
+        mockMvc.perform(put("/api/vendors/1/products/1/price")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                    {"price": 40.00}
+                    """))
+            .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/products/1/quote")
+                .param("quantity", "10")
+                .header("Authorization", "Bearer " + token))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.vendorId").value(1))
+            .andExpect(jsonPath("$.unitPrice").value(40.00));
+    }
+
+    @Test
+    void quote_withNoVendorAbleToCover_returns400() throws Exception {
+        mockMvc.perform(get("/api/products/1/quote")
+                .param("quantity", "1000")
+                .header("Authorization", "Bearer " + token))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error").exists());
+    }
+
+    @Test
+    void quote_forUnknownProduct_returns404() throws Exception {
+        mockMvc.perform(get("/api/products/999/quote")
+                .param("quantity", "1")
+                .header("Authorization", "Bearer " + token))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void quote_withZeroQuantity_returns400() throws Exception {
+        mockMvc.perform(get("/api/products/1/quote")
+                .param("quantity", "0")
+                .header("Authorization", "Bearer " + token))
+            .andExpect(status().isBadRequest());
+    }
+}
@@ -11,6 +11,7 @@ import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.web.servlet.MockMvc;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -478,4 +479,137 @@ class VendorControllerIntegrationTest {
             .andExpect(status().isOk())
             .andExpect(jsonPath("$[0].stock").value(0));  // Vendor C has 0 stock
     }
+
+    @Test
+    void updateCapacity_vendorAtCapacityIsSkippedByAllocation() throws Exception {
+        String vendorToken = jwtTokenProvider.generateToken(2L, "vendor-b");
+
+        mockMvc.perform(put("/api/vendors/2/capacity")
+                .header("Authorization", "Bearer " + vendorToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                    {"hourlyOrderCapacity": 1}
+                    """))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.vendorId").value(2))
+            .andExpect(jsonPath("$.hourlyOrderCapacity").value(1))
+            .andExpect(jsonPath("$.hourlyUnitCapacity").doesNotExist())
+            .andExpect(jsonPath("$.ordersLastHour").value(0));
+
+        String orderJson = """
+            {"productId": 1, "quantity": 5}
+            """;
+        mockMvc.perform(post("/api/orders")
+                .header("Authorization", "Bearer " + vendorToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(orderJson))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.allocatedVendorId").value(2));
+        // Vendor B is still cheapest with stock, but has used its hourly capacity
+        mockMvc.perform(post("/api/orders")
+                .header("Authorization", "Bearer " + vendorToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(orderJson))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.allocatedVendorId").value(1));
+
+        mockMvc.perform(get("/api/vendors/2/capacity")
+                .header("Authorization", "Bearer " + vendorToken))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.ordersLastHour").value(1))
+            .andExpect(jsonPath("$.unitsLastHour").value(5));
+    }
+
+    @Test
+    void updateCapacity_withZeroCapacity_returns400() throws Exception {
+        String token = jwtTokenProvider.generateToken(1L, "vendor-a");
+
+        mockMvc.perform(put("/api/vendors/1/capacity")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                    {"hourlyUnitCapacity": 0}
+                    """))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void updateCapacity_forOtherVendor_returns403() throws Exception {
+        String token = jwtTokenProvider.generateToken(1L, "vendor-a");
+
+        mockMvc.perform(put("/api/vendors/2/capacity")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                    {"hourlyOrderCapacity": 10}
+                    """))
+            .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void updateLocation_ordersWithDeliveryLocationGoToVendorsInRange() throws Exception {
+        // Vendor A ships from Berlin, the cheaper Vendor B from Madrid
+        mockMvc.perform(put("/api/vendors/1/location")
+                .header("Authorization", "Bearer " + jwtTokenProvider.generateToken(1L, "vendor-a"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                    {"latitude": 52.52, "longitude": 13.40}
+                    """))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.vendorId").value(1))
+            .andExpect(jsonPath("$.latitude").value(52.52))
+            .andExpect(jsonPath("$.longitude").value(13.40));
+        String vendorToken = jwtTokenProvider.generateToken(2L, "vendor-b");
+        mockMvc.perform(put("/api/vendors/2/location")
+                .header("Authorization", "Bearer " + vendorToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                    {"latitude": 40.42, "longitude": -3.70}
+                    """))
+            .andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/orders")
+                .header("Authorization", "Bearer " + vendorToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                    {"productId": 1, "quantity": 5, "deliveryLatitude": 52.39, "deliveryLongitude": 13.06}
+                    """))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.allocatedVendorId").value(1));
+        // Without a delivery location the cheapest vendor still wins
+        mockMvc.perform(post("/api/orders")
+                .header("Authorization", "Bearer " + vendorToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                    {"productId": 1, "quantity": 5}
+                    """))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.allocatedVendorId").value(2));
+    }
+
+    @Test
+    void updateLocation_withLatitudeOutOfRange_returns400() throws Exception {
+        String token = jwtTokenProvider.generateToken(1L, "vendor-a");
+
+        mockMvc.perform(put("/api/vendors/1/location")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                    {"latitude": 91.0, "longitude": 13.40}
+                    """))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void updateLocation_forOtherVendor_returns403() throws Exception {
+        String token = jwtTokenProvider.generateToken(1L, "vendor-a");
+
+        mockMvc.perform(put("/api/vendors/2/location")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                    {"latitude": 52.52, "longitude": 13.40}
+                    """))
+            .andExpect(status().isForbidden());
+    }
 }
@@ -8,13 +8,16 @@ import com.fuchs.oms.dto.VendorProductResponse;
 import com.fuchs.oms.exception.ResourceNotFoundException;
 import com.fuchs.oms.exception.VendorAccessDeniedException;
 import com.fuchs.oms.security.VendorUserDetails;
+import com.fuchs.oms.service.ConflictRetry;
 import com.fuchs.oms.service.VendorService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -35,6 +38,9 @@ class VendorControllerTest {
     @Mock
     private VendorService vendorService;
 
+    @Spy
+    private ConflictRetry conflictRetry = new ConflictRetry(new SimpleMeterRegistry(), 1, 0, 0);
+
     @Mock
     private SecurityContext securityContext;
 
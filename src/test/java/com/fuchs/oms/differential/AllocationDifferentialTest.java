@@ -0,0 +1,259 @@
+package com.fuchs.oms.differential;
+
+import com.fuchs.oms.dto.EnrollProductRequest;
+import com.fuchs.oms.dto.OrderRequest;
+import com.fuchs.oms.dto.OrderResponse;
+import com.fuchs.oms.dto.PriceUpdateRequest;
+import com.fuchs.oms.dto.StockUpdateRequest;
+import com.fuchs.oms.exception.NoStockAvailableException;
+import com.fuchs.oms.model.Order;
+import com.fuchs.oms.model.Product;
+import com.fuchs.oms.model.Vendor;
+import com.fuchs.oms.repository.OrderRepository;
+import com.fuchs.oms.repository.ProductRepository;
+import com.fuchs.oms.repository.VendorProductRepository;
+import com.fuchs.oms.repository.VendorRepository;
+import com.fuchs.oms.service.CoalescingOrderEngine;
+import com.fuchs.oms.service.ConflictRetry;
+import com.fuchs.oms.service.OfferBook;
+import com.fuchs.oms.service.OrderBatchWriter;
+import com.fuchs.oms.service.OrderEngine;
+import com.fuchs.oms.service.OrderJournal;
+import com.fuchs.oms.service.OrderService;
+import com.fuchs.oms.service.PrioritizedOrderEngine;
+import com.fuchs.oms.service.ShardedOrderEngine;
+import com.fuchs.oms.service.TransactionalOrderEngine;
+import com.fuchs.oms.service.VendorService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.fail;
+
+/**
+ * Randomized differential test of allocation: generated vendor, stock and price histories with
+ * sequential and concurrent order streams run through the transactional engine (the
+ * {@code AllocationService} + {@code VendorService} path) and through each alternative engine.
+ * Every outcome is checked against {@link Fr12Model}, and each alternative is compared with the
+ * reference run. A failing scenario is shrunk to a minimal reproduction before the test fails.
+ *
+ * Scenarios come from consecutive seeds starting at {@code oms.differential.seed}; reproduce a
+ * failure with {@code -Doms.differential.seed=<seed> -Doms.differential.runs=1}, or explore more
+ * histories with a larger {@code oms.differential.runs}.
+ */
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class AllocationDifferentialTest {
+
+    private static final long FIRST_SEED = Long.getLong("oms.differential.seed", 20_261_017L);
+    private static final int RUNS = Integer.getInteger("oms.differential.runs", 8);
+    private static final int MAX_SHRINK_ATTEMPTS = 300;
+
+    private static final AtomicInteger SCENARIOS = new AtomicInteger();
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private VendorService vendorService;
+
+    @Autowired
+    private ConflictRetry conflictRetry;
+
+    @Autowired
+    private OfferBook offerBook;
+
+    @Autowired
+    private OrderBatchWriter batchWriter;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private VendorRepository vendorRepository;
+
+    @Autowired
+    private VendorProductRepository vendorProductRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderJournal orderJournal;
+
+    @Test
+    void transactionalEngine_followsFr12() throws Exception {
+        differential("transactional", null);
+    }
+
+    @Test
+    void shardedEngine_matchesReference() throws Exception {
+        ShardedOrderEngine engine = new ShardedOrderEngine(
+            offerBook, productRepository, batchWriter, orderJournal, 2, 256, 64, 10_000);
+        engine.start();
+        try {
+            differential("sharded", engine);
+        } finally {
+            engine.stop();
+        }
+    }
+
+    @Test
+    void coalescingEngine_matchesReference() throws Exception {
+        differential("coalescing", new CoalescingOrderEngine(offerBook, productRepository, batchWriter,
+            new SimpleMeterRegistry(), 2, 64, 4));
+    }
+
+    @Test
+    void prioritizedEngine_matchesReference() throws Exception {
+        PrioritizedOrderEngine engine = new PrioritizedOrderEngine(orderService, conflictRetry,
+            new SimpleMeterRegistry(), 4, 1_000, 8, 3, 1, 10_000);
+        engine.start();
+        try {
+            differential("prioritized", engine);
+        } finally {
+            engine.stop();
+        }
+    }
+
+    private void differential(String name, OrderEngine alternative) {
+        for (long seed = FIRST_SEED; seed < FIRST_SEED + RUNS; seed++) {
+            Scenario scenario = Scenario.generate(seed);
+            Optional<String> failure = failure(scenario, alternative);
+            if (failure.isPresent()) {
+                Scenario minimal = Shrinker.shrink(scenario, candidate -> failure(candidate, alternative).isPresent(),
+                    MAX_SHRINK_ATTEMPTS);
+                fail("%s engine failed for seed %d (reproduce with -Doms.differential.seed=%d -Doms.differential.runs=1)"
+                        + "%n  %s%nminimal scenario: %s%n  %s",
+                    name, seed, seed, failure.get(), minimal, failure(minimal, alternative).orElse("(passed on rerun)"));
+            }
+        }
+    }
+
+    private Optional<String> failure(Scenario scenario, OrderEngine alternative) {
+        Outcome reference = run(new TransactionalOrderEngine(orderService, conflictRetry), scenario);
+        Optional<String> referenceFailure = Fr12Model.check(scenario, reference).map(failure -> "reference: " + failure);
+        if (referenceFailure.isPresent() || alternative == null) {
+            return referenceFailure;
+        }
+        Outcome outcome = run(alternative, scenario);
+        return Fr12Model.check(scenario, outcome)
+            .or(() -> Fr12Model.compare(scenario, reference, outcome));
+    }
+
+    /**
+     * Runs a scenario against a fresh product and fresh vendors, so runs never see each other's stock.
+     */
+    private Outcome run(OrderEngine engine, Scenario scenario) {
+        int id = SCENARIOS.incrementAndGet();
+        Product product = new Product();
+        product.setProductCode("differential-" + id);
+        product.setName("Differential " + id);
+        Long productId = productRepository.save(product).getId();
+
+        List<Long> vendorIds = new ArrayList<>();
+        for (int i = 0; i < scenario.vendors().size(); i++) {
+            Vendor vendor = new Vendor();
+            vendor.setUsername("differential-" + id + "-" + i);
+            vendor.setPassword("unused");
+            vendor.setName("Differential Vendor " + i);
+            Long vendorId = vendorRepository.save(vendor).getId();
+            vendorIds.add(vendorId);
+
+            EnrollProductRequest enroll = new EnrollProductRequest();
+            enroll.setProductId(productId);
+            enroll.setPrice(BigDecimal.valueOf(scenario.vendors().get(i).price()));
+            enroll.setStock(scenario.vendors().get(i).stock());
+            vendorService.enrollProduct(vendorId, enroll);
+        }
+
+        List<List<Integer>> allocations = new ArrayList<>();
+        List<int[]> stocks = new ArrayList<>();
+        for (Scenario.Step step : scenario.steps()) {
+            List<Integer> allocated = List.of();
+            if (step instanceof Scenario.Restock restock) {
+                vendorService.updateStock(vendorIds.get(restock.vendor()), productId,
+                    new StockUpdateRequest(restock.stock()));
+            } else if (step instanceof Scenario.Reprice reprice) {
+                vendorService.updatePrice(vendorIds.get(reprice.vendor()), productId,
+                    new PriceUpdateRequest(BigDecimal.valueOf(reprice.price())));
+            } else {
+                allocated = submit(engine, productId, vendorIds, (Scenario.Orders) step);
+            }
+            allocations.add(allocated);
+            stocks.add(vendorIds.stream()
+                .mapToInt(vendorId -> vendorProductRepository.findByVendorIdAndProductId(vendorId, productId)
+                    .orElseThrow().getStock())
+                .toArray());
+        }
+
+        int[] persistedUnits = new int[vendorIds.size()];
+        for (Order order : orderRepository.findAll()) {
+            if (productId.equals(order.getProductId())) {
+                persistedUnits[vendorIds.indexOf(order.getAllocatedVendorId())] += order.getQuantity();
+            }
+        }
+        return new Outcome(allocations, stocks, persistedUnits);
+    }
+
+    private static List<Integer> submit(OrderEngine engine, Long productId, List<Long> vendorIds, Scenario.Orders orders) {
+        if (!orders.concurrent()) {
+            List<Integer> allocated = new ArrayList<>();
+            for (int quantity : orders.quantities()) {
+                allocated.add(vendorIndex(vendorIds, engine.submit(new OrderRequest(productId, quantity))));
+            }
+            return allocated;
+        }
+        // Every order waits at the gate, so they all reach the engine together
+        ExecutorService clients = Executors.newFixedThreadPool(orders.quantities().size());
+        CountDownLatch gate = new CountDownLatch(1);
+        try {
+            List<CompletableFuture<Integer>> results = new ArrayList<>();
+            for (int quantity : orders.quantities()) {
+                results.add(CompletableFuture.supplyAsync(() -> {
+                    awaitGate(gate);
+                    return vendorIndex(vendorIds, engine.submit(new OrderRequest(productId, quantity)));
+                }, clients));
+            }
+            gate.countDown();
+            return results.stream().map(CompletableFuture::join).toList();
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+
+    private static int vendorIndex(List<Long> vendorIds, CompletableFuture<OrderResponse> order) {
+        try {
+            return vendorIds.indexOf(order.get(1, TimeUnit.MINUTES).getAllocatedVendorId());
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof NoStockAvailableException) {
+                return Outcome.REJECTED;
+            }
+            throw new IllegalStateException("Order failed unexpectedly", ex.getCause());
+        } catch (Exception ex) {
+            throw new IllegalStateException("Order did not complete", ex);
+        }
+    }
+
+    private static void awaitGate(CountDownLatch gate) {
+        try {
+            gate.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.fuchs.oms.differential;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Reference model of allocation and the checks an engine's {@link Outcome} must pass.
+ *
+ * Sequential orders must go exactly where FR12 sends them: the lowest price among vendors with
+ * stock >= quantity, then the lowest vendor id. Concurrent orders may be served in any order, so
+ * for them only what holds for every serial order is checked: each vendor's stock went down by
+ * exactly the units allocated to it and never below zero, a rejected order could not have been
+ * covered by any vendor, and no vendor ahead of the chosen one in FR12 order could cover the order
+ * afterwards either (stock only goes down within a batch). The model then continues from the
+ * engine's stock. Units stored as orders must match the allocations.
+ */
+final class Fr12Model {
+
+    private final int[] prices;
+    private final int[] stocks;
+
+    private Fr12Model(Scenario scenario) {
+        prices = scenario.vendors().stream().mapToInt(Scenario.VendorSeed::price).toArray();
+        stocks = scenario.vendors().stream().mapToInt(Scenario.VendorSeed::stock).toArray();
+    }
+
+    /**
+     * @return a description of the first violation, or empty if the outcome is correct
+     */
+    static Optional<String> check(Scenario scenario, Outcome outcome) {
+        Fr12Model model = new Fr12Model(scenario);
+        int[] allocatedUnits = new int[model.stocks.length];
+        for (int i = 0; i < scenario.steps().size(); i++) {
+            Scenario.Step step = scenario.steps().get(i);
+            int[] actualStocks = outcome.stocks().get(i);
+            List<Integer> allocations = outcome.allocations().get(i);
+            String violation = null;
+            if (step instanceof Scenario.Restock restock) {
+                model.stocks[restock.vendor()] = restock.stock();
+            } else if (step instanceof Scenario.Reprice reprice) {
+                model.prices[reprice.vendor()] = reprice.price();
+            } else if (step instanceof Scenario.Orders orders && !orders.concurrent()) {
+                List<Integer> expected = new ArrayList<>();
+                orders.quantities().forEach(quantity -> expected.add(model.allocate(quantity)));
+                if (!expected.equals(allocations)) {
+                    violation = "orders " + orders.quantities() + " went to vendors " + allocations
+                        + ", FR12 sends them to " + expected;
+                }
+            } else if (step instanceof Scenario.Orders orders) {
+                violation = model.checkConcurrent(orders.quantities(), allocations, actualStocks);
+                System.arraycopy(actualStocks, 0, model.stocks, 0, model.stocks.length);
+            }
+            if (violation == null && !Arrays.equals(model.stocks, actualStocks)) {
+                violation = "stock is " + Arrays.toString(actualStocks) + ", expected " + Arrays.toString(model.stocks);
+            }
+            if (violation != null) {
+                return Optional.of("step " + i + ": " + violation);
+            }
+            if (step instanceof Scenario.Orders orders) {
+                for (int j = 0; j < allocations.size(); j++) {
+                    if (allocations.get(j) != Outcome.REJECTED) {
+                        allocatedUnits[allocations.get(j)] += orders.quantities().get(j);
+                    }
+                }
+            }
+        }
+        if (!Arrays.equals(allocatedUnits, outcome.persistedUnits())) {
+            return Optional.of("stored orders hold " + Arrays.toString(outcome.persistedUnits())
+                + " units per vendor, allocations add up to " + Arrays.toString(allocatedUnits));
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Compares an alternative engine with the reference engine directly: allocations and stock
+     * must match up to the first concurrent batch, after which the two may legitimately differ.
+     *
+     * @return a description of the first difference, or empty if there is none
+     */
+    static Optional<String> compare(Scenario scenario, Outcome reference, Outcome alternative) {
+        for (int i = 0; i < scenario.steps().size(); i++) {
+            if (scenario.steps().get(i) instanceof Scenario.Orders orders && orders.concurrent()) {
+                break;
+            }
+            if (!reference.allocations().get(i).equals(alternative.allocations().get(i))) {
+                return Optional.of("step " + i + ": reference allocated " + reference.allocations().get(i)
+                    + ", alternative " + alternative.allocations().get(i));
+            }
+            if (!Arrays.equals(reference.stocks().get(i), alternative.stocks().get(i))) {
+                return Optional.of("step " + i + ": reference left stock " + Arrays.toString(reference.stocks().get(i))
+                    + ", alternative " + Arrays.toString(alternative.stocks().get(i)));
+            }
+        }
+        return Optional.empty();
+    }
+
+    private int allocate(int quantity) {
+        int winner = Outcome.REJECTED;
+        for (int vendor = 0; vendor < stocks.length; vendor++) {
+            if (stocks[vendor] >= quantity && (winner == Outcome.REJECTED || prices[vendor] < prices[winner])) {
+                winner = vendor;
+            }
+        }
+        if (winner != Outcome.REJECTED) {
+            stocks[winner] -= quantity;
+        }
+        return winner;
+    }
+
+    private String checkConcurrent(List<Integer> quantities, List<Integer> allocations, int[] after) {
+        int[] taken = new int[stocks.length];
+        for (int j = 0; j < quantities.size(); j++) {
+            int quantity = quantities.get(j);
+            int vendor = allocations.get(j);
+            if (vendor == Outcome.REJECTED) {
+                for (int other = 0; other < after.length; other++) {
+                    if (after[other] >= quantity) {
+                        return "order of " + quantity + " was rejected but vendor " + other + " still has " + after[other];
+                    }
+                }
+                continue;
+            }
+            taken[vendor] += quantity;
+            for (int other = 0; other < after.length; other++) {
+                boolean ahead = prices[other] < prices[vendor] || (prices[other] == prices[vendor] && other < vendor);
+                if (ahead && after[other] >= quantity) {
+                    return "order of " + quantity + " went to vendor " + vendor + " but vendor " + other
+                        + " is ahead in FR12 order and still has " + after[other];
+                }
+            }
+        }
+        for (int vendor = 0; vendor < stocks.length; vendor++) {
+            if (after[vendor] < 0 || stocks[vendor] - taken[vendor] != after[vendor]) {
+                return "vendor " + vendor + " went from " + stocks[vendor] + " to " + after[vendor]
+                    + " stock while orders took " + taken[vendor];
+            }
+        }
+        return null;
+    }
+}
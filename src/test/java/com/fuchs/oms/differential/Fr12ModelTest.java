@@ -0,0 +1,120 @@
+package com.fuchs.oms.differential;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the harness itself against an in-memory engine, so a bug planted in the engine is
+ * reported and shrunk without a database.
+ */
+class Fr12ModelTest {
+
+    @Test
+    void generate_isDeterministicPerSeed() {
+        assertThat(Scenario.generate(42)).isEqualTo(Scenario.generate(42));
+        assertThat(LongStream.range(0, 20).mapToObj(Scenario::generate).distinct().count()).isGreaterThan(1);
+    }
+
+    @Test
+    void check_acceptsCorrectEngine() {
+        for (long seed = 0; seed < 200; seed++) {
+            Scenario scenario = Scenario.generate(seed);
+            assertThat(Fr12Model.check(scenario, simulate(scenario, false))).as("seed %d", seed).isEmpty();
+        }
+    }
+
+    @Test
+    void check_reportsTieBrokenTowardHighestVendorId() {
+        Scenario scenario = new Scenario(
+            List.of(new Scenario.VendorSeed(10, 5), new Scenario.VendorSeed(10, 5)),
+            List.of(new Scenario.Orders(List.of(1), false)));
+
+        assertThat(Fr12Model.check(scenario, simulate(scenario, true))).isPresent();
+    }
+
+    @Test
+    void check_reportsUnitsStoredWithoutAllocation() {
+        Scenario scenario = new Scenario(
+            List.of(new Scenario.VendorSeed(10, 5)),
+            List.of(new Scenario.Orders(List.of(2), false)));
+        Outcome correct = simulate(scenario, false);
+
+        Outcome overcounted = new Outcome(correct.allocations(), correct.stocks(), new int[] {4});
+
+        assertThat(Fr12Model.check(scenario, overcounted)).get().asString().contains("stored orders");
+    }
+
+    @Test
+    void shrink_reducesFailingScenarioToMinimalReproduction() {
+        Scenario failing = LongStream.range(0, 500)
+            .mapToObj(Scenario::generate)
+            .filter(scenario -> Fr12Model.check(scenario, simulate(scenario, true)).isPresent())
+            .filter(scenario -> scenario.orderCount() > 3)
+            .findFirst()
+            .orElseThrow();
+
+        Scenario minimal = Shrinker.shrink(failing,
+            scenario -> Fr12Model.check(scenario, simulate(scenario, true)).isPresent(), 10_000);
+
+        // Two tied vendors with one unit each and a single order for one unit
+        assertThat(minimal.vendors()).hasSize(2);
+        assertThat(minimal.vendors()).allMatch(vendor -> vendor.stock() == 1);
+        assertThat(minimal.steps()).containsExactly(new Scenario.Orders(List.of(1), false));
+    }
+
+    @Test
+    void compare_ignoresDifferencesAfterConcurrentOrders() {
+        Scenario scenario = new Scenario(
+            List.of(new Scenario.VendorSeed(10, 5), new Scenario.VendorSeed(10, 5)),
+            List.of(new Scenario.Orders(List.of(1), true)));
+
+        Optional<String> difference = Fr12Model.compare(scenario, simulate(scenario, false), simulate(scenario, true));
+
+        assertThat(difference).isEmpty();
+    }
+
+    /**
+     * In-memory engine that serves concurrent orders in submission order, optionally breaking
+     * price ties toward the highest vendor index instead of the lowest.
+     */
+    private static Outcome simulate(Scenario scenario, boolean tieToHighest) {
+        int[] prices = scenario.vendors().stream().mapToInt(Scenario.VendorSeed::price).toArray();
+        int[] stocks = scenario.vendors().stream().mapToInt(Scenario.VendorSeed::stock).toArray();
+        int[] units = new int[stocks.length];
+        List<List<Integer>> allocations = new ArrayList<>();
+        List<int[]> stockHistory = new ArrayList<>();
+        for (Scenario.Step step : scenario.steps()) {
+            List<Integer> allocated = new ArrayList<>();
+            if (step instanceof Scenario.Restock restock) {
+                stocks[restock.vendor()] = restock.stock();
+            } else if (step instanceof Scenario.Reprice reprice) {
+                prices[reprice.vendor()] = reprice.price();
+            } else {
+                for (int quantity : ((Scenario.Orders) step).quantities()) {
+                    int winner = Outcome.REJECTED;
+                    for (int vendor = 0; vendor < stocks.length; vendor++) {
+                        boolean better = winner == Outcome.REJECTED || prices[vendor] < prices[winner]
+                            || (tieToHighest && prices[vendor] == prices[winner]);
+                        if (stocks[vendor] >= quantity && better) {
+                            winner = vendor;
+                        }
+                    }
+                    if (winner != Outcome.REJECTED) {
+                        stocks[winner] -= quantity;
+                        units[winner] += quantity;
+                    }
+                    allocated.add(winner);
+                }
+            }
+            allocations.add(allocated);
+            stockHistory.add(stocks.clone());
+        }
+        return new Outcome(allocations, stockHistory, units);
+    }
+}
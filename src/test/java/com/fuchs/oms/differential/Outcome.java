@@ -0,0 +1,16 @@
+package com.fuchs.oms.differential;
+
+import java.util.List;
+
+/**
+ * What an engine did with a {@link Scenario}, step by step.
+ *
+ * @param allocations per step, the vendor index each order went to (-1 if it was rejected);
+ *                    empty for steps that are not orders
+ * @param stocks per step, every vendor's stock once the step finished
+ * @param persistedUnits per vendor, the units of all orders stored for the product at the end
+ */
+record Outcome(List<List<Integer>> allocations, List<int[]> stocks, int[] persistedUnits) {
+
+    static final int REJECTED = -1;
+}
@@ -0,0 +1,181 @@
+package com.fuchs.oms.differential;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+/**
+ * One randomized allocation history for a single product: the vendors it starts with and the
+ * price changes, restocks and order streams that follow. Vendors are referred to by index, which
+ * is also their id order, so FR12 ties go to the lower index.
+ */
+record Scenario(List<VendorSeed> vendors, List<Step> steps) {
+
+    private static final int MAX_VENDORS = 4;
+    private static final int MAX_STEPS = 8;
+    private static final int MAX_ORDERS_PER_STEP = 8;
+    // Few distinct prices, so ties are common
+    private static final int[] PRICES = {10, 20, 30};
+
+    record VendorSeed(int price, int stock) {}
+
+    sealed interface Step permits Restock, Reprice, Orders {}
+
+    /** Sets a vendor's stock, as a vendor's stock update does. */
+    record Restock(int vendor, int stock) implements Step {}
+
+    record Reprice(int vendor, int price) implements Step {}
+
+    /** Orders submitted one after another, or all at once when {@code concurrent}. */
+    record Orders(List<Integer> quantities, boolean concurrent) implements Step {}
+
+    /**
+     * Generates a scenario; the same seed always gives the same scenario.
+     */
+    static Scenario generate(long seed) {
+        Random random = new Random(seed);
+        int vendorCount = 1 + random.nextInt(MAX_VENDORS);
+        List<VendorSeed> vendors = new ArrayList<>();
+        for (int i = 0; i < vendorCount; i++) {
+            vendors.add(new VendorSeed(PRICES[random.nextInt(PRICES.length)], random.nextInt(30)));
+        }
+        List<Step> steps = new ArrayList<>();
+        int stepCount = 1 + random.nextInt(MAX_STEPS);
+        for (int i = 0; i < stepCount; i++) {
+            int kind = random.nextInt(10);
+            if (kind < 2) {
+                steps.add(new Restock(random.nextInt(vendorCount), random.nextInt(30)));
+            } else if (kind < 3) {
+                steps.add(new Reprice(random.nextInt(vendorCount), PRICES[random.nextInt(PRICES.length)]));
+            } else {
+                List<Integer> quantities = new ArrayList<>();
+                int orders = 1 + random.nextInt(MAX_ORDERS_PER_STEP);
+                for (int j = 0; j < orders; j++) {
+                    quantities.add(1 + random.nextInt(12));
+                }
+                steps.add(new Orders(quantities, random.nextBoolean()));
+            }
+        }
+        return new Scenario(List.copyOf(vendors), List.copyOf(steps));
+    }
+
+    /**
+     * Smaller variants of this scenario, most aggressive first, for {@link Shrinker}.
+     */
+    List<Scenario> shrinkCandidates() {
+        List<Scenario> candidates = new ArrayList<>();
+        for (int i = 0; i < steps.size(); i++) {
+            candidates.add(withSteps(without(steps, i)));
+        }
+        for (int vendor = 0; vendors.size() > 1 && vendor < vendors.size(); vendor++) {
+            candidates.add(withoutVendor(vendor));
+        }
+        for (int i = 0; i < steps.size(); i++) {
+            if (steps.get(i) instanceof Orders orders) {
+                for (int j = 0; orders.quantities().size() > 1 && j < orders.quantities().size(); j++) {
+                    candidates.add(replaceStep(i, new Orders(without(orders.quantities(), j), orders.concurrent())));
+                }
+                if (orders.concurrent()) {
+                    candidates.add(replaceStep(i, new Orders(orders.quantities(), false)));
+                }
+                for (int j = 0; j < orders.quantities().size(); j++) {
+                    for (int smaller : smaller(orders.quantities().get(j), 1)) {
+                        List<Integer> quantities = new ArrayList<>(orders.quantities());
+                        quantities.set(j, smaller);
+                        candidates.add(replaceStep(i, new Orders(List.copyOf(quantities), orders.concurrent())));
+                    }
+                }
+            } else if (steps.get(i) instanceof Restock restock) {
+                for (int smaller : smaller(restock.stock(), 0)) {
+                    candidates.add(replaceStep(i, new Restock(restock.vendor(), smaller)));
+                }
+            }
+        }
+        for (int vendor = 0; vendor < vendors.size(); vendor++) {
+            VendorSeed seed = vendors.get(vendor);
+            for (int smaller : smaller(seed.stock(), 0)) {
+                List<VendorSeed> seeds = new ArrayList<>(vendors);
+                seeds.set(vendor, new VendorSeed(seed.price(), smaller));
+                candidates.add(new Scenario(List.copyOf(seeds), steps));
+            }
+        }
+        return candidates;
+    }
+
+    int orderCount() {
+        return steps.stream().mapToInt(step -> step instanceof Orders orders ? orders.quantities().size() : 0).sum();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder("vendors (index: price/stock):");
+        for (int i = 0; i < vendors.size(); i++) {
+            out.append(' ').append(i).append(": ").append(vendors.get(i).price()).append('/').append(vendors.get(i).stock());
+        }
+        for (Step step : steps) {
+            out.append("\n  ").append(describe(step));
+        }
+        return out.toString();
+    }
+
+    private Scenario withoutVendor(int vendor) {
+        List<Step> remaining = new ArrayList<>();
+        for (Step step : steps) {
+            if (step instanceof Restock restock) {
+                if (restock.vendor() != vendor) {
+                    remaining.add(new Restock(shift(restock.vendor(), vendor), restock.stock()));
+                }
+            } else if (step instanceof Reprice reprice) {
+                if (reprice.vendor() != vendor) {
+                    remaining.add(new Reprice(shift(reprice.vendor(), vendor), reprice.price()));
+                }
+            } else {
+                remaining.add(step);
+            }
+        }
+        return new Scenario(without(vendors, vendor), List.copyOf(remaining));
+    }
+
+    private static String describe(Step step) {
+        if (step instanceof Restock restock) {
+            return "restock vendor " + restock.vendor() + " to " + restock.stock();
+        }
+        if (step instanceof Reprice reprice) {
+            return "reprice vendor " + reprice.vendor() + " to " + reprice.price();
+        }
+        Orders orders = (Orders) step;
+        return (orders.concurrent() ? "concurrent" : "sequential") + " orders "
+            + orders.quantities().stream().map(String::valueOf).collect(Collectors.joining(", "));
+    }
+
+    private Scenario replaceStep(int index, Step step) {
+        List<Step> replaced = new ArrayList<>(steps);
+        replaced.set(index, step);
+        return withSteps(List.copyOf(replaced));
+    }
+
+    private Scenario withSteps(List<Step> newSteps) {
+        return new Scenario(vendors, newSteps);
+    }
+
+    private static int shift(int vendor, int removed) {
+        return vendor > removed ? vendor - 1 : vendor;
+    }
+
+    private static List<Integer> smaller(int value, int floor) {
+        List<Integer> values = new ArrayList<>();
+        for (int candidate : new int[] {floor, value / 2, value - 1}) {
+            if (candidate >= floor && candidate < value && !values.contains(candidate)) {
+                values.add(candidate);
+            }
+        }
+        return values;
+    }
+
+    private static <T> List<T> without(List<T> list, int index) {
+        List<T> copy = new ArrayList<>(list);
+        copy.remove(index);
+        return List.copyOf(copy);
+    }
+}
@@ -0,0 +1,34 @@
+package com.fuchs.oms.differential;
+
+import java.util.function.Predicate;
+
+/**
+ * Reduces a failing {@link Scenario} to a minimal one that still fails: tries the smaller variants
+ * from {@link Scenario#shrinkCandidates()} in turn, moves to the first that still fails, and stops
+ * when none does or the attempt budget is spent.
+ */
+final class Shrinker {
+
+    private Shrinker() {
+    }
+
+    static Scenario shrink(Scenario failing, Predicate<Scenario> fails, int maxAttempts) {
+        Scenario current = failing;
+        int attempts = 0;
+        boolean shrunk = true;
+        while (shrunk && attempts < maxAttempts) {
+            shrunk = false;
+            for (Scenario candidate : current.shrinkCandidates()) {
+                if (attempts++ >= maxAttempts) {
+                    break;
+                }
+                if (fails.test(candidate)) {
+                    current = candidate;
+                    shrunk = true;
+                    break;
+                }
+            }
+        }
+        return current;
+    }
+}
@@ -136,4 +136,47 @@ class OrderRequestTest {
         assertEquals(5L, request.getProductId());
         assertEquals(25, request.getQuantity());
     }
+
+    @Test
+    void deliveryLocation_passesValidation() {
+        // Given
+        OrderRequest request = new OrderRequest(1L, 5);
+        request.setDeliveryLatitude(52.52);
+        request.setDeliveryLongitude(13.40);
+
+        // When
+        Set<ConstraintViolation<OrderRequest>> violations = validator.validate(request);
+
+        // Then
+        assertTrue(violations.isEmpty());
+        assertTrue(request.hasDeliveryLocation());
+    }
+
+    @Test
+    void deliveryLatitudeWithoutLongitude_failsValidation() {
+        // Given
+        OrderRequest request = new OrderRequest(1L, 5);
+        request.setDeliveryLatitude(52.52);
+
+        // When
+        Set<ConstraintViolation<OrderRequest>> violations = validator.validate(request);
+
+        // Then
+        assertFalse(violations.isEmpty());
+        assertFalse(request.hasDeliveryLocation());
+    }
+
+    @Test
+    void deliveryLongitudeOutOfRange_failsValidation() {
+        // Given
+        OrderRequest request = new OrderRequest(1L, 5);
+        request.setDeliveryLatitude(52.52);
+        request.setDeliveryLongitude(181.0);
+
+        // When
+        Set<ConstraintViolation<OrderRequest>> violations = validator.validate(request);
+
+        // Then
+        assertFalse(violations.isEmpty());
+    }
 }
@@ -3,6 +3,7 @@ package com.fuchs.oms.exception;
 import com.fuchs.oms.dto.ErrorResponse;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
@@ -59,4 +60,24 @@ class GlobalExceptionHandlerTest {
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
     }
+
+    @Test
+    void handleConcurrencyFailure_returns409Conflict() {
+        OptimisticLockingFailureException exception = new OptimisticLockingFailureException("stale VendorProduct");
+
+        ResponseEntity<ErrorResponse> response = handler.handleConcurrencyFailure(exception);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(response.getBody().getStatus()).isEqualTo(409);
+    }
+
+    @Test
+    void handleReservationNotHeld_returns409Conflict() {
+        ReservationNotHeldException exception = new ReservationNotHeldException(7L);
+
+        ResponseEntity<ErrorResponse> response = handler.handleReservationNotHeld(exception);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(response.getBody().getError()).isEqualTo("Reservation is no longer held: reservationId=7");
+    }
 }
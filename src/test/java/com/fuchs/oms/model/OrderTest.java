@@ -2,6 +2,7 @@ package com.fuchs.oms.model;
 
 import org.junit.jupiter.api.Test;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -13,20 +14,46 @@ class OrderTest {
         // Given
         Long id = 1L;
         Long productId = 1L;
+        String productCode = "widget-001";
+        String productName = "Widget";
         Integer quantity = 10;
         Long allocatedVendorId = 2L;
-        String status = "ALLOCATED";
+        String vendorName = "Vendor Beta";
+        BigDecimal unitPrice = new BigDecimal("45.00");
+        BigDecimal totalPrice = new BigDecimal("450.00");
+        Long leaseId = 4L;
+        Long submittedBy = 3L;
+        Double deliveryLatitude = 52.52;
+        Double deliveryLongitude = 13.40;
+        boolean intake = false;
+        boolean backorderRequested = true;
+        String status = "REJECTED";
+        String rejectionReason = "No vendor has sufficient stock";
         LocalDateTime createdAt = LocalDateTime.now();
 
         // When
-        Order order = new Order(id, productId, quantity, allocatedVendorId, status, createdAt);
+        Order order = new Order(id, productId, productCode, productName, quantity, allocatedVendorId,
+            vendorName, unitPrice, totalPrice, leaseId, submittedBy, deliveryLatitude, deliveryLongitude,
+            intake, backorderRequested, status, rejectionReason, createdAt);
 
         // Then
         assertEquals(id, order.getId());
         assertEquals(productId, order.getProductId());
+        assertEquals(productCode, order.getProductCode());
+        assertEquals(productName, order.getProductName());
         assertEquals(quantity, order.getQuantity());
         assertEquals(allocatedVendorId, order.getAllocatedVendorId());
+        assertEquals(vendorName, order.getVendorName());
+        assertEquals(unitPrice, order.getUnitPrice());
+        assertEquals(totalPrice, order.getTotalPrice());
+        assertEquals(leaseId, order.getLeaseId());
+        assertEquals(submittedBy, order.getSubmittedBy());
+        assertEquals(deliveryLatitude, order.getDeliveryLatitude());
+        assertEquals(deliveryLongitude, order.getDeliveryLongitude());
+        assertEquals(intake, order.isIntake());
+        assertEquals(backorderRequested, order.isBackorderRequested());
         assertEquals(status, order.getStatus());
+        assertEquals(rejectionReason, order.getRejectionReason());
         assertEquals(createdAt, order.getCreatedAt());
     }
 
@@ -76,6 +76,33 @@ class VendorProductTest {
         );
     }
 
+    @Test
+    void shouldIncrementVersionOnUpdate() {
+        Vendor vendor = new Vendor();
+        vendor.setUsername("versioned-vendor");
+        vendor.setPassword("password");
+        vendor.setName("Versioned Vendor");
+        vendor = entityManager.persistFlushFind(vendor);
+
+        Product product = new Product();
+        product.setProductCode("versioned-product");
+        product.setName("Versioned Product");
+        product = entityManager.persistFlushFind(product);
+
+        VendorProduct vendorProduct = new VendorProduct();
+        vendorProduct.setVendor(vendor);
+        vendorProduct.setProduct(product);
+        vendorProduct.setPrice(new BigDecimal("10.00"));
+        vendorProduct.setStock(5);
+        VendorProduct saved = entityManager.persistFlushFind(vendorProduct);
+        assertThat(saved.getVersion()).isEqualTo(0L);
+
+        saved.setStock(6);
+        entityManager.flush();
+
+        assertThat(saved.getVersion()).isEqualTo(1L);
+    }
+
     @Test
     void shouldMapToVendorProductsTable() {
         VendorProduct vendorProduct = new VendorProduct();
@@ -4,8 +4,11 @@ import com.fuchs.oms.model.Order;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -15,6 +18,9 @@ class OrderRepositoryTest {
     @Autowired
     private OrderRepository orderRepository;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @Test
     void save_persistsOrderWithAllFields() {
         // Given
@@ -144,4 +150,30 @@ class OrderRepositoryTest {
         // Then
         assertEquals("PENDING", saved.getStatus());
     }
+
+    @Test
+    void save_andPlainSqlInserts_drawDistinctIdsFromTheSequence() {
+        // Given - JPA takes a block of ids, then a plain insert draws from the same sequence
+        Set<Long> ids = new HashSet<>();
+        ids.add(orderRepository.saveAndFlush(pendingOrder()).getId());
+        jdbcTemplate.update("INSERT INTO orders (product_id, quantity, status) VALUES (1, 1, 'PENDING')");
+
+        // When
+        for (int i = 0; i < 60; i++) {
+            ids.add(orderRepository.save(pendingOrder()).getId());
+        }
+        orderRepository.flush();
+
+        // Then
+        assertEquals(61, ids.size());
+        assertEquals(62, orderRepository.count());
+    }
+
+    private static Order pendingOrder() {
+        Order order = new Order();
+        order.setProductId(1L);
+        order.setQuantity(1);
+        order.setStatus("PENDING");
+        return order;
+    }
 }
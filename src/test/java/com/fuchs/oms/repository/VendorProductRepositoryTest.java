@@ -131,4 +131,46 @@ class VendorProductRepositoryTest {
         assertThat(found).hasSize(1);
         assertThat(found.get(0).getVendor().getId()).isEqualTo(vendorA.getId());
     }
+
+    @Test
+    void shouldFindAllocationWinnerByLowestVendorIdOnPriceTie() {
+        // Vendor A and Vendor B both at $45 - lower vendor id wins (FR12)
+        VendorProduct vpA = new VendorProduct();
+        vpA.setVendor(vendorA);
+        vpA.setProduct(widget);
+        vpA.setPrice(new BigDecimal("45.00"));
+        vpA.setStock(20);
+        entityManager.persistAndFlush(vpA);
+
+        VendorProduct vpB = new VendorProduct();
+        vpB.setVendor(vendorB);
+        vpB.setProduct(widget);
+        vpB.setPrice(new BigDecimal("45.00"));
+        vpB.setStock(100);
+        entityManager.persistAndFlush(vpB);
+
+        Optional<AllocationCandidate> winner = vendorProductRepository.findAllocationWinner(widget.getId(), 10);
+        Optional<AllocationCandidate> largeWinner = vendorProductRepository.findAllocationWinner(widget.getId(), 30);
+
+        assertThat(winner).isPresent();
+        assertThat(winner.get().vendorId()).isEqualTo(vendorA.getId());
+        // Vendor A cannot cover 30 units, so Vendor B wins
+        assertThat(largeWinner).isPresent();
+        assertThat(largeWinner.get().vendorId()).isEqualTo(vendorB.getId());
+        assertThat(largeWinner.get().stock()).isEqualTo(100);
+    }
+
+    @Test
+    void shouldFindNoAllocationWinnerWhenNoVendorCoversQuantity() {
+        VendorProduct vpA = new VendorProduct();
+        vpA.setVendor(vendorA);
+        vpA.setProduct(widget);
+        vpA.setPrice(new BigDecimal("50.00"));
+        vpA.setStock(5);
+        entityManager.persistAndFlush(vpA);
+
+        Optional<AllocationCandidate> winner = vendorProductRepository.findAllocationWinner(widget.getId(), 6);
+
+        assertThat(winner).isEmpty();
+    }
 }
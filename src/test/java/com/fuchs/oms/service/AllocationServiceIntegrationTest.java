@@ -1,15 +1,24 @@
 package com.fuchs.oms.service;
 
+import com.fuchs.oms.dto.StockUpdateRequest;
 import com.fuchs.oms.model.VendorProduct;
+import com.fuchs.oms.repository.AllocationCandidate;
 import com.fuchs.oms.repository.VendorProductRepository;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.jdbc.Sql;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -32,6 +41,12 @@ class AllocationServiceIntegrationTest {
     @Autowired
     private VendorProductRepository vendorProductRepository;
 
+    @Autowired
+    private VendorService vendorService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     // ==================== FR10: Lowest Price With Stock Tests ====================
 
     @Test
@@ -160,8 +175,69 @@ class AllocationServiceIntegrationTest {
         assertThat(result1.vendorId()).isEqualTo(1L);  // Always Vendor A
     }
 
+    // ==================== Offer Book Consistency Tests ====================
+
+    @Test
+    void allocate_afterStockUpdate_seesRestockedCheaperVendor() {
+        // Given - Offer book is loaded, then Vendor C ($40) is restocked through VendorService
+        allocationService.allocate(1L, 10);
+        vendorService.updateStock(3L, 1L, new StockUpdateRequest(20));
+
+        // When
+        AllocationService.AllocationResult result = allocationService.allocate(1L, 10);
+
+        // Then - Vendor Charlie (ID=3) now wins at $40
+        assertThat(result.success()).isTrue();
+        assertThat(result.vendorId()).isEqualTo(3L);
+    }
+
+    @Test
+    void allocate_afterUnenroll_skipsRemovedVendor() {
+        // Given - Offer book is loaded, then Vendor B unenrolls
+        allocationService.allocate(1L, 10);
+        vendorService.unenrollProduct(2L, 1L);
+
+        // When
+        AllocationService.AllocationResult result = allocationService.allocate(1L, 10);
+
+        // Then - Vendor Alpha (ID=1) is the only vendor left with stock
+        assertThat(result.success()).isTrue();
+        assertThat(result.vendorId()).isEqualTo(1L);
+    }
+
+    @Test
+    void allocate_staleOfferBook_fallsBackToStoreWinner() {
+        // Given - Offer book is loaded, then Vendor C is restocked behind its back
+        allocationService.allocate(1L, 10);
+        jdbcTemplate.update("UPDATE vendor_products SET stock = 500 WHERE vendor_id = 3 AND product_id = 1");
+
+        // When - No offer in the book can cover 200 units
+        AllocationService.AllocationResult result = allocationService.allocate(1L, 200);
+
+        // Then - The database winner query finds Vendor Charlie (ID=3)
+        assertThat(result.success()).isTrue();
+        assertThat(result.vendorId()).isEqualTo(3L);
+        VendorProduct vpC = vendorProductRepository.findByVendorIdAndProductId(3L, 1L).orElseThrow();
+        assertThat(vpC.getStock()).isEqualTo(300);
+    }
+
     // ==================== Query Verification Tests ====================
 
+    @Test
+    void findAllocationWinner_returnsCheapestVendorCoveringQuantity() {
+        // Given - Seed data: Vendor B $45/50, Vendor A $50/100, Vendor C $40/0
+
+        // When
+        Optional<AllocationCandidate> small = vendorProductRepository.findAllocationWinner(1L, 10);
+        Optional<AllocationCandidate> large = vendorProductRepository.findAllocationWinner(1L, 60);
+        Optional<AllocationCandidate> tooLarge = vendorProductRepository.findAllocationWinner(1L, 101);
+
+        // Then - Quantity is filtered in SQL, so only vendors that can cover it are considered
+        assertThat(small).contains(new AllocationCandidate(2L, new BigDecimal("45.00"), 50));
+        assertThat(large).contains(new AllocationCandidate(1L, new BigDecimal("50.00"), 100));
+        assertThat(tooLarge).isEmpty();
+    }
+
     @Test
     void findEligibleVendors_returnsSortedByPriceThenVendorId() {
         // Given - Seed data with varying prices
@@ -228,4 +304,30 @@ class AllocationServiceIntegrationTest {
             .orElseThrow();
         assertThat(vpA.getStock()).isEqualTo(80);
     }
+
+    @Test
+    void allocate_concurrentOrders_fallThroughWithoutOversell() throws Exception {
+        // Given - 150 units across Vendor B (50) and Vendor A (100); 20 orders of 10 units
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Callable<AllocationService.AllocationResult>> orders = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            orders.add(() -> allocationService.allocate(1L, 10));
+        }
+
+        // When
+        int allocated = 0;
+        for (Future<AllocationService.AllocationResult> result : executor.invokeAll(orders)) {
+            if (result.get().success()) {
+                allocated++;
+            }
+        }
+        executor.shutdown();
+
+        // Then - Exactly 15 orders fit and both vendors are drained to zero
+        assertThat(allocated).isEqualTo(15);
+        assertThat(vendorProductRepository.findByVendorIdAndProductIdWithProduct(2L, 1L).orElseThrow().getStock())
+            .isEqualTo(0);
+        assertThat(vendorProductRepository.findByVendorIdAndProductIdWithProduct(1L, 1L).orElseThrow().getStock())
+            .isEqualTo(0);
+    }
 }
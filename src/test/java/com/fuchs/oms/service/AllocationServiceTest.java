@@ -1,13 +1,13 @@
 package com.fuchs.oms.service;
 
-import com.fuchs.oms.model.Product;
 import com.fuchs.oms.model.Vendor;
-import com.fuchs.oms.model.VendorProduct;
+import com.fuchs.oms.repository.OrderRepository;
 import com.fuchs.oms.repository.VendorProductRepository;
+import com.fuchs.oms.repository.VendorRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -15,6 +15,7 @@ import java.math.BigDecimal;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -23,21 +24,47 @@ import static org.mockito.Mockito.*;
 class AllocationServiceTest {
 
     @Mock
-    private VendorProductRepository vendorProductRepository;
+    private OfferBook offerBook;
 
     @Mock
     private VendorService vendorService;
 
-    @InjectMocks
+    @Mock
+    private VendorProductRepository vendorProductRepository;
+
+    @Mock
+    private InventoryLeaseManager inventoryLeaseManager;
+
+    @Mock
+    private VendorRepository vendorRepository;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private VendorLocationIndex vendorLocationIndex;
+
+    @Mock
+    private AllocationShadow allocationShadow;
+
+    private VendorCapacity vendorCapacity;
+
+    private SimpleMeterRegistry meterRegistry;
+
     private AllocationService allocationService;
 
     private Vendor vendorA;
     private Vendor vendorB;
     private Vendor vendorC;
-    private Product product;
 
     @BeforeEach
     void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        vendorCapacity = new VendorCapacity(vendorRepository, orderRepository, meterRegistry);
+        allocationService = new AllocationService(offerBook, vendorService, vendorProductRepository,
+            inventoryLeaseManager, new Fr12AllocationStrategy(), vendorCapacity, vendorLocationIndex,
+            allocationShadow, meterRegistry, AllocationService.LockMode.GUARDED);
+
         vendorA = new Vendor();
         vendorA.setId(1L);
         vendorA.setUsername("vendor-a");
@@ -53,21 +80,18 @@ class AllocationServiceTest {
         vendorC.setUsername("vendor-c");
         vendorC.setName("Vendor Charlie");
 
-        product = new Product();
-        product.setId(1L);
-        product.setProductCode("widget-001");
-        product.setName("Widget");
+        lenient().when(vendorService.tryDecrementStock(anyLong(), anyLong(), anyInt())).thenReturn(true);
     }
 
     @Test
     void allocate_selectsLowestPriceVendorWithSufficientStock() {
         // Given - Vendor B has lowest price ($45) with sufficient stock (50)
-        VendorProduct vpA = createVendorProduct(vendorA, product, new BigDecimal("50.00"), 100);
-        VendorProduct vpB = createVendorProduct(vendorB, product, new BigDecimal("45.00"), 50);
+        OfferBook.Offer vpA = createOffer(vendorA, new BigDecimal("50.00"), 100);
+        OfferBook.Offer vpB = createOffer(vendorB, new BigDecimal("45.00"), 50);
 
         // Already sorted by price ascending
-        List<VendorProduct> candidates = Arrays.asList(vpB, vpA);
-        when(vendorProductRepository.findEligibleVendorsForAllocation(1L, 0))
+        List<OfferBook.Offer> candidates = Arrays.asList(vpB, vpA);
+        when(offerBook.getOffers(1L))
             .thenReturn(candidates);
 
         // When
@@ -76,18 +100,18 @@ class AllocationServiceTest {
         // Then
         assertTrue(result.success());
         assertEquals(2L, result.vendorId());  // Vendor B (lowest price)
-        verify(vendorService).decrementStock(2L, 1L, 10);
+        verify(vendorService).tryDecrementStock(2L, 1L, 10);
     }
 
     @Test
     void allocate_skipsVendorWithInsufficientStock() {
         // Given - Vendor B has lowest price but not enough stock (5), Vendor A has higher price but enough (100)
-        VendorProduct vpA = createVendorProduct(vendorA, product, new BigDecimal("50.00"), 100);
-        VendorProduct vpB = createVendorProduct(vendorB, product, new BigDecimal("45.00"), 5);
+        OfferBook.Offer vpA = createOffer(vendorA, new BigDecimal("50.00"), 100);
+        OfferBook.Offer vpB = createOffer(vendorB, new BigDecimal("45.00"), 5);
 
         // Sorted by price ascending
-        List<VendorProduct> candidates = Arrays.asList(vpB, vpA);
-        when(vendorProductRepository.findEligibleVendorsForAllocation(1L, 0))
+        List<OfferBook.Offer> candidates = Arrays.asList(vpB, vpA);
+        when(offerBook.getOffers(1L))
             .thenReturn(candidates);
 
         // When - order for 10 units, B only has 5
@@ -96,17 +120,17 @@ class AllocationServiceTest {
         // Then
         assertTrue(result.success());
         assertEquals(1L, result.vendorId());  // Vendor A (has enough stock)
-        verify(vendorService).decrementStock(1L, 1L, 10);
+        verify(vendorService).tryDecrementStock(1L, 1L, 10);
     }
 
     @Test
     void allocate_returnsFailureWhenNoVendorHasSufficientStock() {
         // Given - All vendors have insufficient stock
-        VendorProduct vpA = createVendorProduct(vendorA, product, new BigDecimal("50.00"), 50);
-        VendorProduct vpB = createVendorProduct(vendorB, product, new BigDecimal("45.00"), 30);
+        OfferBook.Offer vpA = createOffer(vendorA, new BigDecimal("50.00"), 50);
+        OfferBook.Offer vpB = createOffer(vendorB, new BigDecimal("45.00"), 30);
 
-        List<VendorProduct> candidates = Arrays.asList(vpB, vpA);
-        when(vendorProductRepository.findEligibleVendorsForAllocation(1L, 0))
+        List<OfferBook.Offer> candidates = Arrays.asList(vpB, vpA);
+        when(offerBook.getOffers(1L))
             .thenReturn(candidates);
 
         // When - order for 100 units, no one has enough
@@ -115,13 +139,13 @@ class AllocationServiceTest {
         // Then
         assertFalse(result.success());
         assertNull(result.vendorId());
-        verify(vendorService, never()).decrementStock(anyLong(), anyLong(), anyInt());
+        verify(vendorService, never()).tryDecrementStock(anyLong(), anyLong(), anyInt());
     }
 
     @Test
     void allocate_returnsFailureWhenNoCandidates() {
         // Given - No vendors with stock for this product
-        when(vendorProductRepository.findEligibleVendorsForAllocation(1L, 0))
+        when(offerBook.getOffers(1L))
             .thenReturn(Collections.emptyList());
 
         // When
@@ -130,30 +154,30 @@ class AllocationServiceTest {
         // Then
         assertFalse(result.success());
         assertNull(result.vendorId());
-        verify(vendorService, never()).decrementStock(anyLong(), anyLong(), anyInt());
+        verify(vendorService, never()).tryDecrementStock(anyLong(), anyLong(), anyInt());
     }
 
     @Test
     void allocate_decrementsStockOfWinningVendor() {
         // Given
-        VendorProduct vpB = createVendorProduct(vendorB, product, new BigDecimal("45.00"), 50);
+        OfferBook.Offer vpB = createOffer(vendorB, new BigDecimal("45.00"), 50);
 
-        when(vendorProductRepository.findEligibleVendorsForAllocation(1L, 0))
+        when(offerBook.getOffers(1L))
             .thenReturn(Collections.singletonList(vpB));
 
         // When
         allocationService.allocate(1L, 25);
 
         // Then
-        verify(vendorService).decrementStock(2L, 1L, 25);
+        verify(vendorService).tryDecrementStock(2L, 1L, 25);
     }
 
     @Test
     void allocate_withExactStockAmount_succeeds() {
         // Given - Vendor has exactly the quantity requested
-        VendorProduct vpB = createVendorProduct(vendorB, product, new BigDecimal("45.00"), 10);
+        OfferBook.Offer vpB = createOffer(vendorB, new BigDecimal("45.00"), 10);
 
-        when(vendorProductRepository.findEligibleVendorsForAllocation(1L, 0))
+        when(offerBook.getOffers(1L))
             .thenReturn(Collections.singletonList(vpB));
 
         // When - order for exactly 10 units
@@ -162,20 +186,20 @@ class AllocationServiceTest {
         // Then
         assertTrue(result.success());
         assertEquals(2L, result.vendorId());
-        verify(vendorService).decrementStock(2L, 1L, 10);
+        verify(vendorService).tryDecrementStock(2L, 1L, 10);
     }
 
     @Test
-    void allocate_queriesRepositoryWithCorrectParameters() {
+    void allocate_readsOffersForRequestedProduct() {
         // Given
-        when(vendorProductRepository.findEligibleVendorsForAllocation(5L, 0))
+        when(offerBook.getOffers(5L))
             .thenReturn(Collections.emptyList());
 
         // When
         allocationService.allocate(5L, 10);
 
         // Then
-        verify(vendorProductRepository).findEligibleVendorsForAllocation(5L, 0);
+        verify(offerBook).getOffers(5L);
     }
 
     // ==================== FR12: Same-Price Deterministic Ordering Tests ====================
@@ -183,13 +207,13 @@ class AllocationServiceTest {
     @Test
     void allocate_withSamePriceVendors_selectsFirstVendorDeterministically() {
         // Given - Two vendors with same price ($45), both with sufficient stock
-        // Repository returns sorted by price ASC, then vendor_id ASC (FR12 compliance)
-        VendorProduct vpA = createVendorProduct(vendorA, product, new BigDecimal("45.00"), 50);
-        VendorProduct vpB = createVendorProduct(vendorB, product, new BigDecimal("45.00"), 50);
+        // Offer book returns sorted by price ASC, then vendor_id ASC (FR12 compliance)
+        OfferBook.Offer vpA = createOffer(vendorA, new BigDecimal("45.00"), 50);
+        OfferBook.Offer vpB = createOffer(vendorB, new BigDecimal("45.00"), 50);
 
         // Vendor A (ID=1) should come first due to deterministic ordering by vendor_id
-        List<VendorProduct> candidates = Arrays.asList(vpA, vpB);
-        when(vendorProductRepository.findEligibleVendorsForAllocation(1L, 0))
+        List<OfferBook.Offer> candidates = Arrays.asList(vpA, vpB);
+        when(offerBook.getOffers(1L))
             .thenReturn(candidates);
 
         // When
@@ -198,7 +222,7 @@ class AllocationServiceTest {
         // Then - Lower vendor ID wins deterministically (FR12)
         assertTrue(result.success());
         assertEquals(1L, result.vendorId());  // Vendor A wins (lower ID at same price)
-        verify(vendorService).decrementStock(1L, 1L, 10);
+        verify(vendorService).tryDecrementStock(1L, 1L, 10);
     }
 
     @Test
@@ -207,13 +231,13 @@ class AllocationServiceTest {
         // - Vendor A: has insufficient stock (5)
         // - Vendor B: has sufficient stock (50)
         // - Vendor C: has sufficient stock (50)
-        VendorProduct vpA = createVendorProduct(vendorA, product, new BigDecimal("45.00"), 5);
-        VendorProduct vpB = createVendorProduct(vendorB, product, new BigDecimal("45.00"), 50);
-        VendorProduct vpC = createVendorProduct(vendorC, product, new BigDecimal("45.00"), 50);
+        OfferBook.Offer vpA = createOffer(vendorA, new BigDecimal("45.00"), 5);
+        OfferBook.Offer vpB = createOffer(vendorB, new BigDecimal("45.00"), 50);
+        OfferBook.Offer vpC = createOffer(vendorC, new BigDecimal("45.00"), 50);
 
         // Sorted by price ASC, then vendor_id ASC
-        List<VendorProduct> candidates = Arrays.asList(vpA, vpB, vpC);
-        when(vendorProductRepository.findEligibleVendorsForAllocation(1L, 0))
+        List<OfferBook.Offer> candidates = Arrays.asList(vpA, vpB, vpC);
+        when(offerBook.getOffers(1L))
             .thenReturn(candidates);
 
         // When - order for 10 units, A only has 5
@@ -222,17 +246,17 @@ class AllocationServiceTest {
         // Then - Vendor B wins (first with sufficient stock at same price)
         assertTrue(result.success());
         assertEquals(2L, result.vendorId());  // Vendor B wins (first with enough stock)
-        verify(vendorService).decrementStock(2L, 1L, 10);
+        verify(vendorService).tryDecrementStock(2L, 1L, 10);
     }
 
     @Test
     void allocate_withSamePriceVendors_multipleRoundsRemainDeterministic() {
         // Given - Two vendors with same price, verify determinism across multiple calls
-        VendorProduct vpA = createVendorProduct(vendorA, product, new BigDecimal("45.00"), 100);
-        VendorProduct vpB = createVendorProduct(vendorB, product, new BigDecimal("45.00"), 100);
+        OfferBook.Offer vpA = createOffer(vendorA, new BigDecimal("45.00"), 100);
+        OfferBook.Offer vpB = createOffer(vendorB, new BigDecimal("45.00"), 100);
 
-        List<VendorProduct> candidates = Arrays.asList(vpA, vpB);
-        when(vendorProductRepository.findEligibleVendorsForAllocation(1L, 0))
+        List<OfferBook.Offer> candidates = Arrays.asList(vpA, vpB);
+        when(offerBook.getOffers(1L))
             .thenReturn(candidates);
 
         // When - Multiple allocation attempts
@@ -249,11 +273,11 @@ class AllocationServiceTest {
     @Test
     void allocate_withLargeQuantityExceedingAllStock_returnsFailure() {
         // Given - Order quantity exceeds all vendors' stock
-        VendorProduct vpA = createVendorProduct(vendorA, product, new BigDecimal("50.00"), 100);
-        VendorProduct vpB = createVendorProduct(vendorB, product, new BigDecimal("45.00"), 50);
+        OfferBook.Offer vpA = createOffer(vendorA, new BigDecimal("50.00"), 100);
+        OfferBook.Offer vpB = createOffer(vendorB, new BigDecimal("45.00"), 50);
 
-        List<VendorProduct> candidates = Arrays.asList(vpB, vpA);
-        when(vendorProductRepository.findEligibleVendorsForAllocation(1L, 0))
+        List<OfferBook.Offer> candidates = Arrays.asList(vpB, vpA);
+        when(offerBook.getOffers(1L))
             .thenReturn(candidates);
 
         // When - order for 200 units, max available is 100
@@ -262,15 +286,253 @@ class AllocationServiceTest {
         // Then - Allocation fails
         assertFalse(result.success());
         assertNull(result.vendorId());
-        verify(vendorService, never()).decrementStock(anyLong(), anyLong(), anyInt());
+        verify(vendorService, never()).tryDecrementStock(anyLong(), anyLong(), anyInt());
+    }
+
+    // ==================== Lost Race Fall-Through Tests ====================
+
+    @Test
+    void allocate_whenCheapestLosesRace_fallsThroughToNextCandidate() {
+        // Given - Vendor B is cheapest but its guarded decrement affects no rows
+        OfferBook.Offer vpA = createOffer(vendorA, new BigDecimal("50.00"), 100);
+        OfferBook.Offer vpB = createOffer(vendorB, new BigDecimal("45.00"), 50);
+
+        when(offerBook.getOffers(1L)).thenReturn(Arrays.asList(vpB, vpA));
+        when(vendorService.tryDecrementStock(2L, 1L, 10)).thenReturn(false);
+
+        // When
+        AllocationService.AllocationResult result = allocationService.allocate(1L, 10);
+
+        // Then - Vendor A takes the order in the same call
+        assertTrue(result.success());
+        assertEquals(1L, result.vendorId());
+        verify(vendorService).tryDecrementStock(2L, 1L, 10);
+        verify(vendorService).tryDecrementStock(1L, 1L, 10);
+    }
+
+    @Test
+    void allocate_whenEveryCandidateLosesRace_returnsFailure() {
+        // Given - Both vendors look eligible but lose their guarded decrements
+        OfferBook.Offer vpA = createOffer(vendorA, new BigDecimal("50.00"), 100);
+        OfferBook.Offer vpB = createOffer(vendorB, new BigDecimal("45.00"), 50);
+
+        when(offerBook.getOffers(1L)).thenReturn(Arrays.asList(vpB, vpA));
+        when(vendorService.tryDecrementStock(anyLong(), eq(1L), eq(10))).thenReturn(false);
+
+        // When
+        AllocationService.AllocationResult result = allocationService.allocate(1L, 10);
+
+        // Then
+        assertFalse(result.success());
+        assertNull(result.vendorId());
+    }
+
+    // ==================== SKIP LOCKED Mode Tests ====================
+
+    @Test
+    void allocate_skipLockedMode_divertsPastLockedCheapestRow() {
+        // Given - Vendor B is cheapest but its row is locked by another order
+        useSkipLockedMode();
+        OfferBook.Offer vpA = createOffer(vendorA, new BigDecimal("50.00"), 100);
+        OfferBook.Offer vpB = createOffer(vendorB, new BigDecimal("45.00"), 50);
+
+        when(offerBook.getOffers(1L)).thenReturn(Arrays.asList(vpB, vpA));
+        when(vendorProductRepository.lockForAllocationSkipLocked(2L, 1L, 10)).thenReturn(Optional.empty());
+        when(vendorProductRepository.lockForAllocationSkipLocked(1L, 1L, 10)).thenReturn(Optional.of(100));
+
+        // When
+        AllocationService.AllocationResult result = allocationService.allocate(1L, 10);
+
+        // Then - Vendor A takes the order and the diversion is counted
+        assertTrue(result.success());
+        assertEquals(1L, result.vendorId());
+        verify(vendorService, never()).tryDecrementStock(2L, 1L, 10);
+        assertEquals(1.0, meterRegistry.counter("oms.allocation.skip-locked.diversions").count());
+    }
+
+    @Test
+    void allocate_skipLockedMode_unlockedCheapestRowIsNotADiversion() {
+        // Given
+        useSkipLockedMode();
+        OfferBook.Offer vpB = createOffer(vendorB, new BigDecimal("45.00"), 50);
+
+        when(offerBook.getOffers(1L)).thenReturn(Collections.singletonList(vpB));
+        when(vendorProductRepository.lockForAllocationSkipLocked(2L, 1L, 10)).thenReturn(Optional.of(50));
+
+        // When
+        AllocationService.AllocationResult result = allocationService.allocate(1L, 10);
+
+        // Then
+        assertTrue(result.success());
+        assertEquals(2L, result.vendorId());
+        assertEquals(0.0, meterRegistry.counter("oms.allocation.skip-locked.diversions").count());
+    }
+
+    @Test
+    void allocate_guardedMode_neverTakesRowLocks() {
+        // Given
+        OfferBook.Offer vpB = createOffer(vendorB, new BigDecimal("45.00"), 50);
+        when(offerBook.getOffers(1L)).thenReturn(Collections.singletonList(vpB));
+
+        // When
+        allocationService.allocate(1L, 10);
+
+        // Then
+        verify(vendorProductRepository, never()).lockForAllocationSkipLocked(anyLong(), anyLong(), anyInt());
     }
 
-    private VendorProduct createVendorProduct(Vendor vendor, Product product, BigDecimal price, int stock) {
-        VendorProduct vp = new VendorProduct();
-        vp.setVendor(vendor);
-        vp.setProduct(product);
-        vp.setPrice(price);
-        vp.setStock(stock);
-        return vp;
+    @Test
+    void allocate_skipsVendorAtHourlyCapacity() {
+        // Given - Vendor B ($45) may take one order per hour
+        vendorCapacity.updateLimits(2L, 1, null);
+        OfferBook.Offer vpA = createOffer(vendorA, new BigDecimal("50.00"), 100);
+        OfferBook.Offer vpB = createOffer(vendorB, new BigDecimal("45.00"), 50);
+        when(offerBook.getOffers(1L)).thenReturn(Arrays.asList(vpB, vpA));
+
+        // When
+        AllocationService.AllocationResult first = allocationService.allocate(1L, 10);
+        AllocationService.AllocationResult second = allocationService.allocate(1L, 10);
+
+        // Then - the second order goes to the next cheapest vendor
+        assertEquals(2L, first.vendorId());
+        assertEquals(1L, second.vendorId());
+        assertEquals(1.0, meterRegistry.get("oms.allocation.capacity-skips").counter().count());
+        verify(vendorProductRepository, never()).findAllocationWinner(anyLong(), anyInt());
+    }
+
+    @Test
+    void allocate_lostRace_givesCapacityBack() {
+        // Given - Vendor B may take one order per hour, but loses the first race for its stock
+        vendorCapacity.updateLimits(2L, 1, null);
+        OfferBook.Offer vpA = createOffer(vendorA, new BigDecimal("50.00"), 100);
+        OfferBook.Offer vpB = createOffer(vendorB, new BigDecimal("45.00"), 50);
+        when(offerBook.getOffers(1L)).thenReturn(Arrays.asList(vpB, vpA));
+        when(vendorService.tryDecrementStock(2L, 1L, 10)).thenReturn(false, true);
+
+        // When
+        AllocationService.AllocationResult first = allocationService.allocate(1L, 10);
+        AllocationService.AllocationResult second = allocationService.allocate(1L, 10);
+
+        // Then - the failed claim did not use up Vendor B's capacity
+        assertEquals(1L, first.vendorId());
+        assertEquals(2L, second.vendorId());
+        assertEquals(1, vendorCapacity.ordersInWindow(2L));
+    }
+
+    @Test
+    void allocate_withDeliveryLocation_usesDistanceRanking() {
+        // Given - the index ranks the nearby Vendor A ahead of the cheaper Vendor B
+        GeoPoint deliveryTo = new GeoPoint(52.52, 13.40);
+        OfferBook.Offer vpA = createOffer(vendorA, new BigDecimal("50.00"), 100);
+        OfferBook.Offer vpB = createOffer(vendorB, new BigDecimal("45.00"), 50);
+        when(vendorLocationIndex.rank(1L, 10, deliveryTo)).thenReturn(Arrays.asList(vpA, vpB));
+        when(vendorService.tryDecrementStock(1L, 1L, 10)).thenReturn(true);
+
+        // When
+        AllocationService.AllocationResult result = allocationService.allocate(1L, 10, deliveryTo);
+
+        // Then
+        assertEquals(1L, result.vendorId());
+        verify(offerBook, never()).getOffers(anyLong());
+    }
+
+    @Test
+    void allocate_withDeliveryLocation_noVendorInRange_doesNotFallBackToStore() {
+        // Given
+        GeoPoint deliveryTo = new GeoPoint(-33.87, 151.21);
+        when(vendorLocationIndex.rank(1L, 10, deliveryTo)).thenReturn(List.of());
+
+        // When
+        AllocationService.AllocationResult result = allocationService.allocate(1L, 10, deliveryTo);
+
+        // Then
+        assertFalse(result.success());
+        verify(vendorProductRepository, never()).findAllocationWinner(anyLong(), anyInt());
+    }
+
+    @Test
+    void quote_picksFr12WinnerWithoutTakingStock() {
+        // Given - Vendor B is cheapest but cannot cover 60 units
+        OfferBook.Offer vpA = createOffer(vendorA, new BigDecimal("50.00"), 100);
+        OfferBook.Offer vpB = createOffer(vendorB, new BigDecimal("45.00"), 50);
+        when(offerBook.getOffers(1L)).thenReturn(Arrays.asList(vpB, vpA));
+
+        // When
+        OfferBook.Offer quoted = allocationService.quote(1L, 60, null);
+
+        // Then
+        assertEquals(vpA, quoted);
+        verify(vendorService, never()).tryDecrementStock(anyLong(), anyLong(), anyInt());
+        verifyNoInteractions(vendorProductRepository);
+    }
+
+    @Test
+    void quote_skipsVendorAtCapacityWithoutClaimingOrCounting() {
+        // Given - Vendor B ($45) has no hourly capacity left
+        vendorCapacity.updateLimits(2L, 0, null);
+        OfferBook.Offer vpA = createOffer(vendorA, new BigDecimal("50.00"), 100);
+        OfferBook.Offer vpB = createOffer(vendorB, new BigDecimal("45.00"), 50);
+        when(offerBook.getOffers(1L)).thenReturn(Arrays.asList(vpB, vpA));
+
+        // When
+        OfferBook.Offer quoted = allocationService.quote(1L, 10, null);
+
+        // Then
+        assertEquals(1L, quoted.vendorId());
+        assertEquals(0.0, meterRegistry.get("oms.allocation.capacity-skips").counter().count());
+        assertEquals(0, vendorCapacity.ordersInWindow(1L));
+    }
+
+    @Test
+    void quote_returnsNullWhenNoVendorCanCover() {
+        // Given
+        when(offerBook.getOffers(1L)).thenReturn(List.of(createOffer(vendorB, new BigDecimal("45.00"), 5)));
+
+        // When / Then
+        assertNull(allocationService.quote(1L, 10, null));
+    }
+
+    @Test
+    void allocate_withShadowEnabled_handsOffersAndResultToShadow() {
+        // Given
+        List<OfferBook.Offer> offers = List.of(createOffer(vendorB, new BigDecimal("45.00"), 50));
+        when(offerBook.getOffers(1L)).thenReturn(offers);
+        when(allocationShadow.isEnabled()).thenReturn(true);
+
+        // When
+        AllocationService.AllocationResult result = allocationService.allocate(1L, 10);
+
+        // Then
+        verify(allocationShadow).observe(eq(1L), eq(10), same(offers), eq(false), eq(result), anyLong());
+    }
+
+    private void useSkipLockedMode() {
+        allocationService = new AllocationService(offerBook, vendorService, vendorProductRepository,
+            inventoryLeaseManager, new Fr12AllocationStrategy(), vendorCapacity, vendorLocationIndex,
+            allocationShadow, meterRegistry, AllocationService.LockMode.SKIP_LOCKED);
+    }
+
+    private OfferBook.Offer createOffer(Vendor vendor, BigDecimal price, int stock) {
+        return new OfferBook.Offer(vendor.getId(), vendor.getName(), price, stock);
+    }
+
+    @Test
+    void allocate_inLeasedMode_delegatesToLeaseManager() {
+        // Given
+        allocationService = new AllocationService(offerBook, vendorService, vendorProductRepository,
+            inventoryLeaseManager, new Fr12AllocationStrategy(), vendorCapacity, vendorLocationIndex,
+            allocationShadow, meterRegistry, AllocationService.LockMode.LEASED);
+        List<OfferBook.Offer> offers = List.of(createOffer(vendorB, new BigDecimal("45.00"), 50));
+        when(offerBook.getOffers(1L)).thenReturn(offers);
+        when(inventoryLeaseManager.allocate(1L, 10, offers))
+            .thenReturn(new AllocationService.AllocationResult(2L, true, 5L));
+
+        // When
+        AllocationService.AllocationResult result = allocationService.allocate(1L, 10);
+
+        // Then
+        assertEquals(2L, result.vendorId());
+        assertEquals(5L, result.leaseId());
+        verify(vendorService, never()).tryDecrementStock(anyLong(), anyLong(), anyInt());
     }
 }
@@ -0,0 +1,142 @@
+package com.fuchs.oms.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AllocationShadowTest {
+
+    private static final OfferBook.Offer ALPHA = new OfferBook.Offer(1L, "Vendor Alpha", new BigDecimal("45.00"), 100);
+    private static final OfferBook.Offer BETA = new OfferBook.Offer(2L, "Vendor Beta", new BigDecimal("45.00"), 100);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private AllocationShadow shadow;
+
+    @AfterEach
+    void tearDown() {
+        if (shadow != null) {
+            shadow.stop();
+        }
+    }
+
+    @Test
+    void observe_whenCandidateAgrees_countsWithoutRecording() throws Exception {
+        shadow = start("fr12", 10);
+
+        shadow.observe(1L, 5, List.of(ALPHA, BETA), false, allocatedTo(1L), 1_000_000);
+
+        await(() -> shadow.summary().agreements() == 1, Duration.ofSeconds(5));
+        assertThat(shadow.recentDisagreements()).isEmpty();
+        assertThat(meterRegistry.get("oms.allocation.shadow.latency").tag("engine", "actual").timer().count())
+            .isEqualTo(1);
+    }
+
+    @Test
+    void observe_whenCandidateDisagrees_recordsBothChoices() throws Exception {
+        shadow = start("fr12", 10);
+
+        shadow.observe(1L, 5, List.of(ALPHA, BETA), false, allocatedTo(2L), 2_000_000);
+
+        await(() -> shadow.summary().disagreements() == 1, Duration.ofSeconds(5));
+        AllocationShadow.Disagreement disagreement = shadow.recentDisagreements().get(0);
+        assertThat(disagreement.productId()).isEqualTo(1L);
+        assertThat(disagreement.actualVendorId()).isEqualTo(2L);
+        assertThat(disagreement.candidateVendorId()).isEqualTo(1L);
+        assertThat(disagreement.actualMicros()).isEqualTo(2_000);
+    }
+
+    @Test
+    void observe_candidateSkipsOffersThatCannotCover() throws Exception {
+        shadow = start("fr12", 10);
+        OfferBook.Offer lowAlpha = new OfferBook.Offer(1L, "Vendor Alpha", new BigDecimal("45.00"), 3);
+
+        shadow.observe(1L, 5, List.of(lowAlpha, BETA), false, allocatedTo(2L), 1_000);
+        shadow.observe(1L, 500, List.of(lowAlpha, BETA), false, new AllocationService.AllocationResult(null, false), 1_000);
+
+        await(() -> shadow.summary().agreements() == 2, Duration.ofSeconds(5));
+        assertThat(shadow.recentDisagreements()).isEmpty();
+    }
+
+    @Test
+    void observe_spreadTiesCandidate_disagreesWithFr12OnTiedPrices() throws Exception {
+        shadow = start("spread-ties", 10);
+
+        for (int i = 0; i < 4; i++) {
+            shadow.observe(1L, 5, List.of(ALPHA, BETA), false, allocatedTo(1L), 1_000);
+        }
+
+        await(() -> shadow.summary().agreements() + shadow.summary().disagreements() == 4, Duration.ofSeconds(5));
+        assertThat(shadow.summary().disagreements()).isEqualTo(2);
+    }
+
+    @Test
+    void observe_keepsOnlyMostRecentDisagreements() throws Exception {
+        shadow = start("fr12", 2);
+
+        for (long productId = 1; productId <= 3; productId++) {
+            shadow.observe(productId, 5, List.of(ALPHA, BETA), false, allocatedTo(2L), 1_000);
+        }
+
+        await(() -> shadow.summary().disagreements() == 3, Duration.ofSeconds(5));
+        assertThat(shadow.recentDisagreements())
+            .extracting(AllocationShadow.Disagreement::productId)
+            .containsExactly(3L, 2L);
+    }
+
+    @Test
+    void observe_failingComparison_doesNotStopLaterOnes() throws Exception {
+        shadow = start("fr12", 10);
+
+        shadow.observe(1L, 5, null, false, allocatedTo(1L), 1_000);
+        shadow.observe(1L, 5, List.of(ALPHA), false, allocatedTo(1L), 1_000);
+
+        await(() -> shadow.summary().agreements() == 1, Duration.ofSeconds(5));
+    }
+
+    @Test
+    void observe_withCandidateNone_isDisabled() {
+        shadow = start("none", 10);
+
+        shadow.observe(1L, 5, List.of(ALPHA), false, allocatedTo(2L), 1_000);
+
+        assertThat(shadow.isEnabled()).isFalse();
+        assertThat(shadow.isRunning()).isFalse();
+        assertThat(shadow.summary().disagreements()).isZero();
+    }
+
+    @Test
+    void constructor_withUnknownCandidate_throws() {
+        assertThatThrownBy(() -> new AllocationShadow(meterRegistry, "fastest", 10, 10))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private AllocationShadow start(String candidate, int bufferSize) {
+        AllocationShadow started = new AllocationShadow(meterRegistry, candidate, bufferSize, 100);
+        started.start();
+        return started;
+    }
+
+    private static AllocationService.AllocationResult allocatedTo(Long vendorId) {
+        return new AllocationService.AllocationResult(vendorId, true);
+    }
+
+    private static void await(BooleanSupplier condition, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (condition.getAsBoolean()) {
+                return;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("Condition not met within " + timeout);
+    }
+}
@@ -0,0 +1,138 @@
+package com.fuchs.oms.service;
+
+import com.fuchs.oms.dto.OrderRequest;
+import com.fuchs.oms.dto.OrderResponse;
+import com.fuchs.oms.dto.StockUpdateRequest;
+import com.fuchs.oms.exception.NoStockAvailableException;
+import com.fuchs.oms.model.Order;
+import com.fuchs.oms.repository.OrderRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Backorders: queued as PENDING when no vendor has stock and allocated in FIFO order on restock.
+ */
+@SpringBootTest(properties = "oms.orders.backorders.max-per-product=3")
+@Sql(scripts = "/data.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class BackorderIntegrationTest {
+
+    @Autowired
+    private OrderSubmissionService orderSubmissionService;
+
+    @Autowired
+    private VendorService vendorService;
+
+    @Autowired
+    private BackorderQueue backorderQueue;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void backorder_isAllocatedWhenStockArrives() throws InterruptedException {
+        // Given - no vendor has 200 units
+        OrderResponse pending = orderSubmissionService.submit(backorder(200), 3L);
+        assertThat(pending.getStatus()).isEqualTo(Order.PENDING);
+        assertThat(pending.getAllocatedVendorId()).isNull();
+
+        // When - Vendor C ($40) restocks
+        vendorService.updateStock(3L, 1L, new StockUpdateRequest(250));
+
+        // Then
+        await(() -> Order.ALLOCATED.equals(statusOf(pending.getOrderId())), Duration.ofSeconds(5));
+        Order filled = orderRepository.findById(pending.getOrderId()).orElseThrow();
+        assertThat(filled.getAllocatedVendorId()).isEqualTo(3L);
+        assertThat(filled.getSubmittedBy()).isEqualTo(3L);
+        assertThat(stockOf(3L)).isEqualTo(50);
+    }
+
+    @Test
+    void backorders_areFilledInSubmissionOrder() throws InterruptedException {
+        // Given - a large backorder ahead of a small one that current stock could cover
+        OrderResponse large = orderSubmissionService.submit(backorder(150), 1L);
+        OrderResponse small = orderSubmissionService.submit(backorder(10), 1L);
+        assertThat(small.getStatus()).isEqualTo(Order.PENDING);
+
+        // When - a restock too small for the head of the queue
+        vendorService.updateStock(3L, 1L, new StockUpdateRequest(100));
+        Thread.sleep(200);
+
+        // Then - the small order does not overtake the large one
+        assertThat(statusOf(large.getOrderId())).isEqualTo(Order.PENDING);
+        assertThat(statusOf(small.getOrderId())).isEqualTo(Order.PENDING);
+
+        // When - enough stock for both
+        vendorService.updateStock(3L, 1L, new StockUpdateRequest(160));
+
+        // Then
+        await(() -> Order.ALLOCATED.equals(statusOf(small.getOrderId())), Duration.ofSeconds(5));
+        assertThat(statusOf(large.getOrderId())).isEqualTo(Order.ALLOCATED);
+        assertThat(stockOf(3L)).isZero();
+    }
+
+    @Test
+    void backorder_whenQueueIsFull_isRejected() {
+        for (int i = 0; i < 3; i++) {
+            orderSubmissionService.submit(backorder(200), 1L);
+        }
+
+        assertThatThrownBy(() -> orderSubmissionService.submit(backorder(200), 1L))
+            .isInstanceOf(NoStockAvailableException.class);
+        assertThat(orderRepository.count()).isEqualTo(3);
+    }
+
+    @Test
+    void reload_restoresQueueFromPendingOrders() throws InterruptedException {
+        // Given - a PENDING order left by a previous run
+        jdbcTemplate.update("INSERT INTO orders (product_id, quantity, status, created_at) VALUES (1, 120, 'PENDING', CURRENT_TIMESTAMP)");
+        Long orderId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM orders", Long.class);
+
+        // When - as on startup
+        backorderQueue.reload();
+        vendorService.updateStock(1L, 1L, new StockUpdateRequest(500));
+
+        // Then
+        await(() -> Order.ALLOCATED.equals(statusOf(orderId)), Duration.ofSeconds(5));
+        assertThat(orderRepository.findById(orderId).orElseThrow().getAllocatedVendorId()).isEqualTo(1L);
+    }
+
+    private static OrderRequest backorder(int quantity) {
+        OrderRequest request = new OrderRequest(1L, quantity);
+        request.setBackorder(true);
+        return request;
+    }
+
+    private String statusOf(Long orderId) {
+        return orderRepository.findById(orderId).orElseThrow().getStatus();
+    }
+
+    private int stockOf(Long vendorId) {
+        return jdbcTemplate.queryForObject(
+            "SELECT stock FROM vendor_products WHERE vendor_id = ? AND product_id = 1", Integer.class, vendorId);
+    }
+
+    private static void await(BooleanSupplier condition, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (condition.getAsBoolean()) {
+                return;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("Condition not met within " + timeout);
+    }
+}
@@ -0,0 +1,123 @@
+package com.fuchs.oms.service;
+
+import com.fuchs.oms.dto.OrderRequest;
+import com.fuchs.oms.dto.OrderResponse;
+import com.fuchs.oms.model.Product;
+import com.fuchs.oms.repository.ProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+
+/**
+ * Leadership of the coalescing engine: a request thread only drains orders queued before its own,
+ * and orders queued behind it are handed off.
+ */
+@ExtendWith(MockitoExtension.class)
+class CoalescingOrderEngineTest {
+
+    @Mock
+    private OfferBook offerBook;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private OrderBatchWriter batchWriter;
+
+    private final List<Batch> batches = new CopyOnWriteArrayList<>();
+    private final CountDownLatch firstBatchStarted = new CountDownLatch(1);
+    private final CountDownLatch releaseFirstBatch = new CountDownLatch(1);
+    private final ExecutorService callers = Executors.newSingleThreadExecutor();
+
+    private CoalescingOrderEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        Product product = new Product();
+        product.setId(1L);
+        product.setProductCode("widget-001");
+        product.setName("Widget");
+        when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+        when(offerBook.getOffers(1L)).thenReturn(List.of(
+            new OfferBook.Offer(2L, "Vendor Beta", new BigDecimal("45.00"), 100)));
+        when(batchWriter.persist(anyList())).thenAnswer(invocation -> {
+            List<OrderBatchWriter.PlannedAllocation> planned = invocation.getArgument(0);
+            batches.add(new Batch(Thread.currentThread().getName(), planned.size()));
+            if (batches.size() == 1) {
+                firstBatchStarted.countDown();
+                releaseFirstBatch.await(5, TimeUnit.SECONDS);
+            }
+            return planned.stream()
+                .map(allocation -> OrderBatchWriter.Outcome.allocated(new OrderResponse(
+                    (long) batches.size(), 1L, "Widget", allocation.request().getQuantity(), 2L, "Vendor Beta",
+                    allocation.unitPrice(), allocation.unitPrice(), "ALLOCATED", "2026-01-01T00:00:00Z")))
+                .toList();
+        });
+        engine = new CoalescingOrderEngine(offerBook, productRepository, batchWriter, new SimpleMeterRegistry(), 0, 64, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        releaseFirstBatch.countDown();
+        callers.shutdownNow();
+    }
+
+    @Test
+    void submit_ordersQueuedBehindLeader_areDrainedByHandoff() throws Exception {
+        Future<CompletableFuture<OrderResponse>> leader = callers.submit(() -> engine.submit(new OrderRequest(1L, 1)));
+        assertThat(firstBatchStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // The product is busy, so these return at once and wait in the queue
+        CompletableFuture<OrderResponse> second = engine.submit(new OrderRequest(1L, 2));
+        CompletableFuture<OrderResponse> third = engine.submit(new OrderRequest(1L, 3));
+        assertThat(second).isNotDone();
+        assertThat(third).isNotDone();
+
+        releaseFirstBatch.countDown();
+
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isDone();
+        assertThat(second.get(5, TimeUnit.SECONDS).getQuantity()).isEqualTo(2);
+        assertThat(third.get(5, TimeUnit.SECONDS).getQuantity()).isEqualTo(3);
+        assertThat(batches).hasSize(2);
+        assertThat(batches.get(0).size()).isEqualTo(1);
+        assertThat(batches.get(1).size()).isEqualTo(2);
+        assertThat(batches.get(1).thread()).startsWith("order-coalescing-");
+    }
+
+    @Test
+    void submit_orderCancelledWhileQueued_isNotPersisted() throws Exception {
+        Future<CompletableFuture<OrderResponse>> leader = callers.submit(() -> engine.submit(new OrderRequest(1L, 1)));
+        assertThat(firstBatchStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<OrderResponse> withdrawn = engine.submit(new OrderRequest(1L, 2));
+        CompletableFuture<OrderResponse> kept = engine.submit(new OrderRequest(1L, 3));
+
+        assertThat(withdrawn.cancel(false)).isTrue();
+        releaseFirstBatch.countDown();
+
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isDone();
+        assertThat(kept.get(5, TimeUnit.SECONDS).getQuantity()).isEqualTo(3);
+        assertThat(withdrawn).isCancelled();
+        assertThat(batches).extracting(Batch::size).containsExactly(1, 1);
+    }
+
+    private record Batch(String thread, int size) {}
+}
@@ -0,0 +1,116 @@
+package com.fuchs.oms.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ConflictRetryTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ConflictRetry conflictRetry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        conflictRetry = new ConflictRetry(meterRegistry, 3, 1, 2);
+    }
+
+    @Test
+    void execute_withoutConflict_runsOnce() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = conflictRetry.execute("updateStock", 1L, () -> {
+            attempts.incrementAndGet();
+            return "ok";
+        });
+
+        assertThat(result).isEqualTo("ok");
+        assertThat(attempts.get()).isEqualTo(1);
+        assertThat(count("oms.contention.conflicts", "updateStock", 1L)).isZero();
+    }
+
+    @Test
+    void execute_retriesOptimisticConflictUntilSuccess() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = conflictRetry.execute("updateStock", 1L, () -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new OptimisticLockingFailureException("stale");
+            }
+            return "ok";
+        });
+
+        assertThat(result).isEqualTo("ok");
+        assertThat(attempts.get()).isEqualTo(3);
+        assertThat(count("oms.contention.conflicts", "updateStock", 1L)).isEqualTo(2.0);
+        assertThat(count("oms.contention.retries", "updateStock", 1L)).isEqualTo(2.0);
+    }
+
+    @Test
+    void execute_retriesLockTimeouts() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        conflictRetry.run("allocate", 7L, () -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new CannotAcquireLockException("lock timeout");
+            }
+        });
+
+        assertThat(attempts.get()).isEqualTo(2);
+        assertThat(count("oms.contention.conflicts", "allocate", 7L)).isEqualTo(1.0);
+    }
+
+    @Test
+    void execute_whenAttemptsExhausted_rethrowsAndCounts() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThatThrownBy(() -> conflictRetry.execute("allocate", 1L, () -> {
+            attempts.incrementAndGet();
+            throw new OptimisticLockingFailureException("stale");
+        })).isInstanceOf(OptimisticLockingFailureException.class);
+
+        assertThat(attempts.get()).isEqualTo(3);
+        assertThat(count("oms.contention.conflicts", "allocate", 1L)).isEqualTo(3.0);
+        assertThat(count("oms.contention.retries", "allocate", 1L)).isEqualTo(2.0);
+        assertThat(count("oms.contention.exhausted", "allocate", 1L)).isEqualTo(1.0);
+    }
+
+    @Test
+    void execute_doesNotRetryOtherFailures() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThatThrownBy(() -> conflictRetry.execute("enrollProduct", 1L, () -> {
+            attempts.incrementAndGet();
+            throw new DataIntegrityViolationException("duplicate");
+        })).isInstanceOf(DataIntegrityViolationException.class);
+
+        assertThat(attempts.get()).isEqualTo(1);
+    }
+
+    @Test
+    void execute_tagsMetricsPerProduct() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        conflictRetry.execute("updateStock", 2L, () -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new OptimisticLockingFailureException("stale");
+            }
+            return null;
+        });
+
+        assertThat(count("oms.contention.conflicts", "updateStock", 2L)).isEqualTo(1.0);
+        assertThat(count("oms.contention.conflicts", "updateStock", 1L)).isZero();
+    }
+
+    private double count(String name, String operation, Long productId) {
+        return meterRegistry.counter(name, "operation", operation, "product", String.valueOf(productId)).count();
+    }
+}
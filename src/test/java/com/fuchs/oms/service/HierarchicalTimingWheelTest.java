@@ -0,0 +1,93 @@
+package com.fuchs.oms.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HierarchicalTimingWheelTest {
+
+    @Test
+    void constructor_rejectsInvalidSizes() {
+        assertThatThrownBy(() -> new HierarchicalTimingWheel<String>(0, 8, 0))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new HierarchicalTimingWheel<String>(10, 1, 0))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void advanceTo_firesOnlyAfterDeadline() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(10, 8, 0);
+        wheel.schedule("a", 25);
+        List<String> fired = new ArrayList<>();
+
+        wheel.advanceTo(20, fired::add);
+        assertThat(fired).isEmpty();
+
+        wheel.advanceTo(30, fired::add);
+        assertThat(fired).containsExactly("a");
+    }
+
+    @Test
+    void advanceTo_firesPastDeadlinesImmediately() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(10, 8, 100);
+        wheel.schedule("late", 50);
+        List<String> fired = new ArrayList<>();
+
+        wheel.advanceTo(100, fired::add);
+
+        assertThat(fired).containsExactly("late");
+    }
+
+    @Test
+    void advanceTo_cascadesDeadlinesBeyondLowestLevel() {
+        // Lowest level spans 40 ms, second 160 ms, third 640 ms
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(10, 4, 0);
+        wheel.schedule("level1", 35);
+        wheel.schedule("level2", 125);
+        wheel.schedule("level3", 500);
+        List<String> fired = new ArrayList<>();
+
+        wheel.advanceTo(120, fired::add);
+        assertThat(fired).containsExactly("level1");
+
+        wheel.advanceTo(130, fired::add);
+        assertThat(fired).containsExactly("level1", "level2");
+
+        wheel.advanceTo(499, fired::add);
+        assertThat(fired).hasSize(2);
+
+        wheel.advanceTo(510, fired::add);
+        assertThat(fired).containsExactly("level1", "level2", "level3");
+    }
+
+    @Test
+    void advanceTo_randomDeadlines_fireWithinOneTickAfterDeadline() {
+        long tick = 5;
+        HierarchicalTimingWheel<Integer> wheel = new HierarchicalTimingWheel<>(tick, 16, 0);
+        Random random = new Random(42);
+        Map<Integer, Long> deadlines = new HashMap<>();
+        for (int i = 0; i < 10_000; i++) {
+            long deadline = random.nextInt(100_000);
+            deadlines.put(i, deadline);
+            wheel.schedule(i, deadline);
+        }
+
+        Map<Integer, Long> firedAt = new HashMap<>();
+        for (long now = 0; now <= 100_000 + tick; now += 3) {
+            long time = now;
+            wheel.advanceTo(now, id -> firedAt.put(id, time));
+        }
+
+        assertThat(firedAt).hasSize(deadlines.size());
+        deadlines.forEach((id, deadline) -> assertThat(firedAt.get(id))
+            .isGreaterThanOrEqualTo(deadline)
+            .isLessThanOrEqualTo(deadline + tick + 3));
+    }
+}
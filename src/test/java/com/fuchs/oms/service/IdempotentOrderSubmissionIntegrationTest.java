@@ -0,0 +1,232 @@
+package com.fuchs.oms.service;
+
+import com.fuchs.oms.dto.OrderRequest;
+import com.fuchs.oms.dto.OrderResponse;
+import com.fuchs.oms.dto.StockUpdateRequest;
+import com.fuchs.oms.exception.IdempotencyKeyConflictException;
+import com.fuchs.oms.exception.InvalidIdempotencyKeyException;
+import com.fuchs.oms.exception.NoStockAvailableException;
+import com.fuchs.oms.exception.OrderEngineBusyException;
+import com.fuchs.oms.repository.IdempotencyKeyRepository;
+import com.fuchs.oms.repository.OrderRepository;
+import com.fuchs.oms.repository.VendorProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+
+@SpringBootTest(properties = {
+    "oms.orders.idempotency.cache-size=1",
+    "oms.orders.submit-timeout-ms=1000"
+})
+@Sql(scripts = "/data.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class IdempotentOrderSubmissionIntegrationTest {
+
+    @Autowired
+    private IdempotentOrderSubmission idempotentOrderSubmission;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private VendorProductRepository vendorProductRepository;
+
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Autowired
+    private VendorService vendorService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoSpyBean
+    private OrderEngine orderEngine;
+
+    @Test
+    void submit_withRepeatedKey_allocatesOnceAndReplaysTheOrder() {
+        OrderResponse first = idempotentOrderSubmission.submit(1L, "key-1", new OrderRequest(1L, 10), null);
+        OrderResponse replay = idempotentOrderSubmission.submit(1L, "key-1", new OrderRequest(1L, 10), null);
+
+        assertThat(replay).isEqualTo(first);
+        assertThat(orderRepository.count()).isEqualTo(1);
+        // Vendor Beta (ID=2) started with 50 units
+        assertThat(vendorProductRepository.findByVendorIdAndProductId(2L, 1L).orElseThrow().getStock()).isEqualTo(40);
+    }
+
+    @Test
+    void submit_afterKeyLeftTheCache_replaysFromTheTable() {
+        OrderResponse first = idempotentOrderSubmission.submit(1L, "key-1", new OrderRequest(1L, 10), null);
+        // The cache holds one key, so this evicts key-1
+        idempotentOrderSubmission.submit(1L, "key-2", new OrderRequest(1L, 5), null);
+
+        OrderResponse replay = idempotentOrderSubmission.submit(1L, "key-1", new OrderRequest(1L, 10), null);
+
+        assertThat(replay.getOrderId()).isEqualTo(first.getOrderId());
+        assertThat(replay.getTotalPrice()).isEqualByComparingTo(first.getTotalPrice());
+        assertThat(orderRepository.count()).isEqualTo(2);
+    }
+
+    @Test
+    void submit_concurrentDuplicates_runOneAllocation() throws Exception {
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<OrderResponse>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                Callable<OrderResponse> submit = () -> {
+                    start.await();
+                    return idempotentOrderSubmission.submit(1L, "burst", new OrderRequest(1L, 1), null);
+                };
+                futures.add(executor.submit(submit));
+            }
+            start.countDown();
+
+            Long orderId = futures.get(0).get(30, TimeUnit.SECONDS).getOrderId();
+            for (Future<OrderResponse> future : futures) {
+                assertThat(future.get(30, TimeUnit.SECONDS).getOrderId()).isEqualTo(orderId);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(orderRepository.count()).isEqualTo(1);
+        assertThat(vendorProductRepository.findByVendorIdAndProductId(2L, 1L).orElseThrow().getStock()).isEqualTo(49);
+    }
+
+    @Test
+    void submit_withKeyUsedForAnotherOrder_isRejected() {
+        idempotentOrderSubmission.submit(1L, "key-1", new OrderRequest(1L, 10), null);
+
+        assertThatThrownBy(() -> idempotentOrderSubmission.submit(1L, "key-1", new OrderRequest(1L, 11), null))
+            .isInstanceOf(IdempotencyKeyConflictException.class)
+            .hasMessageContaining("different order");
+        assertThat(orderRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void submit_sameKeyFromAnotherVendor_isAnotherOrder() {
+        OrderResponse fromAlpha = idempotentOrderSubmission.submit(1L, "key-1", new OrderRequest(1L, 10), null);
+        OrderResponse fromBeta = idempotentOrderSubmission.submit(2L, "key-1", new OrderRequest(1L, 10), null);
+
+        assertThat(fromBeta.getOrderId()).isNotEqualTo(fromAlpha.getOrderId());
+        assertThat(orderRepository.count()).isEqualTo(2);
+    }
+
+    @Test
+    void submit_afterFailedAttempt_canBeRetriedWithTheSameKey() {
+        assertThatThrownBy(() -> idempotentOrderSubmission.submit(1L, "key-1", new OrderRequest(1L, 500), null))
+            .isInstanceOf(NoStockAvailableException.class);
+        assertThat(idempotencyKeyRepository.count()).isZero();
+
+        vendorService.updateStock(3L, 1L, new StockUpdateRequest(500));
+        OrderResponse retried = idempotentOrderSubmission.submit(1L, "key-1", new OrderRequest(1L, 500), null);
+
+        assertThat(retried.getAllocatedVendorId()).isEqualTo(3L);
+    }
+
+    @Test
+    void submit_afterTimeout_keepsTheKeyUntilTheEngineAllocates() {
+        CompletableFuture<OrderResponse> outcome = new CompletableFuture<>();
+        doReturn(outcome).when(orderEngine).submit(any());
+
+        assertThatThrownBy(() -> idempotentOrderSubmission.submit(1L, "key-1", new OrderRequest(1L, 10), null))
+            .isInstanceOf(OrderEngineBusyException.class);
+        assertThatThrownBy(() -> idempotentOrderSubmission.submit(1L, "key-1", new OrderRequest(1L, 10), null))
+            .isInstanceOf(IdempotencyKeyConflictException.class)
+            .hasMessageContaining("still being processed");
+
+        OrderResponse allocated = orderService.createOrder(new OrderRequest(1L, 10));
+        outcome.complete(allocated);
+        OrderResponse retried = idempotentOrderSubmission.submit(1L, "key-1", new OrderRequest(1L, 10), null);
+
+        assertThat(retried.getOrderId()).isEqualTo(allocated.getOrderId());
+        assertThat(orderRepository.count()).isEqualTo(1);
+        assertThat(idempotencyKeyRepository.findByVendorIdAndIdempotencyKey(1L, "key-1").orElseThrow().getOrderId())
+            .isEqualTo(allocated.getOrderId());
+    }
+
+    @Test
+    void submit_afterTimeout_releasesTheKeyWhenTheEngineFails() {
+        CompletableFuture<OrderResponse> outcome = new CompletableFuture<>();
+        doReturn(outcome).when(orderEngine).submit(any());
+
+        assertThatThrownBy(() -> idempotentOrderSubmission.submit(1L, "key-1", new OrderRequest(1L, 10), null))
+            .isInstanceOf(OrderEngineBusyException.class);
+        assertThat(idempotencyKeyRepository.count()).isEqualTo(1);
+
+        outcome.completeExceptionally(new NoStockAvailableException("Widget"));
+
+        assertThat(idempotencyKeyRepository.count()).isZero();
+    }
+
+    @Test
+    void submit_whileAnotherNodeHoldsTheKey_isRejected() {
+        insertClaim("key-1", LocalDateTime.now());
+
+        assertThatThrownBy(() -> idempotentOrderSubmission.submit(1L, "key-1", new OrderRequest(1L, 10), null))
+            .isInstanceOf(IdempotencyKeyConflictException.class)
+            .hasMessageContaining("still being processed");
+        assertThat(orderRepository.count()).isZero();
+    }
+
+    @Test
+    void submit_takesOverAnAbandonedClaim() {
+        insertClaim("key-1", LocalDateTime.now().minusMinutes(5));
+
+        OrderResponse response = idempotentOrderSubmission.submit(1L, "key-1", new OrderRequest(1L, 10), null);
+
+        assertThat(response.getStatus()).isEqualTo("ALLOCATED");
+        assertThat(idempotencyKeyRepository.findByVendorIdAndIdempotencyKey(1L, "key-1").orElseThrow().getOrderId())
+            .isEqualTo(response.getOrderId());
+    }
+
+    @Test
+    void submit_withBlankOrLongKey_isRejected() {
+        assertThatThrownBy(() -> idempotentOrderSubmission.submit(1L, " ", new OrderRequest(1L, 10), null))
+            .isInstanceOf(InvalidIdempotencyKeyException.class);
+        assertThatThrownBy(() -> idempotentOrderSubmission.submit(1L, "k".repeat(101), new OrderRequest(1L, 10), null))
+            .isInstanceOf(InvalidIdempotencyKeyException.class);
+    }
+
+    @Test
+    void purge_deletesKeysOlderThanRetention() {
+        idempotentOrderSubmission.submit(1L, "fresh", new OrderRequest(1L, 1), null);
+        insertClaim("stale", LocalDateTime.now().minusHours(25));
+
+        idempotentOrderSubmission.purge();
+
+        assertThat(idempotencyKeyRepository.findAll())
+            .extracting(key -> key.getIdempotencyKey())
+            .containsExactly("fresh");
+    }
+
+    private void insertClaim(String key, LocalDateTime createdAt) {
+        jdbcTemplate.update("INSERT INTO idempotency_keys (vendor_id, idempotency_key, request_fingerprint, created_at) "
+            + "VALUES (1, ?, 'product=1;quantity=10;delivery=null,null;backorder=false;priority=STANDARD;mode=sync', ?)",
+            key, createdAt);
+    }
+}
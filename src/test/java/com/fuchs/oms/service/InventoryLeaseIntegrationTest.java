@@ -0,0 +1,228 @@
+package com.fuchs.oms.service;
+
+import com.fuchs.oms.dto.CapacityUpdateRequest;
+import com.fuchs.oms.dto.OrderRequest;
+import com.fuchs.oms.dto.OrderResponse;
+import com.fuchs.oms.exception.NoStockAvailableException;
+import com.fuchs.oms.model.InventoryLease;
+import com.fuchs.oms.model.Order;
+import com.fuchs.oms.repository.InventoryLeaseRepository;
+import com.fuchs.oms.repository.OrderRepository;
+import com.fuchs.oms.repository.VendorProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for allocation from node-local inventory leases.
+ */
+@SpringBootTest(properties = {
+    "oms.allocation.lock-mode=leased",
+    "oms.leasing.node-id=node-1",
+    "oms.leasing.min-chunk=10",
+    "oms.leasing.coverage-seconds=1",
+    "oms.leasing.ttl-seconds=2",
+    "oms.leasing.sweep-ms=100",
+    "oms.leasing.reclaim-grace-seconds=0"
+})
+@Sql(scripts = "/data.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class InventoryLeaseIntegrationTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private InventoryLeaseRepository leaseRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private VendorProductRepository vendorProductRepository;
+
+    @Autowired
+    private VendorService vendorService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void firstOrder_leasesChunkFromCheapestVendor() {
+        // Given - Seed data: Vendor B ($45, 50 stock) is the cheapest with stock
+
+        // When
+        OrderResponse response = orderService.createOrder(new OrderRequest(1L, 5));
+
+        // Then - A chunk of 10 left the vendor row, the order came out of it
+        assertThat(response.getAllocatedVendorId()).isEqualTo(2L);
+        assertThat(stockOf(2L)).isEqualTo(40);
+        List<InventoryLease> leases = leaseRepository.findAll();
+        assertThat(leases).singleElement().satisfies(lease -> {
+            assertThat(lease.getNodeId()).isEqualTo("node-1");
+            assertThat(lease.getVendorId()).isEqualTo(2L);
+            assertThat(lease.getQuantity()).isEqualTo(10);
+        });
+        assertThat(orderRepository.findById(response.getOrderId()).orElseThrow().getLeaseId())
+            .isEqualTo(leases.get(0).getId());
+    }
+
+    @Test
+    void laterOrders_areServedFromLeaseWithoutTouchingVendorRow() {
+        orderService.createOrder(new OrderRequest(1L, 5));
+        Long versionAfterLease = vendorProductRepository.findByVendorIdAndProductId(2L, 1L).orElseThrow().getVersion();
+
+        orderService.createOrder(new OrderRequest(1L, 3));
+        orderService.createOrder(new OrderRequest(1L, 2));
+
+        assertThat(stockOf(2L)).isEqualTo(40);
+        assertThat(vendorProductRepository.findByVendorIdAndProductId(2L, 1L).orElseThrow().getVersion())
+            .isEqualTo(versionAfterLease);
+        assertThat(leaseRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void restockMadeOutsideThisNode_isAllocatedFromTheStore() {
+        // Loads the product into this node's offer book
+        orderService.createOrder(new OrderRequest(1L, 5));
+        // Another node restocks Vendor C; this node's book still shows it with no stock
+        jdbcTemplate.update("UPDATE vendor_products SET stock = 200 WHERE vendor_id = 3 AND product_id = 1");
+
+        OrderResponse response = orderService.createOrder(new OrderRequest(1L, 150));
+
+        assertThat(response.getAllocatedVendorId()).isEqualTo(3L);
+        assertThat(stockOf(3L)).isEqualTo(50);
+    }
+
+    @Test
+    void expiredLease_returnsLeftoverStockToVendor() throws Exception {
+        orderService.createOrder(new OrderRequest(1L, 4));
+        assertThat(stockOf(2L)).isEqualTo(40);
+
+        await(() -> leaseRepository.findAll().stream()
+            .allMatch(lease -> InventoryLease.RETURNED.equals(lease.getStatus())), Duration.ofSeconds(10));
+
+        assertThat(stockOf(2L)).isEqualTo(46);
+        assertThat(leaseRepository.findAll()).singleElement()
+            .extracting(InventoryLease::getReturnedQuantity)
+            .isEqualTo(6);
+    }
+
+    @Test
+    void leaseOfStoppedNode_isReclaimedUsingRecordedOrders() throws Exception {
+        // Given - Another node leased 10 units from Vendor A, used 4, then died
+        vendorService.tryDecrementStock(1L, 1L, 10);
+        InventoryLease orphan = new InventoryLease();
+        orphan.setNodeId("node-2");
+        orphan.setVendorId(1L);
+        orphan.setProductId(1L);
+        orphan.setQuantity(10);
+        orphan.setStatus(InventoryLease.ACTIVE);
+        orphan.setExpiresAt(LocalDateTime.now().minusSeconds(1));
+        orphan = leaseRepository.save(orphan);
+        Order used = new Order();
+        used.setProductId(1L);
+        used.setQuantity(4);
+        used.setAllocatedVendorId(1L);
+        used.setLeaseId(orphan.getId());
+        used.setStatus("ALLOCATED");
+        orderRepository.save(used);
+        Long orphanId = orphan.getId();
+
+        // When
+        await(() -> InventoryLease.RETURNED.equals(leaseRepository.findById(orphanId).orElseThrow().getStatus()),
+            Duration.ofSeconds(5));
+
+        // Then - Only the unused 6 units went back
+        assertThat(stockOf(1L)).isEqualTo(96);
+        assertThat(leaseRepository.findById(orphanId).orElseThrow().getReturnedQuantity()).isEqualTo(6);
+    }
+
+    @Test
+    void concurrentOrders_neverOversell() throws Exception {
+        // Given - 150 units across Vendor A and B, 200 single-unit orders
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        List<CompletableFuture<OrderResponse>> futures = new ArrayList<>();
+        int allocated = 0;
+        int rejected = 0;
+        try {
+            for (int i = 0; i < 200; i++) {
+                futures.add(CompletableFuture.supplyAsync(
+                    () -> orderService.createOrder(new OrderRequest(1L, 1)), executor));
+            }
+            for (CompletableFuture<OrderResponse> future : futures) {
+                try {
+                    future.get(30, TimeUnit.SECONDS);
+                    allocated++;
+                } catch (ExecutionException ex) {
+                    assertThat(ex.getCause()).isInstanceOf(NoStockAvailableException.class);
+                    rejected++;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Then - Units still sitting in leases can reject a few orders, but nothing is oversold
+        assertThat(allocated + rejected).isEqualTo(200);
+        assertThat(allocated).isLessThanOrEqualTo(150);
+        await(() -> leaseRepository.findAll().stream()
+            .allMatch(lease -> InventoryLease.RETURNED.equals(lease.getStatus())), Duration.ofSeconds(10));
+        assertThat(stockOf(1L) + stockOf(2L) + orderRepository.findAll().stream().mapToInt(Order::getQuantity).sum())
+            .isEqualTo(150);
+    }
+
+    @Test
+    void concurrentOrders_neverExceedVendorCapacity() throws Exception {
+        // Given - Vendor B, the cheapest with stock, takes at most 5 orders an hour
+        vendorService.updateCapacity(2L, new CapacityUpdateRequest(5, null));
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        List<CompletableFuture<OrderResponse>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < 40; i++) {
+                futures.add(CompletableFuture.supplyAsync(
+                    () -> orderService.createOrder(new OrderRequest(1L, 1)), executor));
+            }
+            for (CompletableFuture<OrderResponse> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Then - Vendor B got exactly its capacity, the rest went to Vendor A
+        assertThat(orderRepository.findAll()).filteredOn(order -> order.getAllocatedVendorId().equals(2L)).hasSize(5);
+        assertThat(orderRepository.findAll()).filteredOn(order -> order.getAllocatedVendorId().equals(1L)).hasSize(35);
+    }
+
+    private int stockOf(Long vendorId) {
+        return vendorProductRepository.findByVendorIdAndProductId(vendorId, 1L).orElseThrow().getStock();
+    }
+
+    private static void await(BooleanSupplier condition, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (condition.getAsBoolean()) {
+                return;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("Condition not met within " + timeout);
+    }
+}
@@ -0,0 +1,151 @@
+package com.fuchs.oms.service;
+
+import com.fuchs.oms.model.Product;
+import com.fuchs.oms.model.Vendor;
+import com.fuchs.oms.model.VendorProduct;
+import com.fuchs.oms.repository.VendorProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OfferBookTest {
+
+    @Mock
+    private VendorProductRepository vendorProductRepository;
+
+    @InjectMocks
+    private OfferBook offerBook;
+
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        product = new Product();
+        product.setId(1L);
+        product.setName("Widget");
+    }
+
+    @Test
+    void getOffers_loadsFromRepositoryInFr12Order() {
+        when(vendorProductRepository.findByProductIdWithVendor(1L)).thenReturn(Arrays.asList(
+            vendorProduct(1L, "50.00", 100),
+            vendorProduct(3L, "45.00", 0),
+            vendorProduct(2L, "45.00", 50)));
+
+        List<OfferBook.Offer> offers = offerBook.getOffers(1L);
+
+        assertThat(offers).extracting(OfferBook.Offer::vendorId).containsExactly(2L, 3L, 1L);
+    }
+
+    @Test
+    void getOffers_readsRepositoryOnlyOnce() {
+        when(vendorProductRepository.findByProductIdWithVendor(1L))
+            .thenReturn(List.of(vendorProduct(1L, "50.00", 100)));
+
+        offerBook.getOffers(1L);
+        offerBook.getOffers(1L);
+
+        verify(vendorProductRepository, times(1)).findByProductIdWithVendor(1L);
+    }
+
+    @Test
+    void getOffers_forProductWithoutOffers_isNotCached() {
+        when(vendorProductRepository.findByProductIdWithVendor(999L)).thenReturn(List.of());
+
+        assertThat(offerBook.getOffers(999L)).isEmpty();
+        assertThat(offerBook.getOffer(999L, 1L)).isNull();
+
+        verify(vendorProductRepository, times(2)).findByProductIdWithVendor(999L);
+    }
+
+    @Test
+    void rebuild_populatesAllProducts() {
+        when(vendorProductRepository.findAllWithVendor())
+            .thenReturn(List.of(vendorProduct(1L, "50.00", 100), vendorProduct(2L, "45.00", 50)));
+
+        offerBook.rebuild();
+
+        assertThat(offerBook.getOffers(1L)).extracting(OfferBook.Offer::vendorId).containsExactly(2L, 1L);
+        verify(vendorProductRepository, never()).findByProductIdWithVendor(anyLong());
+    }
+
+    @Test
+    void onOfferChanged_reordersByNewPrice() {
+        when(vendorProductRepository.findByProductIdWithVendor(1L)).thenReturn(List.of(
+            vendorProduct(1L, "50.00", 100), vendorProduct(2L, "45.00", 50)));
+        offerBook.getOffers(1L);
+
+        offerBook.onOfferChanged(1L, 1L, "Vendor 1", new BigDecimal("40.00"), 100);
+
+        List<OfferBook.Offer> offers = offerBook.getOffers(1L);
+        assertThat(offers).extracting(OfferBook.Offer::vendorId).containsExactly(1L, 2L);
+        assertThat(offers.get(0).price()).isEqualTo(new BigDecimal("40.00"));
+    }
+
+    @Test
+    void onStockAdjusted_appliesDeltaToVendorOnly() {
+        when(vendorProductRepository.findByProductIdWithVendor(1L)).thenReturn(List.of(
+            vendorProduct(1L, "50.00", 100), vendorProduct(2L, "45.00", 50)));
+        offerBook.getOffers(1L);
+
+        offerBook.onStockAdjusted(1L, 2L, -10);
+
+        assertThat(offerBook.getOffers(1L)).extracting(OfferBook.Offer::stock).containsExactly(40, 100);
+    }
+
+    @Test
+    void onOfferRemoved_dropsVendor() {
+        when(vendorProductRepository.findByProductIdWithVendor(1L)).thenReturn(List.of(
+            vendorProduct(1L, "50.00", 100), vendorProduct(2L, "45.00", 50)));
+        offerBook.getOffers(1L);
+
+        offerBook.onOfferRemoved(1L, 2L);
+
+        assertThat(offerBook.getOffers(1L)).extracting(OfferBook.Offer::vendorId).containsExactly(1L);
+    }
+
+    @Test
+    void onOfferChanged_forUnloadedProduct_isLoadedFromRepositoryLater() {
+        offerBook.onOfferChanged(1L, 1L, "Vendor 1", new BigDecimal("40.00"), 100);
+
+        when(vendorProductRepository.findByProductIdWithVendor(1L))
+            .thenReturn(List.of(vendorProduct(1L, "40.00", 100)));
+
+        assertThat(offerBook.getOffers(1L)).hasSize(1);
+        verify(vendorProductRepository).findByProductIdWithVendor(1L);
+    }
+
+    @Test
+    void getOffer_looksUpSingleVendor() {
+        when(vendorProductRepository.findByProductIdWithVendor(1L)).thenReturn(Arrays.asList(
+            vendorProduct(1L, "50.00", 100),
+            vendorProduct(2L, "45.00", 50)));
+
+        assertThat(offerBook.getOffer(1L, 2L).stock()).isEqualTo(50);
+        assertThat(offerBook.getOffer(1L, 3L)).isNull();
+    }
+
+    private VendorProduct vendorProduct(Long vendorId, String price, int stock) {
+        Vendor vendor = new Vendor();
+        vendor.setId(vendorId);
+        vendor.setName("Vendor " + vendorId);
+
+        VendorProduct vp = new VendorProduct();
+        vp.setVendor(vendor);
+        vp.setProduct(product);
+        vp.setPrice(new BigDecimal(price));
+        vp.setStock(stock);
+        return vp;
+    }
+}
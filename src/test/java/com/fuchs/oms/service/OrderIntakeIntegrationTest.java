@@ -0,0 +1,143 @@
+package com.fuchs.oms.service;
+
+import com.fuchs.oms.dto.OrderRequest;
+import com.fuchs.oms.dto.OrderResponse;
+import com.fuchs.oms.dto.StockUpdateRequest;
+import com.fuchs.oms.model.Order;
+import com.fuchs.oms.repository.OrderRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Asynchronous acceptance: orders are saved as PENDING and allocated by the intake workers.
+ */
+@SpringBootTest(properties = "oms.orders.intake.poll-ms=100")
+@Sql(scripts = "/data.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class OrderIntakeIntegrationTest {
+
+    @Autowired
+    private OrderIntake orderIntake;
+
+    @Autowired
+    private VendorService vendorService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void accept_returnsPendingAndIsAllocatedInTheBackground() throws InterruptedException {
+        OrderResponse accepted = orderIntake.accept(new OrderRequest(1L, 10), 1L);
+
+        assertThat(accepted.getStatus()).isEqualTo(Order.PENDING);
+        assertThat(accepted.getAllocatedVendorId()).isNull();
+
+        Order order = awaitSettled(accepted.getOrderId());
+        // Vendor Beta (ID=2) is the cheapest vendor with stock
+        assertThat(order.getStatus()).isEqualTo(Order.ALLOCATED);
+        assertThat(order.getAllocatedVendorId()).isEqualTo(2L);
+        assertThat(order.getTotalPrice()).isEqualByComparingTo("450.00");
+        assertThat(order.getSubmittedBy()).isEqualTo(1L);
+        assertThat(stockOf(2L)).isEqualTo(40);
+    }
+
+    @Test
+    void accept_manyOrders_allocatesEachOnce() throws InterruptedException {
+        List<Long> orderIds = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            orderIds.add(orderIntake.accept(new OrderRequest(1L, 5), 1L).getOrderId());
+        }
+
+        for (Long orderId : orderIds) {
+            assertThat(awaitSettled(orderId).getStatus()).isEqualTo(Order.ALLOCATED);
+        }
+        // 150 units: Beta's 50 first, then Alpha's 100
+        assertThat(stockOf(2L)).isZero();
+        assertThat(stockOf(1L)).isZero();
+    }
+
+    @Test
+    void accept_withoutStock_isRejectedWithReason() throws InterruptedException {
+        OrderResponse accepted = orderIntake.accept(new OrderRequest(1L, 500), 1L);
+
+        Order order = awaitSettled(accepted.getOrderId());
+        assertThat(order.getStatus()).isEqualTo(Order.REJECTED);
+        assertThat(order.getRejectionReason()).contains("Widget");
+        assertThat(order.getProductCode()).isEqualTo("widget-001");
+        assertThat(order.getAllocatedVendorId()).isNull();
+    }
+
+    @Test
+    void accept_forUnknownProduct_isRejected() throws InterruptedException {
+        OrderResponse accepted = orderIntake.accept(new OrderRequest(999L, 1), 1L);
+
+        Order order = awaitSettled(accepted.getOrderId());
+        assertThat(order.getStatus()).isEqualTo(Order.REJECTED);
+        assertThat(order.getRejectionReason()).isEqualTo("Product not found: productId=999");
+    }
+
+    @Test
+    void accept_withBackorder_staysPendingUntilRestock() throws InterruptedException {
+        OrderRequest request = new OrderRequest(1L, 200);
+        request.setBackorder(true);
+        OrderResponse accepted = orderIntake.accept(request, 3L);
+
+        await(() -> !orderRepository.findById(accepted.getOrderId()).orElseThrow().isIntake(), Duration.ofSeconds(5));
+        assertThat(statusOf(accepted.getOrderId())).isEqualTo(Order.PENDING);
+
+        // Vendor Charlie ($40) restocks
+        vendorService.updateStock(3L, 1L, new StockUpdateRequest(250));
+
+        await(() -> Order.ALLOCATED.equals(statusOf(accepted.getOrderId())), Duration.ofSeconds(5));
+        assertThat(orderRepository.findById(accepted.getOrderId()).orElseThrow().getAllocatedVendorId()).isEqualTo(3L);
+    }
+
+    @Test
+    void intakeOrdersLeftByAPreviousRun_areAllocated() throws InterruptedException {
+        jdbcTemplate.update("INSERT INTO orders (product_id, quantity, intake, status, created_at) "
+            + "VALUES (1, 20, TRUE, 'PENDING', CURRENT_TIMESTAMP)");
+        Long orderId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM orders", Long.class);
+
+        assertThat(awaitSettled(orderId).getStatus()).isEqualTo(Order.ALLOCATED);
+        assertThat(stockOf(2L)).isEqualTo(30);
+    }
+
+    private Order awaitSettled(Long orderId) throws InterruptedException {
+        await(() -> !Order.PENDING.equals(statusOf(orderId)), Duration.ofSeconds(5));
+        return orderRepository.findById(orderId).orElseThrow();
+    }
+
+    private String statusOf(Long orderId) {
+        return orderRepository.findById(orderId).orElseThrow().getStatus();
+    }
+
+    private int stockOf(Long vendorId) {
+        return jdbcTemplate.queryForObject(
+            "SELECT stock FROM vendor_products WHERE vendor_id = ? AND product_id = 1", Integer.class, vendorId);
+    }
+
+    private static void await(BooleanSupplier condition, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (condition.getAsBoolean()) {
+                return;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("Condition not met within " + timeout);
+    }
+}
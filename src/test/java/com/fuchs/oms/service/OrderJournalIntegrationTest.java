@@ -0,0 +1,206 @@
+package com.fuchs.oms.service;
+
+import com.fuchs.oms.dto.OrderRequest;
+import com.fuchs.oms.dto.OrderResponse;
+import com.fuchs.oms.exception.NoStockAvailableException;
+import com.fuchs.oms.model.Order;
+import com.fuchs.oms.repository.OrderRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Journal durability: orders are answered once fsynced, written to the database behind the
+ * callers, and replayed from the log after a crash.
+ */
+@SpringBootTest(properties = {
+    "oms.orders.engine=sharded",
+    "oms.orders.durability=journal"
+})
+@Sql(scripts = "/data.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class OrderJournalIntegrationTest {
+
+    @TempDir
+    static Path journalDir;
+
+    @DynamicPropertySource
+    static void journalProperties(DynamicPropertyRegistry registry) {
+        registry.add("oms.orders.journal.dir", () -> journalDir.toString());
+    }
+
+    @Autowired
+    private OrderSubmissionService orderSubmissionService;
+
+    @Autowired
+    private OrderJournal orderJournal;
+
+    @Autowired
+    private OfferBook offerBook;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void submit_answersFromTheJournalAndFlushesToTheTable() throws InterruptedException {
+        OrderResponse response = orderSubmissionService.submit(new OrderRequest(1L, 10));
+
+        assertThat(response.getOrderId()).isNotNull();
+        assertThat(response.getStatus()).isEqualTo(Order.ALLOCATED);
+        assertThat(response.getAllocatedVendorId()).isEqualTo(2L);
+        assertThat(response.getTotalPrice()).isEqualByComparingTo("450.00");
+
+        await(() -> orderJournal.unflushed() == 0, Duration.ofSeconds(5));
+        Order order = orderRepository.findById(response.getOrderId()).orElseThrow();
+        assertThat(order.getVendorName()).isEqualTo("Vendor Beta");
+        assertThat(order.getCreatedAt()).isNotNull();
+        assertThat(stockOf(2L)).isEqualTo(40);
+    }
+
+    @Test
+    void concurrentOrders_neverSellStockHeldByUnflushedOrders() throws Exception {
+        // 40 orders of 5 against 150 units (Beta 50, Alpha 100)
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<OrderResponse>> futures = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                futures.add(executor.submit(() -> orderSubmissionService.submit(new OrderRequest(1L, 5))));
+            }
+            int allocated = 0;
+            int rejected = 0;
+            for (Future<OrderResponse> future : futures) {
+                try {
+                    future.get(30, TimeUnit.SECONDS);
+                    allocated++;
+                } catch (ExecutionException ex) {
+                    assertThat(ex.getCause()).isInstanceOf(NoStockAvailableException.class);
+                    rejected++;
+                }
+            }
+            assertThat(allocated).isEqualTo(30);
+            assertThat(rejected).isEqualTo(10);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        await(() -> orderJournal.unflushed() == 0, Duration.ofSeconds(5));
+        assertThat(orderRepository.count()).isEqualTo(30);
+        assertThat(stockOf(1L)).isZero();
+        assertThat(stockOf(2L)).isZero();
+    }
+
+    @Test
+    void flush_neverLeavesStockBothTakenAndHeld() throws Exception {
+        AtomicInteger lowest = new AtomicInteger(Integer.MAX_VALUE);
+        AtomicBoolean done = new AtomicBoolean();
+        Thread sampler = new Thread(() -> {
+            while (!done.get()) {
+                int available = orderJournal.withHeld(1L, held -> offerBook.getOffers(1L).stream()
+                    .mapToInt(offer -> offer.stock() - held.getOrDefault(offer.vendorId(), 0))
+                    .sum());
+                lowest.accumulateAndGet(available, Math::min);
+            }
+        });
+        sampler.start();
+        try {
+            for (int i = 0; i < 10; i++) {
+                orderSubmissionService.submit(new OrderRequest(1L, 5));
+            }
+            await(() -> orderJournal.unflushed() == 0, Duration.ofSeconds(5));
+        } finally {
+            done.set(true);
+            sampler.join();
+        }
+
+        // 150 units less the 50 ordered, never less while flushes move stock from held to taken
+        assertThat(lowest.get()).isEqualTo(100);
+        Map<Long, Integer> held = orderJournal.withHeld(1L, Map::copyOf);
+        assertThat(held).isEmpty();
+    }
+
+    @Test
+    void replay_insertsOrdersLeftByACrashOnce() throws Exception {
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        log.writeBytes(OrderJournal.frame(journaledOrder(900_001L, 10)));
+        log.writeBytes(OrderJournal.frame(journaledOrder(900_002L, 15)));
+        // A record cut short by the crash
+        byte[] torn = OrderJournal.frame(journaledOrder(900_003L, 20));
+        log.write(torn, 0, torn.length / 2);
+        Path segment = journalDir.resolve("segment-00000000000000000000.log");
+
+        Files.write(segment, log.toByteArray());
+        assertThat(orderJournal.replay()).isEqualTo(2);
+
+        assertThat(Files.exists(segment)).isFalse();
+        assertThat(orderRepository.findById(900_001L)).isPresent();
+        assertThat(orderRepository.findById(900_002L).orElseThrow().getTotalPrice()).isEqualByComparingTo("675.00");
+        assertThat(orderRepository.existsById(900_003L)).isFalse();
+        assertThat(stockOf(2L)).isEqualTo(25);
+
+        // The flush committed but the segment survived: replaying it again changes nothing
+        Files.write(segment, log.toByteArray());
+        orderJournal.replay();
+
+        assertThat(orderRepository.count()).isEqualTo(2);
+        assertThat(stockOf(2L)).isEqualTo(25);
+    }
+
+    private static Order journaledOrder(Long id, int quantity) {
+        Order order = new Order();
+        order.setId(id);
+        order.setProductId(1L);
+        order.setProductCode("widget-001");
+        order.setProductName("Widget");
+        order.setQuantity(quantity);
+        order.setAllocatedVendorId(2L);
+        order.setVendorName("Vendor Beta");
+        order.setUnitPrice(new BigDecimal("45.00"));
+        order.setCreatedAt(LocalDateTime.now());
+        return order;
+    }
+
+    private int stockOf(Long vendorId) {
+        return jdbcTemplate.queryForObject(
+            "SELECT stock FROM vendor_products WHERE vendor_id = ? AND product_id = 1", Integer.class, vendorId);
+    }
+
+    private static void await(BooleanSupplier condition, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (condition.getAsBoolean()) {
+                return;
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("Condition not met within " + timeout);
+    }
+}
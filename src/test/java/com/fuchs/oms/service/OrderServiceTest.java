@@ -7,6 +7,7 @@ import com.fuchs.oms.exception.ProductNotFoundException;
 import com.fuchs.oms.exception.ResourceNotFoundException;
 import com.fuchs.oms.model.Order;
 import com.fuchs.oms.model.Product;
+import com.fuchs.oms.repository.OrderLineDetails;
 import com.fuchs.oms.repository.OrderRepository;
 import com.fuchs.oms.repository.ProductRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -43,6 +44,9 @@ class OrderServiceTest {
     @Mock
     private com.fuchs.oms.repository.VendorProductRepository vendorProductRepository;
 
+    @Mock
+    private Outbox outbox;
+
     @InjectMocks
     private OrderService orderService;
 
@@ -61,31 +65,19 @@ class OrderServiceTest {
         // Given
         OrderRequest request = new OrderRequest(1L, 10);
 
-        // Setup vendor and vendor product for toOrderResponse
-        com.fuchs.oms.model.Vendor vendor = new com.fuchs.oms.model.Vendor();
-        vendor.setId(2L);
-        vendor.setName("Vendor Beta");
-
-        com.fuchs.oms.model.VendorProduct vendorProduct = new com.fuchs.oms.model.VendorProduct();
-        vendorProduct.setVendor(vendor);
-        vendorProduct.setProduct(testProduct);
-        vendorProduct.setPrice(new java.math.BigDecimal("45.00"));
+        // Product name, vendor name and price for toOrderResponse
+        OrderLineDetails details = new OrderLineDetails(1L, "widget-001", "Widget", "Vendor Beta", new java.math.BigDecimal("45.00"));
 
-        when(productRepository.findById(1L)).thenReturn(Optional.of(testProduct));
-        when(allocationService.allocate(1L, 10))
+        when(allocationService.allocate(1L, 10, null))
             .thenReturn(new AllocationService.AllocationResult(2L, true));
-        when(vendorProductRepository.findByVendorIdAndProductIdWithProduct(2L, 1L))
-            .thenReturn(Optional.of(vendorProduct));
-
-        Order savedOrder = new Order();
-        savedOrder.setId(1L);
-        savedOrder.setProductId(1L);
-        savedOrder.setQuantity(10);
-        savedOrder.setAllocatedVendorId(2L);
-        savedOrder.setStatus("ALLOCATED");
-        savedOrder.setCreatedAt(LocalDateTime.now());
+        when(vendorProductRepository.findOrderLineDetails(2L, 1L)).thenReturn(Optional.of(details));
 
-        when(orderRepository.save(any(Order.class))).thenReturn(savedOrder);
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
+            Order saved = invocation.getArgument(0);
+            saved.setId(1L);
+            saved.setCreatedAt(LocalDateTime.now());
+            return saved;
+        });
 
         // When
         OrderResponse response = orderService.createOrder(request);
@@ -102,12 +94,15 @@ class OrderServiceTest {
         assertEquals(new java.math.BigDecimal("450.00"), response.getTotalPrice());
         assertEquals("ALLOCATED", response.getStatus());
         assertNotNull(response.getCreatedAt());
+        verifyNoInteractions(productRepository);
     }
 
     @Test
     void createOrder_withNonExistentProduct_throwsProductNotFoundException() {
         // Given
         OrderRequest request = new OrderRequest(999L, 10);
+        when(allocationService.allocate(999L, 10, null))
+            .thenReturn(new AllocationService.AllocationResult(null, false));
         when(productRepository.findById(999L)).thenReturn(Optional.empty());
 
         // When/Then
@@ -123,37 +118,26 @@ class OrderServiceTest {
         // Given
         OrderRequest request = new OrderRequest(1L, 10);
 
-        // Setup vendor and vendor product for toOrderResponse
-        com.fuchs.oms.model.Vendor vendor = new com.fuchs.oms.model.Vendor();
-        vendor.setId(2L);
-        vendor.setName("Vendor Beta");
-
-        com.fuchs.oms.model.VendorProduct vendorProduct = new com.fuchs.oms.model.VendorProduct();
-        vendorProduct.setVendor(vendor);
-        vendorProduct.setProduct(testProduct);
-        vendorProduct.setPrice(new java.math.BigDecimal("45.00"));
+        // Product name, vendor name and price for toOrderResponse
+        OrderLineDetails details = new OrderLineDetails(1L, "widget-001", "Widget", "Vendor Beta", new java.math.BigDecimal("45.00"));
 
-        when(productRepository.findById(1L)).thenReturn(Optional.of(testProduct));
-        when(allocationService.allocate(1L, 10))
+        when(allocationService.allocate(1L, 10, null))
             .thenReturn(new AllocationService.AllocationResult(2L, true));
-        when(vendorProductRepository.findByVendorIdAndProductIdWithProduct(2L, 1L))
-            .thenReturn(Optional.of(vendorProduct));
+        when(vendorProductRepository.findOrderLineDetails(2L, 1L)).thenReturn(Optional.of(details));
 
-        Order savedOrder = new Order();
-        savedOrder.setId(1L);
-        savedOrder.setProductId(1L);
-        savedOrder.setQuantity(10);
-        savedOrder.setAllocatedVendorId(2L);
-        savedOrder.setStatus("ALLOCATED");
-        savedOrder.setCreatedAt(LocalDateTime.now());
-
-        when(orderRepository.save(any(Order.class))).thenReturn(savedOrder);
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
+            Order saved = invocation.getArgument(0);
+            saved.setId(1L);
+            saved.setCreatedAt(LocalDateTime.now());
+            return saved;
+        });
 
         // When
         orderService.createOrder(request);
 
         // Then
         verify(orderRepository).save(any(Order.class));
+        verify(outbox).orderAllocated(argThat(order -> order.getId() == 1L));
     }
 
     // ==================== FR13: No Stock Error Handling Tests ====================
@@ -164,7 +148,7 @@ class OrderServiceTest {
         OrderRequest request = new OrderRequest(1L, 10);
 
         when(productRepository.findById(1L)).thenReturn(Optional.of(testProduct));
-        when(allocationService.allocate(1L, 10))
+        when(allocationService.allocate(1L, 10, null))
             .thenReturn(new AllocationService.AllocationResult(null, false));
 
         // When/Then
@@ -182,7 +166,7 @@ class OrderServiceTest {
         OrderRequest request = new OrderRequest(1L, 1000);
 
         when(productRepository.findById(1L)).thenReturn(Optional.of(testProduct));
-        when(allocationService.allocate(1L, 1000))
+        when(allocationService.allocate(1L, 1000, null))
             .thenReturn(new AllocationService.AllocationResult(null, false));
 
         // When/Then
@@ -200,7 +184,7 @@ class OrderServiceTest {
         OrderRequest request = new OrderRequest(1L, 50);
 
         when(productRepository.findById(1L)).thenReturn(Optional.of(testProduct));
-        when(allocationService.allocate(1L, 50))
+        when(allocationService.allocate(1L, 50, null))
             .thenReturn(new AllocationService.AllocationResult(null, false));
 
         // When
@@ -220,37 +204,25 @@ class OrderServiceTest {
         // Given
         OrderRequest request = new OrderRequest(1L, 25);
 
-        // Setup vendor and vendor product for toOrderResponse
-        com.fuchs.oms.model.Vendor vendor = new com.fuchs.oms.model.Vendor();
-        vendor.setId(2L);
-        vendor.setName("Vendor Beta");
-
-        com.fuchs.oms.model.VendorProduct vendorProduct = new com.fuchs.oms.model.VendorProduct();
-        vendorProduct.setVendor(vendor);
-        vendorProduct.setProduct(testProduct);
-        vendorProduct.setPrice(new java.math.BigDecimal("45.00"));
+        // Product name, vendor name and price for toOrderResponse
+        OrderLineDetails details = new OrderLineDetails(1L, "widget-001", "Widget", "Vendor Beta", new java.math.BigDecimal("45.00"));
 
-        when(productRepository.findById(1L)).thenReturn(Optional.of(testProduct));
-        when(allocationService.allocate(1L, 25))
+        when(allocationService.allocate(1L, 25, null))
             .thenReturn(new AllocationService.AllocationResult(2L, true));
-        when(vendorProductRepository.findByVendorIdAndProductIdWithProduct(2L, 1L))
-            .thenReturn(Optional.of(vendorProduct));
-
-        Order savedOrder = new Order();
-        savedOrder.setId(1L);
-        savedOrder.setProductId(1L);
-        savedOrder.setQuantity(25);
-        savedOrder.setAllocatedVendorId(2L);
-        savedOrder.setStatus("ALLOCATED");
-        savedOrder.setCreatedAt(LocalDateTime.now());
+        when(vendorProductRepository.findOrderLineDetails(2L, 1L)).thenReturn(Optional.of(details));
 
-        when(orderRepository.save(any(Order.class))).thenReturn(savedOrder);
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
+            Order saved = invocation.getArgument(0);
+            saved.setId(1L);
+            saved.setCreatedAt(LocalDateTime.now());
+            return saved;
+        });
 
         // When
         orderService.createOrder(request);
 
         // Then
-        verify(allocationService).allocate(1L, 25);
+        verify(allocationService).allocate(1L, 25, null);
     }
 
     // ==================== Story 4B.1: Get Vendor Orders Tests ====================
@@ -260,16 +232,6 @@ class OrderServiceTest {
         // Given - Vendor 2 has two orders
         Long vendorId = 2L;
 
-        // Setup vendor and vendor product for toOrderResponse
-        com.fuchs.oms.model.Vendor vendor = new com.fuchs.oms.model.Vendor();
-        vendor.setId(vendorId);
-        vendor.setName("Vendor Beta");
-
-        com.fuchs.oms.model.VendorProduct vendorProduct = new com.fuchs.oms.model.VendorProduct();
-        vendorProduct.setVendor(vendor);
-        vendorProduct.setProduct(testProduct);
-        vendorProduct.setPrice(new java.math.BigDecimal("45.00"));
-
         Order order1 = new Order();
         order1.setId(1L);
         order1.setProductId(1L);
@@ -288,9 +250,6 @@ class OrderServiceTest {
 
         when(orderRepository.findByAllocatedVendorIdOrderByCreatedAtDesc(vendorId))
             .thenReturn(Arrays.asList(order2, order1)); // Newest first
-        when(productRepository.findById(1L)).thenReturn(Optional.of(testProduct));
-        when(vendorProductRepository.findByVendorIdAndProductIdWithProduct(vendorId, 1L))
-            .thenReturn(Optional.of(vendorProduct));
 
         // When
         List<OrderResponse> responses = orderService.getVendorOrders(vendorId);
@@ -326,16 +285,6 @@ class OrderServiceTest {
         // Given - Orders returned in descending order (newest first)
         Long vendorId = 2L;
 
-        // Setup vendor and vendor product for toOrderResponse
-        com.fuchs.oms.model.Vendor vendor = new com.fuchs.oms.model.Vendor();
-        vendor.setId(vendorId);
-        vendor.setName("Vendor Beta");
-
-        com.fuchs.oms.model.VendorProduct vendorProduct = new com.fuchs.oms.model.VendorProduct();
-        vendorProduct.setVendor(vendor);
-        vendorProduct.setProduct(testProduct);
-        vendorProduct.setPrice(new java.math.BigDecimal("45.00"));
-
         LocalDateTime older = LocalDateTime.of(2026, 1, 20, 10, 0, 0);
         LocalDateTime middle = LocalDateTime.of(2026, 1, 20, 12, 0, 0);
         LocalDateTime newest = LocalDateTime.of(2026, 1, 20, 14, 0, 0);
@@ -367,9 +316,6 @@ class OrderServiceTest {
         // Repository returns in DESC order (newest first)
         when(orderRepository.findByAllocatedVendorIdOrderByCreatedAtDesc(vendorId))
             .thenReturn(Arrays.asList(newOrder, middleOrder, oldOrder));
-        when(productRepository.findById(1L)).thenReturn(Optional.of(testProduct));
-        when(vendorProductRepository.findByVendorIdAndProductIdWithProduct(vendorId, 1L))
-            .thenReturn(Optional.of(vendorProduct));
 
         // When
         List<OrderResponse> responses = orderService.getVendorOrders(vendorId);
@@ -394,28 +340,20 @@ class OrderServiceTest {
         Long orderId = 1L;
         Long vendorId = 2L;
 
-        // Setup vendor and vendor product for toOrderResponse
-        com.fuchs.oms.model.Vendor vendor = new com.fuchs.oms.model.Vendor();
-        vendor.setId(vendorId);
-        vendor.setName("Vendor Beta");
-
-        com.fuchs.oms.model.VendorProduct vendorProduct = new com.fuchs.oms.model.VendorProduct();
-        vendorProduct.setVendor(vendor);
-        vendorProduct.setProduct(testProduct);
-        vendorProduct.setPrice(new java.math.BigDecimal("45.00"));
-
         Order order = new Order();
         order.setId(orderId);
         order.setProductId(1L);
         order.setQuantity(10);
         order.setAllocatedVendorId(vendorId);
+        order.setProductCode("widget-001");
+        order.setProductName("Widget");
+        order.setVendorName("Vendor Beta");
+        order.setUnitPrice(new java.math.BigDecimal("45.00"));
+        order.setTotalPrice(new java.math.BigDecimal("450.00"));
         order.setStatus("ALLOCATED");
         order.setCreatedAt(LocalDateTime.of(2026, 1, 20, 12, 0, 0));
 
         when(orderRepository.findById(orderId)).thenReturn(Optional.of(order));
-        when(productRepository.findById(1L)).thenReturn(Optional.of(testProduct));
-        when(vendorProductRepository.findByVendorIdAndProductIdWithProduct(vendorId, 1L))
-            .thenReturn(Optional.of(vendorProduct));
 
         // When
         OrderResponse response = orderService.getOrderById(orderId, vendorId);
@@ -428,7 +366,12 @@ class OrderServiceTest {
         assertThat(response.getAllocatedVendorId()).isEqualTo(vendorId);
         assertThat(response.getStatus()).isEqualTo("ALLOCATED");
         assertThat(response.getCreatedAt()).contains("2026-01-20T12:00");
+        // Read from the order row alone
+        assertThat(response.getProductName()).isEqualTo("Widget");
+        assertThat(response.getAllocatedVendorName()).isEqualTo("Vendor Beta");
+        assertThat(response.getTotalPrice()).isEqualByComparingTo("450.00");
         verify(orderRepository).findById(orderId);
+        verifyNoInteractions(vendorProductRepository, productRepository);
     }
 
     @Test
@@ -471,4 +414,56 @@ class OrderServiceTest {
 
         verify(orderRepository).findById(orderId);
     }
+
+    @Test
+    void fillBackorders_stopsAtFirstOrderThatCannotBeAllocated() {
+        // Given - three pending backorders; stock covers the first only
+        Order first = pendingOrder(11L, 10);
+        Order second = pendingOrder(12L, 500);
+        Order third = pendingOrder(13L, 5);
+        when(orderRepository.findAllById(List.of(11L, 12L, 13L))).thenReturn(List.of(third, first, second));
+        when(allocationService.allocate(1L, 10, null))
+            .thenReturn(new AllocationService.AllocationResult(2L, true));
+        when(allocationService.allocate(1L, 500, null))
+            .thenReturn(new AllocationService.AllocationResult(null, false));
+        when(vendorProductRepository.findOrderLineDetails(2L, 1L)).thenReturn(Optional.of(
+            new OrderLineDetails(1L, "widget-001", "Widget", "Vendor Beta", new java.math.BigDecimal("45.00"))));
+
+        // When
+        int done = orderService.fillBackorders(1L, List.of(11L, 12L, 13L));
+
+        // Then - the third order does not overtake the second
+        assertEquals(1, done);
+        assertEquals(Order.ALLOCATED, first.getStatus());
+        assertEquals(2L, first.getAllocatedVendorId());
+        assertEquals("Vendor Beta", first.getVendorName());
+        assertEquals(new java.math.BigDecimal("450.00"), first.getTotalPrice());
+        assertEquals(Order.PENDING, second.getStatus());
+        assertEquals(Order.PENDING, third.getStatus());
+        verify(allocationService, never()).allocate(1L, 5, null);
+    }
+
+    @Test
+    void fillBackorders_skipsOrdersNoLongerPending() {
+        // Given
+        Order allocated = pendingOrder(11L, 10);
+        allocated.setStatus(Order.ALLOCATED);
+        when(orderRepository.findAllById(List.of(11L, 12L))).thenReturn(List.of(allocated));
+
+        // When - order 12 no longer exists
+        int done = orderService.fillBackorders(1L, List.of(11L, 12L));
+
+        // Then
+        assertEquals(2, done);
+        verifyNoInteractions(allocationService);
+    }
+
+    private Order pendingOrder(Long id, int quantity) {
+        Order order = new Order();
+        order.setId(id);
+        order.setProductId(1L);
+        order.setQuantity(quantity);
+        order.setStatus(Order.PENDING);
+        return order;
+    }
 }
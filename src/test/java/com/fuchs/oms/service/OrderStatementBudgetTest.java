@@ -0,0 +1,97 @@
+package com.fuchs.oms.service;
+
+import com.fuchs.oms.dto.OrderRequest;
+import com.fuchs.oms.dto.OrderResponse;
+import com.fuchs.oms.exception.NoStockAvailableException;
+import com.fuchs.oms.exception.ProductNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Statement budgets for the order path, counted per thread by {@link StatementCounter}.
+ * A change that makes these paths run more statements should fail here, not in production.
+ */
+@SpringBootTest(properties = {
+    "spring.jpa.show-sql=false",
+    "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.fuchs.oms.service.StatementCounter"
+})
+@Sql(scripts = "/data.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class OrderStatementBudgetTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @BeforeEach
+    void warmUp() {
+        // The first order loads the product's offers into the offer book
+        orderService.createOrder(new OrderRequest(1L, 1));
+    }
+
+    @Test
+    void createOrder_runsAtMostThreeStatements() {
+        StatementCounter.reset();
+
+        OrderResponse response = orderService.createOrder(new OrderRequest(1L, 10));
+
+        // Guarded stock UPDATE, one read of the details copied onto the order, order INSERT
+        assertThat(StatementCounter.count()).isLessThanOrEqualTo(3);
+        assertThat(response.getAllocatedVendorId()).isEqualTo(2L);
+        assertThat(response.getProductName()).isEqualTo("Widget");
+        assertThat(response.getAllocatedVendorName()).isEqualTo("Vendor Beta");
+        assertThat(response.getTotalPrice()).isEqualByComparingTo(new BigDecimal("450.00"));
+    }
+
+    @Test
+    void createOrder_withoutStock_runsAtMostTwoStatements() {
+        StatementCounter.reset();
+
+        assertThatThrownBy(() -> orderService.createOrder(new OrderRequest(1L, 1_000)))
+            .isInstanceOf(NoStockAvailableException.class)
+            .hasMessageContaining("Widget");
+
+        // Database winner query in case the offer book lags, then the product name
+        assertThat(StatementCounter.count()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void createOrder_forUnknownProduct_runsAtMostThreeStatements() {
+        StatementCounter.reset();
+
+        assertThatThrownBy(() -> orderService.createOrder(new OrderRequest(999L, 1)))
+            .isInstanceOf(ProductNotFoundException.class);
+
+        assertThat(StatementCounter.count()).isLessThanOrEqualTo(3);
+    }
+
+    @Test
+    void getOrderById_runsOneStatement() {
+        Long orderId = orderService.createOrder(new OrderRequest(1L, 5)).getOrderId();
+        StatementCounter.reset();
+
+        orderService.getOrderById(orderId, 2L);
+
+        assertThat(StatementCounter.count()).isEqualTo(1);
+    }
+
+    @Test
+    void getVendorOrders_runsOneStatementRegardlessOfOrderCount() {
+        for (int i = 0; i < 5; i++) {
+            orderService.createOrder(new OrderRequest(1L, 1));
+        }
+        StatementCounter.reset();
+
+        assertThat(orderService.getVendorOrders(2L)).hasSize(6);
+
+        assertThat(StatementCounter.count()).isEqualTo(1);
+    }
+}
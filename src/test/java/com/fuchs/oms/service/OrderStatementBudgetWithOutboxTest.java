@@ -0,0 +1,47 @@
+package com.fuchs.oms.service;
+
+import com.fuchs.oms.dto.OrderRequest;
+import com.fuchs.oms.dto.OrderResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.jdbc.Sql;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The order path's statement budget with the outbox enabled, on top of the budget
+ * {@link OrderStatementBudgetTest} holds with it off.
+ */
+@SpringBootTest(properties = {
+    "spring.jpa.show-sql=false",
+    "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.fuchs.oms.service.StatementCounter",
+    "oms.outbox.sink=memory"
+})
+@Sql(scripts = "/data.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class OrderStatementBudgetWithOutboxTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @BeforeEach
+    void warmUp() {
+        // The first order loads the product's offers into the offer book
+        orderService.createOrder(new OrderRequest(1L, 1));
+    }
+
+    @Test
+    void createOrder_runsAtMostSixStatements() {
+        StatementCounter.reset();
+
+        OrderResponse response = orderService.createOrder(new OrderRequest(1L, 10));
+
+        // The three of the outbox-free path, then the product's outbox sequence UPDATE and
+        // SELECT and the event INSERT at commit
+        assertThat(StatementCounter.count()).isLessThanOrEqualTo(6);
+        assertThat(response.getAllocatedVendorId()).isEqualTo(2L);
+    }
+}
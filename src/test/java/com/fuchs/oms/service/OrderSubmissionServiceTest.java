@@ -0,0 +1,185 @@
+package com.fuchs.oms.service;
+
+import com.fuchs.oms.dto.OrderRequest;
+import com.fuchs.oms.dto.OrderResponse;
+import com.fuchs.oms.exception.NoStockAvailableException;
+import com.fuchs.oms.exception.OrderEngineBusyException;
+import com.fuchs.oms.exception.ProductNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OrderSubmissionServiceTest {
+
+    @Mock
+    private OrderEngine orderEngine;
+
+    @Mock
+    private ProductAvailability productAvailability;
+
+    @Mock
+    private BackorderQueue backorderQueue;
+
+    private OrderSubmissionService orderSubmissionService;
+
+    private OrderRequest request;
+
+    @BeforeEach
+    void setUp() {
+        orderSubmissionService = new OrderSubmissionService(orderEngine, productAvailability, backorderQueue, 50);
+        request = new OrderRequest(1L, 5);
+    }
+
+    @Test
+    void submit_returnsEngineResult() {
+        OrderResponse response = new OrderResponse(1L, 1L, "Widget", 5, 2L, "Vendor Beta",
+            new BigDecimal("45.00"), new BigDecimal("225.00"), "ALLOCATED", "2026-01-01T00:00:00Z");
+        when(orderEngine.submit(request)).thenReturn(CompletableFuture.completedFuture(response));
+
+        assertThat(orderSubmissionService.submit(request)).isEqualTo(response);
+    }
+
+    @Test
+    void submit_rethrowsEngineFailureUnwrapped() {
+        when(orderEngine.submit(request))
+            .thenReturn(CompletableFuture.failedFuture(new NoStockAvailableException("Widget")));
+
+        assertThatThrownBy(() -> orderSubmissionService.submit(request))
+            .isInstanceOf(NoStockAvailableException.class)
+            .hasMessageContaining("Widget");
+    }
+
+    @Test
+    void submit_whenEngineDoesNotAnswerInTime_throwsBusy() {
+        when(orderEngine.submit(request)).thenReturn(new CompletableFuture<>());
+
+        assertThatThrownBy(() -> orderSubmissionService.submit(request))
+            .isInstanceOf(OrderEngineBusyException.class);
+    }
+
+    @Test
+    void submit_onTimeout_withdrawsOrderFromEngine() {
+        OrderTicket ticket = new OrderTicket();
+        when(orderEngine.submit(request)).thenReturn(ticket);
+
+        assertThatThrownBy(() -> orderSubmissionService.submit(request))
+            .isInstanceOf(OrderEngineBusyException.class);
+        assertThat(ticket.isCancelled()).isTrue();
+        assertThat(ticket.take()).isFalse();
+    }
+
+    @Test
+    void submit_onTimeout_afterEngineTookOrder_returnsItsOutcome() {
+        OrderResponse response = new OrderResponse(1L, 1L, "Widget", 5, 2L, "Vendor Beta",
+            new BigDecimal("45.00"), new BigDecimal("225.00"), "ALLOCATED", "2026-01-01T00:00:00Z");
+        OrderTicket ticket = new OrderTicket();
+        assertThat(ticket.take()).isTrue();
+        when(orderEngine.submit(request)).thenReturn(ticket);
+        CompletableFuture.delayedExecutor(200, TimeUnit.MILLISECONDS).execute(() -> ticket.complete(response));
+
+        assertThat(orderSubmissionService.submit(request)).isEqualTo(response);
+        assertThat(ticket.isCancelled()).isFalse();
+    }
+
+    @Test
+    void submit_onTimeout_withoutTicket_handsOverTheOutcome() {
+        CompletableFuture<OrderResponse> outcome = new CompletableFuture<>();
+        when(orderEngine.submit(request)).thenReturn(outcome);
+
+        assertThatThrownBy(() -> orderSubmissionService.submit(request))
+            .isInstanceOfSatisfying(OrderEngineBusyException.class,
+                ex -> assertThat(ex.getOutcome()).isSameAs(outcome));
+        assertThat(outcome.isCancelled()).isFalse();
+    }
+
+    @Test
+    void submit_whenProductKnownSoldOut_rejectsWithoutEngine() {
+        doThrow(new NoStockAvailableException("Widget")).when(productAvailability).checkAvailable(1L);
+
+        assertThatThrownBy(() -> orderSubmissionService.submit(request))
+            .isInstanceOf(NoStockAvailableException.class);
+        verifyNoInteractions(orderEngine);
+    }
+
+    @Test
+    void submit_onNoStock_recordsSellOutAgainstObservedGeneration() {
+        when(productAvailability.offerGeneration(1L)).thenReturn(7L);
+        when(orderEngine.submit(request))
+            .thenReturn(CompletableFuture.failedFuture(new NoStockAvailableException("Widget")));
+
+        assertThatThrownBy(() -> orderSubmissionService.submit(request))
+            .isInstanceOf(NoStockAvailableException.class);
+        verify(productAvailability).recordNoStock(1L, "Widget", 7L);
+    }
+
+    @Test
+    void submit_onUnknownProduct_recordsUnknownProduct() {
+        when(orderEngine.submit(request))
+            .thenReturn(CompletableFuture.failedFuture(new ProductNotFoundException("Product not found: productId=1")));
+
+        assertThatThrownBy(() -> orderSubmissionService.submit(request))
+            .isInstanceOf(ProductNotFoundException.class);
+        verify(productAvailability).recordUnknownProduct(1L);
+    }
+
+    @Test
+    void submitBackorder_onNoStock_queuesOrder() {
+        request.setBackorder(true);
+        OrderResponse pending = new OrderResponse(9L, 1L, "Widget", 5, null, null, null, null, "PENDING", "2026-01-01T00:00:00Z");
+        when(orderEngine.submit(request))
+            .thenReturn(CompletableFuture.failedFuture(new NoStockAvailableException("Widget")));
+        when(backorderQueue.hasRoom(1L)).thenReturn(true);
+        when(backorderQueue.enqueue(request, 2L)).thenReturn(pending);
+
+        assertThat(orderSubmissionService.submit(request, 2L)).isEqualTo(pending);
+    }
+
+    @Test
+    void submitBackorder_whenQueueFull_rethrowsNoStock() {
+        request.setBackorder(true);
+        when(orderEngine.submit(request))
+            .thenReturn(CompletableFuture.failedFuture(new NoStockAvailableException("Widget")));
+        when(backorderQueue.hasRoom(1L)).thenReturn(false);
+
+        assertThatThrownBy(() -> orderSubmissionService.submit(request, 2L))
+            .isInstanceOf(NoStockAvailableException.class);
+        verify(backorderQueue, never()).enqueue(request, 2L);
+    }
+
+    @Test
+    void submitBackorder_behindWaitingBackorders_queuesWithoutEngine() {
+        request.setBackorder(true);
+        when(backorderQueue.hasWaiting(1L)).thenReturn(true);
+        when(backorderQueue.hasRoom(1L)).thenReturn(true);
+
+        orderSubmissionService.submit(request, 2L);
+
+        verify(backorderQueue).enqueue(request, 2L);
+        verifyNoInteractions(orderEngine);
+    }
+
+    @Test
+    void submitWithoutBackorder_onNoStock_doesNotQueue() {
+        when(orderEngine.submit(request))
+            .thenReturn(CompletableFuture.failedFuture(new NoStockAvailableException("Widget")));
+
+        assertThatThrownBy(() -> orderSubmissionService.submit(request, 2L))
+            .isInstanceOf(NoStockAvailableException.class);
+        verifyNoInteractions(backorderQueue);
+    }
+}
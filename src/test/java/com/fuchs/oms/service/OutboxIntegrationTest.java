@@ -0,0 +1,213 @@
+package com.fuchs.oms.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fuchs.oms.dto.OrderRequest;
+import com.fuchs.oms.dto.OrderResponse;
+import com.fuchs.oms.dto.OutboxMessage;
+import com.fuchs.oms.dto.StockUpdateRequest;
+import com.fuchs.oms.exception.NoStockAvailableException;
+import com.fuchs.oms.model.OutboxEvent;
+import com.fuchs.oms.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Transactional outbox: events are written with the change they describe and relayed to the
+ * sink in order, at least once.
+ */
+@SpringBootTest(properties = {
+    "oms.outbox.sink=memory",
+    "oms.outbox.poll-ms=50",
+    "oms.outbox.retry-ms=50"
+})
+@Sql(scripts = "/data.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class OutboxIntegrationTest {
+
+    @Autowired
+    private OrderSubmissionService orderSubmissionService;
+
+    @Autowired
+    private VendorService vendorService;
+
+    @Autowired
+    private InMemoryOutboxSink sink;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void submit_relaysStockChangeThenOrderAllocated() throws Exception {
+        OrderResponse order = orderSubmissionService.submit(new OrderRequest(1L, 10));
+
+        await(() -> sink.messages().size() == 2, Duration.ofSeconds(5));
+        List<OutboxMessage> messages = sink.messages();
+
+        assertThat(messages).extracting(OutboxMessage::getType)
+            .containsExactly(OutboxEvent.STOCK_CHANGED, OutboxEvent.ORDER_ALLOCATED);
+        assertThat(messages).extracting(OutboxMessage::getProductId).containsOnly(1L);
+        assertThat(messages).extracting(OutboxMessage::getSequence).containsExactly(1L, 2L);
+
+        JsonNode stockChanged = objectMapper.readTree(messages.get(0).getPayload());
+        assertThat(stockChanged.get("vendorId").asLong()).isEqualTo(2L);
+        assertThat(stockChanged.get("delta").asInt()).isEqualTo(-10);
+        assertThat(stockChanged.get("reason").asText()).isEqualTo("taken");
+
+        JsonNode allocated = objectMapper.readTree(messages.get(1).getPayload());
+        assertThat(allocated.get("orderId").asLong()).isEqualTo(order.getOrderId());
+        assertThat(allocated.get("vendorId").asLong()).isEqualTo(2L);
+        assertThat(allocated.get("totalPrice").decimalValue()).isEqualByComparingTo("450.00");
+
+        await(() -> outboxEventRepository.count() == 0, Duration.ofSeconds(5));
+    }
+
+    @Test
+    void rejectedOrder_writesNoEvents() throws InterruptedException {
+        assertThatThrownBy(() -> orderSubmissionService.submit(new OrderRequest(1L, 500)))
+            .isInstanceOf(NoStockAvailableException.class);
+
+        assertThat(outboxEventRepository.count()).isZero();
+        Thread.sleep(300);
+        assertThat(sink.messages()).isEmpty();
+    }
+
+    @Test
+    void updateStock_relaysTheNewStock() throws Exception {
+        vendorService.updateStock(3L, 1L, new StockUpdateRequest(25));
+
+        await(() -> sink.messages().size() == 1, Duration.ofSeconds(5));
+        JsonNode payload = objectMapper.readTree(sink.messages().get(0).getPayload());
+        assertThat(payload.get("vendorId").asLong()).isEqualTo(3L);
+        assertThat(payload.get("delta").asInt()).isEqualTo(25);
+        assertThat(payload.get("stock").asInt()).isEqualTo(25);
+        assertThat(payload.get("reason").asText()).isEqualTo("update");
+    }
+
+    @Test
+    void failedDelivery_isRetriedWithTheSameEvents() throws InterruptedException {
+        sink.failNextDeliveries(2);
+
+        orderSubmissionService.submit(new OrderRequest(1L, 10));
+
+        await(() -> sink.messages().size() == 2, Duration.ofSeconds(5));
+        assertThat(sink.messages()).extracting(OutboxMessage::getType)
+            .containsExactly(OutboxEvent.STOCK_CHANGED, OutboxEvent.ORDER_ALLOCATED);
+        assertThat(meterRegistry.get("oms.outbox.failures").counter().count()).isEqualTo(2.0);
+        await(() -> outboxEventRepository.count() == 0, Duration.ofSeconds(5));
+    }
+
+    @Test
+    void concurrentOrders_relayEachVendorsEventsInCommitOrder() throws Exception {
+        // 20 orders of 5 against 150 units (Beta 50, Alpha 100), so every order is allocated
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<OrderResponse>> futures = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                futures.add(executor.submit(() -> orderSubmissionService.submit(new OrderRequest(1L, 5))));
+            }
+            for (Future<OrderResponse> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        await(() -> sink.messages().size() == 40, Duration.ofSeconds(10));
+        List<OutboxMessage> messages = sink.messages();
+        assertThat(messages).extracting(OutboxMessage::getId).doesNotHaveDuplicates();
+        assertThat(messages).extracting(OutboxMessage::getSequence)
+            .containsExactlyElementsOf(LongStream.rangeClosed(1, 40).boxed().toList());
+
+        // Each vendor's events were written under its stock row's lock: delivered in id order,
+        // with every stock change directly followed by the order it was taken for
+        Map<Long, List<OutboxMessage>> byVendor = new HashMap<>();
+        for (OutboxMessage message : messages) {
+            long vendorId = objectMapper.readTree(message.getPayload()).get("vendorId").asLong();
+            byVendor.computeIfAbsent(vendorId, id -> new ArrayList<>()).add(message);
+        }
+        assertThat(byVendor.keySet()).containsExactlyInAnyOrder(1L, 2L);
+        byVendor.values().forEach(vendorMessages -> {
+            assertThat(vendorMessages).extracting(OutboxMessage::getId).isSorted();
+            for (int i = 0; i < vendorMessages.size(); i++) {
+                assertThat(vendorMessages.get(i).getType())
+                    .isEqualTo(i % 2 == 0 ? OutboxEvent.STOCK_CHANGED : OutboxEvent.ORDER_ALLOCATED);
+            }
+        });
+    }
+
+    @Test
+    void slowTransaction_isRelayedAfterEventsThatCommittedBeforeIt() throws Exception {
+        CountDownLatch written = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // Writes its event first but commits last, well past any settle time
+            Future<?> slow = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+                vendorService.updateStock(3L, 1L, new StockUpdateRequest(25));
+                written.countDown();
+                try {
+                    commit.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            assertThat(written.await(5, TimeUnit.SECONDS)).isTrue();
+            vendorService.updateStock(1L, 1L, new StockUpdateRequest(120));
+            Thread.sleep(300);
+            commit.countDown();
+            slow.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        await(() -> sink.messages().size() == 2, Duration.ofSeconds(5));
+        List<Long> vendorIds = new ArrayList<>();
+        for (OutboxMessage message : sink.messages()) {
+            vendorIds.add(objectMapper.readTree(message.getPayload()).get("vendorId").asLong());
+        }
+        assertThat(vendorIds).containsExactly(1L, 3L);
+        assertThat(sink.messages()).extracting(OutboxMessage::getSequence).containsExactly(1L, 2L);
+    }
+
+    private static void await(BooleanSupplier condition, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (condition.getAsBoolean()) {
+                return;
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("Condition not met within " + timeout);
+    }
+}
@@ -0,0 +1,83 @@
+package com.fuchs.oms.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fuchs.oms.dto.OutboxMessage;
+import com.fuchs.oms.model.OutboxEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestClient;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.content;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withServerError;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class OutboxSinkTest {
+
+    private static final List<OutboxMessage> BATCH = List.of(
+        new OutboxMessage(1L, OutboxEvent.STOCK_CHANGED, 1L, 1L,
+            "{\"productId\":1,\"vendorId\":2,\"delta\":-10,\"stock\":null,\"reason\":\"taken\"}",
+            "2026-01-01T12:00:00"),
+        new OutboxMessage(2L, OutboxEvent.ORDER_ALLOCATED, 1L, 2L,
+            "{\"orderId\":7,\"productId\":1,\"quantity\":10,\"vendorId\":2}",
+            "2026-01-01T12:00:00"));
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void fileSink_appendsOneJsonLinePerEvent(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("outbox/events.jsonl");
+        FileOutboxSink sink = new FileOutboxSink(objectMapper, file);
+
+        sink.deliver(BATCH);
+        sink.deliver(BATCH.subList(0, 1));
+
+        List<String> lines = Files.readAllLines(file);
+        assertThat(lines).hasSize(3);
+        JsonNode first = objectMapper.readTree(lines.get(0));
+        assertThat(first.get("id").asLong()).isEqualTo(1L);
+        assertThat(first.get("type").asText()).isEqualTo(OutboxEvent.STOCK_CHANGED);
+        // The payload is embedded as JSON, not as a string
+        assertThat(first.get("payload").get("delta").asInt()).isEqualTo(-10);
+        assertThat(objectMapper.readTree(lines.get(1)).get("payload").get("orderId").asLong()).isEqualTo(7L);
+    }
+
+    @Test
+    void webhookSink_postsTheBatchAsJsonArray() {
+        RestClient.Builder builder = RestClient.builder();
+        MockRestServiceServer server = MockRestServiceServer.bindTo(builder).build();
+        WebhookOutboxSink sink = new WebhookOutboxSink(builder.baseUrl("http://events.example/outbox").build());
+        server.expect(requestTo("http://events.example/outbox"))
+            .andExpect(method(HttpMethod.POST))
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+            .andExpect(content().json("[{\"id\":1,\"type\":\"StockChanged\",\"payload\":{\"delta\":-10}},"
+                + "{\"id\":2,\"type\":\"OrderAllocated\",\"payload\":{\"orderId\":7}}]"))
+            .andRespond(withSuccess());
+
+        sink.deliver(BATCH);
+
+        server.verify();
+    }
+
+    @Test
+    void webhookSink_throwsOnErrorResponseSoTheBatchIsRetried() {
+        RestClient.Builder builder = RestClient.builder();
+        MockRestServiceServer server = MockRestServiceServer.bindTo(builder).build();
+        WebhookOutboxSink sink = new WebhookOutboxSink(builder.baseUrl("http://events.example/outbox").build());
+        server.expect(requestTo("http://events.example/outbox")).andRespond(withServerError());
+
+        assertThatThrownBy(() -> sink.deliver(BATCH)).isInstanceOf(HttpServerErrorException.class);
+    }
+}
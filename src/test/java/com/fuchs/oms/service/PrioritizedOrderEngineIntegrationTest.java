@@ -0,0 +1,69 @@
+package com.fuchs.oms.service;
+
+import com.fuchs.oms.dto.OrderPriority;
+import com.fuchs.oms.dto.OrderRequest;
+import com.fuchs.oms.dto.OrderResponse;
+import com.fuchs.oms.exception.NoStockAvailableException;
+import com.fuchs.oms.repository.VendorProductRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.jdbc.Sql;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Integration tests for the prioritized engine: orders of every lane are allocated exactly as on
+ * the transactional path, and lane metrics are published.
+ */
+@SpringBootTest(properties = "oms.orders.engine=prioritized")
+@Sql(scripts = "/data.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class PrioritizedOrderEngineIntegrationTest {
+
+    @Autowired
+    private OrderEngine orderEngine;
+
+    @Autowired
+    private OrderSubmissionService orderSubmissionService;
+
+    @Autowired
+    private VendorProductRepository vendorProductRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void engine_isPrioritizedWhenConfigured() {
+        assertThat(orderEngine).isInstanceOf(PrioritizedOrderEngine.class);
+    }
+
+    @Test
+    void submit_allocatesOrdersOfEveryLane() {
+        // Given - Seed data: Vendor B ($45, 50 stock) is the cheapest with stock
+        OrderRequest expedited = new OrderRequest(1L, 10);
+        expedited.setPriority(OrderPriority.EXPEDITED);
+        OrderRequest bulk = new OrderRequest(1L, 40);
+        bulk.setPriority(OrderPriority.BULK);
+
+        // When
+        OrderResponse first = orderSubmissionService.submit(expedited);
+        OrderResponse second = orderSubmissionService.submit(bulk);
+
+        // Then
+        assertThat(first.getAllocatedVendorId()).isEqualTo(2L);
+        assertThat(second.getAllocatedVendorId()).isEqualTo(2L);
+        assertThat(vendorProductRepository.findByVendorIdAndProductId(2L, 1L).orElseThrow().getStock()).isZero();
+        assertThat(meterRegistry.get("oms.orders.lane.wait").tag("lane", "expedited").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("oms.orders.lane.wait").tag("lane", "bulk").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void submit_whenNoStock_throwsNoStockAvailable() {
+        assertThatThrownBy(() -> orderSubmissionService.submit(new OrderRequest(1L, 500)))
+            .isInstanceOf(NoStockAvailableException.class);
+    }
+}
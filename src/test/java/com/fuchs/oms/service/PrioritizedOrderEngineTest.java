@@ -0,0 +1,174 @@
+package com.fuchs.oms.service;
+
+import com.fuchs.oms.dto.OrderPriority;
+import com.fuchs.oms.dto.OrderRequest;
+import com.fuchs.oms.dto.OrderResponse;
+import com.fuchs.oms.exception.NoStockAvailableException;
+import com.fuchs.oms.exception.OrderEngineBusyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PrioritizedOrderEngineTest {
+
+    @Mock
+    private OrderService orderService;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private PrioritizedOrderEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        // One worker, so the lanes decide the order in which requests are served
+        engine = new PrioritizedOrderEngine(orderService, new ConflictRetry(meterRegistry, 1, 0, 0), meterRegistry,
+            1, 2, 8, 3, 1, 5_000);
+        engine.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        engine.stop();
+    }
+
+    @Test
+    void submit_servesExpeditedOrderAheadOfQueuedBulkOrders() throws Exception {
+        // Given - the worker is busy with a bulk order while more bulk and an expedited order queue up
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Integer> served = new CopyOnWriteArrayList<>();
+        when(orderService.createOrder(any())).thenAnswer(invocation -> {
+            OrderRequest request = invocation.getArgument(0);
+            served.add(request.getQuantity());
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return response(request);
+        });
+        CompletableFuture<OrderResponse> first = engine.submit(request(1, OrderPriority.BULK));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<OrderResponse> bulk = engine.submit(request(2, OrderPriority.BULK));
+        CompletableFuture<OrderResponse> expedited = engine.submit(request(3, OrderPriority.EXPEDITED));
+
+        // When
+        release.countDown();
+
+        // Then
+        CompletableFuture.allOf(first, bulk, expedited).get(5, TimeUnit.SECONDS);
+        assertThat(served).containsExactly(1, 3, 2);
+        assertThat(meterRegistry.get("oms.orders.lane.wait").tag("lane", "expedited").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("oms.orders.lane.depth").tag("lane", "bulk").gauge().value()).isZero();
+    }
+
+    @Test
+    void submit_whenLaneIsFull_failsBusy() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(orderService.createOrder(any())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return response(invocation.getArgument(0));
+        });
+        engine.submit(request(1, OrderPriority.BULK));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        engine.submit(request(2, OrderPriority.BULK));
+        engine.submit(request(3, OrderPriority.BULK));
+
+        CompletableFuture<OrderResponse> overflow = engine.submit(request(4, OrderPriority.BULK));
+        CompletableFuture<OrderResponse> otherLane = engine.submit(request(5, OrderPriority.STANDARD));
+        assertThat(meterRegistry.get("oms.orders.lane.depth").tag("lane", "bulk").gauge().value()).isEqualTo(2);
+        release.countDown();
+
+        assertThatThrownBy(() -> overflow.get(1, TimeUnit.SECONDS))
+            .isInstanceOf(ExecutionException.class)
+            .hasCauseInstanceOf(OrderEngineBusyException.class);
+        assertThat(otherLane.get(5, TimeUnit.SECONDS).getQuantity()).isEqualTo(5);
+    }
+
+    @Test
+    void submit_withoutPriority_usesStandardLaneAndPassesFailuresThrough() {
+        when(orderService.createOrder(any())).thenThrow(new NoStockAvailableException("Widget"));
+
+        CompletableFuture<OrderResponse> future = engine.submit(new OrderRequest(1L, 5));
+
+        assertThatThrownBy(() -> future.get(5, TimeUnit.SECONDS))
+            .isInstanceOf(ExecutionException.class)
+            .hasCauseInstanceOf(NoStockAvailableException.class);
+        assertThat(meterRegistry.get("oms.orders.lane.wait").tag("lane", "standard").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void submit_orderCancelledWhileQueued_isNotAllocated() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Integer> served = new CopyOnWriteArrayList<>();
+        when(orderService.createOrder(any())).thenAnswer(invocation -> {
+            OrderRequest request = invocation.getArgument(0);
+            served.add(request.getQuantity());
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return response(request);
+        });
+        CompletableFuture<OrderResponse> first = engine.submit(request(1, OrderPriority.BULK));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<OrderResponse> withdrawn = engine.submit(request(2, OrderPriority.BULK));
+        CompletableFuture<OrderResponse> next = engine.submit(request(3, OrderPriority.BULK));
+
+        assertThat(withdrawn.cancel(false)).isTrue();
+        release.countDown();
+
+        CompletableFuture.allOf(first, next).get(5, TimeUnit.SECONDS);
+        assertThat(served).containsExactly(1, 3);
+    }
+
+    @Test
+    void stop_failsOrdersStillQueued() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(orderService.createOrder(any())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return response(invocation.getArgument(0));
+        });
+        CompletableFuture<OrderResponse> running = engine.submit(request(1, OrderPriority.BULK));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<OrderResponse> queued = engine.submit(request(2, OrderPriority.BULK));
+
+        CompletableFuture<Void> stopped = CompletableFuture.runAsync(engine::stop);
+        release.countDown();
+        stopped.get(5, TimeUnit.SECONDS);
+
+        assertThat(running.get(1, TimeUnit.SECONDS).getQuantity()).isEqualTo(1);
+        assertThatThrownBy(() -> queued.get(1, TimeUnit.SECONDS))
+            .isInstanceOf(ExecutionException.class)
+            .hasCauseInstanceOf(OrderEngineBusyException.class);
+    }
+
+    private static OrderRequest request(int quantity, OrderPriority priority) {
+        OrderRequest request = new OrderRequest(1L, quantity);
+        request.setPriority(priority);
+        return request;
+    }
+
+    private static OrderResponse response(OrderRequest request) {
+        return new OrderResponse(1L, 1L, "Widget", request.getQuantity(), 2L, "Vendor Beta",
+            null, null, "ALLOCATED", "2026-01-01T00:00:00Z");
+    }
+}
@@ -0,0 +1,116 @@
+package com.fuchs.oms.service;
+
+import com.fuchs.oms.exception.NoStockAvailableException;
+import com.fuchs.oms.exception.ProductNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ProductAvailabilityTest {
+
+    @Mock
+    private OfferBook offerBook;
+
+    private ProductAvailability productAvailability;
+
+    private Consumer<Long> offerListener;
+
+    @BeforeEach
+    void setUp() {
+        productAvailability = new ProductAvailability(offerBook, new SimpleMeterRegistry(), 60_000, 60_000);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Consumer<Long>> listener = ArgumentCaptor.forClass(Consumer.class);
+        verify(offerBook).addListener(listener.capture());
+        offerListener = listener.getValue();
+    }
+
+    @Test
+    void recordNoStock_whenNoVendorHasStock_marksSoldOut() {
+        when(offerBook.getOffers(1L)).thenReturn(List.of(offer(1L, 0), offer(2L, 0)));
+
+        productAvailability.recordNoStock(1L, "Widget", productAvailability.offerGeneration(1L));
+
+        assertThatThrownBy(() -> productAvailability.checkAvailable(1L))
+            .isInstanceOf(NoStockAvailableException.class)
+            .hasMessage("No vendor has stock for product: Widget");
+    }
+
+    @Test
+    void recordNoStock_whenOrderWasOnlyTooLarge_doesNotMarkSoldOut() {
+        when(offerBook.getOffers(1L)).thenReturn(List.of(offer(1L, 0), offer(2L, 5)));
+
+        productAvailability.recordNoStock(1L, "Widget", productAvailability.offerGeneration(1L));
+
+        assertThatCode(() -> productAvailability.checkAvailable(1L)).doesNotThrowAnyException();
+    }
+
+    @Test
+    void recordNoStock_whenOffersChangedDuringAttempt_doesNotMarkSoldOut() {
+        when(offerBook.getOffers(1L)).thenReturn(List.of(offer(1L, 0)));
+        long generation = productAvailability.offerGeneration(1L);
+
+        offerListener.accept(1L);
+        productAvailability.recordNoStock(1L, "Widget", generation);
+
+        assertThatCode(() -> productAvailability.checkAvailable(1L)).doesNotThrowAnyException();
+    }
+
+    @Test
+    void offerChange_clearsSoldOutMarker() {
+        when(offerBook.getOffers(1L)).thenReturn(List.of(offer(1L, 0)));
+        productAvailability.recordNoStock(1L, "Widget", productAvailability.offerGeneration(1L));
+
+        offerListener.accept(1L);
+
+        assertThatCode(() -> productAvailability.checkAvailable(1L)).doesNotThrowAnyException();
+    }
+
+    @Test
+    void soldOutMarker_expiresAfterTtl() {
+        ProductAvailability shortLived = new ProductAvailability(offerBook, new SimpleMeterRegistry(), 60_000, 0);
+        when(offerBook.getOffers(1L)).thenReturn(List.of(offer(1L, 0)));
+
+        shortLived.recordNoStock(1L, "Widget", shortLived.offerGeneration(1L));
+
+        // Stock added elsewhere never reaches this node's book; the marker lapses on its own
+        assertThatCode(() -> shortLived.checkAvailable(1L)).doesNotThrowAnyException();
+    }
+
+    @Test
+    void recordUnknownProduct_rejectsUntilForgotten() {
+        productAvailability.recordUnknownProduct(99L);
+
+        assertThatThrownBy(() -> productAvailability.checkAvailable(99L))
+            .isInstanceOf(ProductNotFoundException.class);
+
+        productAvailability.forget(99L);
+
+        assertThatCode(() -> productAvailability.checkAvailable(99L)).doesNotThrowAnyException();
+    }
+
+    @Test
+    void recordUnknownProduct_expiresAfterTtl() {
+        ProductAvailability shortLived = new ProductAvailability(offerBook, new SimpleMeterRegistry(), 0, 60_000);
+        shortLived.recordUnknownProduct(99L);
+
+        assertThatCode(() -> shortLived.checkAvailable(99L)).doesNotThrowAnyException();
+    }
+
+    private static OfferBook.Offer offer(Long vendorId, int stock) {
+        return new OfferBook.Offer(vendorId, "Vendor " + vendorId, new BigDecimal("45.00"), stock);
+    }
+}
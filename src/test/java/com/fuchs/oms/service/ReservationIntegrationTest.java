@@ -0,0 +1,202 @@
+package com.fuchs.oms.service;
+
+import com.fuchs.oms.dto.CapacityUpdateRequest;
+import com.fuchs.oms.dto.OrderResponse;
+import com.fuchs.oms.dto.ReservationRequest;
+import com.fuchs.oms.dto.ReservationResponse;
+import com.fuchs.oms.exception.NoStockAvailableException;
+import com.fuchs.oms.exception.ReservationNotHeldException;
+import com.fuchs.oms.exception.ResourceNotFoundException;
+import com.fuchs.oms.model.Reservation;
+import com.fuchs.oms.repository.OrderRepository;
+import com.fuchs.oms.repository.ReservationRepository;
+import com.fuchs.oms.repository.VendorProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Integration tests for reserve-then-confirm: stock is held at the FR12 vendor, confirmation
+ * creates the order, and the expiry wheel returns unconfirmed stock.
+ */
+@SpringBootTest(properties = "oms.reservations.tick-ms=20")
+@Sql(scripts = "/data.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class ReservationIntegrationTest {
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private VendorProductRepository vendorProductRepository;
+
+    @Autowired
+    private OfferBook offerBook;
+
+    @Autowired
+    private ReservationExpiry reservationExpiry;
+
+    @Autowired
+    private VendorService vendorService;
+
+    @Autowired
+    private VendorCapacity vendorCapacity;
+
+    @Test
+    void reserve_holdsStockAtCheapestVendorWithoutCreatingOrder() {
+        // Given - Seed data: Vendor B ($45, 50 stock) is the cheapest with stock
+
+        // When
+        ReservationResponse response = reservationService.reserve(new ReservationRequest(1L, 10, 60));
+
+        // Then
+        assertThat(response.getVendorId()).isEqualTo(2L);
+        assertThat(response.getVendorName()).isEqualTo("Vendor Beta");
+        assertThat(response.getStatus()).isEqualTo(Reservation.HELD);
+        assertThat(stockOf(2L)).isEqualTo(40);
+        assertThat(orderRepository.count()).isZero();
+    }
+
+    @Test
+    void reserve_whenNoVendorHasStock_throws() {
+        assertThatThrownBy(() -> reservationService.reserve(new ReservationRequest(1L, 500, 60)))
+            .isInstanceOf(NoStockAvailableException.class);
+
+        assertThat(reservationRepository.count()).isZero();
+    }
+
+    @Test
+    void confirm_createsOrderAtReservedVendor() {
+        ReservationResponse reservation = reservationService.reserve(new ReservationRequest(1L, 10, 60));
+
+        OrderResponse order = reservationService.confirm(reservation.getReservationId());
+
+        assertThat(order.getAllocatedVendorId()).isEqualTo(2L);
+        assertThat(order.getQuantity()).isEqualTo(10);
+        assertThat(order.getStatus()).isEqualTo("ALLOCATED");
+        assertThat(stockOf(2L)).isEqualTo(40);
+        Reservation confirmed = reservationRepository.findById(reservation.getReservationId()).orElseThrow();
+        assertThat(confirmed.getStatus()).isEqualTo(Reservation.CONFIRMED);
+        assertThat(confirmed.getOrderId()).isEqualTo(order.getOrderId());
+    }
+
+    @Test
+    void confirm_twice_throwsNotHeld() {
+        ReservationResponse reservation = reservationService.reserve(new ReservationRequest(1L, 10, 60));
+        reservationService.confirm(reservation.getReservationId());
+
+        assertThatThrownBy(() -> reservationService.confirm(reservation.getReservationId()))
+            .isInstanceOf(ReservationNotHeldException.class);
+        assertThat(orderRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void confirm_unknownReservation_throwsNotFound() {
+        assertThatThrownBy(() -> reservationService.confirm(999L))
+            .isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    @Test
+    void expiredReservations_areReleasedAndStockReturned() throws Exception {
+        // Given - Several short holds on Vendor B
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(reservationService.reserve(new ReservationRequest(1L, 2, 1)).getReservationId());
+        }
+        assertThat(stockOf(2L)).isEqualTo(40);
+
+        // When
+        awaitStatus(ids, Reservation.RELEASED, Duration.ofSeconds(5));
+
+        // Then - Stock is back in the database and in the offer book
+        assertThat(stockOf(2L)).isEqualTo(50);
+        assertThat(offerBook.getOffers(1L)).filteredOn(offer -> offer.vendorId().equals(2L))
+            .singleElement()
+            .extracting(OfferBook.Offer::stock)
+            .isEqualTo(50);
+        assertThatThrownBy(() -> reservationService.confirm(ids.get(0)))
+            .isInstanceOf(ReservationNotHeldException.class);
+    }
+
+    @Test
+    void reservationExpiringTwice_returnsItsStockOnce() throws Exception {
+        Long released = reservationService.reserve(new ReservationRequest(1L, 2, 1)).getReservationId();
+        awaitStatus(List.of(released), Reservation.RELEASED, Duration.ofSeconds(5));
+        Long held = reservationService.reserve(new ReservationRequest(1L, 10, 60)).getReservationId();
+        assertThat(stockOf(2L)).isEqualTo(40);
+
+        // Both fire in the same tick; the first was already released
+        LocalDateTime now = LocalDateTime.now();
+        reservationExpiry.schedule(released, now);
+        reservationExpiry.schedule(held, now);
+        awaitStatus(List.of(held), Reservation.RELEASED, Duration.ofSeconds(5));
+
+        assertThat(stockOf(2L)).isEqualTo(50);
+    }
+
+    @Test
+    void expiredReservation_givesBackVendorCapacity() throws Exception {
+        vendorService.updateCapacity(2L, new CapacityUpdateRequest(1, null));
+        Long id = reservationService.reserve(new ReservationRequest(1L, 5, 1)).getReservationId();
+        assertThat(vendorCapacity.ordersInWindow(2L)).isEqualTo(1);
+
+        awaitStatus(List.of(id), Reservation.RELEASED, Duration.ofSeconds(5));
+
+        assertThat(vendorCapacity.ordersInWindow(2L)).isZero();
+        assertThat(reservationService.reserve(new ReservationRequest(1L, 5, 60)).getVendorId()).isEqualTo(2L);
+    }
+
+    @Test
+    void confirmedReservation_isNotReleasedOnExpiry() throws Exception {
+        ReservationResponse reservation = reservationService.reserve(new ReservationRequest(1L, 10, 1));
+        reservationService.confirm(reservation.getReservationId());
+
+        Thread.sleep(1500);
+
+        assertThat(reservationRepository.findById(reservation.getReservationId()).orElseThrow().getStatus())
+            .isEqualTo(Reservation.CONFIRMED);
+        assertThat(stockOf(2L)).isEqualTo(40);
+    }
+
+    @Test
+    void heldReservation_isNotReleasedBeforeExpiry() throws Exception {
+        ReservationResponse reservation = reservationService.reserve(new ReservationRequest(1L, 10, 60));
+
+        Thread.sleep(200);
+
+        Reservation held = reservationRepository.findById(reservation.getReservationId()).orElseThrow();
+        assertThat(held.getStatus()).isEqualTo(Reservation.HELD);
+        assertThat(held.getExpiresAt()).isAfter(LocalDateTime.now());
+    }
+
+    private int stockOf(Long vendorId) {
+        return vendorProductRepository.findByVendorIdAndProductId(vendorId, 1L).orElseThrow().getStock();
+    }
+
+    private void awaitStatus(List<Long> ids, String status, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (reservationRepository.findAllById(ids).stream().allMatch(r -> status.equals(r.getStatus()))) {
+                return;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("Reservations " + ids + " did not reach " + status + " within " + timeout);
+    }
+}
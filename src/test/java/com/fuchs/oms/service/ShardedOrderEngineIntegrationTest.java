@@ -0,0 +1,164 @@
+package com.fuchs.oms.service;
+
+import com.fuchs.oms.dto.OrderRequest;
+import com.fuchs.oms.dto.OrderResponse;
+import com.fuchs.oms.dto.ProductRequest;
+import com.fuchs.oms.dto.StockUpdateRequest;
+import com.fuchs.oms.exception.NoStockAvailableException;
+import com.fuchs.oms.exception.ProductNotFoundException;
+import com.fuchs.oms.repository.OrderRepository;
+import com.fuchs.oms.repository.VendorProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Integration tests for the sharded single-writer engine: allocation must match the
+ * transactional path (FR12, no oversell) while orders are persisted in batches.
+ */
+@SpringBootTest(properties = "oms.orders.engine=sharded")
+@Sql(scripts = "/data.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class ShardedOrderEngineIntegrationTest {
+
+    @Autowired
+    private OrderEngine orderEngine;
+
+    @Autowired
+    private OrderSubmissionService orderSubmissionService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private VendorProductRepository vendorProductRepository;
+
+    @Autowired
+    private VendorService vendorService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Test
+    void engine_isShardedWhenConfigured() {
+        assertThat(orderEngine).isInstanceOf(ShardedOrderEngine.class);
+    }
+
+    @Test
+    void submit_allocatesToCheapestVendorWithStock() {
+        // Given - Seed data: Vendor B ($45, 50 stock) is the cheapest with stock
+
+        // When
+        OrderResponse response = orderSubmissionService.submit(new OrderRequest(1L, 10));
+
+        // Then
+        assertThat(response.getOrderId()).isNotNull();
+        assertThat(response.getAllocatedVendorId()).isEqualTo(2L);
+        assertThat(response.getAllocatedVendorName()).isEqualTo("Vendor Beta");
+        assertThat(response.getProductName()).isEqualTo("Widget");
+        assertThat(response.getTotalPrice()).isEqualByComparingTo(new BigDecimal("450.00"));
+        assertThat(response.getStatus()).isEqualTo("ALLOCATED");
+        assertThat(vendorProductRepository.findByVendorIdAndProductId(2L, 1L).orElseThrow().getStock())
+            .isEqualTo(40);
+    }
+
+    @Test
+    void submit_afterProductUpdate_copiesTheNewNameOntoTheOrder() {
+        orderSubmissionService.submit(new OrderRequest(1L, 1));
+        ProductRequest update = new ProductRequest();
+        update.setName("Widget Pro");
+        update.setProductCode("widget-pro");
+        productService.updateProduct(1L, update);
+
+        OrderResponse response = orderSubmissionService.submit(new OrderRequest(1L, 1));
+
+        assertThat(response.getProductName()).isEqualTo("Widget Pro");
+        assertThat(orderRepository.findById(response.getOrderId()).orElseThrow().getProductCode())
+            .isEqualTo("widget-pro");
+    }
+
+    @Test
+    void submit_whenCheapestVendorRunsOut_fallsThroughToNextVendor() {
+        orderSubmissionService.submit(new OrderRequest(1L, 45));
+
+        OrderResponse response = orderSubmissionService.submit(new OrderRequest(1L, 10));
+
+        assertThat(response.getAllocatedVendorId()).isEqualTo(1L);
+        assertThat(vendorProductRepository.findByVendorIdAndProductId(1L, 1L).orElseThrow().getStock())
+            .isEqualTo(90);
+    }
+
+    @Test
+    void submit_seesStockAddedByVendor() {
+        vendorService.updateStock(3L, 1L, new StockUpdateRequest(20));
+
+        OrderResponse response = orderSubmissionService.submit(new OrderRequest(1L, 5));
+
+        // Vendor C ($40) now has stock and wins
+        assertThat(response.getAllocatedVendorId()).isEqualTo(3L);
+    }
+
+    @Test
+    void submit_whenNoVendorHasStock_rejectsWithoutSavingOrder() {
+        assertThatThrownBy(() -> orderSubmissionService.submit(new OrderRequest(1L, 500)))
+            .isInstanceOf(NoStockAvailableException.class)
+            .hasMessageContaining("Widget");
+
+        assertThat(orderRepository.count()).isZero();
+    }
+
+    @Test
+    void submit_unknownProduct_throwsProductNotFound() {
+        assertThatThrownBy(() -> orderSubmissionService.submit(new OrderRequest(999L, 1)))
+            .isInstanceOf(ProductNotFoundException.class);
+    }
+
+    @Test
+    void submit_concurrentOrders_neverOversell() throws Exception {
+        // Given - 150 units in stock across Vendor A and B, 200 single-unit orders
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        List<CompletableFuture<OrderResponse>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < 200; i++) {
+                futures.add(CompletableFuture.supplyAsync(
+                    () -> orderSubmissionService.submit(new OrderRequest(1L, 1)), executor));
+            }
+
+            // When
+            int allocated = 0;
+            int rejected = 0;
+            for (CompletableFuture<OrderResponse> future : futures) {
+                try {
+                    future.get(30, TimeUnit.SECONDS);
+                    allocated++;
+                } catch (ExecutionException ex) {
+                    assertThat(ex.getCause()).isInstanceOf(NoStockAvailableException.class);
+                    rejected++;
+                }
+            }
+
+            // Then
+            assertThat(allocated).isEqualTo(150);
+            assertThat(rejected).isEqualTo(50);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(orderRepository.count()).isEqualTo(150);
+        assertThat(vendorProductRepository.findByVendorIdAndProductId(1L, 1L).orElseThrow().getStock()).isZero();
+        assertThat(vendorProductRepository.findByVendorIdAndProductId(2L, 1L).orElseThrow().getStock()).isZero();
+    }
+}
@@ -0,0 +1,94 @@
+package com.fuchs.oms.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleConsumerRingBufferTest {
+
+    @Test
+    void constructor_rejectsCapacityThatIsNotPowerOfTwo() {
+        assertThatThrownBy(() -> new SingleConsumerRingBuffer<String>(6))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void drainTo_returnsElementsInPublicationOrder() {
+        SingleConsumerRingBuffer<Integer> ring = new SingleConsumerRingBuffer<>(4);
+        ring.offer(1);
+        ring.offer(2);
+        ring.offer(3);
+
+        List<Integer> drained = new ArrayList<>();
+        int count = ring.drainTo(drained::add, 10);
+
+        assertThat(count).isEqualTo(3);
+        assertThat(drained).containsExactly(1, 2, 3);
+        assertThat(ring.isEmpty()).isTrue();
+    }
+
+    @Test
+    void drainTo_respectsMaxElements() {
+        SingleConsumerRingBuffer<Integer> ring = new SingleConsumerRingBuffer<>(4);
+        ring.offer(1);
+        ring.offer(2);
+        ring.offer(3);
+
+        List<Integer> drained = new ArrayList<>();
+        ring.drainTo(drained::add, 2);
+
+        assertThat(drained).containsExactly(1, 2);
+        assertThat(ring.isEmpty()).isFalse();
+    }
+
+    @Test
+    void offer_whenFull_returnsFalseUntilDrained() {
+        SingleConsumerRingBuffer<Integer> ring = new SingleConsumerRingBuffer<>(2);
+        assertThat(ring.offer(1)).isTrue();
+        assertThat(ring.offer(2)).isTrue();
+
+        assertThat(ring.offer(3)).isFalse();
+
+        ring.drainTo(element -> { }, 1);
+        assertThat(ring.offer(3)).isTrue();
+    }
+
+    @Test
+    void offer_fromManyProducers_deliversEveryElementOnce() throws Exception {
+        SingleConsumerRingBuffer<Integer> ring = new SingleConsumerRingBuffer<>(64);
+        int producers = 4;
+        int perProducer = 5_000;
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int p = 0; p < producers; p++) {
+            int base = p * perProducer;
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < perProducer; i++) {
+                    while (!ring.offer(base + i)) {
+                        Thread.onSpinWait();
+                    }
+                }
+                return null;
+            });
+        }
+
+        List<Integer> drained = new ArrayList<>();
+        start.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (drained.size() < producers * perProducer && System.nanoTime() < deadline) {
+            ring.drainTo(drained::add, 32);
+        }
+        executor.shutdownNow();
+
+        assertThat(drained).hasSize(producers * perProducer).doesNotHaveDuplicates();
+    }
+}
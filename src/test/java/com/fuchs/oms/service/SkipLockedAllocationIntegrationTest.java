@@ -0,0 +1,90 @@
+package com.fuchs.oms.service;
+
+import com.fuchs.oms.repository.VendorProductRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for the SKIP LOCKED allocation mode against the real database:
+ * an order must not queue behind a row another transaction holds.
+ */
+@SpringBootTest(properties = "oms.allocation.lock-mode=skip-locked")
+@Sql(scripts = "/data.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class SkipLockedAllocationIntegrationTest {
+
+    @Autowired
+    private AllocationService allocationService;
+
+    @Autowired
+    private VendorProductRepository vendorProductRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void allocate_withUnlockedRows_allocatesToCheapestVendor() {
+        // Given - Seed data: Vendor B ($45, 50 stock) is the cheapest with stock
+
+        // When
+        AllocationService.AllocationResult result = allocationService.allocate(1L, 10);
+
+        // Then
+        assertThat(result.success()).isTrue();
+        assertThat(result.vendorId()).isEqualTo(2L);
+        assertThat(vendorProductRepository.findByVendorIdAndProductId(2L, 1L).orElseThrow().getStock())
+            .isEqualTo(40);
+    }
+
+    @Test
+    void allocate_whenCheapestRowLocked_divertsToNextVendorWithoutWaiting() throws Exception {
+        // Given - Another transaction holds Vendor B's row lock
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> holder = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(
+            status -> {
+                vendorProductRepository.lockForAllocationSkipLocked(2L, 1L, 1);
+                locked.countDown();
+                await(release);
+            }));
+        assertThat(locked.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // When
+        AllocationService.AllocationResult result;
+        try {
+            result = allocationService.allocate(1L, 10);
+        } finally {
+            release.countDown();
+            holder.get(5, TimeUnit.SECONDS);
+        }
+
+        // Then - Vendor A (ID=1) takes the order and the diversion is counted
+        assertThat(result.success()).isTrue();
+        assertThat(result.vendorId()).isEqualTo(1L);
+        assertThat(meterRegistry.counter("oms.allocation.skip-locked.diversions").count()).isEqualTo(1.0);
+        assertThat(vendorProductRepository.findByVendorIdAndProductId(2L, 1L).orElseThrow().getStock())
+            .isEqualTo(50);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.fuchs.oms.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SlidingWindowCounterTest {
+
+    @Test
+    void constructor_rejectsInvalidSizes() {
+        assertThatThrownBy(() -> new SlidingWindowCounter(0, 10)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new SlidingWindowCounter(10, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void tryAcquire_enforcesEventAndUnitLimits() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(1000, 60);
+
+        assertThat(counter.tryAcquire(4, 3, 10, 0)).isTrue();
+        assertThat(counter.tryAcquire(4, 3, 10, 500)).isTrue();
+        // Units: 8 + 4 > 10
+        assertThat(counter.tryAcquire(4, 3, 10, 1000)).isFalse();
+        assertThat(counter.tryAcquire(2, 3, 10, 1000)).isTrue();
+        // Events: 3 + 1 > 3
+        assertThat(counter.tryAcquire(0, 3, 10, 2000)).isFalse();
+
+        assertThat(counter.events(2000)).isEqualTo(3);
+        assertThat(counter.units(2000)).isEqualTo(10);
+    }
+
+    @Test
+    void events_dropOutOfWindowByBucket() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(1000, 60);
+        counter.tryAcquire(1, 10, 100, 0);
+        counter.tryAcquire(1, 10, 100, 30_000);
+
+        assertThat(counter.events(59_999)).isEqualTo(2);
+        assertThat(counter.events(60_000)).isEqualTo(1);
+        assertThat(counter.events(90_000)).isZero();
+
+        // The slot of the first event is reused once time comes back around to it
+        assertThat(counter.tryAcquire(1, 2, 100, 60_000)).isTrue();
+        assertThat(counter.events(60_000)).isEqualTo(2);
+    }
+
+    @Test
+    void add_ignoresLimitsAndOldEvents() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(1000, 60);
+
+        counter.add(5, 10_000, 65_000);
+        counter.add(5, 2_000, 65_000);
+        counter.add(5, 64_000, 65_000);
+
+        assertThat(counter.events(65_000)).isEqualTo(2);
+        assertThat(counter.units(65_000)).isEqualTo(10);
+    }
+
+    @Test
+    void release_takesBackNewestEvent() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(1000, 60);
+        counter.tryAcquire(3, 10, 100, 0);
+        counter.tryAcquire(3, 10, 100, 5_000);
+
+        counter.release(3, 5_500);
+
+        assertThat(counter.events(5_500)).isEqualTo(1);
+        assertThat(counter.units(5_500)).isEqualTo(3);
+        assertThat(counter.tryAcquire(3, 2, 100, 5_500)).isTrue();
+    }
+
+    @Test
+    void tryAcquire_concurrentCallers_neverExceedLimit() throws Exception {
+        SlidingWindowCounter counter = new SlidingWindowCounter(60_000, 60);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<Integer>> tasks = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                tasks.add(() -> {
+                    int acquired = 0;
+                    for (int i = 0; i < 1_000; i++) {
+                        if (counter.tryAcquire(1, 2_500, Long.MAX_VALUE, 1_000)) {
+                            acquired++;
+                        }
+                    }
+                    return acquired;
+                });
+            }
+            int total = 0;
+            for (Future<Integer> result : executor.invokeAll(tasks)) {
+                total += result.get();
+            }
+            assertThat(total).isEqualTo(2_500);
+            assertThat(counter.events(1_000)).isEqualTo(2_500);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
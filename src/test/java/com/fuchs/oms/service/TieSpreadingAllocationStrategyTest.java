@@ -0,0 +1,68 @@
+package com.fuchs.oms.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TieSpreadingAllocationStrategyTest {
+
+    private final TieSpreadingAllocationStrategy strategy = new TieSpreadingAllocationStrategy();
+
+    @Test
+    void rank_rotatesVendorsTiedOnLowestPrice() {
+        List<OfferBook.Offer> offers = List.of(
+            offer(1L, "45.00", 10), offer(2L, "45.00", 10), offer(3L, "45.00", 10), offer(4L, "50.00", 10));
+
+        assertThat(vendorIds(strategy.rank(1L, 1, offers))).containsExactly(1L, 2L, 3L, 4L);
+        assertThat(vendorIds(strategy.rank(1L, 1, offers))).containsExactly(2L, 3L, 1L, 4L);
+        assertThat(vendorIds(strategy.rank(1L, 1, offers))).containsExactly(3L, 1L, 2L, 4L);
+        assertThat(vendorIds(strategy.rank(1L, 1, offers))).containsExactly(1L, 2L, 3L, 4L);
+    }
+
+    @Test
+    void rank_keepsCheaperVendorFirst() {
+        List<OfferBook.Offer> offers = List.of(
+            offer(3L, "40.00", 10), offer(1L, "45.00", 10), offer(2L, "45.00", 10));
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(strategy.rank(1L, 1, offers)).isSameAs(offers);
+        }
+    }
+
+    @Test
+    void rank_onlyRotatesVendorsThatCoverQuantity() {
+        // Vendor 1 is cheapest but short; vendor 2 is tied with vendor 4 once vendor 3 is excluded
+        List<OfferBook.Offer> offers = List.of(
+            offer(1L, "40.00", 2), offer(2L, "45.00", 10), offer(3L, "45.00", 2), offer(4L, "45.00", 10));
+
+        assertThat(vendorIds(strategy.rank(1L, 5, offers))).containsExactly(2L, 4L, 1L, 3L);
+        assertThat(vendorIds(strategy.rank(1L, 5, offers))).containsExactly(4L, 2L, 1L, 3L);
+    }
+
+    @Test
+    void rank_keepsSeparatePointerPerProduct() {
+        List<OfferBook.Offer> offers = List.of(offer(1L, "45.00", 10), offer(2L, "45.00", 10));
+
+        assertThat(vendorIds(strategy.rank(1L, 1, offers))).containsExactly(1L, 2L);
+        assertThat(vendorIds(strategy.rank(2L, 1, offers))).containsExactly(1L, 2L);
+        assertThat(vendorIds(strategy.rank(1L, 1, offers))).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void rank_withoutCoveringOffer_returnsOffersUnchanged() {
+        List<OfferBook.Offer> offers = List.of(offer(1L, "45.00", 1), offer(2L, "45.00", 1));
+
+        assertThat(strategy.rank(1L, 5, offers)).isSameAs(offers);
+    }
+
+    private static List<Long> vendorIds(List<OfferBook.Offer> offers) {
+        return offers.stream().map(OfferBook.Offer::vendorId).toList();
+    }
+
+    private static OfferBook.Offer offer(Long vendorId, String price, int stock) {
+        return new OfferBook.Offer(vendorId, "Vendor " + vendorId, new BigDecimal(price), stock);
+    }
+}
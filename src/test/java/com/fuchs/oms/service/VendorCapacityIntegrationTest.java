@@ -0,0 +1,78 @@
+package com.fuchs.oms.service;
+
+import com.fuchs.oms.dto.CapacityUpdateRequest;
+import com.fuchs.oms.dto.OrderRequest;
+import com.fuchs.oms.dto.OrderResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.jdbc.Sql;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Hourly vendor capacity: windows seeded from stored orders and enforced by allocation.
+ */
+@SpringBootTest
+@Sql(scripts = "/data.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class VendorCapacityIntegrationTest {
+
+    @Autowired
+    private VendorCapacity vendorCapacity;
+
+    @Autowired
+    private VendorService vendorService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void updateCapacity_seedsWindowFromRecentOrders() {
+        // Given - two orders for Vendor B before it sets a capacity
+        orderService.createOrder(new OrderRequest(1L, 3));
+        orderService.createOrder(new OrderRequest(1L, 4));
+
+        // When
+        vendorService.updateCapacity(2L, new CapacityUpdateRequest(2, null));
+
+        // Then - Vendor B is already at capacity, so the next order goes to Vendor A
+        assertThat(vendorCapacity.ordersInWindow(2L)).isEqualTo(2);
+        assertThat(vendorCapacity.unitsInWindow(2L)).isEqualTo(7);
+        OrderResponse next = orderService.createOrder(new OrderRequest(1L, 1));
+        assertThat(next.getAllocatedVendorId()).isEqualTo(1L);
+    }
+
+    @Test
+    void rebuild_ignoresOrdersOlderThanAnHour() {
+        // Given
+        vendorService.updateCapacity(2L, new CapacityUpdateRequest(null, 10));
+        orderService.createOrder(new OrderRequest(1L, 4));
+        orderService.createOrder(new OrderRequest(1L, 5));
+        jdbcTemplate.update("UPDATE orders SET created_at = DATEADD('HOUR', -2, created_at) WHERE quantity = 5");
+
+        // When - as on startup
+        vendorCapacity.rebuild();
+
+        // Then - only the recent order counts, leaving room for 6 more units
+        assertThat(vendorCapacity.unitsInWindow(2L)).isEqualTo(4);
+        assertThat(orderService.createOrder(new OrderRequest(1L, 7)).getAllocatedVendorId()).isEqualTo(1L);
+        assertThat(orderService.createOrder(new OrderRequest(1L, 6)).getAllocatedVendorId()).isEqualTo(2L);
+    }
+
+    @Test
+    void updateCapacity_withNoLimits_stopsTracking() {
+        vendorService.updateCapacity(2L, new CapacityUpdateRequest(1, null));
+        orderService.createOrder(new OrderRequest(1L, 1));
+
+        vendorService.updateCapacity(2L, new CapacityUpdateRequest(null, null));
+
+        assertThat(vendorCapacity.ordersInWindow(2L)).isZero();
+        assertThat(orderService.createOrder(new OrderRequest(1L, 1)).getAllocatedVendorId()).isEqualTo(2L);
+    }
+}
@@ -0,0 +1,161 @@
+package com.fuchs.oms.service;
+
+import com.fuchs.oms.model.Vendor;
+import com.fuchs.oms.repository.VendorRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class VendorLocationIndexTest {
+
+    private static final GeoPoint BERLIN = new GeoPoint(52.52, 13.40);
+    private static final GeoPoint POTSDAM = new GeoPoint(52.39, 13.06);
+    private static final GeoPoint HAMBURG = new GeoPoint(53.55, 9.99);
+    private static final GeoPoint MADRID = new GeoPoint(40.42, -3.70);
+
+    @Mock
+    private OfferBook offerBook;
+
+    @Mock
+    private VendorRepository vendorRepository;
+
+    private final List<Vendor> vendors = new ArrayList<>();
+    private final List<OfferBook.Offer> offers = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(vendorRepository.findByLatitudeIsNotNullAndLongitudeIsNotNull()).thenReturn(vendors);
+        lenient().when(offerBook.getOffers(1L)).thenReturn(offers);
+        lenient().when(offerBook.getOffer(eq(1L), anyLong())).thenAnswer(invocation -> offers.stream()
+            .filter(offer -> offer.vendorId().equals(invocation.getArgument(1)))
+            .findFirst().orElse(null));
+    }
+
+    @Test
+    void rank_returnsOnlyVendorsWithinRadius() {
+        vendor(1L, HAMBURG, "50.00", 100);
+        vendor(2L, MADRID, "10.00", 100);
+        VendorLocationIndex index = index(500, 0);
+
+        assertThat(index.rank(1L, 10, BERLIN)).extracting(OfferBook.Offer::vendorId).containsExactly(1L);
+    }
+
+    @Test
+    void rank_withoutDistanceCost_prefersCheapestInRange() {
+        vendor(1L, POTSDAM, "50.00", 100);
+        vendor(2L, HAMBURG, "45.00", 100);
+        VendorLocationIndex index = index(500, 0);
+
+        assertThat(index.rank(1L, 10, BERLIN)).extracting(OfferBook.Offer::vendorId).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void rank_withDistanceCost_tradesPriceForDistance() {
+        // Hamburg is ~230 km further away than Potsdam; at 0.10/km that outweighs the $5 discount
+        vendor(1L, POTSDAM, "50.00", 100);
+        vendor(2L, HAMBURG, "45.00", 100);
+        VendorLocationIndex index = index(500, 0.10);
+
+        assertThat(index.rank(1L, 10, BERLIN)).extracting(OfferBook.Offer::vendorId).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void rank_skipsInsufficientStockAndVendorsWithoutLocation() {
+        vendor(1L, POTSDAM, "50.00", 5);
+        vendor(2L, HAMBURG, "45.00", 100);
+        offers.add(new OfferBook.Offer(3L, "Vendor 3", new BigDecimal("40.00"), 100));
+        VendorLocationIndex index = index(500, 0);
+
+        assertThat(index.rank(1L, 10, BERLIN)).extracting(OfferBook.Offer::vendorId).containsExactly(2L);
+    }
+
+    @Test
+    void rank_wrapsAcrossAntimeridian() {
+        vendor(1L, new GeoPoint(-17.80, 179.90), "50.00", 100);
+        VendorLocationIndex index = index(100, 0);
+
+        assertThat(index.rank(1L, 10, new GeoPoint(-17.80, -179.90))).extracting(OfferBook.Offer::vendorId)
+            .containsExactly(1L);
+    }
+
+    @Test
+    void rank_nearPole_searchesAllLongitudes() {
+        vendor(1L, new GeoPoint(89.90, -90.0), "50.00", 100);
+        VendorLocationIndex index = index(100, 0);
+
+        assertThat(index.rank(1L, 10, new GeoPoint(89.90, 90.0))).extracting(OfferBook.Offer::vendorId)
+            .containsExactly(1L);
+    }
+
+    @Test
+    void rank_readsStockFromOfferBookOnEveryLookup() {
+        vendor(1L, POTSDAM, "50.00", 100);
+        VendorLocationIndex index = index(500, 0);
+        index.rank(1L, 10, BERLIN);
+
+        offers.set(0, new OfferBook.Offer(1L, "Vendor 1", new BigDecimal("50.00"), 0));
+
+        assertThat(index.rank(1L, 10, BERLIN)).isEmpty();
+        verify(offerBook, times(1)).getOffers(1L);
+    }
+
+    @Test
+    void invalidate_rebuildsGridWithNewlyEnrolledVendor() {
+        vendor(1L, HAMBURG, "50.00", 100);
+        vendor(2L, POTSDAM, "45.00", 100);
+        OfferBook.Offer notYetEnrolled = offers.remove(1);
+        VendorLocationIndex index = index(500, 0);
+        index.rank(1L, 10, BERLIN);
+
+        offers.add(notYetEnrolled);
+        index.invalidate(1L);
+
+        assertThat(index.rank(1L, 10, BERLIN)).extracting(OfferBook.Offer::vendorId).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void onVendorMoved_usesNewOrigin() {
+        vendor(1L, MADRID, "50.00", 100);
+        VendorLocationIndex index = index(500, 0);
+        assertThat(index.rank(1L, 10, BERLIN)).isEmpty();
+
+        index.onVendorMoved(1L, POTSDAM);
+
+        assertThat(index.rank(1L, 10, BERLIN)).extracting(OfferBook.Offer::vendorId).containsExactly(1L);
+    }
+
+    @Test
+    void constructor_rejectsInvalidSettings() {
+        assertThatThrownBy(() -> new VendorLocationIndex(offerBook, vendorRepository, 0, 0, 1.0))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new VendorLocationIndex(offerBook, vendorRepository, 500, 0, 0))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private VendorLocationIndex index(double maxKm, double costPerKm) {
+        VendorLocationIndex index = new VendorLocationIndex(offerBook, vendorRepository, maxKm, costPerKm, 1.0);
+        index.loadOrigins();
+        return index;
+    }
+
+    private void vendor(Long id, GeoPoint origin, String price, int stock) {
+        Vendor vendor = new Vendor();
+        vendor.setId(id);
+        vendor.setName("Vendor " + id);
+        vendor.setLatitude(origin.latitude());
+        vendor.setLongitude(origin.longitude());
+        vendors.add(vendor);
+        offers.add(new OfferBook.Offer(id, vendor.getName(), new BigDecimal(price), stock));
+    }
+}
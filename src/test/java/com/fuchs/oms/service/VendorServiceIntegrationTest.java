@@ -7,8 +7,19 @@ import com.fuchs.oms.repository.VendorProductRepository;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -24,6 +35,12 @@ class VendorServiceIntegrationTest {
     @Autowired
     private VendorProductRepository vendorProductRepository;
 
+    @Autowired
+    private ConflictRetry conflictRetry;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
     @Test
     void decrementStock_persistsToDatabase() {
         // Given - Vendor 1 has 100 stock for product 1
@@ -132,4 +149,62 @@ class VendorServiceIntegrationTest {
             .hasMessageContaining("Insufficient stock")
             .hasMessageContaining("available=0");
     }
+
+    @Test
+    void tryDecrementStock_concurrentCallers_neverOversell() throws Exception {
+        // Given - Vendor 2 has 50 stock; 20 callers each want 10
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Callable<Boolean>> calls = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            calls.add(() -> vendorService.tryDecrementStock(2L, 1L, 10));
+        }
+
+        // When
+        int succeeded = 0;
+        for (Future<Boolean> result : executor.invokeAll(calls)) {
+            if (result.get()) {
+                succeeded++;
+            }
+        }
+        executor.shutdown();
+
+        // Then - Exactly 5 succeed and stock ends at zero, never negative
+        assertThat(succeeded).isEqualTo(5);
+        assertThat(vendorProductRepository.findByVendorIdAndProductId(2L, 1L).orElseThrow().getStock())
+            .isEqualTo(0);
+    }
+
+    @Test
+    void entityUpdate_afterConcurrentDecrement_failsOptimistically() {
+        // Given - A copy read before another order decrements the row
+        VendorProduct stale = vendorProductRepository.findByVendorIdAndProductId(1L, 1L).orElseThrow();
+        vendorService.decrementStock(1L, 1L, 10);
+
+        // When/Then - Writing the stale copy no longer silently overwrites the decrement
+        stale.setStock(500);
+        assertThatThrownBy(() -> vendorProductRepository.save(stale))
+            .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+        assertThat(vendorProductRepository.findByVendorIdAndProductId(1L, 1L).orElseThrow().getStock())
+            .isEqualTo(90);
+    }
+
+    @Test
+    void conflictRetry_rereadsRowAfterOptimisticConflict() {
+        // Given - The first attempt races with an order that decrements 10 units
+        AtomicInteger attempts = new AtomicInteger();
+
+        // When - Add 5 units read-modify-write style
+        conflictRetry.run("updateStock", 1L, () -> transactionTemplate.executeWithoutResult(status -> {
+            VendorProduct vp = vendorProductRepository.findByVendorIdAndProductId(1L, 1L).orElseThrow();
+            if (attempts.incrementAndGet() == 1) {
+                CompletableFuture.runAsync(() -> vendorService.decrementStock(1L, 1L, 10)).join();
+            }
+            vp.setStock(vp.getStock() + 5);
+        }));
+
+        // Then - Second attempt sees the decrement: 100 - 10 + 5
+        assertThat(attempts.get()).isEqualTo(2);
+        assertThat(vendorProductRepository.findByVendorIdAndProductId(1L, 1L).orElseThrow().getStock())
+            .isEqualTo(95);
+    }
 }
@@ -35,6 +35,12 @@ class VendorServiceTest {
     @Mock
     private VendorProductRepository vendorProductRepository;
 
+    @Mock
+    private OfferBook offerBook;
+
+    @Mock
+    private Outbox outbox;
+
     @InjectMocks
     private VendorService vendorService;
 
@@ -173,6 +179,32 @@ class VendorServiceTest {
         assertThat(vendorProduct.getStock()).isEqualTo(150);
     }
 
+    @Test
+    void updateStock_publishesNewStockToOfferBook() {
+        StockUpdateRequest request = new StockUpdateRequest(150);
+        when(vendorProductRepository.findByVendorIdAndProductIdWithProduct(1L, 1L))
+            .thenReturn(Optional.of(vendorProduct));
+        when(vendorProductRepository.save(any(VendorProduct.class)))
+            .thenAnswer(invocation -> invocation.getArgument(0));
+
+        vendorService.updateStock(1L, 1L, request);
+
+        verify(offerBook).onOfferChanged(1L, 1L, "Vendor Alpha", new BigDecimal("50.00"), 150);
+    }
+
+    @Test
+    void updateStock_recordsStockChangeInOutbox() {
+        StockUpdateRequest request = new StockUpdateRequest(150);
+        when(vendorProductRepository.findByVendorIdAndProductIdWithProduct(1L, 1L))
+            .thenReturn(Optional.of(vendorProduct));
+        when(vendorProductRepository.save(any(VendorProduct.class)))
+            .thenAnswer(invocation -> invocation.getArgument(0));
+
+        vendorService.updateStock(1L, 1L, request);
+
+        verify(outbox).stockChanged(1L, 1L, 50, 150, "update");
+    }
+
     @Test
     void updateStock_throwsWhenProductNotFound() {
         StockUpdateRequest request = new StockUpdateRequest(150);
@@ -190,37 +222,30 @@ class VendorServiceTest {
     }
 
     @Test
-    void decrementStock_withSufficientStock_reducesStockByQuantity() {
-        vendorProduct.setStock(50);
-        when(vendorProductRepository.findByVendorIdAndProductIdWithProduct(1L, 1L))
-            .thenReturn(Optional.of(vendorProduct));
-        when(vendorProductRepository.save(any(VendorProduct.class)))
-            .thenReturn(vendorProduct);
+    void decrementStock_withSufficientStock_issuesGuardedUpdate() {
+        when(vendorProductRepository.decrementStockIfAvailable(1L, 1L, 10)).thenReturn(1);
 
         vendorService.decrementStock(1L, 1L, 10);
 
-        assertThat(vendorProduct.getStock()).isEqualTo(40);
-        verify(vendorProductRepository).save(vendorProduct);
+        verify(vendorProductRepository).decrementStockIfAvailable(1L, 1L, 10);
+        verify(vendorProductRepository, never()).findByVendorIdAndProductId(anyLong(), anyLong());
+        verify(vendorProductRepository, never()).save(any());
     }
 
     @Test
-    void decrementStock_persistsUpdatedStockToDatabase() {
-        vendorProduct.setStock(100);
-        when(vendorProductRepository.findByVendorIdAndProductIdWithProduct(1L, 1L))
-            .thenReturn(Optional.of(vendorProduct));
-        when(vendorProductRepository.save(any(VendorProduct.class)))
-            .thenReturn(vendorProduct);
+    void decrementStock_adjustsOfferBookStock() {
+        when(vendorProductRepository.decrementStockIfAvailable(1L, 1L, 10)).thenReturn(1);
 
-        vendorService.decrementStock(1L, 1L, 25);
+        vendorService.decrementStock(1L, 1L, 10);
 
-        verify(vendorProductRepository).save(vendorProduct);
-        assertThat(vendorProduct.getStock()).isEqualTo(75);
+        verify(offerBook).onStockAdjusted(1L, 1L, -10);
     }
 
     @Test
     void decrementStock_withInsufficientStock_throwsInsufficientStockException() {
         vendorProduct.setStock(5);
-        when(vendorProductRepository.findByVendorIdAndProductIdWithProduct(1L, 1L))
+        when(vendorProductRepository.decrementStockIfAvailable(1L, 1L, 10)).thenReturn(0);
+        when(vendorProductRepository.findByVendorIdAndProductId(1L, 1L))
             .thenReturn(Optional.of(vendorProduct));
 
         assertThatThrownBy(() -> vendorService.decrementStock(1L, 1L, 10))
@@ -229,28 +254,13 @@ class VendorServiceTest {
             .hasMessageContaining("available=5")
             .hasMessageContaining("requested=10");
 
-        verify(vendorProductRepository, never()).save(any());
-    }
-
-    @Test
-    void decrementStock_withInsufficientStock_leavesStockUnchanged() {
-        vendorProduct.setStock(5);
-        when(vendorProductRepository.findByVendorIdAndProductIdWithProduct(1L, 1L))
-            .thenReturn(Optional.of(vendorProduct));
-
-        try {
-            vendorService.decrementStock(1L, 1L, 10);
-        } catch (InsufficientStockException e) {
-            // expected
-        }
-
-        assertThat(vendorProduct.getStock()).isEqualTo(5);
-        verify(vendorProductRepository, never()).save(any());
+        verify(offerBook, never()).onStockAdjusted(anyLong(), anyLong(), anyInt());
     }
 
     @Test
     void decrementStock_withNonExistentProduct_throwsResourceNotFoundException() {
-        when(vendorProductRepository.findByVendorIdAndProductIdWithProduct(1L, 999L))
+        when(vendorProductRepository.decrementStockIfAvailable(1L, 999L, 10)).thenReturn(0);
+        when(vendorProductRepository.findByVendorIdAndProductId(1L, 999L))
             .thenReturn(Optional.empty());
 
         assertThatThrownBy(() -> vendorService.decrementStock(1L, 999L, 10))
@@ -258,21 +268,24 @@ class VendorServiceTest {
             .hasMessageContaining("Product not found for vendor")
             .hasMessageContaining("vendorId=1")
             .hasMessageContaining("productId=999");
+    }
 
-        verify(vendorProductRepository, never()).save(any());
+    @Test
+    void tryDecrementStock_whenNoRowUpdated_returnsFalse() {
+        when(vendorProductRepository.decrementStockIfAvailable(1L, 1L, 10)).thenReturn(0);
+
+        boolean decremented = vendorService.tryDecrementStock(1L, 1L, 10);
+
+        assertThat(decremented).isFalse();
+        verify(offerBook, never()).onStockAdjusted(anyLong(), anyLong(), anyInt());
     }
 
     @Test
-    void decrementStock_withExactStockAmount_reducesToZero() {
-        vendorProduct.setStock(10);
-        when(vendorProductRepository.findByVendorIdAndProductIdWithProduct(1L, 1L))
-            .thenReturn(Optional.of(vendorProduct));
-        when(vendorProductRepository.save(any(VendorProduct.class)))
-            .thenReturn(vendorProduct);
+    void tryDecrementStock_whenRowUpdated_returnsTrue() {
+        when(vendorProductRepository.decrementStockIfAvailable(1L, 1L, 10)).thenReturn(1);
 
-        vendorService.decrementStock(1L, 1L, 10);
+        boolean decremented = vendorService.tryDecrementStock(1L, 1L, 10);
 
-        assertThat(vendorProduct.getStock()).isEqualTo(0);
-        verify(vendorProductRepository).save(vendorProduct);
+        assertThat(decremented).isTrue();
     }
 }
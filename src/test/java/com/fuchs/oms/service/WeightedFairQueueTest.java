@@ -0,0 +1,115 @@
+package com.fuchs.oms.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WeightedFairQueueTest {
+
+    private enum Lane { FAST, SLOW }
+
+    @Test
+    void constructor_rejectsMissingOrNonPositiveWeight() {
+        assertThatThrownBy(() -> new WeightedFairQueue<Lane, String>(Lane.class, Map.of(Lane.FAST, 1), 10))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new WeightedFairQueue<Lane, String>(Lane.class, Map.of(Lane.FAST, 1, Lane.SLOW, 0), 10))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void drain_removesEveryWaitingElement() throws InterruptedException {
+        WeightedFairQueue<Lane, String> queue = new WeightedFairQueue<>(Lane.class, Map.of(Lane.FAST, 3, Lane.SLOW, 1), 10);
+        queue.offer(Lane.SLOW, "slow");
+        queue.offer(Lane.FAST, "fast");
+
+        assertThat(queue.drain()).containsExactly("fast", "slow");
+        assertThat(queue.poll(0, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    void poll_sharesTurnsByWeightAndInterleavesThem() throws InterruptedException {
+        WeightedFairQueue<Lane, String> queue = new WeightedFairQueue<>(Lane.class, Map.of(Lane.FAST, 3, Lane.SLOW, 1), 100);
+        for (int i = 0; i < 20; i++) {
+            queue.offer(Lane.FAST, "fast");
+            queue.offer(Lane.SLOW, "slow");
+        }
+
+        List<String> taken = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            taken.add(queue.poll(0, TimeUnit.MILLISECONDS));
+        }
+
+        assertThat(taken).containsExactly("fast", "fast", "slow", "fast", "fast", "fast", "slow", "fast");
+    }
+
+    @Test
+    void poll_keepsFifoOrderWithinLane() throws InterruptedException {
+        WeightedFairQueue<Lane, Integer> queue = new WeightedFairQueue<>(Lane.class, Map.of(Lane.FAST, 1, Lane.SLOW, 1), 10);
+        queue.offer(Lane.SLOW, 1);
+        queue.offer(Lane.SLOW, 2);
+        queue.offer(Lane.SLOW, 3);
+
+        assertThat(queue.poll(0, TimeUnit.MILLISECONDS)).isEqualTo(1);
+        assertThat(queue.poll(0, TimeUnit.MILLISECONDS)).isEqualTo(2);
+        assertThat(queue.poll(0, TimeUnit.MILLISECONDS)).isEqualTo(3);
+    }
+
+    @Test
+    void poll_idleLaneDoesNotBankCredit() throws InterruptedException {
+        // The slow lane alone gets every turn, and that must not let it monopolise later turns
+        WeightedFairQueue<Lane, String> queue = new WeightedFairQueue<>(Lane.class, Map.of(Lane.FAST, 1, Lane.SLOW, 1), 100);
+        for (int i = 0; i < 10; i++) {
+            queue.offer(Lane.SLOW, "slow");
+        }
+        for (int i = 0; i < 5; i++) {
+            queue.poll(0, TimeUnit.MILLISECONDS);
+        }
+        queue.offer(Lane.FAST, "fast");
+        queue.offer(Lane.FAST, "fast");
+
+        List<String> taken = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            taken.add(queue.poll(0, TimeUnit.MILLISECONDS));
+        }
+
+        assertThat(taken).containsExactlyInAnyOrder("fast", "fast", "slow", "slow");
+        assertThat(taken.subList(0, 2)).containsExactlyInAnyOrder("fast", "slow");
+    }
+
+    @Test
+    void offer_rejectsWhenLaneIsFull() {
+        WeightedFairQueue<Lane, String> queue = new WeightedFairQueue<>(Lane.class, Map.of(Lane.FAST, 1, Lane.SLOW, 1), 2);
+
+        assertThat(queue.offer(Lane.SLOW, "a")).isTrue();
+        assertThat(queue.offer(Lane.SLOW, "b")).isTrue();
+        assertThat(queue.offer(Lane.SLOW, "c")).isFalse();
+        assertThat(queue.offer(Lane.FAST, "d")).isTrue();
+        assertThat(queue.size(Lane.SLOW)).isEqualTo(2);
+    }
+
+    @Test
+    void poll_waitsForElementOrTimesOut() throws Exception {
+        WeightedFairQueue<Lane, String> queue = new WeightedFairQueue<>(Lane.class, Map.of(Lane.FAST, 1, Lane.SLOW, 1), 10);
+
+        assertThat(queue.poll(20, TimeUnit.MILLISECONDS)).isNull();
+
+        CompletableFuture<String> taken = CompletableFuture.supplyAsync(() -> {
+            try {
+                return queue.poll(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(50);
+        queue.offer(Lane.FAST, "late");
+
+        assertThat(taken.get(5, TimeUnit.SECONDS)).isEqualTo("late");
+    }
+}